@@ -0,0 +1,81 @@
+package com.ticketsystem.config;
+
+import com.ticketsystem.service.DatabaseWrites;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+
+/**
+ * Guarantees at most one current (ASSIGNED or ACTIVE) assignment per ticket
+ * with a partial unique index, which Hibernate's ddl-auto cannot express.
+ * TicketAssignmentService already serializes changes per ticket; the index
+ * turns any path that bypasses it into an error instead of a second assignee.
+ *
+ * A one-off migration: once the index exists this does nothing. The first time,
+ * duplicates left by earlier versions are marked REASSIGNED (the row is kept as
+ * history), keeping the newest row per ticket current (the one the API already
+ * showed), and the index is created in the same transaction. Runs as soon as
+ * the beans are initialized, before the web server accepts requests. Only
+ * applies to PostgreSQL.
+ */
+@Component
+public class AssignmentSchemaInitializer implements SmartInitializingSingleton {
+
+    private static final Logger log = LoggerFactory.getLogger(AssignmentSchemaInitializer.class);
+
+    static final String INDEX = "uq_ticket_assignments_current";
+
+    // Current rows with a newer current row on the same ticket
+    private static final String SUPERSEDED = """
+            FROM ticket_assignments older
+            WHERE older.status IN ('ASSIGNED', 'ACTIVE')
+              AND EXISTS (SELECT 1 FROM ticket_assignments newer
+                          WHERE newer.ticket_id = older.ticket_id
+                            AND newer.status IN ('ASSIGNED', 'ACTIVE')
+                            AND (coalesce(older.assigned_at, '-infinity'), older.id)
+                                < (coalesce(newer.assigned_at, '-infinity'), newer.id))
+            """;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private DatabaseWrites databaseWrites;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        if (!databaseWrites.isPostgres()) {
+            log.info("Skipping active assignment index on {}", databaseWrites.product());
+            return;
+        }
+        Boolean exists = jdbcTemplate.queryForObject("SELECT to_regclass(?) IS NOT NULL", Boolean.class, INDEX);
+        if (Boolean.TRUE.equals(exists))
+            return;
+
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            List<Long> superseded = jdbcTemplate.queryForList("SELECT older.id " + SUPERSEDED + " FOR UPDATE",
+                    Long.class);
+            if (!superseded.isEmpty()) {
+                jdbcTemplate.update("UPDATE ticket_assignments SET status = 'REASSIGNED' WHERE id IN ("
+                        + String.join(",", superseded.stream().map(String::valueOf).toList()) + ")");
+                log.warn("Marked {} duplicate current ticket assignments REASSIGNED before creating {}: ids {}",
+                        superseded.size(), INDEX, superseded);
+            }
+            jdbcTemplate.execute("""
+                    CREATE UNIQUE INDEX %s ON ticket_assignments (ticket_id)
+                    WHERE status IN ('ASSIGNED', 'ACTIVE')
+                    """.formatted(INDEX));
+            log.info("Created {}", INDEX);
+        });
+    }
+}
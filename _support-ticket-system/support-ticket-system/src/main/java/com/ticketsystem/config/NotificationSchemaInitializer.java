@@ -0,0 +1,44 @@
+package com.ticketsystem.config;
+
+import com.ticketsystem.service.DatabaseWrites;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * Moves notifications_seq past the ids already in the notifications table.
+ *
+ * Notification ids used to come from an identity column; ddl-auto creates the
+ * new sequence starting at 1, which would collide with existing rows. Runs as
+ * soon as the beans are initialized (after the schema update, before the web
+ * server accepts requests). Only applies to PostgreSQL.
+ */
+@Component
+public class NotificationSchemaInitializer implements SmartInitializingSingleton {
+
+    private static final Logger log = LoggerFactory.getLogger(NotificationSchemaInitializer.class);
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private DatabaseWrites databaseWrites;
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        if (!databaseWrites.isPostgres()) {
+            log.info("Skipping notification sequence sync on {}", databaseWrites.product());
+            return;
+        }
+        // Hibernate's pooled optimizer hands out (value - 50, value], so stay a full block ahead of max(id)
+        Long next = jdbcTemplate.queryForObject("""
+                SELECT setval('notifications_seq', greatest(
+                        (SELECT coalesce(max(id), 0) FROM notifications) + 50,
+                        (SELECT last_value FROM notifications_seq)))
+                """, Long.class);
+        log.debug("notifications_seq at {}", next);
+    }
+}
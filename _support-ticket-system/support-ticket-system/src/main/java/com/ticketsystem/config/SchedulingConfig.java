@@ -0,0 +1,14 @@
+package com.ticketsystem.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * Turns on @Scheduled jobs (periodic reconciliation of in-memory state). They
+ * share the pool sized by spring.task.scheduling.pool.size; jobs hand long work
+ * to their own executors rather than holding a scheduler thread.
+ */
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+}
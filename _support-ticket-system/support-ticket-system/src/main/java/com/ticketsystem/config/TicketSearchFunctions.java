@@ -0,0 +1,127 @@
+package com.ticketsystem.config;
+
+import org.hibernate.boot.model.FunctionContributions;
+import org.hibernate.boot.model.FunctionContributor;
+import org.hibernate.dialect.PostgreSQLDialect;
+import org.hibernate.query.ReturnableType;
+import org.hibernate.query.sqm.function.AbstractSqmSelfRenderingFunctionDescriptor;
+import org.hibernate.query.sqm.produce.function.StandardArgumentsValidators;
+import org.hibernate.query.sqm.produce.function.StandardFunctionArgumentTypeResolvers;
+import org.hibernate.query.sqm.produce.function.StandardFunctionReturnTypeResolvers;
+import org.hibernate.sql.ast.SqlAstTranslator;
+import org.hibernate.sql.ast.spi.SqlAppender;
+import org.hibernate.sql.ast.tree.SqlAstNode;
+import org.hibernate.sql.ast.tree.expression.ColumnReference;
+import org.hibernate.sql.ast.tree.expression.Expression;
+import org.hibernate.type.BasicType;
+import org.hibernate.type.StandardBasicTypes;
+
+import java.util.List;
+
+/**
+ * HQL functions for ticket text search, registered through
+ * META-INF/services/org.hibernate.boot.model.FunctionContributor.
+ *
+ * ticket_search(t.id, t.title, t.description, :q) - boolean match
+ * ticket_search_rank(t.id, :q)                     - relevance, higher is better
+ *
+ * On PostgreSQL they use the tickets.search_vector column and GIN index created by
+ * {@link TicketSearchSchemaInitializer}; a numeric query also matches the ticket id
+ * exactly through the primary key. Other databases (H2 in tests) fall back to the
+ * old substring match and a constant rank.
+ */
+public class TicketSearchFunctions implements FunctionContributor {
+
+    @Override
+    public void contributeFunctions(FunctionContributions functionContributions) {
+        boolean postgres = functionContributions.getDialect() instanceof PostgreSQLDialect;
+        var types = functionContributions.getTypeConfiguration().getBasicTypeRegistry();
+
+        functionContributions.getFunctionRegistry().register("ticket_search",
+                new SearchMatch(postgres, types.resolve(StandardBasicTypes.BOOLEAN)));
+        functionContributions.getFunctionRegistry().register("ticket_search_rank",
+                new SearchRank(postgres, types.resolve(StandardBasicTypes.DOUBLE)));
+    }
+
+    // Table alias of the tickets row, taken from the t.id argument
+    private static String ticketAlias(SqlAstNode idArgument) {
+        ColumnReference column = idArgument instanceof Expression expression ? expression.getColumnReference() : null;
+        if (column == null)
+            throw new IllegalArgumentException("First argument of ticket search functions must be t.id");
+        return column.getQualifier();
+    }
+
+    private static class SearchMatch extends AbstractSqmSelfRenderingFunctionDescriptor {
+
+        private final boolean postgres;
+
+        SearchMatch(boolean postgres, BasicType<Boolean> booleanType) {
+            super("ticket_search", StandardArgumentsValidators.exactly(4),
+                    StandardFunctionReturnTypeResolvers.invariant(booleanType),
+                    StandardFunctionArgumentTypeResolvers.NULL);
+            this.postgres = postgres;
+        }
+
+        @Override
+        public void render(SqlAppender sql, List<? extends SqlAstNode> args, ReturnableType<?> returnType,
+                SqlAstTranslator<?> walker) {
+            SqlAstNode id = args.get(0);
+            SqlAstNode query = args.get(3);
+
+            if (postgres) {
+                sql.append("(");
+                id.accept(walker);
+                sql.append(" = (case when ");
+                query.accept(walker);
+                sql.append(" ~ '^[0-9]{1,18}$' then cast(");
+                query.accept(walker);
+                sql.append(" as bigint) end) or ");
+                sql.append(ticketAlias(id));
+                sql.append(".search_vector @@ ticket_tsquery(");
+                query.accept(walker);
+                sql.append("))");
+                return;
+            }
+
+            sql.append("(lower(");
+            args.get(1).accept(walker);
+            sql.append(") like ('%'||lower(");
+            query.accept(walker);
+            sql.append(")||'%') or lower(");
+            args.get(2).accept(walker);
+            sql.append(") like ('%'||lower(");
+            query.accept(walker);
+            sql.append(")||'%') or cast(");
+            id.accept(walker);
+            sql.append(" as varchar(20)) like ('%'||");
+            query.accept(walker);
+            sql.append("||'%'))");
+        }
+    }
+
+    private static class SearchRank extends AbstractSqmSelfRenderingFunctionDescriptor {
+
+        private final boolean postgres;
+
+        SearchRank(boolean postgres, BasicType<Double> doubleType) {
+            super("ticket_search_rank", StandardArgumentsValidators.exactly(2),
+                    StandardFunctionReturnTypeResolvers.invariant(doubleType),
+                    StandardFunctionArgumentTypeResolvers.NULL);
+            this.postgres = postgres;
+        }
+
+        @Override
+        public void render(SqlAppender sql, List<? extends SqlAstNode> args, ReturnableType<?> returnType,
+                SqlAstTranslator<?> walker) {
+            if (!postgres) {
+                sql.append("cast(0 as double precision)");
+                return;
+            }
+            sql.append("ts_rank(");
+            sql.append(ticketAlias(args.get(0)));
+            sql.append(".search_vector, ticket_tsquery(");
+            args.get(1).accept(walker);
+            sql.append("))");
+        }
+    }
+}
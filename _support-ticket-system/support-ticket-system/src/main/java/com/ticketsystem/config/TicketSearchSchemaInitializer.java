@@ -0,0 +1,67 @@
+package com.ticketsystem.config;
+
+import com.ticketsystem.service.DatabaseWrites;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Creates the full-text search objects Hibernate's ddl-auto cannot express:
+ * a generated tsvector column on tickets (title weighted above description),
+ * its GIN index, and the ticket_tsquery() helper used by {@link TicketSearchFunctions}.
+ *
+ * Every statement is idempotent, so this runs on each start, as soon as the beans are
+ * initialized (after the schema update, before the web server accepts requests, so no
+ * search can arrive before the column exists). Only applies to PostgreSQL.
+ * Adding the stored column rewrites the table once; on a large existing table run
+ * these statements in a maintenance window first.
+ */
+@Component
+public class TicketSearchSchemaInitializer implements SmartInitializingSingleton {
+
+    private static final Logger log = LoggerFactory.getLogger(TicketSearchSchemaInitializer.class);
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private DatabaseWrites databaseWrites;
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        if (!databaseWrites.isPostgres()) {
+            log.info("Skipping ticket full-text schema on {}", databaseWrites.product());
+            return;
+        }
+        for (String statement : statements("tickets")) {
+            jdbcTemplate.execute(statement);
+        }
+    }
+
+    static List<String> statements(String table) {
+        return List.of(
+                // Prefix match on every word of the input ("print jam" -> 'print':* & 'jam':*)
+                """
+                CREATE OR REPLACE FUNCTION ticket_tsquery(q text) RETURNS tsquery
+                LANGUAGE sql IMMUTABLE STRICT AS $$
+                    SELECT to_tsquery('simple', coalesce(string_agg(w || ':*', ' & '), ''))
+                    FROM regexp_split_to_table(lower(regexp_replace(q, '[^[:alnum:]]+', ' ', 'g')), '\\s+') AS w
+                    WHERE w <> ''
+                $$
+                """,
+                // 'simple' config: no stemming, tickets mix English, French and Kinyarwanda
+                """
+                ALTER TABLE %s ADD COLUMN IF NOT EXISTS search_vector tsvector
+                GENERATED ALWAYS AS (
+                    setweight(to_tsvector('simple', coalesce(title, '')), 'A') ||
+                    setweight(to_tsvector('simple', coalesce(description, '')), 'B')
+                ) STORED
+                """.formatted(table),
+                "CREATE INDEX IF NOT EXISTS idx_%1$s_search_vector ON %1$s USING GIN (search_vector)".formatted(table));
+    }
+}
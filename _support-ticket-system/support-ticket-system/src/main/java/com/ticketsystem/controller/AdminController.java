@@ -1,17 +1,29 @@
 package com.ticketsystem.controller;
 
+import com.ticketsystem.dto.EmailDeliveryStatsDTO;
+import com.ticketsystem.dto.SlaPercentilesDTO;
 import com.ticketsystem.dto.TicketCategoryDTO;
 import com.ticketsystem.dto.UserDTO;
 import com.ticketsystem.dto.UserResponseDTO;
+import com.ticketsystem.model.OutboxChannel;
+import com.ticketsystem.model.OutboxStatus;
+import com.ticketsystem.model.SlaDimension;
+import com.ticketsystem.model.SlaMetric;
 import com.ticketsystem.model.UserRole;
+import com.ticketsystem.repository.OutboxMessageRepository;
+import com.ticketsystem.service.SlaMetricsService;
+import com.ticketsystem.service.SmsService;
+import com.ticketsystem.service.SmtpDeliveryEngine;
 import com.ticketsystem.service.TicketCategoryService;
 import com.ticketsystem.service.UserService;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.LocalDate;
 import java.util.List;
 
 @RestController
@@ -26,6 +38,18 @@ public class AdminController {
     @Autowired
     private TicketCategoryService categoryService;
 
+    @Autowired
+    private SmtpDeliveryEngine deliveryEngine;
+
+    @Autowired
+    private OutboxMessageRepository outboxRepository;
+
+    @Autowired
+    private SmsService smsService;
+
+    @Autowired
+    private SlaMetricsService slaMetrics;
+
     // -------------------------
     // USER MANAGEMENT
     // -------------------------
@@ -99,4 +123,49 @@ public class AdminController {
         categoryService.deleteCategory(id);
         return ResponseEntity.ok().build();
     }
+
+    // -------------------------
+    // EMAIL & SMS DELIVERY
+    // -------------------------
+
+    @GetMapping("/email/stats")
+    public ResponseEntity<EmailDeliveryStatsDTO> emailStats() {
+        return ResponseEntity.ok(new EmailDeliveryStatsDTO(
+                outboxRepository.countByChannelAndStatusIn(OutboxChannel.EMAIL,
+                        List.of(OutboxStatus.PENDING, OutboxStatus.SENDING)),
+                outboxRepository.countByChannelAndStatusIn(OutboxChannel.EMAIL, List.of(OutboxStatus.FAILED)),
+                deliveryEngine.stats()));
+    }
+
+    @GetMapping("/sms/stats")
+    public ResponseEntity<SmsService.Stats> smsStats() {
+        return ResponseEntity.ok(smsService.stats());
+    }
+
+    // -------------------------
+    // SLA METRICS
+    // -------------------------
+
+    // e.g. ?metric=RESOLUTION&dimension=PROVINCE&from=2025-01-01&to=2025-04-01
+    @GetMapping("/sla/percentiles")
+    public ResponseEntity<List<SlaPercentilesDTO>> slaPercentiles(
+            @RequestParam SlaMetric metric,
+            @RequestParam SlaDimension dimension,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(required = false) Long dimensionId
+    ) {
+        try {
+            return ResponseEntity.ok(slaMetrics.percentiles(metric, dimension, from, to, dimensionId));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    // Rebuilds the SLA histograms from the tickets and comments
+    @PostMapping("/sla/backfill")
+    public ResponseEntity<Long> slaBackfill() {
+        long recorded = slaMetrics.backfill();
+        return recorded < 0 ? ResponseEntity.status(503).build() : ResponseEntity.ok(recorded);
+    }
 }
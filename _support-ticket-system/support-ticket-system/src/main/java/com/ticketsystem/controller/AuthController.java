@@ -46,6 +46,9 @@ public class AuthController {
     @Autowired
     private PasswordEncoder passwordEncoder;
 
+    @Autowired
+    private org.springframework.context.ApplicationEventPublisher eventPublisher;
+
     // ---------- LOGIN ----------
     @PostMapping("/login")
     public ResponseEntity<LoginResponse> login(@Valid @RequestBody LoginRequest request) {
@@ -88,6 +91,7 @@ public class AuthController {
         user.setEnabled(true);
 
         userRepository.save(user);
+        eventPublisher.publishEvent(com.ticketsystem.service.SearchIndexEvent.of(user));
 
         return ResponseEntity.ok("Customer registered successfully");
     }
@@ -114,6 +118,7 @@ public class AuthController {
         user.setEnabled(true);
 
         userRepository.save(user);
+        eventPublisher.publishEvent(com.ticketsystem.service.SearchIndexEvent.of(user));
 
         return ResponseEntity.ok("Agent registered successfully");
     }
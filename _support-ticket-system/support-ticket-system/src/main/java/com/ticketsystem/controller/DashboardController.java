@@ -1,13 +1,17 @@
 package com.ticketsystem.controller;
 
 import com.ticketsystem.dto.DashboardResponseDTO;
+import com.ticketsystem.dto.TicketTimeSeriesDTO;
 import com.ticketsystem.model.User;
 import com.ticketsystem.service.AuthService;
 import com.ticketsystem.service.DashboardService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.LocalDateTime;
+
 @RestController
 @RequestMapping("/api/dashboard")
 @CrossOrigin(origins = "*")
@@ -28,6 +32,25 @@ public class DashboardController {
         return ResponseEntity.ok(dashboardService.getAdminDashboard());
     }
 
+    // Ticket volume and backlog over time, e.g. ?from=2025-01-01T00:00&to=2025-04-01T00:00&granularity=DAY
+    @GetMapping("/admin/timeseries")
+    public ResponseEntity<TicketTimeSeriesDTO> getAdminTimeSeries(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(required = false) TicketTimeSeriesDTO.Granularity granularity,
+            @RequestParam(required = false) Long categoryId,
+            @RequestParam(required = false) Long locationId) {
+        User currentUser = authService.getCurrentUser();
+        if (currentUser == null || !authService.isAdmin(currentUser)) {
+            return ResponseEntity.status(403).build();
+        }
+        try {
+            return ResponseEntity.ok(dashboardService.getTimeSeries(from, to, granularity, categoryId, locationId));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
     @GetMapping("/agent")
     public ResponseEntity<DashboardResponseDTO> getAgentDashboard() {
         User currentUser = authService.getCurrentUser();
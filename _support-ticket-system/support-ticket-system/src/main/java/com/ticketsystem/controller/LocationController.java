@@ -2,6 +2,7 @@ package com.ticketsystem.controller;
 
 import com.ticketsystem.dto.LocationDTO;
 import com.ticketsystem.dto.LocationHierarchyDTO;
+import com.ticketsystem.dto.LocationSuggestionDTO;
 import com.ticketsystem.model.LocationType;
 import com.ticketsystem.service.LocationService;
 import jakarta.validation.Valid;
@@ -94,6 +95,15 @@ public class LocationController {
         return ResponseEntity.ok(locationService.searchVillages(name));
     }
 
+    // Location picker typeahead: ranked by trigram similarity, with the ancestor path rendered
+    @GetMapping("/typeahead")
+    public ResponseEntity<List<LocationSuggestionDTO>> typeahead(
+            @RequestParam String q,
+            @RequestParam(required = false) LocationType type,
+            @RequestParam(defaultValue = "10") int limit) {
+        return ResponseEntity.ok(locationService.typeahead(q, type, limit));
+    }
+
     @GetMapping("/search")
     public ResponseEntity<List<LocationDTO>> searchLocations(
             @RequestParam String query) {
@@ -1,15 +1,26 @@
 package com.ticketsystem.controller;
 
+import com.ticketsystem.dto.CursorPageDTO;
 import com.ticketsystem.dto.NotificationDTO;
+import com.ticketsystem.dto.PageCursor;
+import com.ticketsystem.dto.StreamTicketDTO;
 import com.ticketsystem.model.Notification;
 import com.ticketsystem.model.User;
 import com.ticketsystem.repository.NotificationRepository;
+import com.ticketsystem.security.JwtTokenProvider;
 import com.ticketsystem.service.AuthService;
+import com.ticketsystem.service.NotificationPushRegistry;
+import com.ticketsystem.service.NotificationService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.List;
+import java.util.stream.Collectors;
 
 @RestController
 @RequestMapping("/api/notifications")
@@ -22,6 +33,40 @@ public class NotificationController {
     @Autowired
     private AuthService authService;
 
+    @Autowired
+    private NotificationPushRegistry pushRegistry;
+
+    @Autowired
+    private NotificationService notificationService;
+
+    @Autowired
+    private JwtTokenProvider tokenProvider;
+
+    // One-off ticket for opening the stream: EventSource cannot set headers, so the
+    // client passes it as ?ticket= instead of putting its JWT in the URL
+    @PostMapping("/stream-ticket")
+    public ResponseEntity<StreamTicketDTO> streamTicket() {
+        User currentUser = authService.getCurrentUser();
+        if (currentUser == null)
+            return ResponseEntity.status(401).build();
+
+        return ResponseEntity.ok(new StreamTicketDTO(tokenProvider.generateStreamTicket(currentUser.getEmail()),
+                tokenProvider.getStreamTicketExpirationMs()));
+    }
+
+    // Live stream of new notifications and unread-count changes (replaces polling).
+    // Opened with a ticket from POST /stream-ticket; a reconnect needs a new ticket
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> stream() {
+        User currentUser = authService.getCurrentUser();
+        if (currentUser == null)
+            return ResponseEntity.status(401).build();
+
+        return ResponseEntity.ok()
+                .header("X-Accel-Buffering", "no")
+                .body(pushRegistry.subscribe(currentUser.getId(), notificationService.unreadCount(currentUser.getId())));
+    }
+
     // Get my notifications
     @GetMapping
     public ResponseEntity<Page<NotificationDTO>> getMyNotifications(Pageable pageable) {
@@ -38,6 +83,37 @@ public class NotificationController {
         return ResponseEntity.ok(dtoPage);
     }
 
+    // Get my notifications (keyset / cursor pagination)
+    @GetMapping("/cursor")
+    public ResponseEntity<CursorPageDTO<NotificationDTO>> getMyNotificationsCursor(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "10") int size,
+            @RequestParam(defaultValue = "false") boolean includeTotal) {
+        User currentUser = authService.getCurrentUser();
+        if (currentUser == null)
+            return ResponseEntity.status(401).build();
+
+        PageCursor position;
+        try {
+            position = PageCursor.decode(cursor);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+
+        List<NotificationDTO> rows = notificationRepository.findByRecipientIdKeyset(currentUser.getId(),
+                position != null ? position.getCreatedAt() : null,
+                position != null ? position.getId() : null,
+                position == null || position.isForward(),
+                PageCursor.window(position, size, "createdAt", "id"))
+                .stream()
+                .map(n -> new NotificationDTO(n.getId(), n.getTitle(), n.getMessage(), n.isRead(), n.getCreatedAt()))
+                .collect(Collectors.toList());
+        Long total = includeTotal ? notificationRepository.countByRecipientId(currentUser.getId()) : null;
+
+        return ResponseEntity.ok(CursorPageDTO.of(rows, size, position,
+                NotificationDTO::getCreatedAt, NotificationDTO::getId, total));
+    }
+
     // Get unread count
     @GetMapping("/unread-count")
     public ResponseEntity<Long> getUnreadCount() {
@@ -45,8 +121,7 @@ public class NotificationController {
         if (currentUser == null)
             return ResponseEntity.status(401).build();
 
-        return ResponseEntity.ok(
-                notificationRepository.countByRecipientIdAndIsReadFalse(currentUser.getId()));
+        return ResponseEntity.ok(notificationService.unreadCount(currentUser.getId()));
     }
 
     // Mark as read
@@ -64,11 +139,17 @@ public class NotificationController {
             return ResponseEntity.status(403).build();
         }
 
-        n.setRead(true);
-        notificationRepository.save(n);
+        notificationService.markRead(currentUser.getId(), id);
         return ResponseEntity.ok().build();
     }
 
     // Mark all as read
-    // (Optional, can be implemented if needed)
+    @PutMapping("/read-all")
+    public ResponseEntity<Integer> markAllAsRead() {
+        User currentUser = authService.getCurrentUser();
+        if (currentUser == null)
+            return ResponseEntity.status(401).build();
+
+        return ResponseEntity.ok(notificationService.markAllRead(currentUser.getId()));
+    }
 }
@@ -9,6 +9,7 @@ import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
+import java.util.Set;
 
 @RestController
 @RequestMapping("/api/categories")
@@ -63,6 +64,12 @@ public class TicketCategoryController {
         return ResponseEntity.ok(categoryService.searchCategories(query));
     }
 
+    @GetMapping("/assignment-strategies")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<Set<String>> getAssignmentStrategies() {
+        return ResponseEntity.ok(categoryService.getAssignmentStrategies());
+    }
+
     @GetMapping("/with-agents")
     public ResponseEntity<List<TicketCategoryDTO>> getCategoriesWithAgents() {
         return ResponseEntity.ok(categoryService.getCategoriesWithActiveAgents());
@@ -1,17 +1,28 @@
 package com.ticketsystem.controller;
 
+import com.ticketsystem.dto.BulkAssignRequestDTO;
+import com.ticketsystem.dto.BulkStatusRequestDTO;
+import com.ticketsystem.dto.BulkTicketResultDTO;
+import com.ticketsystem.dto.CursorPageDTO;
 import com.ticketsystem.dto.TicketDTO;
 import com.ticketsystem.dto.TicketResponseDTO;
+import com.ticketsystem.dto.TicketSummaryDTO;
 import com.ticketsystem.model.TicketStatus;
 import com.ticketsystem.model.User;
 import com.ticketsystem.service.AuthService;
+import com.ticketsystem.service.BulkTicketService;
+import com.ticketsystem.service.TicketExportService;
 import com.ticketsystem.service.TicketService;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.nio.charset.StandardCharsets;
 import java.util.List;
 import java.util.Optional;
 
@@ -26,12 +37,18 @@ public class TicketController {
     @Autowired
     private AuthService authService;
 
+    @Autowired
+    private TicketExportService ticketExportService;
+
+    @Autowired
+    private BulkTicketService bulkTicketService;
+
     // --------------------------------------------------------------------
     // ADMIN: Get all tickets
     // --------------------------------------------------------------------
     @GetMapping
     @PreAuthorize("hasRole('ADMIN')")
-    public ResponseEntity<org.springframework.data.domain.Page<TicketResponseDTO>> getAllTickets(
+    public ResponseEntity<org.springframework.data.domain.Page<TicketSummaryDTO>> getAllTickets(
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "10") int size,
             @RequestParam(required = false) TicketStatus status,
@@ -46,6 +63,60 @@ public class TicketController {
                         pageable));
     }
 
+    // --------------------------------------------------------------------
+    // ADMIN: Get all tickets (keyset / cursor pagination)
+    // --------------------------------------------------------------------
+    @GetMapping("/cursor")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<CursorPageDTO<TicketSummaryDTO>> getAllTicketsCursor(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "10") int size,
+            @RequestParam(defaultValue = "false") boolean includeTotal,
+            @RequestParam(required = false) TicketStatus status,
+            @RequestParam(required = false) com.ticketsystem.model.Priority priority,
+            @RequestParam(required = false) String search,
+            @RequestParam(required = false) Long locationId,
+            @RequestParam(required = false) Boolean unassignedOnly) {
+        try {
+            return ResponseEntity.ok(ticketService.getAllTicketsCursor(status, priority, search, locationId,
+                    unassignedOnly, cursor, size, includeTotal));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    // --------------------------------------------------------------------
+    // ADMIN: Export all matching tickets as CSV or NDJSON (streamed)
+    // --------------------------------------------------------------------
+    @GetMapping("/export")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<StreamingResponseBody> exportTickets(
+            @RequestParam(defaultValue = "csv") String format,
+            @RequestParam(required = false) TicketStatus status,
+            @RequestParam(required = false) com.ticketsystem.model.Priority priority,
+            @RequestParam(required = false) String search,
+            @RequestParam(required = false) Long locationId,
+            @RequestParam(required = false) Boolean unassignedOnly) {
+
+        TicketExportService.Format exportFormat;
+        try {
+            exportFormat = TicketExportService.Format.valueOf(format.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+
+        boolean csv = exportFormat == TicketExportService.Format.CSV;
+        StreamingResponseBody body = out -> ticketExportService.exportTickets(status, priority, search,
+                locationId, unassignedOnly, exportFormat, out);
+
+        return ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        "attachment; filename=\"tickets." + (csv ? "csv" : "ndjson") + "\"")
+                .contentType(csv ? new MediaType("text", "csv", StandardCharsets.UTF_8)
+                        : MediaType.parseMediaType("application/x-ndjson"))
+                .body(body);
+    }
+
     // --------------------------------------------------------------------
     // SECURED: Get ticket by ID with permission checking
     // --------------------------------------------------------------------
@@ -143,12 +214,48 @@ public class TicketController {
         }
     }
 
+    // --------------------------------------------------------------------
+    // ADMIN: Assign many tickets to one agent (up to BulkTicketService.MAX_TICKETS)
+    // --------------------------------------------------------------------
+    @PutMapping("/bulk/assign")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<BulkTicketResultDTO> bulkAssign(@Valid @RequestBody BulkAssignRequestDTO request) {
+        User currentUser = authService.getCurrentUser();
+        if (currentUser == null)
+            return ResponseEntity.status(401).build();
+
+        try {
+            return ResponseEntity.ok(bulkTicketService.assign(request.getTicketIds(), request.getAgentId(),
+                    currentUser.getId()));
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    // --------------------------------------------------------------------
+    // ADMIN: Move many tickets to one status
+    // --------------------------------------------------------------------
+    @PutMapping("/bulk/status")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<BulkTicketResultDTO> bulkUpdateStatus(@Valid @RequestBody BulkStatusRequestDTO request) {
+        User currentUser = authService.getCurrentUser();
+        if (currentUser == null)
+            return ResponseEntity.status(401).build();
+
+        try {
+            return ResponseEntity.ok(bulkTicketService.updateStatus(request.getTicketIds(), request.getStatus(),
+                    currentUser.getId()));
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
     // --------------------------------------------------------------------
     // CUSTOMER: View only their own tickets
     // --------------------------------------------------------------------
     @GetMapping("/my-tickets")
     @PreAuthorize("hasRole('CUSTOMER')")
-    public ResponseEntity<org.springframework.data.domain.Page<TicketResponseDTO>> getMyTickets(
+    public ResponseEntity<org.springframework.data.domain.Page<TicketSummaryDTO>> getMyTickets(
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "10") int size,
             @RequestParam(required = false) TicketStatus status,
@@ -165,6 +272,28 @@ public class TicketController {
                 ticketService.getTicketsByCustomerPaginated(currentUser.getId(), status, priority, search, pageable));
     }
 
+    @GetMapping("/my-tickets/cursor")
+    @PreAuthorize("hasRole('CUSTOMER')")
+    public ResponseEntity<CursorPageDTO<TicketSummaryDTO>> getMyTicketsCursor(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "10") int size,
+            @RequestParam(defaultValue = "false") boolean includeTotal,
+            @RequestParam(required = false) TicketStatus status,
+            @RequestParam(required = false) com.ticketsystem.model.Priority priority,
+            @RequestParam(required = false) String search) {
+
+        User currentUser = authService.getCurrentUser();
+        if (currentUser == null)
+            return ResponseEntity.status(401).build();
+
+        try {
+            return ResponseEntity.ok(ticketService.getTicketsByCustomerCursor(currentUser.getId(), status, priority,
+                    search, cursor, size, includeTotal));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
     // --------------------------------------------------------------------
     // AGENT: View only assigned tickets
     // --------------------------------------------------------------------
@@ -173,7 +302,7 @@ public class TicketController {
     // --------------------------------------------------------------------
     @GetMapping("/assigned-tickets")
     @PreAuthorize("hasRole('AGENT')")
-    public ResponseEntity<org.springframework.data.domain.Page<TicketResponseDTO>> getAssignedTickets(
+    public ResponseEntity<org.springframework.data.domain.Page<TicketSummaryDTO>> getAssignedTickets(
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "10") int size,
             @RequestParam(required = false) TicketStatus status,
@@ -189,6 +318,27 @@ public class TicketController {
                 ticketService.getAssignedTicketsPaginated(currentUser.getId(), status, search, pageable));
     }
 
+    @GetMapping("/assigned-tickets/cursor")
+    @PreAuthorize("hasRole('AGENT')")
+    public ResponseEntity<CursorPageDTO<TicketSummaryDTO>> getAssignedTicketsCursor(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "10") int size,
+            @RequestParam(defaultValue = "false") boolean includeTotal,
+            @RequestParam(required = false) TicketStatus status,
+            @RequestParam(required = false) String search) {
+
+        User currentUser = authService.getCurrentUser();
+        if (currentUser == null)
+            return ResponseEntity.status(401).build();
+
+        try {
+            return ResponseEntity.ok(ticketService.getAssignedTicketsCursor(currentUser.getId(), status, search,
+                    cursor, size, includeTotal));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
     // --------------------------------------------------------------------
     // ADMIN or AGENT: Filter by status
     // --------------------------------------------------------------------
@@ -1,5 +1,6 @@
 package com.ticketsystem.controller;
 
+import com.ticketsystem.dto.CursorPageDTO;
 import com.ticketsystem.dto.UserDTO;
 import com.ticketsystem.dto.UserResponseDTO;
 import com.ticketsystem.model.User;
@@ -41,6 +42,21 @@ public class UserController {
         return ResponseEntity.ok(userService.getAllUsersPaginated(pageable));
     }
 
+    // ADMIN: list users with keyset (cursor) pagination
+    @GetMapping("/cursor")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<CursorPageDTO<UserResponseDTO>> getUsersCursor(
+            @RequestParam(required = false) UserRole role,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "10") int size,
+            @RequestParam(defaultValue = "false") boolean includeTotal) {
+        try {
+            return ResponseEntity.ok(userService.getUsersCursor(role, cursor, size, includeTotal));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
     // ADMIN or AGENT: get user by id
     @GetMapping("/{id}")
     @PreAuthorize("hasRole('ADMIN') or hasRole('AGENT')")
@@ -0,0 +1,32 @@
+package com.ticketsystem.dto;
+
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+
+import java.util.List;
+
+public class BulkAssignRequestDTO {
+
+    @NotEmpty
+    private List<Long> ticketIds;
+
+    @NotNull
+    private Long agentId;
+
+    // Getters & Setters
+    public List<Long> getTicketIds() {
+        return ticketIds;
+    }
+
+    public void setTicketIds(List<Long> ticketIds) {
+        this.ticketIds = ticketIds;
+    }
+
+    public Long getAgentId() {
+        return agentId;
+    }
+
+    public void setAgentId(Long agentId) {
+        this.agentId = agentId;
+    }
+}
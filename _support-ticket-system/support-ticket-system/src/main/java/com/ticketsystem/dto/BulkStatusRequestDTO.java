@@ -0,0 +1,33 @@
+package com.ticketsystem.dto;
+
+import com.ticketsystem.model.TicketStatus;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+
+import java.util.List;
+
+public class BulkStatusRequestDTO {
+
+    @NotEmpty
+    private List<Long> ticketIds;
+
+    @NotNull
+    private TicketStatus status;
+
+    // Getters & Setters
+    public List<Long> getTicketIds() {
+        return ticketIds;
+    }
+
+    public void setTicketIds(List<Long> ticketIds) {
+        this.ticketIds = ticketIds;
+    }
+
+    public TicketStatus getStatus() {
+        return status;
+    }
+
+    public void setStatus(TicketStatus status) {
+        this.status = status;
+    }
+}
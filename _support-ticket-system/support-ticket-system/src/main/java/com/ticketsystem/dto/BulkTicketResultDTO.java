@@ -0,0 +1,92 @@
+package com.ticketsystem.dto;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Outcome of a bulk ticket operation: totals plus one entry per requested id,
+ * in request order (duplicates collapsed).
+ */
+public class BulkTicketResultDTO {
+
+    public enum Outcome {
+        UPDATED, UNCHANGED, NOT_FOUND
+    }
+
+    public static class Entry {
+
+        private Long ticketId;
+        private Outcome outcome;
+
+        public Entry() {
+        }
+
+        public Entry(Long ticketId, Outcome outcome) {
+            this.ticketId = ticketId;
+            this.outcome = outcome;
+        }
+
+        public Long getTicketId() {
+            return ticketId;
+        }
+
+        public void setTicketId(Long ticketId) {
+            this.ticketId = ticketId;
+        }
+
+        public Outcome getOutcome() {
+            return outcome;
+        }
+
+        public void setOutcome(Outcome outcome) {
+            this.outcome = outcome;
+        }
+    }
+
+    private int updated;
+    private int unchanged;
+    private int notFound;
+    private List<Entry> results = new ArrayList<>();
+
+    public void add(Long ticketId, Outcome outcome) {
+        results.add(new Entry(ticketId, outcome));
+        switch (outcome) {
+            case UPDATED -> updated++;
+            case UNCHANGED -> unchanged++;
+            case NOT_FOUND -> notFound++;
+        }
+    }
+
+    // Getters & Setters
+    public int getUpdated() {
+        return updated;
+    }
+
+    public void setUpdated(int updated) {
+        this.updated = updated;
+    }
+
+    public int getUnchanged() {
+        return unchanged;
+    }
+
+    public void setUnchanged(int unchanged) {
+        this.unchanged = unchanged;
+    }
+
+    public int getNotFound() {
+        return notFound;
+    }
+
+    public void setNotFound(int notFound) {
+        this.notFound = notFound;
+    }
+
+    public List<Entry> getResults() {
+        return results;
+    }
+
+    public void setResults(List<Entry> results) {
+        this.results = results;
+    }
+}
@@ -0,0 +1,116 @@
+package com.ticketsystem.dto;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Keyset-paginated alternative to {@link PagedResponseDTO}. Instead of page
+ * numbers it returns opaque next/previous cursors, and totalElements is only
+ * filled in when the caller asks for it.
+ */
+public class CursorPageDTO<T> {
+
+    private List<T> content;
+    private int size;
+    private String nextCursor;
+    private String prevCursor;
+    private boolean hasNext;
+    private boolean hasPrevious;
+    private Long totalElements;
+
+    public CursorPageDTO() {}
+
+    /**
+     * Builds a page from the rows of a {@link PageCursor#window} query.
+     */
+    public static <T> CursorPageDTO<T> of(List<T> rows, int size, PageCursor cursor,
+            Function<T, LocalDateTime> createdAtOf, Function<T, Long> idOf, Long totalElements) {
+        size = PageCursor.size(size);
+        boolean backward = cursor != null && !cursor.isForward();
+        boolean more = rows.size() > size;
+
+        List<T> content = new ArrayList<>(more ? rows.subList(0, size) : rows);
+        if (backward) {
+            Collections.reverse(content);
+        }
+
+        CursorPageDTO<T> page = new CursorPageDTO<>();
+        page.setContent(content);
+        page.setSize(size);
+        page.setHasNext(backward || more);
+        page.setHasPrevious(backward ? more : cursor != null);
+        page.setTotalElements(totalElements);
+
+        if (!content.isEmpty()) {
+            T first = content.get(0);
+            T last = content.get(content.size() - 1);
+            if (page.isHasNext()) {
+                page.setNextCursor(new PageCursor(createdAtOf.apply(last), idOf.apply(last), true).encode());
+            }
+            if (page.isHasPrevious()) {
+                page.setPrevCursor(new PageCursor(createdAtOf.apply(first), idOf.apply(first), false).encode());
+            }
+        }
+        return page;
+    }
+
+    // Getters & Setters
+    public List<T> getContent() {
+        return content;
+    }
+
+    public void setContent(List<T> content) {
+        this.content = content;
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    public void setSize(int size) {
+        this.size = size;
+    }
+
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    public void setNextCursor(String nextCursor) {
+        this.nextCursor = nextCursor;
+    }
+
+    public String getPrevCursor() {
+        return prevCursor;
+    }
+
+    public void setPrevCursor(String prevCursor) {
+        this.prevCursor = prevCursor;
+    }
+
+    public boolean isHasNext() {
+        return hasNext;
+    }
+
+    public void setHasNext(boolean hasNext) {
+        this.hasNext = hasNext;
+    }
+
+    public boolean isHasPrevious() {
+        return hasPrevious;
+    }
+
+    public void setHasPrevious(boolean hasPrevious) {
+        this.hasPrevious = hasPrevious;
+    }
+
+    public Long getTotalElements() {
+        return totalElements;
+    }
+
+    public void setTotalElements(Long totalElements) {
+        this.totalElements = totalElements;
+    }
+}
@@ -1,5 +1,6 @@
 package com.ticketsystem.dto;
 
+import java.time.LocalDateTime;
 import java.util.Map;
 
 public class DashboardResponseDTO {
@@ -16,6 +17,10 @@ public class DashboardResponseDTO {
     // For agent dashboard
     private Long assignedTickets;
 
+    // Agent queue summary: OPEN tickets per priority are in ticketsByPriority
+    private LocalDateTime oldestOpenTicketCreatedAt;
+    private Long oldestOpenTicketAgeMinutes;
+
     // Additional Stats
     private Long totalUsers;
     private Long totalCategories;
@@ -59,6 +64,20 @@ public class DashboardResponseDTO {
     public DashboardResponseDTO() {
     }
 
+    // Admin dashboard, built by TicketStatRepository.adminDashboard()
+    public DashboardResponseDTO(Long totalTickets, Long openTickets, Long inProgressTickets, Long resolvedTickets,
+            Long closedTickets, Long agentsOnline, Long totalUsers, Long totalCategories, Long totalLocations) {
+        this.totalTickets = totalTickets;
+        this.openTickets = openTickets;
+        this.inProgressTickets = inProgressTickets;
+        this.resolvedTickets = resolvedTickets;
+        this.closedTickets = closedTickets;
+        this.agentsOnline = agentsOnline;
+        this.totalUsers = totalUsers;
+        this.totalCategories = totalCategories;
+        this.totalLocations = totalLocations;
+    }
+
     public Long getTotalTickets() {
         return totalTickets;
     }
@@ -147,6 +166,22 @@ public class DashboardResponseDTO {
         this.agentWorkload = agentWorkload;
     }
 
+    public LocalDateTime getOldestOpenTicketCreatedAt() {
+        return oldestOpenTicketCreatedAt;
+    }
+
+    public void setOldestOpenTicketCreatedAt(LocalDateTime oldestOpenTicketCreatedAt) {
+        this.oldestOpenTicketCreatedAt = oldestOpenTicketCreatedAt;
+    }
+
+    public Long getOldestOpenTicketAgeMinutes() {
+        return oldestOpenTicketAgeMinutes;
+    }
+
+    public void setOldestOpenTicketAgeMinutes(Long oldestOpenTicketAgeMinutes) {
+        this.oldestOpenTicketAgeMinutes = oldestOpenTicketAgeMinutes;
+    }
+
     public Double getAverageResolutionTime() {
         return averageResolutionTime;
     }
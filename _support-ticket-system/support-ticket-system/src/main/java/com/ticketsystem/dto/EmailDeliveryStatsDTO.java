@@ -0,0 +1,47 @@
+package com.ticketsystem.dto;
+
+import com.ticketsystem.service.SmtpDeliveryEngine;
+
+/**
+ * Email queue depth (outbox rows waiting or given up on) together with the
+ * SMTP engine's connection and latency figures.
+ */
+public class EmailDeliveryStatsDTO {
+
+    private long queued;
+    private long failed;
+    private SmtpDeliveryEngine.Stats delivery;
+
+    public EmailDeliveryStatsDTO() {
+    }
+
+    public EmailDeliveryStatsDTO(long queued, long failed, SmtpDeliveryEngine.Stats delivery) {
+        this.queued = queued;
+        this.failed = failed;
+        this.delivery = delivery;
+    }
+
+    public long getQueued() {
+        return queued;
+    }
+
+    public void setQueued(long queued) {
+        this.queued = queued;
+    }
+
+    public long getFailed() {
+        return failed;
+    }
+
+    public void setFailed(long failed) {
+        this.failed = failed;
+    }
+
+    public SmtpDeliveryEngine.Stats getDelivery() {
+        return delivery;
+    }
+
+    public void setDelivery(SmtpDeliveryEngine.Stats delivery) {
+        this.delivery = delivery;
+    }
+}
@@ -1,11 +1,18 @@
 package com.ticketsystem.dto;
 
 import java.util.List;
+import java.util.Map;
 
 public class GlobalSearchResponseDTO {
 
     private List<GlobalSearchResultDTO> results;
 
+    // Matches per type ("TICKET", "USER", ...) that were left out of results
+    private Map<String, Integer> moreResults;
+
+    // True when a type did not answer before the search deadline
+    private boolean partial;
+
     public GlobalSearchResponseDTO() {}
 
     public GlobalSearchResponseDTO(List<GlobalSearchResultDTO> results) {
@@ -19,4 +26,20 @@ public class GlobalSearchResponseDTO {
     public void setResults(List<GlobalSearchResultDTO> results) {
         this.results = results;
     }
+
+    public Map<String, Integer> getMoreResults() {
+        return moreResults;
+    }
+
+    public void setMoreResults(Map<String, Integer> moreResults) {
+        this.moreResults = moreResults;
+    }
+
+    public boolean isPartial() {
+        return partial;
+    }
+
+    public void setPartial(boolean partial) {
+        this.partial = partial;
+    }
 }
@@ -6,6 +6,8 @@ public class GlobalSearchResultDTO {
     private Long id;
     private String title;
     private String description;
+    // Relevance; comparable across types
+    private Integer score;
 
     // Constructors
     public GlobalSearchResultDTO() {}
@@ -49,4 +51,12 @@ public class GlobalSearchResultDTO {
     public void setDescription(String description) {
         this.description = description;
     }
+
+    public Integer getScore() {
+        return score;
+    }
+
+    public void setScore(Integer score) {
+        this.score = score;
+    }
 }
@@ -0,0 +1,79 @@
+package com.ticketsystem.dto;
+
+import com.ticketsystem.model.LocationType;
+
+/**
+ * One typeahead match for the location picker, with its ancestor path already
+ * rendered ("Kigali City ➝ Gasabo ➝ Remera").
+ */
+public class LocationSuggestionDTO {
+
+    private Long id;
+    private String name;
+    private LocationType type;
+    private Long parentId;
+    private String path;
+    private double similarity;
+
+    public LocationSuggestionDTO() {
+    }
+
+    public LocationSuggestionDTO(Long id, String name, LocationType type, Long parentId, String path,
+            double similarity) {
+        this.id = id;
+        this.name = name;
+        this.type = type;
+        this.parentId = parentId;
+        this.path = path;
+        this.similarity = similarity;
+    }
+
+    // Getters and Setters
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public LocationType getType() {
+        return type;
+    }
+
+    public void setType(LocationType type) {
+        this.type = type;
+    }
+
+    public Long getParentId() {
+        return parentId;
+    }
+
+    public void setParentId(Long parentId) {
+        this.parentId = parentId;
+    }
+
+    public String getPath() {
+        return path;
+    }
+
+    public void setPath(String path) {
+        this.path = path;
+    }
+
+    public double getSimilarity() {
+        return similarity;
+    }
+
+    public void setSimilarity(double similarity) {
+        this.similarity = similarity;
+    }
+}
@@ -0,0 +1,79 @@
+package com.ticketsystem.dto;
+
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+
+/**
+ * Position in a keyset-paginated listing ordered by (createdAt, id) descending.
+ * Travels to the client as an opaque URL-safe token.
+ *
+ * forward = true  -> rows after this position (older)
+ * forward = false -> rows before this position (newer)
+ */
+public class PageCursor {
+
+    /** Largest page a client can ask for. */
+    public static final int MAX_SIZE = 100;
+
+    private final LocalDateTime createdAt;
+    private final Long id;
+    private final boolean forward;
+
+    public PageCursor(LocalDateTime createdAt, Long id, boolean forward) {
+        this.createdAt = createdAt;
+        this.id = id;
+        this.forward = forward;
+    }
+
+    public String encode() {
+        String raw = (forward ? "F" : "B") + "|" + (createdAt != null ? createdAt.toString() : "") + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    // Returns null for a missing token (first page)
+    public static PageCursor decode(String token) {
+        if (token == null || token.isBlank())
+            return null;
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            String[] parts = raw.split("\\|", -1);
+            if (parts.length != 3 || !(parts[0].equals("F") || parts[0].equals("B")))
+                throw new IllegalArgumentException("Malformed cursor");
+            LocalDateTime createdAt = parts[1].isEmpty() ? null : LocalDateTime.parse(parts[1]);
+            return new PageCursor(createdAt, Long.valueOf(parts[2]), parts[0].equals("F"));
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Invalid cursor: " + token);
+        }
+    }
+
+    /**
+     * Page request for one keyset window: size + 1 rows (the extra row tells whether
+     * another page exists), ordered newest first, or oldest first when walking back.
+     */
+    public static Pageable window(PageCursor cursor, int size, String... sortProperties) {
+        Sort.Direction direction = cursor == null || cursor.isForward() ? Sort.Direction.DESC : Sort.Direction.ASC;
+        return PageRequest.of(0, size(size) + 1, Sort.by(direction, sortProperties));
+    }
+
+    /** The requested page size, kept between 1 and MAX_SIZE. */
+    public static int size(int requested) {
+        return Math.min(Math.max(requested, 1), MAX_SIZE);
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public boolean isForward() {
+        return forward;
+    }
+}
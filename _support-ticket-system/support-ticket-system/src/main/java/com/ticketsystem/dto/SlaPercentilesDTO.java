@@ -0,0 +1,76 @@
+package com.ticketsystem.dto;
+
+/**
+ * Percentiles of one SLA metric, in seconds, for one category, agent or
+ * province (dimensionId 0 for all tickets) over the requested days.
+ */
+public class SlaPercentilesDTO {
+
+    private long dimensionId;
+    private long count;
+    private double meanSeconds;
+    private Long p50Seconds;
+    private Long p90Seconds;
+    private Long p99Seconds;
+
+    public SlaPercentilesDTO() {
+    }
+
+    public SlaPercentilesDTO(long dimensionId, long count, double meanSeconds, Long p50Seconds, Long p90Seconds,
+            Long p99Seconds) {
+        this.dimensionId = dimensionId;
+        this.count = count;
+        this.meanSeconds = meanSeconds;
+        this.p50Seconds = p50Seconds;
+        this.p90Seconds = p90Seconds;
+        this.p99Seconds = p99Seconds;
+    }
+
+    public long getDimensionId() {
+        return dimensionId;
+    }
+
+    public void setDimensionId(long dimensionId) {
+        this.dimensionId = dimensionId;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public void setCount(long count) {
+        this.count = count;
+    }
+
+    public double getMeanSeconds() {
+        return meanSeconds;
+    }
+
+    public void setMeanSeconds(double meanSeconds) {
+        this.meanSeconds = meanSeconds;
+    }
+
+    public Long getP50Seconds() {
+        return p50Seconds;
+    }
+
+    public void setP50Seconds(Long p50Seconds) {
+        this.p50Seconds = p50Seconds;
+    }
+
+    public Long getP90Seconds() {
+        return p90Seconds;
+    }
+
+    public void setP90Seconds(Long p90Seconds) {
+        this.p90Seconds = p90Seconds;
+    }
+
+    public Long getP99Seconds() {
+        return p99Seconds;
+    }
+
+    public void setP99Seconds(Long p99Seconds) {
+        this.p99Seconds = p99Seconds;
+    }
+}
@@ -0,0 +1,30 @@
+package com.ticketsystem.dto;
+
+public class StreamTicketDTO {
+
+    private String ticket;
+    private long expiresInMs;
+
+    public StreamTicketDTO() {}
+
+    public StreamTicketDTO(String ticket, long expiresInMs) {
+        this.ticket = ticket;
+        this.expiresInMs = expiresInMs;
+    }
+
+    public String getTicket() {
+        return ticket;
+    }
+
+    public void setTicket(String ticket) {
+        this.ticket = ticket;
+    }
+
+    public long getExpiresInMs() {
+        return expiresInMs;
+    }
+
+    public void setExpiresInMs(long expiresInMs) {
+        this.expiresInMs = expiresInMs;
+    }
+}
@@ -11,6 +11,8 @@ public class TicketCategoryDTO {
 
     private String description;
 
+    private String assignmentStrategy;
+
     public TicketCategoryDTO() {}
 
     public TicketCategoryDTO(String name, String description) {
@@ -42,4 +44,12 @@ public class TicketCategoryDTO {
     public void setDescription(String description) {
         this.description = description;
     }
+
+    public String getAssignmentStrategy() {
+        return assignmentStrategy;
+    }
+
+    public void setAssignmentStrategy(String assignmentStrategy) {
+        this.assignmentStrategy = assignmentStrategy;
+    }
 }
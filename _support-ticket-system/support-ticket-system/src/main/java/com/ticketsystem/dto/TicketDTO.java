@@ -26,6 +26,17 @@ public class TicketDTO {
     public TicketDTO() {
     }
 
+    // Recent tickets on the customer dashboard, built by TicketRepository.findRecentByCustomer
+    public TicketDTO(Long id, String title, String description, Priority priority, Long categoryId,
+            Long locationId) {
+        this.id = id;
+        this.title = title;
+        this.description = description;
+        this.priority = priority;
+        this.categoryId = categoryId;
+        this.locationId = locationId;
+    }
+
     public Long getId() {
         return id;
     }
@@ -0,0 +1,147 @@
+package com.ticketsystem.dto;
+
+import com.ticketsystem.model.LocationType;
+import com.ticketsystem.model.Priority;
+import com.ticketsystem.model.TicketStatus;
+
+import java.time.LocalDateTime;
+
+/**
+ * Lightweight row for ticket list endpoints. Built directly by JPQL constructor
+ * expressions in TicketRepository, so no entities or comments are loaded.
+ * Nested objects carry only id and name; the full ticket stays on GET /api/tickets/{id}.
+ */
+public class TicketSummaryDTO {
+
+    private Long id;
+    private String title;
+
+    private TicketStatus status;
+    private Priority priority;
+
+    private TicketCategoryDTO category;
+    private UserResponseDTO customer;
+    private UserResponseDTO assignedAgent;
+    private LocationDTO location;
+
+    private LocalDateTime createdAt;
+    private LocalDateTime updatedAt;
+
+    public TicketSummaryDTO() {
+    }
+
+    public TicketSummaryDTO(Long id, String title, TicketStatus status, Priority priority,
+            LocalDateTime createdAt, LocalDateTime updatedAt,
+            Long categoryId, String categoryName,
+            Long customerId, String customerName,
+            Long agentId, String agentName,
+            Long locationId, String locationName, LocationType locationType) {
+        this.id = id;
+        this.title = title;
+        this.status = status;
+        this.priority = priority;
+        this.createdAt = createdAt;
+        this.updatedAt = updatedAt;
+
+        if (categoryId != null) {
+            this.category = new TicketCategoryDTO();
+            this.category.setId(categoryId);
+            this.category.setName(categoryName);
+        }
+        this.customer = userRef(customerId, customerName);
+        this.assignedAgent = userRef(agentId, agentName);
+        if (locationId != null) {
+            this.location = new LocationDTO(locationId, locationName, locationType);
+        }
+    }
+
+    private static UserResponseDTO userRef(Long id, String name) {
+        if (id == null)
+            return null;
+        UserResponseDTO dto = new UserResponseDTO();
+        dto.setId(id);
+        dto.setName(name);
+        return dto;
+    }
+
+    // Getters & Setters
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public void setTitle(String title) {
+        this.title = title;
+    }
+
+    public TicketStatus getStatus() {
+        return status;
+    }
+
+    public void setStatus(TicketStatus status) {
+        this.status = status;
+    }
+
+    public Priority getPriority() {
+        return priority;
+    }
+
+    public void setPriority(Priority priority) {
+        this.priority = priority;
+    }
+
+    public TicketCategoryDTO getCategory() {
+        return category;
+    }
+
+    public void setCategory(TicketCategoryDTO category) {
+        this.category = category;
+    }
+
+    public UserResponseDTO getCustomer() {
+        return customer;
+    }
+
+    public void setCustomer(UserResponseDTO customer) {
+        this.customer = customer;
+    }
+
+    public UserResponseDTO getAssignedAgent() {
+        return assignedAgent;
+    }
+
+    public void setAssignedAgent(UserResponseDTO assignedAgent) {
+        this.assignedAgent = assignedAgent;
+    }
+
+    public LocationDTO getLocation() {
+        return location;
+    }
+
+    public void setLocation(LocationDTO location) {
+        this.location = location;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(LocalDateTime createdAt) {
+        this.createdAt = createdAt;
+    }
+
+    public LocalDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public void setUpdatedAt(LocalDateTime updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+}
@@ -0,0 +1,72 @@
+package com.ticketsystem.dto;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Ticket volume, resolutions and backlog over [from, to), one point per hour
+ * or day with none left out. foldedUntil is how far the analytics rollup had
+ * read when the series was built; later activity is not in it yet.
+ */
+public class TicketTimeSeriesDTO {
+
+    public enum Granularity {
+        HOUR, DAY
+    }
+
+    private Granularity granularity;
+    private LocalDateTime from;
+    private LocalDateTime to;
+    private LocalDateTime foldedUntil;
+    private long openingBacklog;
+    private List<TimeSeriesPointDTO> points = new ArrayList<>();
+
+    public Granularity getGranularity() {
+        return granularity;
+    }
+
+    public void setGranularity(Granularity granularity) {
+        this.granularity = granularity;
+    }
+
+    public LocalDateTime getFrom() {
+        return from;
+    }
+
+    public void setFrom(LocalDateTime from) {
+        this.from = from;
+    }
+
+    public LocalDateTime getTo() {
+        return to;
+    }
+
+    public void setTo(LocalDateTime to) {
+        this.to = to;
+    }
+
+    public LocalDateTime getFoldedUntil() {
+        return foldedUntil;
+    }
+
+    public void setFoldedUntil(LocalDateTime foldedUntil) {
+        this.foldedUntil = foldedUntil;
+    }
+
+    public long getOpeningBacklog() {
+        return openingBacklog;
+    }
+
+    public void setOpeningBacklog(long openingBacklog) {
+        this.openingBacklog = openingBacklog;
+    }
+
+    public List<TimeSeriesPointDTO> getPoints() {
+        return points;
+    }
+
+    public void setPoints(List<TimeSeriesPointDTO> points) {
+        this.points = points;
+    }
+}
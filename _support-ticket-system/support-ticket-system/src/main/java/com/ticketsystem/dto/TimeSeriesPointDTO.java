@@ -0,0 +1,78 @@
+package com.ticketsystem.dto;
+
+import java.time.LocalDateTime;
+
+/**
+ * One hour or day of ticket activity; backlog is the number of OPEN and
+ * IN_PROGRESS tickets at its end.
+ */
+public class TimeSeriesPointDTO {
+
+    private LocalDateTime start;
+    private long created;
+    private long resolved;
+    private long reopened;
+    private long removed;
+    private long backlog;
+
+    public TimeSeriesPointDTO() {
+    }
+
+    public TimeSeriesPointDTO(LocalDateTime start, long created, long resolved, long reopened, long removed,
+            long backlog) {
+        this.start = start;
+        this.created = created;
+        this.resolved = resolved;
+        this.reopened = reopened;
+        this.removed = removed;
+        this.backlog = backlog;
+    }
+
+    public LocalDateTime getStart() {
+        return start;
+    }
+
+    public void setStart(LocalDateTime start) {
+        this.start = start;
+    }
+
+    public long getCreated() {
+        return created;
+    }
+
+    public void setCreated(long created) {
+        this.created = created;
+    }
+
+    public long getResolved() {
+        return resolved;
+    }
+
+    public void setResolved(long resolved) {
+        this.resolved = resolved;
+    }
+
+    public long getReopened() {
+        return reopened;
+    }
+
+    public void setReopened(long reopened) {
+        this.reopened = reopened;
+    }
+
+    public long getRemoved() {
+        return removed;
+    }
+
+    public void setRemoved(long removed) {
+        this.removed = removed;
+    }
+
+    public long getBacklog() {
+        return backlog;
+    }
+
+    public void setBacklog(long backlog) {
+        this.backlog = backlog;
+    }
+}
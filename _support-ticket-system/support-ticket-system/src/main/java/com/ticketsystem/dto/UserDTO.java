@@ -20,6 +20,9 @@ public class UserDTO {
 
     private String phoneNumber;
 
+    // Agent base location
+    private Long locationId;
+
     // Getters & Setters
     public String getName() {
         return name;
@@ -60,4 +63,12 @@ public class UserDTO {
     public void setPhoneNumber(String phoneNumber) {
         this.phoneNumber = phoneNumber;
     }
+
+    public Long getLocationId() {
+        return locationId;
+    }
+
+    public void setLocationId(Long locationId) {
+        this.locationId = locationId;
+    }
 }
@@ -11,6 +11,7 @@ public class UserResponseDTO {
     private String phoneNumber;
     private boolean enabled;
     private String avatarUrl;
+    private Long locationId;
 
     public UserResponseDTO() {
     }
@@ -71,4 +72,12 @@ public class UserResponseDTO {
     public void setAvatarUrl(String avatarUrl) {
         this.avatarUrl = avatarUrl;
     }
+
+    public Long getLocationId() {
+        return locationId;
+    }
+
+    public void setLocationId(Long locationId) {
+        this.locationId = locationId;
+    }
 }
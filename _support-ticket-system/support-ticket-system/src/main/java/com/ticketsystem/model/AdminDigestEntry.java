@@ -0,0 +1,69 @@
+package com.ticketsystem.model;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * A system event held for the next admin digest instead of being sent to
+ * every admin as it happens (app.notifications.admin-digest.enabled).
+ */
+@Entity
+@Table(name = "admin_digest_entries")
+public class AdminDigestEntry {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    private String title;
+
+    @Column(nullable = false)
+    private String message;
+
+    private LocalDateTime createdAt = LocalDateTime.now();
+
+    public AdminDigestEntry() {
+    }
+
+    public AdminDigestEntry(String title, String message) {
+        this.title = title;
+        this.message = message;
+    }
+
+    // -----------------------
+    // GETTERS & SETTERS
+    // -----------------------
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public void setTitle(String title) {
+        this.title = title;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    public void setMessage(String message) {
+        this.message = message;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(LocalDateTime createdAt) {
+        this.createdAt = createdAt;
+    }
+}
@@ -0,0 +1,31 @@
+package com.ticketsystem.model;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * How far an incremental analytics job has read, by name; the row is also
+ * the lock that keeps two instances from folding at the same time.
+ */
+@Entity
+@Table(name = "analytics_watermarks")
+public class AnalyticsWatermark {
+
+    @Id
+    @Column(length = 50)
+    private String name;
+
+    @Column(name = "position_at", nullable = false)
+    private LocalDateTime positionAt;
+
+    public AnalyticsWatermark() {
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public LocalDateTime getPositionAt() {
+        return positionAt;
+    }
+}
@@ -4,11 +4,16 @@ import jakarta.persistence.*;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "notifications")
+@Table(name = "notifications", indexes = {
+        @Index(name = "idx_notifications_user_created_at_id", columnList = "user_id, created_at, id"),
+        @Index(name = "idx_notifications_group_key_user", columnList = "group_key, user_id")
+})
 public class Notification {
 
+    // Sequence ids (handed out 50 at a time) let Hibernate batch the inserts of an admin fan-out
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "notifications_seq")
+    @SequenceGenerator(name = "notifications_seq", sequenceName = "notifications_seq", allocationSize = 50)
     private Long id;
 
     @ManyToOne
@@ -26,6 +31,19 @@ public class Notification {
 
     private LocalDateTime createdAt = LocalDateTime.now();
 
+    // Later events with the same key (e.g. "comment:123") merge into this row while it is unread
+    @Column(name = "group_key", length = 64)
+    private String groupKey;
+
+    // Events this row stands for; null on rows written before coalescing
+    @Column(name = "group_count")
+    private Integer groupCount = 1;
+
+    // Time of the latest event merged into this row; createdAt stays put so keyset
+    // pages over (createdAt, id) are stable and the group closes a window after it opened
+    @Column(name = "last_event_at")
+    private LocalDateTime lastEventAt;
+
     public Notification() {
     }
 
@@ -84,4 +102,28 @@ public class Notification {
     public void setCreatedAt(LocalDateTime createdAt) {
         this.createdAt = createdAt;
     }
+
+    public String getGroupKey() {
+        return groupKey;
+    }
+
+    public void setGroupKey(String groupKey) {
+        this.groupKey = groupKey;
+    }
+
+    public int getGroupCount() {
+        return groupCount != null ? groupCount : 1;
+    }
+
+    public void setGroupCount(int groupCount) {
+        this.groupCount = groupCount;
+    }
+
+    public LocalDateTime getLastEventAt() {
+        return lastEventAt != null ? lastEventAt : createdAt;
+    }
+
+    public void setLastEventAt(LocalDateTime lastEventAt) {
+        this.lastEventAt = lastEventAt;
+    }
 }
@@ -0,0 +1,6 @@
+package com.ticketsystem.model;
+
+public enum OutboxChannel {
+    EMAIL,
+    SMS
+}
@@ -0,0 +1,8 @@
+package com.ticketsystem.model;
+
+public enum OutboxStatus {
+    PENDING,
+    SENDING,
+    SENT,
+    FAILED
+}
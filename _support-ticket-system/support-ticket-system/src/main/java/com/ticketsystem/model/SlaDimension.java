@@ -0,0 +1,9 @@
+package com.ticketsystem.model;
+
+public enum SlaDimension {
+    // All tickets, under dimension id 0
+    OVERALL,
+    CATEGORY,
+    AGENT,
+    PROVINCE
+}
@@ -0,0 +1,69 @@
+package com.ticketsystem.model;
+
+import jakarta.persistence.*;
+import java.time.LocalDate;
+
+/**
+ * One day's durations for one SLA metric and one category, agent, province
+ * (or all tickets), as an encoded LatencyHistogram. Kept by SlaMetricsService.
+ */
+@Entity
+@Table(name = "sla_histograms", uniqueConstraints = @UniqueConstraint(name = "uk_sla_histograms_key",
+        columnNames = { "metric", "dimension", "bucket_date", "dimension_id" }))
+public class SlaHistogram {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private SlaMetric metric;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private SlaDimension dimension;
+
+    @Column(name = "dimension_id", nullable = false)
+    private long dimensionId;
+
+    @Column(name = "bucket_date", nullable = false)
+    private LocalDate bucketDate;
+
+    @Column(name = "sample_count", nullable = false)
+    private long sampleCount;
+
+    @Column(nullable = false, length = 8192)
+    private byte[] counts;
+
+    public SlaHistogram() {
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public SlaMetric getMetric() {
+        return metric;
+    }
+
+    public SlaDimension getDimension() {
+        return dimension;
+    }
+
+    public long getDimensionId() {
+        return dimensionId;
+    }
+
+    public LocalDate getBucketDate() {
+        return bucketDate;
+    }
+
+    public long getSampleCount() {
+        return sampleCount;
+    }
+
+    public byte[] getCounts() {
+        return counts;
+    }
+}
@@ -0,0 +1,8 @@
+package com.ticketsystem.model;
+
+public enum SlaMetric {
+    // From ticket creation to the first comment by an agent
+    FIRST_RESPONSE,
+    // From ticket creation to it becoming RESOLVED or CLOSED
+    RESOLUTION
+}
@@ -4,7 +4,11 @@ import jakarta.persistence.*;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "tickets")
+@Table(name = "tickets", indexes = {
+        @Index(name = "idx_tickets_created_at_id", columnList = "created_at, id"),
+        @Index(name = "idx_tickets_customer_created_at_id", columnList = "customer_id, created_at, id"),
+        @Index(name = "idx_tickets_updated_at_id", columnList = "updated_at, id")
+})
 public class Ticket {
 
     @Id
@@ -0,0 +1,90 @@
+package com.ticketsystem.model;
+
+import jakarta.persistence.*;
+import java.time.LocalDate;
+
+/**
+ * One day of TicketActivityHourly rows summed per category and location, and
+ * again per category, per location and overall, with ALL (-1) for the side
+ * summed over; ranges of months or years read one row per day for whatever
+ * filter they ask for.
+ *
+ * backlogCount is the backlog of the row's category and location at the end
+ * of the day, so the backlog on any day is the latest row up to it.
+ */
+@Entity
+@Table(name = "ticket_activity_daily", uniqueConstraints = @UniqueConstraint(name = "uk_ticket_activity_daily_key",
+        columnNames = { "bucket_date", "category_id", "location_id" }), indexes = @Index(
+                name = "idx_ticket_activity_daily_key_date", columnList = "category_id, location_id, bucket_date"))
+public class TicketActivityDaily {
+
+    /** Stands for every category or every location. */
+    public static final long ALL = -1;
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "bucket_date", nullable = false)
+    private LocalDate bucketDate;
+
+    @Column(name = "category_id", nullable = false)
+    private long categoryId;
+
+    @Column(name = "location_id", nullable = false)
+    private long locationId;
+
+    @Column(name = "created_count", nullable = false)
+    private long createdCount;
+
+    @Column(name = "resolved_count", nullable = false)
+    private long resolvedCount;
+
+    @Column(name = "reopened_count", nullable = false)
+    private long reopenedCount;
+
+    @Column(name = "removed_count", nullable = false)
+    private long removedCount;
+
+    @Column(name = "backlog_count", nullable = false)
+    private long backlogCount;
+
+    public TicketActivityDaily() {
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public LocalDate getBucketDate() {
+        return bucketDate;
+    }
+
+    public long getCategoryId() {
+        return categoryId;
+    }
+
+    public long getLocationId() {
+        return locationId;
+    }
+
+    public long getCreatedCount() {
+        return createdCount;
+    }
+
+    public long getResolvedCount() {
+        return resolvedCount;
+    }
+
+    public long getReopenedCount() {
+        return reopenedCount;
+    }
+
+    public long getRemovedCount() {
+        return removedCount;
+    }
+
+    public long getBacklogCount() {
+        return backlogCount;
+    }
+}
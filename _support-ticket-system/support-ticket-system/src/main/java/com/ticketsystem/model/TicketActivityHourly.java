@@ -0,0 +1,77 @@
+package com.ticketsystem.model;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * Ticket activity in one hour for one category and location, folded from the
+ * tickets by TicketActivityRollup: tickets created, tickets that left the
+ * backlog (RESOLVED or CLOSED), tickets reopened and open tickets deleted.
+ * The backlog moves by created - resolved + reopened - removed. A missing
+ * category or location is stored as 0.
+ */
+@Entity
+@Table(name = "ticket_activity_hourly", uniqueConstraints = @UniqueConstraint(name = "uk_ticket_activity_hourly_key",
+        columnNames = { "bucket_start", "category_id", "location_id" }))
+public class TicketActivityHourly {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "bucket_start", nullable = false)
+    private LocalDateTime bucketStart;
+
+    @Column(name = "category_id", nullable = false)
+    private long categoryId;
+
+    @Column(name = "location_id", nullable = false)
+    private long locationId;
+
+    @Column(name = "created_count", nullable = false)
+    private long createdCount;
+
+    @Column(name = "resolved_count", nullable = false)
+    private long resolvedCount;
+
+    @Column(name = "reopened_count", nullable = false)
+    private long reopenedCount;
+
+    @Column(name = "removed_count", nullable = false)
+    private long removedCount;
+
+    public TicketActivityHourly() {
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public LocalDateTime getBucketStart() {
+        return bucketStart;
+    }
+
+    public long getCategoryId() {
+        return categoryId;
+    }
+
+    public long getLocationId() {
+        return locationId;
+    }
+
+    public long getCreatedCount() {
+        return createdCount;
+    }
+
+    public long getResolvedCount() {
+        return resolvedCount;
+    }
+
+    public long getReopenedCount() {
+        return reopenedCount;
+    }
+
+    public long getRemovedCount() {
+        return removedCount;
+    }
+}
@@ -0,0 +1,58 @@
+package com.ticketsystem.model;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * What TicketActivityRollup last saw of a ticket: whether it was in the
+ * backlog (OPEN or IN_PROGRESS), and where. Comparing it with the ticket
+ * tells a resolution or reopening from a change that moved nothing, so
+ * reading the same ticket twice folds nothing twice.
+ *
+ * Deleting a ticket sets removedAt on its row; the next fold counts it out of
+ * the backlog if it was in it and drops the row.
+ */
+@Entity
+@Table(name = "ticket_activity_state", indexes = @Index(name = "idx_ticket_activity_state_removed_at",
+        columnList = "removed_at"))
+public class TicketActivityState {
+
+    @Id
+    @Column(name = "ticket_id")
+    private Long ticketId;
+
+    @Column(name = "category_id", nullable = false)
+    private long categoryId;
+
+    @Column(name = "location_id", nullable = false)
+    private long locationId;
+
+    @Column(name = "in_backlog", nullable = false)
+    private boolean inBacklog;
+
+    @Column(name = "removed_at")
+    private LocalDateTime removedAt;
+
+    public TicketActivityState() {
+    }
+
+    public Long getTicketId() {
+        return ticketId;
+    }
+
+    public long getCategoryId() {
+        return categoryId;
+    }
+
+    public long getLocationId() {
+        return locationId;
+    }
+
+    public boolean isInBacklog() {
+        return inBacklog;
+    }
+
+    public LocalDateTime getRemovedAt() {
+        return removedAt;
+    }
+}
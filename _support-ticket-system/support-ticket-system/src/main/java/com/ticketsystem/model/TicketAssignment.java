@@ -4,7 +4,9 @@ import jakarta.persistence.*;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "ticket_assignments")
+@Table(name = "ticket_assignments", indexes = {
+        @Index(name = "idx_ticket_assignments_agent_status", columnList = "agent_id, status")
+})
 public class TicketAssignment {
 
     @Id
@@ -15,6 +15,9 @@ public class TicketCategory {
     private String name;
     private String description;
 
+    // Name of the AssignmentStrategy routing this category's tickets; null uses the default
+    private String assignmentStrategy;
+
     @ManyToMany(mappedBy = "categories")
     private Set<User> agents = new HashSet<>();
 
@@ -55,4 +58,12 @@ public class TicketCategory {
     public void setAgents(Set<User> agents) {
         this.agents = agents;
     }
+
+    public String getAssignmentStrategy() {
+        return assignmentStrategy;
+    }
+
+    public void setAssignmentStrategy(String assignmentStrategy) {
+        this.assignmentStrategy = assignmentStrategy;
+    }
 }
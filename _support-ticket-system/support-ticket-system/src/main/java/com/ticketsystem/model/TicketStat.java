@@ -0,0 +1,71 @@
+package com.ticketsystem.model;
+
+import jakarta.persistence.*;
+
+/**
+ * Number of tickets per status, priority, category, location and current
+ * agent, kept in step with the tickets by TicketStatsRollup so the dashboards
+ * need no COUNT over the tickets table. A missing category, location or agent
+ * is stored as 0, so every key fits the unique constraint.
+ */
+@Entity
+@Table(name = "ticket_stats", uniqueConstraints = @UniqueConstraint(name = "uk_ticket_stats_key",
+        columnNames = { "status", "priority", "category_id", "location_id", "agent_id" }),
+        indexes = @Index(name = "idx_ticket_stats_agent", columnList = "agent_id"))
+public class TicketStat {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private TicketStatus status;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private Priority priority;
+
+    @Column(name = "category_id", nullable = false)
+    private long categoryId;
+
+    @Column(name = "location_id", nullable = false)
+    private long locationId;
+
+    @Column(name = "agent_id", nullable = false)
+    private long agentId;
+
+    @Column(name = "ticket_count", nullable = false)
+    private long ticketCount;
+
+    public TicketStat() {
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public TicketStatus getStatus() {
+        return status;
+    }
+
+    public Priority getPriority() {
+        return priority;
+    }
+
+    public long getCategoryId() {
+        return categoryId;
+    }
+
+    public long getLocationId() {
+        return locationId;
+    }
+
+    public long getAgentId() {
+        return agentId;
+    }
+
+    public long getTicketCount() {
+        return ticketCount;
+    }
+}
@@ -0,0 +1,38 @@
+package com.ticketsystem.model;
+
+import jakarta.persistence.*;
+
+/**
+ * Number of unread notifications per user, kept in step with the notifications
+ * table by UnreadNotificationCounter so the unread badge needs no COUNT query.
+ */
+@Entity
+@Table(name = "notification_unread_counts")
+public class UnreadNotificationCount {
+
+    @Id
+    @Column(name = "user_id")
+    private Long userId;
+
+    @Column(nullable = false)
+    private int unread;
+
+    public UnreadNotificationCount() {
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    public void setUserId(Long userId) {
+        this.userId = userId;
+    }
+
+    public int getUnread() {
+        return unread;
+    }
+
+    public void setUnread(int unread) {
+        this.unread = unread;
+    }
+}
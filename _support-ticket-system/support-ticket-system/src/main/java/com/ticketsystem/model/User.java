@@ -39,6 +39,12 @@ public class User {
     @JoinTable(name = "agent_categories", joinColumns = @JoinColumn(name = "agent_id"), inverseJoinColumns = @JoinColumn(name = "category_id"))
     private Set<TicketCategory> categories = new HashSet<>();
 
+    // Where an agent is based; used by proximity assignment
+    @JsonIgnore
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "location_id")
+    private Location location;
+
     public User() {
     }
 
@@ -133,4 +139,12 @@ public class User {
     public void setCategories(Set<TicketCategory> categories) {
         this.categories = categories;
     }
+
+    public Location getLocation() {
+        return location;
+    }
+
+    public void setLocation(Location location) {
+        this.location = location;
+    }
 }
@@ -0,0 +1,19 @@
+package com.ticketsystem.repository;
+
+import com.ticketsystem.model.AdminDigestEntry;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface AdminDigestEntryRepository extends JpaRepository<AdminDigestEntry, Long> {
+
+    // Locked so that two instances running the digest job never send the same events twice
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select e from AdminDigestEntry e order by e.id")
+    List<AdminDigestEntry> findAllForUpdate();
+}
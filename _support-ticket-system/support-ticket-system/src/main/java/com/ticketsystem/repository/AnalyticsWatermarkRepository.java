@@ -0,0 +1,7 @@
+package com.ticketsystem.repository;
+
+import com.ticketsystem.model.AnalyticsWatermark;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+public interface AnalyticsWatermarkRepository extends JpaRepository<AnalyticsWatermark, String> {
+}
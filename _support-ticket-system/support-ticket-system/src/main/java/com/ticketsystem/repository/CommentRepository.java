@@ -2,7 +2,10 @@ package com.ticketsystem.repository;
 
 import com.ticketsystem.model.Comment;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -10,6 +13,10 @@ public interface CommentRepository extends JpaRepository<Comment, Long> {
 
     List<Comment> findByTicketIdOrderByCreatedAtAsc(Long ticketId);
 
+    // Comments for a whole page of tickets in one round trip
+    @Query("select c from Comment c join fetch c.author where c.ticket.id in :ticketIds order by c.createdAt asc, c.id asc")
+    List<Comment> findByTicketIdsOrderByCreatedAtAsc(@Param("ticketIds") Collection<Long> ticketIds);
+
     // Internal comments (agent only)
     List<Comment> findByTicketIdAndInternalTrueOrderByCreatedAtAsc(Long ticketId);
 
@@ -18,6 +25,8 @@ public interface CommentRepository extends JpaRepository<Comment, Long> {
 
     Long countByTicketId(Long ticketId);
 
+    boolean existsByTicketIdAndAuthorRole(Long ticketId, com.ticketsystem.model.UserRole role);
+
     Optional<Comment> findFirstByTicketIdOrderByCreatedAtDesc(Long ticketId);
 
     void deleteByAuthorId(Long authorId);
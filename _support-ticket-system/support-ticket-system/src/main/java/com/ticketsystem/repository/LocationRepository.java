@@ -27,6 +27,14 @@ public interface LocationRepository extends JpaRepository<Location, Long> {
     // ROOT nodes (provinces)
     List<Location> findByParentIsNull();
 
+    // id, name, type, parent id of every location, for the in-memory search indexes
+    @Query("SELECT l.id, l.name, l.type, p.id FROM Location l LEFT JOIN l.parent p")
+    List<Object[]> findTypeaheadRows();
+
+    // id and parent id of every location, for the assignment snapshot
+    @Query("SELECT l.id, p.id FROM Location l LEFT JOIN l.parent p")
+    List<Object[]> findParentRows();
+
     // 🔍 Search only in VILLAGES
     @Query("SELECT l FROM Location l WHERE l.type = 'VILLAGE' AND LOWER(l.name) LIKE LOWER(CONCAT('%', :query, '%'))")
     List<Location> searchVillages(String query);
@@ -4,9 +4,13 @@ import com.ticketsystem.model.Notification;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 @Repository
@@ -15,6 +19,22 @@ public interface NotificationRepository extends JpaRepository<Notification, Long
     // Fetch notifications for a user, ordered by newest first
     Page<Notification> findByRecipientIdOrderByCreatedAtDesc(Long recipientId, Pageable pageable);
 
+    // Keyset window over (createdAt, id); pass PageCursor.window(...) as the pageable
+    @Query("""
+            select n from Notification n
+            where n.recipient.id = :recipientId
+              and (:cursorId is null
+                   or (:forward = true and (n.createdAt, n.id) < (:cursorCreatedAt, :cursorId))
+                   or (:forward = false and (n.createdAt, n.id) > (:cursorCreatedAt, :cursorId)))
+            """)
+    List<Notification> findByRecipientIdKeyset(@Param("recipientId") Long recipientId,
+            @Param("cursorCreatedAt") LocalDateTime cursorCreatedAt,
+            @Param("cursorId") Long cursorId,
+            @Param("forward") boolean forward,
+            Pageable window);
+
+    long countByRecipientId(Long recipientId);
+
     // Count unread notifications
     long countByRecipientIdAndIsReadFalse(Long recipientId);
 
@@ -22,4 +42,41 @@ public interface NotificationRepository extends JpaRepository<Notification, Long
     List<Notification> findTop10ByRecipientIdAndIsReadFalseOrderByCreatedAtDesc(Long recipientId);
 
     void deleteByRecipientId(Long recipientId);
+
+    // Conditional so that marking one notification read twice only counts once
+    @Modifying
+    @Query("update Notification n set n.isRead = true where n.id = :id and n.recipient.id = :recipientId and n.isRead = false")
+    int markRead(@Param("id") Long id, @Param("recipientId") Long recipientId);
+
+    @Modifying
+    @Query("update Notification n set n.isRead = true where n.recipient.id = :recipientId and n.isRead = false")
+    int markAllRead(@Param("recipientId") Long recipientId);
+
+    // Coalescing: folds one more event into the recipients' unread rows of the group opened within the window
+    @Modifying
+    @Query("""
+            update Notification n
+            set n.groupCount = coalesce(n.groupCount, 1) + 1, n.title = :title, n.lastEventAt = :now
+            where n.groupKey = :groupKey and n.recipient.id in :recipientIds
+              and n.isRead = false and n.createdAt >= :since
+            """)
+    int extendOpenGroups(@Param("groupKey") String groupKey,
+            @Param("recipientIds") Collection<Long> recipientIds,
+            @Param("title") String title,
+            @Param("now") LocalDateTime now,
+            @Param("since") LocalDateTime since);
+
+    // id, recipient id and event count of the rows extendOpenGroups just touched (and still holds locked)
+    @Query("""
+            select n.id, n.recipient.id, n.groupCount from Notification n
+            where n.groupKey = :groupKey and n.recipient.id in :recipientIds
+              and n.isRead = false and n.createdAt >= :since
+            """)
+    List<Object[]> findOpenGroups(@Param("groupKey") String groupKey,
+            @Param("recipientIds") Collection<Long> recipientIds,
+            @Param("since") LocalDateTime since);
+
+    @Modifying
+    @Query("update Notification n set n.message = :message where n.id in :ids")
+    int updateMessage(@Param("ids") Collection<Long> ids, @Param("message") String message);
 }
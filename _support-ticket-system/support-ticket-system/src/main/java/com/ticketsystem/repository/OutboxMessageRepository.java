@@ -0,0 +1,55 @@
+package com.ticketsystem.repository;
+
+import com.ticketsystem.model.OutboxChannel;
+import com.ticketsystem.model.OutboxMessage;
+import com.ticketsystem.model.OutboxStatus;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.*;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface OutboxMessageRepository extends JpaRepository<OutboxMessage, Long> {
+
+    // Due messages, oldest first; rows another dispatcher has locked are skipped, not waited on
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "-2"))
+    @Query("""
+            select m from OutboxMessage m
+            where m.status in :statuses and m.nextAttemptAt <= :now
+            order by m.id
+            """)
+    List<OutboxMessage> findDueForUpdate(@Param("statuses") List<OutboxStatus> statuses,
+            @Param("now") LocalDateTime now,
+            Pageable limit);
+
+    // Coalescing: a message for the key still held back until its window closes
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("""
+            select m from OutboxMessage m
+            where m.channel = :channel and m.recipient = :recipient and m.coalesceKey = :coalesceKey
+              and m.status = com.ticketsystem.model.OutboxStatus.PENDING and m.attempts = 0
+              and m.nextAttemptAt > :now
+            order by m.id
+            """)
+    List<OutboxMessage> findHeldForUpdate(@Param("channel") OutboxChannel channel,
+            @Param("recipient") String recipient,
+            @Param("coalesceKey") String coalesceKey,
+            @Param("now") LocalDateTime now);
+
+    boolean existsByChannelAndRecipientAndCoalesceKeyAndCreatedAtAfter(OutboxChannel channel, String recipient,
+            String coalesceKey, LocalDateTime after);
+
+    long countByStatus(OutboxStatus status);
+
+    long countByChannelAndStatusIn(OutboxChannel channel, List<OutboxStatus> statuses);
+
+    @Modifying
+    @Query("delete from OutboxMessage m where m.status = com.ticketsystem.model.OutboxStatus.SENT and m.sentAt < :before")
+    int deleteSentBefore(@Param("before") LocalDateTime before);
+}
@@ -0,0 +1,24 @@
+package com.ticketsystem.repository;
+
+import com.ticketsystem.model.SlaDimension;
+import com.ticketsystem.model.SlaHistogram;
+import com.ticketsystem.model.SlaMetric;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDate;
+import java.util.List;
+
+public interface SlaHistogramRepository extends JpaRepository<SlaHistogram, Long> {
+
+    // The daily histograms in [from, to), for one dimension id or all of them
+    @Query("""
+            SELECT h FROM SlaHistogram h
+            WHERE h.metric = :metric AND h.dimension = :dimension
+              AND h.bucketDate >= :from AND h.bucketDate < :to
+              AND (:dimensionId IS NULL OR h.dimensionId = :dimensionId)
+            """)
+    List<SlaHistogram> findInRange(@Param("metric") SlaMetric metric, @Param("dimension") SlaDimension dimension,
+            @Param("from") LocalDate from, @Param("to") LocalDate to, @Param("dimensionId") Long dimensionId);
+}
@@ -0,0 +1,38 @@
+package com.ticketsystem.repository;
+
+import com.ticketsystem.model.TicketActivityDaily;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Category and location are exact keys here, TicketActivityDaily.ALL for no
+ * filter on that side.
+ */
+public interface TicketActivityDailyRepository extends JpaRepository<TicketActivityDaily, Long> {
+
+    // Per day in [from, to): bucketDate, created, resolved, reopened, removed
+    @Query("""
+            SELECT d.bucketDate, d.createdCount, d.resolvedCount, d.reopenedCount, d.removedCount
+            FROM TicketActivityDaily d
+            WHERE d.categoryId = :categoryId AND d.locationId = :locationId
+              AND d.bucketDate >= :from AND d.bucketDate < :to
+            ORDER BY d.bucketDate
+            """)
+    List<Object[]> series(@Param("from") LocalDate from, @Param("to") LocalDate to,
+            @Param("categoryId") long categoryId, @Param("locationId") long locationId);
+
+    // The backlog at the end of the last day with activity before the given one, null if none
+    @Query("""
+            SELECT d.backlogCount
+            FROM TicketActivityDaily d
+            WHERE d.categoryId = :categoryId AND d.locationId = :locationId AND d.bucketDate < :before
+            ORDER BY d.bucketDate DESC
+            LIMIT 1
+            """)
+    Long backlogBefore(@Param("before") LocalDate before, @Param("categoryId") long categoryId,
+            @Param("locationId") long locationId);
+}
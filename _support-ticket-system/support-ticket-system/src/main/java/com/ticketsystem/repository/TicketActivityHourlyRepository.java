@@ -0,0 +1,37 @@
+package com.ticketsystem.repository;
+
+import com.ticketsystem.model.TicketActivityHourly;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface TicketActivityHourlyRepository extends JpaRepository<TicketActivityHourly, Long> {
+
+    // Per hour in [from, to), summed over the categories and locations that match:
+    // bucketStart, created, resolved, reopened, removed
+    @Query("""
+            SELECT h.bucketStart, sum(h.createdCount), sum(h.resolvedCount), sum(h.reopenedCount), sum(h.removedCount)
+            FROM TicketActivityHourly h
+            WHERE h.bucketStart >= :from AND h.bucketStart < :to
+              AND (:categoryId IS NULL OR h.categoryId = :categoryId)
+              AND (:locationId IS NULL OR h.locationId = :locationId)
+            GROUP BY h.bucketStart
+            ORDER BY h.bucketStart
+            """)
+    List<Object[]> series(@Param("from") LocalDateTime from, @Param("to") LocalDateTime to,
+            @Param("categoryId") Long categoryId, @Param("locationId") Long locationId);
+
+    // How much the backlog moved over [from, to)
+    @Query("""
+            SELECT coalesce(sum(h.createdCount - h.resolvedCount + h.reopenedCount - h.removedCount), 0)
+            FROM TicketActivityHourly h
+            WHERE h.bucketStart >= :from AND h.bucketStart < :to
+              AND (:categoryId IS NULL OR h.categoryId = :categoryId)
+              AND (:locationId IS NULL OR h.locationId = :locationId)
+            """)
+    long backlogChange(@Param("from") LocalDateTime from, @Param("to") LocalDateTime to,
+            @Param("categoryId") Long categoryId, @Param("locationId") Long locationId);
+}
@@ -9,6 +9,7 @@ import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -22,13 +23,26 @@ public interface TicketAssignmentRepository extends JpaRepository<TicketAssignme
 
     Long countByAgentAndStatus(User agent, AssignmentStatus status);
 
-    @Query("select count(ta) from TicketAssignment ta where ta.agent.id = :agentId")
-    Long countByAgentId(@Param("agentId") Long agentId);
-
     // How many agents currently have at least one ACTIVE assignment
     @Query("select count(distinct ta.agent.id) from TicketAssignment ta where ta.status = com.ticketsystem.model.AssignmentStatus.ASSIGNED")
     Long countActiveAgents();
 
+    // Agents holding the ticket's current assignment(s), as removed by deactivateAssignments
+    @Query("select ta.agent.id from TicketAssignment ta where ta.ticket.id = :ticketId and ta.status in :statuses")
+    List<Long> findAgentIdsByTicketAndStatuses(@Param("ticketId") Long ticketId,
+            @Param("statuses") List<AssignmentStatus> statuses);
+
+    // Per-agent workload in one pass: agent id, ticket priority, number of tickets in the given state
+    @Query("""
+            select ta.agent.id, ta.ticket.priority, count(ta)
+            from TicketAssignment ta
+            where ta.status = :assignmentStatus
+              and ta.ticket.status = :ticketStatus
+            group by ta.agent.id, ta.ticket.priority
+            """)
+    List<Object[]> countTicketsPerAgentAndPriority(@Param("ticketStatus") com.ticketsystem.model.TicketStatus ticketStatus,
+            @Param("assignmentStatus") AssignmentStatus assignmentStatus);
+
     @Modifying
     @Query("delete from TicketAssignment ta where ta.ticket.id = :ticketId and ta.status IN :statuses")
     void deactivateAssignments(@Param("ticketId") Long ticketId, @Param("statuses") List<AssignmentStatus> statuses);
@@ -39,6 +53,16 @@ public interface TicketAssignmentRepository extends JpaRepository<TicketAssignme
     List<TicketAssignment> findActiveAssignment(@Param("ticketId") Long ticketId,
             @Param("status") AssignmentStatus status);
 
+    // Active assignments for a whole page of tickets, newest first per ticket
+    @Query("""
+            select ta from TicketAssignment ta
+            join fetch ta.agent
+            where ta.ticket.id in :ticketIds and ta.status = :status
+            order by ta.assignedAt desc, ta.id desc
+            """)
+    List<TicketAssignment> findActiveAssignments(@Param("ticketIds") Collection<Long> ticketIds,
+            @Param("status") AssignmentStatus status);
+
     @Modifying
     @Query("delete from TicketAssignment ta where ta.agent.id = :agentId")
     void deleteByAgentId(@Param("agentId") Long agentId);
@@ -29,4 +29,8 @@ public interface TicketCategoryRepository extends JpaRepository<TicketCategory,
        """)
     List<TicketCategory> findCategoriesWithAgents();
 
+    // Categories routed by a non-default strategy: id, strategy name
+    @Query("select c.id, c.assignmentStrategy from TicketCategory c where c.assignmentStrategy is not null")
+    List<Object[]> findAssignmentStrategies();
+
 }
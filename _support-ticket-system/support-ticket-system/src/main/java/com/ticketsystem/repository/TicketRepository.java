@@ -4,17 +4,27 @@ import com.ticketsystem.model.Ticket;
 import com.ticketsystem.model.TicketCategory;
 import com.ticketsystem.model.TicketStatus;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 public interface TicketRepository extends JpaRepository<Ticket, Long> {
 
         List<Ticket> findByCustomerId(Long customerId);
 
+        // Row lock (SELECT ... FOR UPDATE) serializing assignment changes on one ticket
+        @Lock(LockModeType.PESSIMISTIC_WRITE)
+        @Query("select t from Ticket t where t.id = :id")
+        Optional<Ticket> findByIdForUpdate(@Param("id") Long id);
+
         List<Ticket> findByAssignedAgentId(Long agentId);
 
         List<Ticket> findByStatus(TicketStatus status);
@@ -35,25 +45,14 @@ public interface TicketRepository extends JpaRepository<Ticket, Long> {
         Optional<Ticket> findFirstByCategoryAndStatusOrderByCreatedAtAsc(
                         TicketCategory category, TicketStatus status);
 
+        // Ranked full-text search (see config.TicketSearchFunctions); an exact id hit comes first
         @Query("""
                         select t from Ticket t
-                        where lower(t.title) like lower(concat('%', :q, '%'))
-                           or lower(t.description) like lower(concat('%', :q, '%'))
-                           or cast(t.id as string) like lower(concat('%', :q, '%'))
+                        where ticket_search(t.id, t.title, t.description, :q) = true
+                        order by case when cast(t.id as string) = :q then 0 else 1 end,
+                                 ticket_search_rank(t.id, :q) desc, t.id desc
                         """)
-        List<Ticket> searchTickets(@Param("q") String query);
-
-        @Query("""
-                        select count(t)
-                        from TicketAssignment ta
-                        join ta.ticket t
-                        where ta.agent.id = :agentId
-                          and t.status = :status
-                          and ta.status = :assignmentStatus
-                        """)
-        Long countAgentTicketsByStatus(@Param("agentId") Long agentId,
-                        @Param("status") TicketStatus status,
-                        @Param("assignmentStatus") com.ticketsystem.model.AssignmentStatus assignmentStatus);
+        List<Ticket> searchTickets(@Param("q") String query, org.springframework.data.domain.Pageable pageable);
 
         @Query("""
                         SELECT t FROM Ticket t
@@ -61,7 +60,7 @@ public interface TicketRepository extends JpaRepository<Ticket, Long> {
                         WHERE ta.agent.id = :agentId
                           AND ta.status = :assignmentStatus
                           AND (:status IS NULL OR t.status = :status)
-                          AND (:query IS NULL OR (LOWER(t.title) LIKE LOWER(CONCAT('%', :query, '%')) OR LOWER(t.description) LIKE LOWER(CONCAT('%', :query, '%')) OR CAST(t.id AS string) LIKE LOWER(CONCAT('%', :query, '%'))))
+                          AND (:query IS NULL OR ticket_search(t.id, t.title, t.description, :query) = true)
                         """)
         org.springframework.data.domain.Page<Ticket> findAssignedTickets(@Param("agentId") Long agentId,
                         @Param("status") TicketStatus status,
@@ -69,15 +68,26 @@ public interface TicketRepository extends JpaRepository<Ticket, Long> {
                         @Param("assignmentStatus") com.ticketsystem.model.AssignmentStatus assignmentStatus,
                         org.springframework.data.domain.Pageable pageable);
 
-        Long countByCustomerIdAndStatus(Long customerId, TicketStatus status);
+        // The customer's tickets per status, in one pass: status, count
+        @Query("select t.status, count(t) from Ticket t where t.customer.id = :customerId group by t.status")
+        List<Object[]> countByStatusForCustomer(@Param("customerId") Long customerId);
 
-        List<Ticket> findFirst5ByCustomerIdOrderByCreatedAtDesc(Long customerId);
+        // Newest first along idx_tickets_customer_created_at_id, as DTOs rather than entities
+        @Query("""
+                        SELECT new com.ticketsystem.dto.TicketDTO(
+                               t.id, t.title, t.description, t.priority, t.category.id, t.location.id)
+                        FROM Ticket t
+                        WHERE t.customer.id = :customerId
+                        ORDER BY t.createdAt DESC, t.id DESC
+                        """)
+        List<com.ticketsystem.dto.TicketDTO> findRecentByCustomer(@Param("customerId") Long customerId,
+                        org.springframework.data.domain.Pageable pageable);
 
         @Query("""
                         SELECT t FROM Ticket t
                         WHERE (:status IS NULL OR t.status = :status)
                            AND (:priority IS NULL OR t.priority = :priority)
-                           AND (:query IS NULL OR (LOWER(t.title) LIKE LOWER(CONCAT('%', :query, '%')) OR LOWER(t.description) LIKE LOWER(CONCAT('%', :query, '%')) OR CAST(t.id AS string) LIKE LOWER(CONCAT('%', :query, '%'))))
+                           AND (:query IS NULL OR ticket_search(t.id, t.title, t.description, :query) = true)
                            AND (:locationId IS NULL OR t.location.id = :locationId)
                            AND (:unassignedOnly IS NULL OR :unassignedOnly = false OR NOT EXISTS (SELECT 1 FROM TicketAssignment ta WHERE ta.ticket = t AND ta.status = 'ASSIGNED'))
                         """)
@@ -94,7 +104,7 @@ public interface TicketRepository extends JpaRepository<Ticket, Long> {
                         WHERE t.customer.id = :customerId
                           AND (:status IS NULL OR t.status = :status)
                           AND (:priority IS NULL OR t.priority = :priority)
-                          AND (:query IS NULL OR (LOWER(t.title) LIKE LOWER(CONCAT('%', :query, '%')) OR LOWER(t.description) LIKE LOWER(CONCAT('%', :query, '%')) OR CAST(t.id AS string) LIKE LOWER(CONCAT('%', :query, '%'))))
+                          AND (:query IS NULL OR ticket_search(t.id, t.title, t.description, :query) = true)
                         """)
         org.springframework.data.domain.Page<Ticket> findTicketsByCustomer(
                         @Param("customerId") Long customerId,
@@ -103,6 +113,281 @@ public interface TicketRepository extends JpaRepository<Ticket, Long> {
                         @Param("query") String query,
                         org.springframework.data.domain.Pageable pageable);
 
+        // -----------------------
+        // SUMMARY PROJECTIONS (list endpoints)
+        // -----------------------
+
+        @Query(value = """
+                        SELECT new com.ticketsystem.dto.TicketSummaryDTO(
+                               t.id, t.title, t.status, t.priority, t.createdAt, t.updatedAt,
+                               c.id, c.name, cu.id, cu.name, a.id, a.name, l.id, l.name, l.type)
+                        FROM Ticket t
+                        LEFT JOIN t.category c
+                        LEFT JOIN t.customer cu
+                        LEFT JOIN t.location l
+                        LEFT JOIN TicketAssignment ta ON ta.ticket = t
+                             AND ta.id = (SELECT max(ta2.id) FROM TicketAssignment ta2 WHERE ta2.ticket = t AND ta2.status = com.ticketsystem.model.AssignmentStatus.ASSIGNED)
+                        LEFT JOIN ta.agent a
+                        WHERE (:status IS NULL OR t.status = :status)
+                           AND (:priority IS NULL OR t.priority = :priority)
+                           AND (:query IS NULL OR ticket_search(t.id, t.title, t.description, :query) = true)
+                           AND (:locationId IS NULL OR t.location.id = :locationId)
+                           AND (:unassignedOnly IS NULL OR :unassignedOnly = false OR ta.id IS NULL)
+                        """, countQuery = """
+                        SELECT count(t) FROM Ticket t
+                        WHERE (:status IS NULL OR t.status = :status)
+                           AND (:priority IS NULL OR t.priority = :priority)
+                           AND (:query IS NULL OR ticket_search(t.id, t.title, t.description, :query) = true)
+                           AND (:locationId IS NULL OR t.location.id = :locationId)
+                           AND (:unassignedOnly IS NULL OR :unassignedOnly = false OR NOT EXISTS (SELECT 1 FROM TicketAssignment ta WHERE ta.ticket = t AND ta.status = 'ASSIGNED'))
+                        """)
+        org.springframework.data.domain.Page<com.ticketsystem.dto.TicketSummaryDTO> findAllTicketSummaries(
+                        @Param("status") TicketStatus status,
+                        @Param("priority") com.ticketsystem.model.Priority priority,
+                        @Param("query") String query,
+                        @Param("locationId") Long locationId,
+                        @Param("unassignedOnly") Boolean unassignedOnly,
+                        org.springframework.data.domain.Pageable pageable);
+
+        @Query(value = """
+                        SELECT new com.ticketsystem.dto.TicketSummaryDTO(
+                               t.id, t.title, t.status, t.priority, t.createdAt, t.updatedAt,
+                               c.id, c.name, cu.id, cu.name, a.id, a.name, l.id, l.name, l.type)
+                        FROM Ticket t
+                        LEFT JOIN t.category c
+                        LEFT JOIN t.customer cu
+                        LEFT JOIN t.location l
+                        LEFT JOIN TicketAssignment ta ON ta.ticket = t
+                             AND ta.id = (SELECT max(ta2.id) FROM TicketAssignment ta2 WHERE ta2.ticket = t AND ta2.status = com.ticketsystem.model.AssignmentStatus.ASSIGNED)
+                        LEFT JOIN ta.agent a
+                        WHERE t.customer.id = :customerId
+                          AND (:status IS NULL OR t.status = :status)
+                          AND (:priority IS NULL OR t.priority = :priority)
+                          AND (:query IS NULL OR ticket_search(t.id, t.title, t.description, :query) = true)
+                        """, countQuery = """
+                        SELECT count(t) FROM Ticket t
+                        WHERE t.customer.id = :customerId
+                          AND (:status IS NULL OR t.status = :status)
+                          AND (:priority IS NULL OR t.priority = :priority)
+                          AND (:query IS NULL OR ticket_search(t.id, t.title, t.description, :query) = true)
+                        """)
+        org.springframework.data.domain.Page<com.ticketsystem.dto.TicketSummaryDTO> findTicketSummariesByCustomer(
+                        @Param("customerId") Long customerId,
+                        @Param("status") TicketStatus status,
+                        @Param("priority") com.ticketsystem.model.Priority priority,
+                        @Param("query") String query,
+                        org.springframework.data.domain.Pageable pageable);
+
+        @Query(value = """
+                        SELECT new com.ticketsystem.dto.TicketSummaryDTO(
+                               t.id, t.title, t.status, t.priority, t.createdAt, t.updatedAt,
+                               c.id, c.name, cu.id, cu.name, a.id, a.name, l.id, l.name, l.type)
+                        FROM Ticket t
+                        JOIN TicketAssignment ta ON ta.ticket = t
+                        JOIN ta.agent a
+                        LEFT JOIN t.category c
+                        LEFT JOIN t.customer cu
+                        LEFT JOIN t.location l
+                        WHERE a.id = :agentId
+                          AND ta.status = :assignmentStatus
+                          AND (:status IS NULL OR t.status = :status)
+                          AND (:query IS NULL OR ticket_search(t.id, t.title, t.description, :query) = true)
+                        """, countQuery = """
+                        SELECT count(t) FROM Ticket t
+                        JOIN TicketAssignment ta ON ta.ticket = t
+                        WHERE ta.agent.id = :agentId
+                          AND ta.status = :assignmentStatus
+                          AND (:status IS NULL OR t.status = :status)
+                          AND (:query IS NULL OR ticket_search(t.id, t.title, t.description, :query) = true)
+                        """)
+        org.springframework.data.domain.Page<com.ticketsystem.dto.TicketSummaryDTO> findAssignedTicketSummaries(
+                        @Param("agentId") Long agentId,
+                        @Param("status") TicketStatus status,
+                        @Param("query") String query,
+                        @Param("assignmentStatus") com.ticketsystem.model.AssignmentStatus assignmentStatus,
+                        org.springframework.data.domain.Pageable pageable);
+
+        // Forward-only cursor for exports; must be consumed and closed inside a transaction
+        @QueryHints({
+                        @QueryHint(name = org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE, value = "500"),
+                        @QueryHint(name = org.hibernate.jpa.HibernateHints.HINT_READ_ONLY, value = "true")
+        })
+        @Query("""
+                        SELECT new com.ticketsystem.dto.TicketSummaryDTO(
+                               t.id, t.title, t.status, t.priority, t.createdAt, t.updatedAt,
+                               c.id, c.name, cu.id, cu.name, a.id, a.name, l.id, l.name, l.type)
+                        FROM Ticket t
+                        LEFT JOIN t.category c
+                        LEFT JOIN t.customer cu
+                        LEFT JOIN t.location l
+                        LEFT JOIN TicketAssignment ta ON ta.ticket = t
+                             AND ta.id = (SELECT max(ta2.id) FROM TicketAssignment ta2 WHERE ta2.ticket = t AND ta2.status = com.ticketsystem.model.AssignmentStatus.ASSIGNED)
+                        LEFT JOIN ta.agent a
+                        WHERE (:status IS NULL OR t.status = :status)
+                           AND (:priority IS NULL OR t.priority = :priority)
+                           AND (:query IS NULL OR ticket_search(t.id, t.title, t.description, :query) = true)
+                           AND (:locationId IS NULL OR t.location.id = :locationId)
+                           AND (:unassignedOnly IS NULL OR :unassignedOnly = false OR ta.id IS NULL)
+                        ORDER BY t.id
+                        """)
+        Stream<com.ticketsystem.dto.TicketSummaryDTO> streamTicketSummaries(
+                        @Param("status") TicketStatus status,
+                        @Param("priority") com.ticketsystem.model.Priority priority,
+                        @Param("query") String query,
+                        @Param("locationId") Long locationId,
+                        @Param("unassignedOnly") Boolean unassignedOnly);
+
+        // Rows for the global search index: id, title, description, category id
+        @QueryHints({
+                        @QueryHint(name = org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE, value = "500"),
+                        @QueryHint(name = org.hibernate.jpa.HibernateHints.HINT_READ_ONLY, value = "true")
+        })
+        @Query("""
+                        SELECT t.id, t.title, t.description, c.id
+                        FROM Ticket t
+                        LEFT JOIN t.category c
+                        ORDER BY t.id
+                        """)
+        Stream<Object[]> streamSearchDocuments();
+
+        // -----------------------
+        // KEYSET (CURSOR) WINDOWS over (createdAt, id)
+        // Pass PageCursor.window(...) as the pageable; no COUNT query is issued.
+        // -----------------------
+
+        @Query("""
+                        SELECT new com.ticketsystem.dto.TicketSummaryDTO(
+                               t.id, t.title, t.status, t.priority, t.createdAt, t.updatedAt,
+                               c.id, c.name, cu.id, cu.name, a.id, a.name, l.id, l.name, l.type)
+                        FROM Ticket t
+                        LEFT JOIN t.category c
+                        LEFT JOIN t.customer cu
+                        LEFT JOIN t.location l
+                        LEFT JOIN TicketAssignment ta ON ta.ticket = t
+                             AND ta.id = (SELECT max(ta2.id) FROM TicketAssignment ta2 WHERE ta2.ticket = t AND ta2.status = com.ticketsystem.model.AssignmentStatus.ASSIGNED)
+                        LEFT JOIN ta.agent a
+                        WHERE (:status IS NULL OR t.status = :status)
+                           AND (:priority IS NULL OR t.priority = :priority)
+                           AND (:query IS NULL OR ticket_search(t.id, t.title, t.description, :query) = true)
+                           AND (:locationId IS NULL OR t.location.id = :locationId)
+                           AND (:unassignedOnly IS NULL OR :unassignedOnly = false OR ta.id IS NULL)
+                           AND (:cursorId IS NULL
+                                OR (:forward = true AND (t.createdAt, t.id) < (:cursorCreatedAt, :cursorId))
+                                OR (:forward = false AND (t.createdAt, t.id) > (:cursorCreatedAt, :cursorId)))
+                        """)
+        List<com.ticketsystem.dto.TicketSummaryDTO> findAllTicketSummariesKeyset(
+                        @Param("status") TicketStatus status,
+                        @Param("priority") com.ticketsystem.model.Priority priority,
+                        @Param("query") String query,
+                        @Param("locationId") Long locationId,
+                        @Param("unassignedOnly") Boolean unassignedOnly,
+                        @Param("cursorCreatedAt") java.time.LocalDateTime cursorCreatedAt,
+                        @Param("cursorId") Long cursorId,
+                        @Param("forward") boolean forward,
+                        org.springframework.data.domain.Pageable window);
+
+        @Query("""
+                        SELECT count(t) FROM Ticket t
+                        WHERE (:status IS NULL OR t.status = :status)
+                           AND (:priority IS NULL OR t.priority = :priority)
+                           AND (:query IS NULL OR ticket_search(t.id, t.title, t.description, :query) = true)
+                           AND (:locationId IS NULL OR t.location.id = :locationId)
+                           AND (:unassignedOnly IS NULL OR :unassignedOnly = false OR NOT EXISTS (SELECT 1 FROM TicketAssignment ta WHERE ta.ticket = t AND ta.status = 'ASSIGNED'))
+                        """)
+        long countAllTickets(
+                        @Param("status") TicketStatus status,
+                        @Param("priority") com.ticketsystem.model.Priority priority,
+                        @Param("query") String query,
+                        @Param("locationId") Long locationId,
+                        @Param("unassignedOnly") Boolean unassignedOnly);
+
+        @Query("""
+                        SELECT new com.ticketsystem.dto.TicketSummaryDTO(
+                               t.id, t.title, t.status, t.priority, t.createdAt, t.updatedAt,
+                               c.id, c.name, cu.id, cu.name, a.id, a.name, l.id, l.name, l.type)
+                        FROM Ticket t
+                        LEFT JOIN t.category c
+                        LEFT JOIN t.customer cu
+                        LEFT JOIN t.location l
+                        LEFT JOIN TicketAssignment ta ON ta.ticket = t
+                             AND ta.id = (SELECT max(ta2.id) FROM TicketAssignment ta2 WHERE ta2.ticket = t AND ta2.status = com.ticketsystem.model.AssignmentStatus.ASSIGNED)
+                        LEFT JOIN ta.agent a
+                        WHERE t.customer.id = :customerId
+                          AND (:status IS NULL OR t.status = :status)
+                          AND (:priority IS NULL OR t.priority = :priority)
+                          AND (:query IS NULL OR ticket_search(t.id, t.title, t.description, :query) = true)
+                          AND (:cursorId IS NULL
+                               OR (:forward = true AND (t.createdAt, t.id) < (:cursorCreatedAt, :cursorId))
+                               OR (:forward = false AND (t.createdAt, t.id) > (:cursorCreatedAt, :cursorId)))
+                        """)
+        List<com.ticketsystem.dto.TicketSummaryDTO> findTicketSummariesByCustomerKeyset(
+                        @Param("customerId") Long customerId,
+                        @Param("status") TicketStatus status,
+                        @Param("priority") com.ticketsystem.model.Priority priority,
+                        @Param("query") String query,
+                        @Param("cursorCreatedAt") java.time.LocalDateTime cursorCreatedAt,
+                        @Param("cursorId") Long cursorId,
+                        @Param("forward") boolean forward,
+                        org.springframework.data.domain.Pageable window);
+
+        @Query("""
+                        SELECT count(t) FROM Ticket t
+                        WHERE t.customer.id = :customerId
+                          AND (:status IS NULL OR t.status = :status)
+                          AND (:priority IS NULL OR t.priority = :priority)
+                          AND (:query IS NULL OR ticket_search(t.id, t.title, t.description, :query) = true)
+                        """)
+        long countTicketsByCustomer(
+                        @Param("customerId") Long customerId,
+                        @Param("status") TicketStatus status,
+                        @Param("priority") com.ticketsystem.model.Priority priority,
+                        @Param("query") String query);
+
+        @Query("""
+                        SELECT new com.ticketsystem.dto.TicketSummaryDTO(
+                               t.id, t.title, t.status, t.priority, t.createdAt, t.updatedAt,
+                               c.id, c.name, cu.id, cu.name, a.id, a.name, l.id, l.name, l.type)
+                        FROM Ticket t
+                        JOIN TicketAssignment ta ON ta.ticket = t
+                        JOIN ta.agent a
+                        LEFT JOIN t.category c
+                        LEFT JOIN t.customer cu
+                        LEFT JOIN t.location l
+                        WHERE a.id = :agentId
+                          AND ta.status = :assignmentStatus
+                          AND (:status IS NULL OR t.status = :status)
+                          AND (:query IS NULL OR ticket_search(t.id, t.title, t.description, :query) = true)
+                          AND (:cursorId IS NULL
+                               OR (:forward = true AND (t.createdAt, t.id) < (:cursorCreatedAt, :cursorId))
+                               OR (:forward = false AND (t.createdAt, t.id) > (:cursorCreatedAt, :cursorId)))
+                        """)
+        List<com.ticketsystem.dto.TicketSummaryDTO> findAssignedTicketSummariesKeyset(
+                        @Param("agentId") Long agentId,
+                        @Param("status") TicketStatus status,
+                        @Param("query") String query,
+                        @Param("assignmentStatus") com.ticketsystem.model.AssignmentStatus assignmentStatus,
+                        @Param("cursorCreatedAt") java.time.LocalDateTime cursorCreatedAt,
+                        @Param("cursorId") Long cursorId,
+                        @Param("forward") boolean forward,
+                        org.springframework.data.domain.Pageable window);
+
+        @Query("""
+                        SELECT count(t) FROM Ticket t
+                        JOIN TicketAssignment ta ON ta.ticket = t
+                        WHERE ta.agent.id = :agentId
+                          AND ta.status = :assignmentStatus
+                          AND (:status IS NULL OR t.status = :status)
+                          AND (:query IS NULL OR ticket_search(t.id, t.title, t.description, :query) = true)
+                        """)
+        long countAssignedTickets(
+                        @Param("agentId") Long agentId,
+                        @Param("status") TicketStatus status,
+                        @Param("query") String query,
+                        @Param("assignmentStatus") com.ticketsystem.model.AssignmentStatus assignmentStatus);
+
+        @Query("select t.id from Ticket t where t.customer.id = :customerId")
+        List<Long> findIdsByCustomerId(@Param("customerId") Long customerId);
+
         void deleteByCustomerId(Long customerId);
 
         @Modifying
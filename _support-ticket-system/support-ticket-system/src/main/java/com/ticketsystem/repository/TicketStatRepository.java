@@ -0,0 +1,42 @@
+package com.ticketsystem.repository;
+
+import com.ticketsystem.model.TicketStat;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.List;
+
+public interface TicketStatRepository extends JpaRepository<TicketStat, Long> {
+
+    // Every admin dashboard figure in one statement: the status counts summed from
+    // the rollup, the other tables as scalar subqueries
+    @Query("""
+            SELECT new com.ticketsystem.dto.DashboardResponseDTO(
+                   coalesce(sum(s.ticketCount), 0),
+                   coalesce(sum(s.ticketCount) filter (where s.status = com.ticketsystem.model.TicketStatus.OPEN), 0),
+                   coalesce(sum(s.ticketCount) filter (where s.status = com.ticketsystem.model.TicketStatus.IN_PROGRESS), 0),
+                   coalesce(sum(s.ticketCount) filter (where s.status = com.ticketsystem.model.TicketStatus.RESOLVED), 0),
+                   coalesce(sum(s.ticketCount) filter (where s.status = com.ticketsystem.model.TicketStatus.CLOSED), 0),
+                   (SELECT count(distinct s2.agentId) FROM TicketStat s2 WHERE s2.agentId <> 0 AND s2.ticketCount > 0),
+                   (SELECT count(u) FROM User u),
+                   (SELECT count(c) FROM TicketCategory c),
+                   (SELECT count(l) FROM Location l))
+            FROM TicketStat s
+            """)
+    com.ticketsystem.dto.DashboardResponseDTO adminDashboard();
+
+    // The agent's current tickets per status and priority, each row also carrying when
+    // their oldest OPEN ticket was created: status, priority, count, oldest open createdAt
+    @Query("""
+            SELECT s.status, s.priority, sum(s.ticketCount),
+                   (SELECT min(t.createdAt) FROM TicketAssignment ta JOIN ta.ticket t
+                    WHERE ta.agent.id = :agentId
+                      AND ta.status = com.ticketsystem.model.AssignmentStatus.ASSIGNED
+                      AND t.status = com.ticketsystem.model.TicketStatus.OPEN)
+            FROM TicketStat s
+            WHERE s.agentId = :agentId AND s.ticketCount <> 0
+            GROUP BY s.status, s.priority
+            """)
+    List<Object[]> agentQueue(@Param("agentId") Long agentId);
+}
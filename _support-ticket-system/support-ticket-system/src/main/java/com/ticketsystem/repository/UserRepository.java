@@ -22,6 +22,24 @@ public interface UserRepository extends JpaRepository<User, Long> {
   org.springframework.data.domain.Page<User> findByRole(UserRole role,
       org.springframework.data.domain.Pageable pageable);
 
+  // Keyset window over id (users carry no createdAt); pass PageCursor.window(..., "id")
+  @Query("""
+      select u from User u
+      where (:role is null or u.role = :role)
+        and (:cursorId is null
+             or (:forward = true and u.id < :cursorId)
+             or (:forward = false and u.id > :cursorId))
+      """)
+  List<User> findByRoleKeyset(@Param("role") UserRole role,
+      @Param("cursorId") Long cursorId,
+      @Param("forward") boolean forward,
+      org.springframework.data.domain.Pageable window);
+
+  long countByRole(UserRole role);
+
+  @Query("select u.id from User u where u.role = :role order by u.id")
+  List<Long> findIdsByRole(@Param("role") UserRole role);
+
   List<User> findByRoleAndEnabledTrue(UserRole role);
 
   List<User> findByCategoriesInAndRoleAndEnabledTrue(Set<TicketCategory> categories, UserRole role);
@@ -36,6 +54,17 @@ public interface UserRepository extends JpaRepository<User, Long> {
       """)
   List<User> findAgentsByCategory(@Param("categoryId") Long categoryId);
 
+  // Routing rows for auto-assignment: agent id, category id, base location id
+  @Query("""
+      select u.id, c.id, l.id
+      from User u
+      join u.categories c
+      left join u.location l
+      where u.role = com.ticketsystem.model.UserRole.AGENT
+        and u.enabled = true
+      """)
+  List<Object[]> findAgentRoutingRows();
+
   @Query("""
       select u from User u
       where lower(u.name) like lower(concat('%', :q, '%'))
@@ -33,9 +33,17 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
         try {
             String jwt = getJwtFromRequest(request);
+            String username = null;
 
-            if (StringUtils.hasText(jwt) && tokenProvider.validateToken(jwt)) {
-                String username = tokenProvider.getUsernameFromJwt(jwt);
+            if (StringUtils.hasText(jwt) && tokenProvider.validateToken(jwt) && !tokenProvider.isStreamTicket(jwt)) {
+                username = tokenProvider.getUsernameFromJwt(jwt);
+            } else if (request.getRequestURI().endsWith("/api/notifications/stream")
+                    && StringUtils.hasText(request.getParameter("ticket"))) {
+                // Browsers' EventSource cannot send headers; the stream takes a one-off ticket instead
+                username = tokenProvider.redeemStreamTicket(request.getParameter("ticket"));
+            }
+
+            if (username != null) {
 
                 UserDetails userDetails = userDetailsService.loadUserByUsername(username);
 
@@ -7,6 +7,8 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 import java.util.Date;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
 
 @Component
 public class JwtTokenProvider {
@@ -17,6 +19,14 @@ public class JwtTokenProvider {
     @Value("${app.jwt.expiration}")
     private long jwtExpirationMs;
 
+    @Value("${app.jwt.stream-ticket-expiration:30000}")
+    private long streamTicketExpirationMs;
+
+    static final String STREAM_PURPOSE = "notification-stream";
+
+    // Ids of stream tickets already used, until they expire
+    private final ConcurrentHashMap<String, Long> redeemedTickets = new ConcurrentHashMap<>();
+
     private java.security.Key getSigningKey() {
         return io.jsonwebtoken.security.Keys.hmacShaKeyFor(jwtSecret.getBytes(java.nio.charset.StandardCharsets.UTF_8));
     }
@@ -35,6 +45,57 @@ public class JwtTokenProvider {
                 .compact();
     }
 
+    /**
+     * A token that only opens the user's notification stream. EventSource cannot
+     * send headers, so it travels in the URL and may end up in access logs;
+     * it expires within seconds and is accepted once.
+     */
+    public String generateStreamTicket(String username) {
+        Date now = new Date();
+        return Jwts.builder()
+                .setSubject(username)
+                .setId(UUID.randomUUID().toString())
+                .claim("purpose", STREAM_PURPOSE)
+                .setIssuedAt(now)
+                .setExpiration(new Date(now.getTime() + streamTicketExpirationMs))
+                .signWith(getSigningKey(), SignatureAlgorithm.HS512)
+                .compact();
+    }
+
+    public long getStreamTicketExpirationMs() {
+        return streamTicketExpirationMs;
+    }
+
+    /**
+     * The user a stream ticket was issued to, or null if it is invalid, expired,
+     * not a stream ticket or already used.
+     */
+    public String redeemStreamTicket(String ticket) {
+        Claims claims;
+        try {
+            claims = Jwts.parserBuilder().setSigningKey(getSigningKey()).build().parseClaimsJws(ticket).getBody();
+        } catch (Exception ex) {
+            return null;
+        }
+        if (!STREAM_PURPOSE.equals(claims.get("purpose")) || claims.getId() == null)
+            return null;
+        long now = System.currentTimeMillis();
+        redeemedTickets.values().removeIf(expiry -> expiry < now);
+        if (redeemedTickets.putIfAbsent(claims.getId(), claims.getExpiration().getTime()) != null)
+            return null;
+        return claims.getSubject();
+    }
+
+    // Stream tickets are not accepted as bearer tokens
+    public boolean isStreamTicket(String token) {
+        return STREAM_PURPOSE.equals(Jwts.parserBuilder()
+                .setSigningKey(getSigningKey())
+                .build()
+                .parseClaimsJws(token)
+                .getBody()
+                .get("purpose"));
+    }
+
     public String getUsernameFromJwt(String token) {
         return Jwts.parserBuilder()
                 .setSigningKey(getSigningKey())
@@ -0,0 +1,92 @@
+package com.ticketsystem.service;
+
+import com.ticketsystem.model.AdminDigestEntry;
+import com.ticketsystem.repository.AdminDigestEntryRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.format.DateTimeFormatter;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Sends the admin digest. With app.notifications.admin-digest.enabled,
+ * NotificationService queues system events in admin_digest_entries instead of
+ * notifying every admin about each one; this job turns everything queued
+ * since its last run into one notification and one email per admin.
+ */
+@Component
+public class AdminDigest {
+
+    private static final Logger log = LoggerFactory.getLogger(AdminDigest.class);
+
+    // Events listed one per line in the email before summarising the rest
+    private static final int LISTED_EVENTS = 200;
+
+    private static final DateTimeFormatter TIME = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm");
+
+    @Autowired
+    private AdminDigestEntryRepository digestRepository;
+
+    @Autowired
+    private NotificationService notificationService;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${app.scheduling.notifications.enabled:true}")
+    private boolean enabled;
+
+    // Runs even with the digest turned off, so events queued before that still go out
+    @Scheduled(cron = "${app.notifications.admin-digest.cron:0 0 * * * *}")
+    public void scheduledSend() {
+        if (!enabled)
+            return;
+        int events = send();
+        if (events > 0) {
+            log.info("Sent admin digest of {} events", events);
+        }
+    }
+
+    /** Sends everything queued so far; returns how many events the digest covered. */
+    public int send() {
+        Integer sent = new TransactionTemplate(transactionManager).execute(status -> {
+            List<AdminDigestEntry> entries = digestRepository.findAllForUpdate();
+            if (entries.isEmpty())
+                return 0;
+
+            // "12 x New Ticket Created, 5 x Ticket Status Update", in order of first appearance
+            Map<String, Integer> byTitle = new LinkedHashMap<>();
+            for (AdminDigestEntry entry : entries) {
+                byTitle.merge(entry.getTitle().replaceFirst("^System: ", ""), 1, Integer::sum);
+            }
+            String summary = byTitle.entrySet().stream()
+                    .map(e -> e.getValue() + " x " + e.getKey())
+                    .collect(Collectors.joining(", "));
+
+            String title = "System Digest: " + entries.size() + (entries.size() == 1 ? " event" : " events");
+            StringBuilder body = new StringBuilder("Hello,\n\n")
+                    .append(entries.size()).append(" system events since ")
+                    .append(TIME.format(entries.get(0).getCreatedAt())).append(":\n\n");
+            for (AdminDigestEntry entry : entries.subList(0, Math.min(entries.size(), LISTED_EVENTS))) {
+                body.append(TIME.format(entry.getCreatedAt())).append("  ").append(entry.getMessage()).append('\n');
+            }
+            if (entries.size() > LISTED_EVENTS)
+                body.append("... and ").append(entries.size() - LISTED_EVENTS).append(" more\n");
+            body.append("\nSupport Ticket System");
+
+            notificationService.notifyAdminsDigest(title, summary, body.toString());
+            digestRepository.deleteAllInBatch(entries);
+            return entries.size();
+        });
+        return sent != null ? sent : 0;
+    }
+}
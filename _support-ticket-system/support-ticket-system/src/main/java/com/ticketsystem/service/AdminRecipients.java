@@ -0,0 +1,64 @@
+package com.ticketsystem.service;
+
+import com.ticketsystem.model.UserRole;
+import com.ticketsystem.repository.UserRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The ids of all ADMIN users, who receive a copy of every system notification.
+ * Cached so the fan-out on each ticket write needs no user query, and dropped
+ * whenever a user is created, changed or deleted (the USER SearchIndexEvent).
+ *
+ * The cache is dropped both when the event is published, so the changing
+ * transaction itself reads the new set (e.g. deleting an admin and then
+ * notifying the rest), and again once it completes, so nothing loaded in
+ * between survives: neither another transaction's view of the old set nor,
+ * after a rollback, an admin that never got committed.
+ */
+@Component
+public class AdminRecipients {
+
+    private record Cached(long version, List<Long> ids) {
+    }
+
+    @Autowired
+    private UserRepository userRepository;
+
+    private final AtomicLong version = new AtomicLong();
+
+    private volatile Cached cached;
+
+    public List<Long> ids() {
+        long current = version.get();
+        Cached c = cached;
+        if (c != null && c.version() == current)
+            return c.ids();
+        // Tagged with the version read before loading, so a load racing an invalidation is never reused
+        List<Long> ids = List.copyOf(userRepository.findIdsByRole(UserRole.ADMIN));
+        cached = new Cached(current, ids);
+        return ids;
+    }
+
+    public void invalidate() {
+        version.incrementAndGet();
+    }
+
+    @EventListener
+    public void onUserChanged(SearchIndexEvent event) {
+        if (event.type() == GlobalSearchIndex.Type.USER)
+            invalidate();
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMPLETION, fallbackExecution = true)
+    public void onUserCompleted(SearchIndexEvent event) {
+        if (event.type() == GlobalSearchIndex.Type.USER)
+            invalidate();
+    }
+}
@@ -0,0 +1,319 @@
+package com.ticketsystem.service;
+
+import com.ticketsystem.model.AssignmentStatus;
+import com.ticketsystem.model.Priority;
+import com.ticketsystem.model.TicketStatus;
+import com.ticketsystem.repository.TicketAssignmentRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.*;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Active-ticket counts per agent (OPEN tickets with an ASSIGNED assignment),
+ * split by ticket priority, which the assignment strategies balance on. Held in
+ * memory so picking an agent costs no COUNT queries.
+ *
+ * Seeded from one GROUP BY query when the application is ready and adjusted by
+ * TicketService as assignments and statuses change. Adjustments made inside a
+ * transaction apply as it commits; reservations for auto-assignment apply at
+ * once and are undone on rollback. A periodic reconciliation reloads the
+ * counts from the database to repair any drift (bulk deletes, missed paths).
+ *
+ * A transaction holds the shared side of a lock from just before its commit
+ * until its changes are applied, and reconcile takes the exclusive side, so
+ * reconcile never reads the database in the middle of a commit: every commit
+ * is either in both what it reads and the counts, or in neither (and applies
+ * afterwards). Reservations of transactions still open are added on top of
+ * what it reads.
+ *
+ * The counters are atomics found through a copy-on-write table of agent ids,
+ * so reading and adjusting them takes no lock of their own.
+ */
+@Component
+public class AgentWorkloadLedger {
+
+    private static final Logger log = LoggerFactory.getLogger(AgentWorkloadLedger.class);
+
+    private static final Priority[] PRIORITIES = Priority.values();
+
+    // Per agent: open tickets per Priority ordinal, then reservations per
+    // Priority ordinal whose transaction has not completed
+    private static final int RESERVED = PRIORITIES.length;
+
+    /** Agent ids in ascending order, each with its counters at the same index. */
+    private record Table(long[] agentIds, AtomicIntegerArray[] counters) {
+
+        AtomicIntegerArray find(long agentId) {
+            int i = Arrays.binarySearch(agentIds, agentId);
+            return i >= 0 ? counters[i] : null;
+        }
+    }
+
+    @Autowired
+    private TicketAssignmentRepository assignmentRepository;
+
+    private volatile Table table = new Table(new long[0], new AtomicIntegerArray[0]);
+
+    // Shared by every change to the counts and by commits applying theirs, exclusive to reconcile
+    private final ReentrantReadWriteLock changes = new ReentrantReadWriteLock();
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${app.assignment.workload-reconcile-ms:300000}",
+            initialDelayString = "${app.assignment.workload-reconcile-ms:300000}")
+    public void reconcile() {
+        if (changes.getReadHoldCount() > 0) {
+            // Called back from a commit this thread has not finished; the next run catches up
+            log.debug("Agent workload reconcile skipped inside a commit");
+            return;
+        }
+        int drifted = 0;
+        changes.writeLock().lock();
+        try {
+            Map<Long, int[]> counts = new HashMap<>();
+            for (Object[] row : assignmentRepository.countTicketsPerAgentAndPriority(TicketStatus.OPEN,
+                    AssignmentStatus.ASSIGNED)) {
+                counts.computeIfAbsent((Long) row[0], id -> new int[PRIORITIES.length])
+                        [slot((Priority) row[1])] += ((Number) row[2]).intValue();
+            }
+            Table current = table;
+            for (int a = 0; a < current.agentIds().length; a++) {
+                AtomicIntegerArray counters = current.counters()[a];
+                int[] actual = counts.remove(current.agentIds()[a]);
+                boolean changed = false;
+                for (int i = 0; i < PRIORITIES.length; i++) {
+                    int expected = (actual != null ? actual[i] : 0) + counters.get(RESERVED + i);
+                    if (counters.get(i) != expected) {
+                        counters.set(i, expected);
+                        changed = true;
+                    }
+                }
+                if (changed)
+                    drifted++;
+            }
+            // Agents the counts had not seen yet
+            for (Map.Entry<Long, int[]> e : counts.entrySet()) {
+                AtomicIntegerArray counters = counters(e.getKey());
+                for (int i = 0; i < PRIORITIES.length; i++) {
+                    counters.set(i, e.getValue()[i]);
+                }
+                drifted++;
+            }
+        } finally {
+            changes.writeLock().unlock();
+        }
+        if (drifted > 0) {
+            log.info("Agent workload reconciled: {} of {} agents corrected", drifted, table.agentIds().length);
+        }
+    }
+
+    public int activeTickets(Long agentId) {
+        AtomicIntegerArray counters = table.find(agentId);
+        if (counters == null)
+            return 0;
+        int total = 0;
+        for (int i = 0; i < PRIORITIES.length; i++) {
+            total += Math.max(counters.get(i), 0);
+        }
+        return total;
+    }
+
+    /**
+     * Open tickets weighted by priority (see {@link #weight}), so an agent
+     * holding one URGENT ticket counts as busier than one holding two LOW ones.
+     */
+    public int weightedLoad(Long agentId) {
+        AtomicIntegerArray counters = table.find(agentId);
+        if (counters == null)
+            return 0;
+        int total = 0;
+        for (int i = 0; i < PRIORITIES.length; i++) {
+            total += Math.max(counters.get(i), 0) * weight(PRIORITIES[i]);
+        }
+        return total;
+    }
+
+    public static int weight(Priority priority) {
+        return switch (priority != null ? priority : Priority.MEDIUM) {
+            case LOW -> 1;
+            case MEDIUM -> 2;
+            case HIGH -> 3;
+            case URGENT -> 5;
+        };
+    }
+
+    /**
+     * Adds {@code delta} to the agent's count for tickets of the given priority
+     * as the current transaction commits (or immediately when there is none).
+     *
+     * Back-to-back transactions can commit out of order, so a count may briefly
+     * dip below zero; it is stored as is (clamping would lose the later
+     * increment) and read as zero.
+     */
+    public void adjust(Long agentId, Priority priority, int delta) {
+        if (agentId == null || delta == 0)
+            return;
+        int slot = slot(priority);
+        Pending pending = pending();
+        if (pending == null) {
+            change(() -> counters(agentId).addAndGet(slot, delta));
+            return;
+        }
+        pending.adjustments.computeIfAbsent(agentId, id -> new int[PRIORITIES.length])[slot] += delta;
+    }
+
+    /**
+     * Counts a ticket against the agent right away, so concurrent assignments
+     * already see it, and takes it back if the current transaction rolls back.
+     */
+    public void reserve(Long agentId, Priority priority) {
+        if (agentId == null)
+            return;
+        int slot = slot(priority);
+        Pending pending = pending();
+        change(() -> {
+            AtomicIntegerArray counters = counters(agentId);
+            counters.incrementAndGet(slot);
+            if (pending != null)
+                counters.incrementAndGet(RESERVED + slot);
+        });
+        if (pending != null)
+            pending.reservations.computeIfAbsent(agentId, id -> new int[PRIORITIES.length])[slot]++;
+    }
+
+    // For changes too broad to track row by row (e.g. deleting a user and their tickets)
+    public void reconcileAfterCommit() {
+        Pending pending = pending();
+        if (pending == null) {
+            reconcile();
+            return;
+        }
+        pending.reconcile = true;
+    }
+
+    // -----------------------
+    // COMMITS
+    // -----------------------
+
+    /**
+     * The current transaction's changes. The shared lock is taken in
+     * beforeCompletion, after every beforeCommit callback has done its
+     * writes, so a transaction never waits for it while holding locks that
+     * a commit in progress could need.
+     */
+    private final class Pending implements TransactionSynchronization {
+
+        private final Map<Long, int[]> adjustments = new HashMap<>();
+
+        private final Map<Long, int[]> reservations = new HashMap<>();
+
+        private boolean reconcile;
+
+        private boolean holding;
+
+        @Override
+        public void beforeCompletion() {
+            changes.readLock().lock();
+            holding = true;
+        }
+
+        @Override
+        public void afterCompletion(int status) {
+            boolean committed = status == STATUS_COMMITTED;
+            try {
+                if (committed) {
+                    adjustments.forEach((agentId, deltas) -> add(counters(agentId), 0, deltas, +1));
+                } else {
+                    reservations.forEach((agentId, counts) -> add(counters(agentId), 0, counts, -1));
+                }
+                reservations.forEach((agentId, counts) -> add(counters(agentId), RESERVED, counts, -1));
+            } finally {
+                if (holding)
+                    changes.readLock().unlock();
+                TransactionSynchronizationManager.unbindResourceIfPossible(AgentWorkloadLedger.this);
+            }
+            if (committed && reconcile)
+                reconcile();
+        }
+    }
+
+    private Pending pending() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive())
+            return null;
+        Pending pending = (Pending) TransactionSynchronizationManager.getResource(this);
+        if (pending == null) {
+            pending = new Pending();
+            TransactionSynchronizationManager.bindResource(this, pending);
+            TransactionSynchronizationManager.registerSynchronization(pending);
+        }
+        return pending;
+    }
+
+    private static void add(AtomicIntegerArray counters, int offset, int[] deltas, int sign) {
+        for (int i = 0; i < deltas.length; i++) {
+            if (deltas[i] != 0)
+                counters.addAndGet(offset + i, sign * deltas[i]);
+        }
+    }
+
+    private void change(Runnable action) {
+        changes.readLock().lock();
+        try {
+            action.run();
+        } finally {
+            changes.readLock().unlock();
+        }
+    }
+
+    // The agent's counters, added to a copy of the table the first time the agent is seen
+    private AtomicIntegerArray counters(long agentId) {
+        AtomicIntegerArray counters = table.find(agentId);
+        if (counters != null)
+            return counters;
+        synchronized (this) {
+            Table current = table;
+            int i = Arrays.binarySearch(current.agentIds(), agentId);
+            if (i >= 0)
+                return current.counters()[i];
+            int at = -i - 1;
+            int n = current.agentIds().length;
+            long[] agentIds = new long[n + 1];
+            AtomicIntegerArray[] all = new AtomicIntegerArray[n + 1];
+            System.arraycopy(current.agentIds(), 0, agentIds, 0, at);
+            System.arraycopy(current.counters(), 0, all, 0, at);
+            System.arraycopy(current.agentIds(), at, agentIds, at + 1, n - at);
+            System.arraycopy(current.counters(), at, all, at + 1, n - at);
+            agentIds[at] = agentId;
+            all[at] = new AtomicIntegerArray(RESERVED + PRIORITIES.length);
+            table = new Table(agentIds, all);
+            return all[at];
+        }
+    }
+
+    // Tickets without a priority are created as MEDIUM
+    private static int slot(Priority priority) {
+        return (priority != null ? priority : Priority.MEDIUM).ordinal();
+    }
+
+    static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+}
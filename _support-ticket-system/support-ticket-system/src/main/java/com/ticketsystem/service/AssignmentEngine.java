@@ -0,0 +1,171 @@
+package com.ticketsystem.service;
+
+import com.ticketsystem.model.Ticket;
+import com.ticketsystem.repository.LocationRepository;
+import com.ticketsystem.repository.TicketCategoryRepository;
+import com.ticketsystem.repository.UserRepository;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Routes new tickets to agents through the {@link AssignmentStrategy} selected
+ * for their category.
+ *
+ * Choosing an agent reads only the current {@link AssignmentSnapshot} and the
+ * workload ledger. The snapshot's agent table (two small queries) is rebuilt
+ * after any user, category or agent-category change commits; location links
+ * are loaded once and then follow the location events.
+ */
+@Service
+public class AssignmentEngine {
+
+    private static final Logger log = LoggerFactory.getLogger(AssignmentEngine.class);
+
+    @Autowired
+    private List<AssignmentStrategy> strategyBeans;
+
+    @Autowired
+    private AgentWorkloadLedger workloadLedger;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private TicketCategoryRepository categoryRepository;
+
+    @Autowired
+    private LocationRepository locationRepository;
+
+    @Value("${app.assignment.default-strategy:" + LeastLoadedAssignmentStrategy.NAME + "}")
+    private String defaultStrategy;
+
+    private Map<String, AssignmentStrategy> strategies;
+
+    private final ConcurrentHashMap<Long, Long> parentByLocation = new ConcurrentHashMap<>();
+
+    // One monitor per category: choosing and reserving an agent is atomic within a category
+    private final ConcurrentHashMap<Long, Object> categoryLocks = new ConcurrentHashMap<>();
+
+    private volatile AssignmentSnapshot snapshot = new AssignmentSnapshot(Map.of(), Map.of(), parentByLocation);
+
+    @PostConstruct
+    void registerStrategies() {
+        Map<String, AssignmentStrategy> byName = new TreeMap<>();
+        for (AssignmentStrategy strategy : strategyBeans) {
+            if (byName.put(strategy.name(), strategy) != null)
+                throw new IllegalStateException("Duplicate assignment strategy: " + strategy.name());
+        }
+        if (!byName.containsKey(defaultStrategy))
+            throw new IllegalStateException("Unknown default assignment strategy: " + defaultStrategy);
+        strategies = Collections.unmodifiableMap(byName);
+    }
+
+    // -----------------------
+    // SNAPSHOT MAINTENANCE
+    // -----------------------
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        Map<Long, Long> parents = new HashMap<>();
+        for (Object[] r : locationRepository.findParentRows()) {
+            if (r[1] != null)
+                parents.put((Long) r[0], (Long) r[1]);
+        }
+        parentByLocation.putAll(parents);
+        parentByLocation.keySet().retainAll(parents.keySet());
+        refresh();
+    }
+
+    /** Rebuilds the agent table and per-category strategies. */
+    public synchronized void refresh() {
+        Map<Long, List<AssignmentSnapshot.Agent>> agents = new HashMap<>();
+        for (Object[] r : userRepository.findAgentRoutingRows()) {
+            agents.computeIfAbsent((Long) r[1], id -> new ArrayList<>())
+                    .add(new AssignmentSnapshot.Agent((Long) r[0], (Long) r[2]));
+        }
+        Map<Long, String> selected = new HashMap<>();
+        for (Object[] r : categoryRepository.findAssignmentStrategies()) {
+            selected.put((Long) r[0], (String) r[1]);
+        }
+        snapshot = new AssignmentSnapshot(agents, selected, parentByLocation);
+        log.debug("Assignment snapshot rebuilt: {} categories with agents", snapshot.categoryCount());
+    }
+
+    // For changes that publish no SearchIndexEvent (agent categories, enabling/disabling users)
+    public void refreshAfterCommit() {
+        AgentWorkloadLedger.afterCommit(this::refresh);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onIndexEvent(SearchIndexEvent event) {
+        switch (event.type()) {
+            case USER, CATEGORY -> refresh();
+            case LOCATION -> {
+                Long parentId = event.document() != null ? event.document().summary().ref() : null;
+                if (parentId != null) {
+                    parentByLocation.put(event.id(), parentId);
+                } else {
+                    parentByLocation.remove(event.id());
+                }
+            }
+            default -> {
+            }
+        }
+    }
+
+    // -----------------------
+    // ROUTING
+    // -----------------------
+
+    /**
+     * Picks the agent for a new ticket and reserves the ticket against their
+     * workload before the next ticket of the category is routed, so a burst of
+     * tickets is spread instead of all reading the same counts. Returns null
+     * when nobody can take it.
+     */
+    public Long assign(Ticket ticket) {
+        AssignmentStrategy.Request request = AssignmentStrategy.Request.of(ticket);
+        if (request.categoryId() == null)
+            return null;
+        synchronized (categoryLocks.computeIfAbsent(request.categoryId(), id -> new Object())) {
+            Long agentId = choose(request);
+            workloadLedger.reserve(agentId, request.priority());
+            return agentId;
+        }
+    }
+
+    public Long choose(AssignmentStrategy.Request request) {
+        AssignmentSnapshot current = snapshot;
+        List<AssignmentSnapshot.Agent> candidates = current.agents(request.categoryId());
+        if (candidates.isEmpty())
+            return null;
+        AssignmentSnapshot.Agent agent = strategyFor(current, request.categoryId())
+                .choose(request, candidates, current);
+        return agent != null ? agent.id() : null;
+    }
+
+    // A category naming a strategy that no longer exists falls back to the default
+    AssignmentStrategy strategyFor(AssignmentSnapshot current, Long categoryId) {
+        String name = current.strategy(categoryId);
+        AssignmentStrategy strategy = name != null ? strategies.get(name) : null;
+        return strategy != null ? strategy : strategies.get(defaultStrategy);
+    }
+
+    public boolean isKnown(String name) {
+        return strategies.containsKey(name);
+    }
+
+    public Set<String> strategyNames() {
+        return strategies.keySet();
+    }
+}
@@ -0,0 +1,62 @@
+package com.ticketsystem.service;
+
+import java.util.*;
+
+/**
+ * Routing view the assignment strategies work from: the enabled agents of each
+ * category with their base locations, the strategy chosen per category, and
+ * the parent link of every location.
+ *
+ * Agents and strategies are immutable; AssignmentEngine swaps in a new snapshot
+ * when they change. The location links are shared with the engine, which keeps
+ * them current in place as locations are added, moved or deleted.
+ */
+public final class AssignmentSnapshot {
+
+    public record Agent(long id, Long locationId) {
+    }
+
+    // Guard against a corrupt (cyclic) parent chain
+    private static final int MAX_DEPTH = 16;
+
+    private final Map<Long, List<Agent>> agentsByCategory;
+    private final Map<Long, String> strategyByCategory;
+    private final Map<Long, Long> parentByLocation;
+
+    public AssignmentSnapshot(Map<Long, List<Agent>> agentsByCategory, Map<Long, String> strategyByCategory,
+            Map<Long, Long> parentByLocation) {
+        Map<Long, List<Agent>> agents = new HashMap<>();
+        agentsByCategory.forEach((categoryId, list) -> {
+            List<Agent> sorted = new ArrayList<>(list);
+            sorted.sort(Comparator.comparingLong(Agent::id));
+            agents.put(categoryId, List.copyOf(sorted));
+        });
+        this.agentsByCategory = agents;
+        this.strategyByCategory = Map.copyOf(strategyByCategory);
+        this.parentByLocation = parentByLocation;
+    }
+
+    /** Enabled agents handling the category, ordered by id. */
+    public List<Agent> agents(Long categoryId) {
+        return categoryId != null ? agentsByCategory.getOrDefault(categoryId, List.of()) : List.of();
+    }
+
+    /** Strategy name configured on the category, or null for the default. */
+    public String strategy(Long categoryId) {
+        return categoryId != null ? strategyByCategory.get(categoryId) : null;
+    }
+
+    /** The location followed by its ancestors up to the root. */
+    public long[] ancestry(Long locationId) {
+        long[] chain = new long[MAX_DEPTH];
+        int depth = 0;
+        for (Long current = locationId; current != null && depth < MAX_DEPTH; current = parentByLocation.get(current)) {
+            chain[depth++] = current;
+        }
+        return Arrays.copyOf(chain, depth);
+    }
+
+    int categoryCount() {
+        return agentsByCategory.size();
+    }
+}
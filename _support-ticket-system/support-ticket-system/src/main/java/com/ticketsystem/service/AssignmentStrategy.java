@@ -0,0 +1,38 @@
+package com.ticketsystem.service;
+
+import com.ticketsystem.model.Priority;
+import com.ticketsystem.model.Ticket;
+
+import java.util.List;
+
+/**
+ * Picks the agent a new ticket is auto-assigned to. Implementations are Spring
+ * beans, looked up by {@link #name()}; a category selects one through
+ * TicketCategory.assignmentStrategy, otherwise app.assignment.default-strategy
+ * applies.
+ *
+ * Strategies run on the in-memory {@link AssignmentSnapshot} and the workload
+ * ledger only and must not touch the database.
+ */
+public interface AssignmentStrategy {
+
+    /** What a strategy knows about the ticket being routed. */
+    record Request(Long ticketId, Long categoryId, Long locationId, Priority priority) {
+
+        public static Request of(Ticket ticket) {
+            return new Request(ticket.getId(),
+                    ticket.getCategory() != null ? ticket.getCategory().getId() : null,
+                    ticket.getLocation() != null ? ticket.getLocation().getId() : null,
+                    ticket.getPriority());
+        }
+    }
+
+    String name();
+
+    /**
+     * One of {@code candidates} (never empty, ordered by id), or null to leave
+     * the ticket unassigned.
+     */
+    AssignmentSnapshot.Agent choose(Request request, List<AssignmentSnapshot.Agent> candidates,
+            AssignmentSnapshot snapshot);
+}
@@ -39,6 +39,9 @@ public class AuthService {
     @Autowired
     private PasswordEncoder passwordEncoder;
 
+    @Autowired
+    private org.springframework.context.ApplicationEventPublisher eventPublisher;
+
     // ----------------- LOGIN -----------------
     private static final org.slf4j.Logger logger = org.slf4j.LoggerFactory.getLogger(AuthService.class);
 
@@ -146,7 +149,9 @@ public class AuthService {
             user.setRole(UserRole.CUSTOMER);
         }
 
-        return userRepository.save(user);
+        User saved = userRepository.save(user);
+        eventPublisher.publishEvent(SearchIndexEvent.of(saved));
+        return saved;
     }
 
     // ----------------- Get currently logged-in user -----------------
@@ -0,0 +1,272 @@
+package com.ticketsystem.service;
+
+import com.ticketsystem.dto.BulkTicketResultDTO;
+import com.ticketsystem.dto.BulkTicketResultDTO.Outcome;
+import com.ticketsystem.model.*;
+import com.ticketsystem.repository.UserRepository;
+import jakarta.transaction.Transactional;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.stereotype.Service;
+
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.*;
+
+/**
+ * Assignment and status changes for many tickets at once, for admins working
+ * through a backlog.
+ *
+ * Everything runs in one transaction over plain SQL: the tickets are locked in
+ * id order (so two bulk calls cannot deadlock), current assignments are read
+ * and removed with IN-list statements, new assignments go in as one JDBC batch
+ * (multi-row INSERTs with reWriteBatchedInserts on PostgreSQL) and statuses
+ * change with a single UPDATE per chunk of ids. Each affected recipient
+ * gets one notification for the whole call instead of one per ticket.
+ */
+@Service
+@Transactional
+public class BulkTicketService {
+
+    public static final int MAX_TICKETS = 5000;
+
+    // Ids per IN list, well below PostgreSQL's bind parameter limit
+    private static final int CHUNK = 1000;
+
+    private static final List<String> CURRENT = List.of(AssignmentStatus.ASSIGNED.name(),
+            AssignmentStatus.ACTIVE.name());
+
+    @Autowired
+    private NamedParameterJdbcTemplate jdbc;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private NotificationService notificationService;
+
+    @Autowired
+    private AgentWorkloadLedger workloadLedger;
+
+    @Autowired
+    private TicketStatsRollup statsRollup;
+
+    @Autowired
+    private SlaMetricsService slaMetrics;
+
+    private record Row(long id, TicketStatus status, Priority priority, Long customerId, Long categoryId,
+            Long locationId, LocalDateTime createdAt) {
+
+        TicketStatsRollup.Key key(Long agentId) {
+            return TicketStatsRollup.Key.of(status, priority, categoryId, locationId, agentId);
+        }
+    }
+
+    // -----------------------
+    // ASSIGNMENT
+    // -----------------------
+
+    public BulkTicketResultDTO assign(List<Long> ticketIds, Long agentId, Long adminId) {
+        List<Long> ids = distinct(ticketIds);
+        User agent = userRepository.findById(agentId)
+                .orElseThrow(() -> new RuntimeException("Agent not found"));
+        if (agent.getRole() != UserRole.AGENT)
+            throw new RuntimeException("User is not an agent");
+
+        Map<Long, Row> rows = lock(ids);
+        Map<Long, List<Long>> current = currentAgents(rows.keySet());
+
+        BulkTicketResultDTO result = new BulkTicketResultDTO();
+        List<Row> changed = new ArrayList<>();
+        for (Long id : ids) {
+            Row row = rows.get(id);
+            List<Long> holders = current.getOrDefault(id, List.of());
+            if (row == null) {
+                result.add(id, Outcome.NOT_FOUND);
+            } else if (holders.size() == 1 && holders.get(0).equals(agentId)) {
+                result.add(id, Outcome.UNCHANGED);
+            } else {
+                result.add(id, Outcome.UPDATED);
+                changed.add(row);
+            }
+        }
+        if (changed.isEmpty())
+            return result;
+
+        List<Long> changedIds = changed.stream().map(Row::id).toList();
+        Map<Long, List<Long>> released = assignedAgents(changedIds);
+        for (List<Long> chunk : chunks(changedIds)) {
+            jdbc.update("DELETE FROM ticket_assignments WHERE ticket_id IN (:ids) AND status IN (:statuses)",
+                    Map.of("ids", chunk, "statuses", CURRENT));
+        }
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        jdbc.batchUpdate("""
+                INSERT INTO ticket_assignments (ticket_id, agent_id, category_id, status, assigned_at, notification_sent)
+                VALUES (:ticketId, :agentId, :categoryId, :status, :assignedAt, FALSE)
+                """,
+                changed.stream()
+                        .map(row -> new MapSqlParameterSource()
+                                .addValue("ticketId", row.id())
+                                .addValue("agentId", agentId)
+                                .addValue("categoryId", row.categoryId(), Types.BIGINT)
+                                .addValue("status", AssignmentStatus.ASSIGNED.name())
+                                .addValue("assignedAt", now))
+                        .toArray(SqlParameterSource[]::new));
+
+        for (Row row : changed) {
+            List<Long> previous = released.getOrDefault(row.id(), List.of());
+            statsRollup.move(row.key(previous.isEmpty() ? null : previous.get(0)), row.key(agentId));
+
+            // Only OPEN tickets count towards an agent's workload
+            if (row.status() != TicketStatus.OPEN)
+                continue;
+            for (Long previousAgentId : previous) {
+                workloadLedger.adjust(previousAgentId, row.priority(), -1);
+            }
+            workloadLedger.adjust(agentId, row.priority(), +1);
+        }
+
+        notificationService.notifyTicketsAssigned(agent, changedIds);
+        notificationService.notifyAdmins("System: Bulk Assignment",
+                changedIds.size() + " tickets assigned to " + agent.getName() + " by User ID " + adminId);
+        return result;
+    }
+
+    // -----------------------
+    // STATUS
+    // -----------------------
+
+    public BulkTicketResultDTO updateStatus(List<Long> ticketIds, TicketStatus status, Long userId) {
+        List<Long> ids = distinct(ticketIds);
+        Map<Long, Row> rows = lock(ids);
+
+        BulkTicketResultDTO result = new BulkTicketResultDTO();
+        List<Row> changed = new ArrayList<>();
+        for (Long id : ids) {
+            Row row = rows.get(id);
+            if (row == null) {
+                result.add(id, Outcome.NOT_FOUND);
+            } else if (row.status() == status) {
+                result.add(id, Outcome.UNCHANGED);
+            } else {
+                result.add(id, Outcome.UPDATED);
+                changed.add(row);
+            }
+        }
+        if (changed.isEmpty())
+            return result;
+
+        List<Long> changedIds = changed.stream().map(Row::id).toList();
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        for (List<Long> chunk : chunks(changedIds)) {
+            jdbc.update("UPDATE tickets SET status = :status, updated_at = :now WHERE id IN (:ids)",
+                    Map.of("status", status.name(), "now", now, "ids", chunk));
+        }
+
+        Map<Long, List<Long>> assignees = assignedAgents(changedIds);
+        int delta = status == TicketStatus.OPEN ? +1 : -1;
+        for (Row row : changed) {
+            List<Long> agents = assignees.getOrDefault(row.id(), List.of());
+            TicketStatsRollup.Key key = row.key(agents.isEmpty() ? null : agents.get(0));
+            statsRollup.move(key, key.withStatus(status));
+            if (SlaMetricsService.resolves(row.status(), status)) {
+                slaMetrics.record(SlaMetric.RESOLUTION, row.createdAt(), now.toLocalDateTime(), row.categoryId(),
+                        row.locationId(), key.agentId());
+            }
+
+            // Tickets entering or leaving OPEN move their assignee's workload
+            if ((row.status() == TicketStatus.OPEN) == (status == TicketStatus.OPEN))
+                continue;
+            for (Long agentId : agents) {
+                workloadLedger.adjust(agentId, row.priority(), delta);
+            }
+        }
+
+        Map<Long, List<Long>> byCustomer = new LinkedHashMap<>();
+        for (Row row : changed) {
+            if (row.customerId() != null)
+                byCustomer.computeIfAbsent(row.customerId(), k -> new ArrayList<>()).add(row.id());
+        }
+        for (User customer : userRepository.findAllById(byCustomer.keySet())) {
+            notificationService.notifyTicketsStatusChanged(customer, byCustomer.get(customer.getId()), status);
+        }
+        notificationService.notifyAdmins("System: Bulk Status Update",
+                changedIds.size() + " tickets updated to " + status + " by User ID " + userId);
+        return result;
+    }
+
+    // -----------------------
+    // HELPERS
+    // -----------------------
+
+    private static List<Long> distinct(List<Long> ticketIds) {
+        if (ticketIds == null || ticketIds.isEmpty())
+            throw new RuntimeException("No ticket ids given");
+        List<Long> ids = new ArrayList<>(new LinkedHashSet<>(ticketIds));
+        ids.remove(null);
+        if (ids.size() > MAX_TICKETS)
+            throw new RuntimeException("At most " + MAX_TICKETS + " tickets per bulk request");
+        return ids;
+    }
+
+    // Locks the existing tickets among ids, always in id order
+    private Map<Long, Row> lock(List<Long> ids) {
+        List<Long> sorted = new ArrayList<>(ids);
+        Collections.sort(sorted);
+        Map<Long, Row> rows = new HashMap<>();
+        for (List<Long> chunk : chunks(sorted)) {
+            jdbc.query("""
+                    SELECT id, status, priority, customer_id, category_id, location_id, created_at
+                    FROM tickets WHERE id IN (:ids) ORDER BY id FOR UPDATE
+                    """,
+                    Map.of("ids", chunk),
+                    rs -> {
+                        long id = rs.getLong("id");
+                        String status = rs.getString("status");
+                        String priority = rs.getString("priority");
+                        rows.put(id, new Row(id,
+                                status != null ? TicketStatus.valueOf(status) : null,
+                                priority != null ? Priority.valueOf(priority) : null,
+                                rs.getObject("customer_id", Long.class),
+                                rs.getObject("category_id", Long.class),
+                                rs.getObject("location_id", Long.class),
+                                rs.getObject("created_at", LocalDateTime.class)));
+                    });
+        }
+        return rows;
+    }
+
+    // Ticket id -> agents holding a current (ASSIGNED or ACTIVE) assignment
+    private Map<Long, List<Long>> currentAgents(Collection<Long> ticketIds) {
+        return agents(ticketIds, CURRENT);
+    }
+
+    // Ticket id -> agents whose ASSIGNED row counts towards their workload
+    private Map<Long, List<Long>> assignedAgents(Collection<Long> ticketIds) {
+        return agents(ticketIds, List.of(AssignmentStatus.ASSIGNED.name()));
+    }
+
+    private Map<Long, List<Long>> agents(Collection<Long> ticketIds, List<String> statuses) {
+        Map<Long, List<Long>> agents = new HashMap<>();
+        for (List<Long> chunk : chunks(new ArrayList<>(ticketIds))) {
+            jdbc.query("SELECT ticket_id, agent_id FROM ticket_assignments WHERE ticket_id IN (:ids) AND status IN (:statuses)",
+                    Map.of("ids", chunk, "statuses", statuses),
+                    rs -> {
+                        agents.computeIfAbsent(rs.getLong("ticket_id"), k -> new ArrayList<>())
+                                .add(rs.getLong("agent_id"));
+                    });
+        }
+        return agents;
+    }
+
+    private static List<List<Long>> chunks(List<Long> ids) {
+        List<List<Long>> chunks = new ArrayList<>();
+        for (int i = 0; i < ids.size(); i += CHUNK) {
+            chunks.add(ids.subList(i, Math.min(i + CHUNK, ids.size())));
+        }
+        return chunks;
+    }
+}
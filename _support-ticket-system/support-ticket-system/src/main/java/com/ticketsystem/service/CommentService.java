@@ -3,8 +3,10 @@ package com.ticketsystem.service;
 import com.ticketsystem.dto.CommentDTO;
 import com.ticketsystem.dto.UserResponseDTO;
 import com.ticketsystem.model.Comment;
+import com.ticketsystem.model.SlaMetric;
 import com.ticketsystem.model.Ticket;
 import com.ticketsystem.model.User;
+import com.ticketsystem.model.UserRole;
 import com.ticketsystem.repository.CommentRepository;
 import com.ticketsystem.repository.TicketRepository;
 import com.ticketsystem.repository.UserRepository;
@@ -33,6 +35,9 @@ public class CommentService {
     @Autowired
     private NotificationService notificationService;
 
+    @Autowired
+    private SlaMetricsService slaMetrics;
+
     public List<CommentDTO> getCommentsByTicket(Long ticketId, boolean includeInternal) {
         List<Comment> comments = includeInternal
                 ? commentRepository.findByTicketIdOrderByCreatedAtAsc(ticketId)
@@ -47,8 +52,13 @@ public class CommentService {
         User author = userRepository.findById(authorId)
                 .orElseThrow(() -> new RuntimeException("User not found"));
 
-        Ticket ticket = ticketRepository.findById(dto.getTicketId())
+        // An agent's comment locks the ticket, so two replies can't both count as its first response
+        boolean byAgent = author.getRole() == UserRole.AGENT;
+        Ticket ticket = (byAgent ? ticketRepository.findByIdForUpdate(dto.getTicketId())
+                : ticketRepository.findById(dto.getTicketId()))
                 .orElseThrow(() -> new RuntimeException("Ticket not found"));
+        boolean firstResponse = byAgent
+                && !commentRepository.existsByTicketIdAndAuthorRole(ticket.getId(), UserRole.AGENT);
 
         Comment comment = new Comment();
         comment.setTicket(ticket);
@@ -59,6 +69,12 @@ public class CommentService {
 
         Comment saved = commentRepository.save(comment);
 
+        if (firstResponse) {
+            slaMetrics.record(SlaMetric.FIRST_RESPONSE, ticket.getCreatedAt(), saved.getCreatedAt(),
+                    ticket.getCategory() != null ? ticket.getCategory().getId() : null,
+                    ticket.getLocation() != null ? ticket.getLocation().getId() : null, author.getId());
+        }
+
         User customer = ticket.getCustomer();
         if (customer != null && !customer.getId().equals(author.getId())) {
             notificationService.notifyTicketComment(customer, ticket, saved);
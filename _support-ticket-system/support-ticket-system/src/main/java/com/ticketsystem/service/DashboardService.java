@@ -3,61 +3,100 @@ package com.ticketsystem.service;
 import com.ticketsystem.dto.DashboardResponseDTO;
 import com.ticketsystem.dto.CustomerDashboardDTO;
 import com.ticketsystem.dto.DashboardStatsDTO;
+import com.ticketsystem.dto.TicketTimeSeriesDTO;
+import com.ticketsystem.dto.TimeSeriesPointDTO;
+import com.ticketsystem.model.AnalyticsWatermark;
+import com.ticketsystem.model.Priority;
+import com.ticketsystem.model.TicketActivityDaily;
 import com.ticketsystem.model.TicketStatus;
-import com.ticketsystem.repository.TicketAssignmentRepository;
 import com.ticketsystem.repository.*;
-import com.ticketsystem.repository.UserRepository;
 import jakarta.transaction.Transactional;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Admin and agent figures come from the ticket_stats rollup (see
+ * TicketStatsRollup), so they cost the same however many tickets there are.
+ * The customer dashboard is one GROUP BY over the customer's tickets and a
+ * projection of the latest few; no Ticket entities are loaded. Time series
+ * are read from the hourly and daily activity buckets (see
+ * TicketActivityRollup).
+ */
 @Service
 @Transactional
 public class DashboardService {
 
+    private static final int RECENT_TICKETS = 5;
+
+    // Ranges up to this long are charted per hour unless asked otherwise
+    private static final long HOURLY_UP_TO_DAYS = 7;
+
+    private static final long MAX_POINTS = 10_000;
+
     @Autowired
     private TicketRepository ticketRepository;
 
     @Autowired
-    private TicketAssignmentRepository assignmentRepository;
+    private TicketStatRepository statRepository;
 
     @Autowired
-    private UserRepository userRepository;
+    private TicketActivityHourlyRepository hourlyRepository;
 
     @Autowired
-    private TicketCategoryRepository categoryRepository;
+    private TicketActivityDailyRepository dailyRepository;
 
     @Autowired
-    private LocationRepository locationRepository;
+    private AnalyticsWatermarkRepository watermarkRepository;
 
     public DashboardResponseDTO getAdminDashboard() {
-        DashboardResponseDTO dto = new DashboardResponseDTO();
-
-        dto.setTotalTickets(ticketRepository.count());
-        dto.setOpenTickets(ticketRepository.countByStatus(TicketStatus.OPEN));
-        dto.setInProgressTickets(ticketRepository.countByStatus(TicketStatus.IN_PROGRESS));
-        dto.setResolvedTickets(ticketRepository.countByStatus(TicketStatus.RESOLVED));
-        dto.setClosedTickets(ticketRepository.countByStatus(TicketStatus.CLOSED));
-
-        dto.setAgentsOnline(assignmentRepository.countActiveAgents());
-        dto.setTotalUsers(userRepository.count());
-        dto.setTotalCategories(categoryRepository.count());
-        dto.setTotalLocations(locationRepository.count());
-
-        return dto;
+        return statRepository.adminDashboard();
     }
 
+    /**
+     * Per-status counts over the tickets the agent currently holds, plus their
+     * queue: OPEN tickets per priority and how long the oldest has waited. One
+     * statement.
+     */
     public DashboardResponseDTO getAgentDashboard(Long agentId) {
-        DashboardResponseDTO dto = new DashboardResponseDTO();
-
-        dto.setAssignedTickets(assignmentRepository.countByAgentId(agentId));
-        dto.setOpenTickets(ticketRepository.countAgentTicketsByStatus(agentId, TicketStatus.OPEN,
-                com.ticketsystem.model.AssignmentStatus.ASSIGNED));
-        dto.setInProgressTickets(ticketRepository.countAgentTicketsByStatus(agentId, TicketStatus.IN_PROGRESS,
-                com.ticketsystem.model.AssignmentStatus.ASSIGNED));
-        dto.setResolvedTickets(ticketRepository.countAgentTicketsByStatus(agentId, TicketStatus.RESOLVED,
-                com.ticketsystem.model.AssignmentStatus.ASSIGNED));
+        Map<String, Long> byStatus = new LinkedHashMap<>();
+        Map<String, Long> openByPriority = new LinkedHashMap<>();
+        for (TicketStatus status : TicketStatus.values()) {
+            byStatus.put(status.name(), 0L);
+        }
+        for (Priority priority : Priority.values()) {
+            openByPriority.put(priority.name(), 0L);
+        }
+        LocalDateTime oldestOpen = null;
+        for (Object[] row : statRepository.agentQueue(agentId)) {
+            TicketStatus status = (TicketStatus) row[0];
+            long count = ((Number) row[2]).longValue();
+            byStatus.merge(status.name(), count, Long::sum);
+            if (status == TicketStatus.OPEN)
+                openByPriority.merge(((Priority) row[1]).name(), count, Long::sum);
+            oldestOpen = (LocalDateTime) row[3];
+        }
 
+        DashboardResponseDTO dto = new DashboardResponseDTO();
+        dto.setAssignedTickets(byStatus.values().stream().mapToLong(Long::longValue).sum());
+        dto.setOpenTickets(byStatus.get(TicketStatus.OPEN.name()));
+        dto.setInProgressTickets(byStatus.get(TicketStatus.IN_PROGRESS.name()));
+        dto.setResolvedTickets(byStatus.get(TicketStatus.RESOLVED.name()));
+        dto.setClosedTickets(byStatus.get(TicketStatus.CLOSED.name()));
+        dto.setTicketsByStatus(byStatus);
+        dto.setTicketsByPriority(openByPriority);
+        if (oldestOpen != null) {
+            dto.setOldestOpenTicketCreatedAt(oldestOpen);
+            dto.setOldestOpenTicketAgeMinutes(Duration.between(oldestOpen, LocalDateTime.now()).toMinutes());
+        }
         return dto;
     }
 
@@ -65,30 +104,87 @@ public class DashboardService {
         CustomerDashboardDTO dto = new CustomerDashboardDTO();
         DashboardStatsDTO stats = new DashboardStatsDTO();
 
-        long total = ticketRepository.findByCustomerId(customerId).size();
+        long total = 0;
+        for (Object[] row : ticketRepository.countByStatusForCustomer(customerId)) {
+            long count = ((Number) row[1]).longValue();
+            total += count;
+            switch ((TicketStatus) row[0]) {
+                case OPEN -> stats.setOpenTickets(count);
+                case IN_PROGRESS -> stats.setInProgressTickets(count);
+                case RESOLVED -> stats.setResolvedTickets(count);
+                default -> {
+                }
+            }
+        }
         stats.setTotalTickets(total);
-        stats.setOpenTickets(ticketRepository.countByCustomerIdAndStatus(customerId, TicketStatus.OPEN));
-        stats.setInProgressTickets(ticketRepository.countByCustomerIdAndStatus(customerId, TicketStatus.IN_PROGRESS));
-        stats.setResolvedTickets(ticketRepository.countByCustomerIdAndStatus(customerId, TicketStatus.RESOLVED));
 
         dto.setStats(stats);
-        java.util.List<com.ticketsystem.model.Ticket> recent = ticketRepository
-                .findFirst5ByCustomerIdOrderByCreatedAtDesc(customerId);
-        java.util.List<com.ticketsystem.dto.TicketDTO> recentDTOs = recent.stream().map(t -> {
-            com.ticketsystem.dto.TicketDTO d = new com.ticketsystem.dto.TicketDTO();
-            d.setId(t.getId());
-            d.setTitle(t.getTitle());
-            d.setDescription(t.getDescription());
-            d.setPriority(t.getPriority());
-            if (t.getCategory() != null)
-                d.setCategoryId(t.getCategory().getId());
-            if (t.getLocation() != null)
-                d.setLocationId(t.getLocation().getId());
-            return d;
-        }).collect(java.util.stream.Collectors.toList());
-
-        dto.setRecentTickets(recentDTOs);
+        dto.setRecentTickets(ticketRepository.findRecentByCustomer(customerId, PageRequest.of(0, RECENT_TICKETS)));
+
+        return dto;
+    }
 
+    /**
+     * Created, resolved, reopened and removed tickets per hour or day over
+     * [from, to), widened to whole buckets, with the backlog at the end of
+     * each; optionally for one category and/or location. Without a
+     * granularity, ranges of up to a week are per hour. The opening backlog is
+     * the backlog kept on the last daily bucket before the range plus the
+     * hours of its first day, so the cost follows the number of buckets in
+     * the range, not the history or the number of tickets.
+     */
+    public TicketTimeSeriesDTO getTimeSeries(LocalDateTime from, LocalDateTime to,
+            TicketTimeSeriesDTO.Granularity granularity, Long categoryId, Long locationId) {
+        if (from == null || to == null || !from.isBefore(to))
+            throw new IllegalArgumentException("from must be before to");
+        if (granularity == null)
+            granularity = ChronoUnit.DAYS.between(from, to) < HOURLY_UP_TO_DAYS
+                    ? TicketTimeSeriesDTO.Granularity.HOUR
+                    : TicketTimeSeriesDTO.Granularity.DAY;
+        ChronoUnit unit = granularity == TicketTimeSeriesDTO.Granularity.HOUR ? ChronoUnit.HOURS : ChronoUnit.DAYS;
+        LocalDateTime start = from.truncatedTo(unit);
+        LocalDateTime end = to.truncatedTo(unit);
+        if (end.isBefore(to))
+            end = end.plus(1, unit);
+        if (unit.between(start, end) > MAX_POINTS)
+            throw new IllegalArgumentException("Range too long for " + granularity + " points");
+
+        LocalDate startDay = start.toLocalDate();
+        long dailyCategory = categoryId != null ? categoryId : TicketActivityDaily.ALL;
+        long dailyLocation = locationId != null ? locationId : TicketActivityDaily.ALL;
+        Long opening = dailyRepository.backlogBefore(startDay, dailyCategory, dailyLocation);
+        long backlog = opening != null ? opening : 0;
+        if (start.isAfter(startDay.atStartOfDay()))
+            backlog += hourlyRepository.backlogChange(startDay.atStartOfDay(), start, categoryId, locationId);
+
+        Map<LocalDateTime, Object[]> rows = new HashMap<>();
+        if (unit == ChronoUnit.HOURS) {
+            for (Object[] row : hourlyRepository.series(start, end, categoryId, locationId)) {
+                rows.put((LocalDateTime) row[0], row);
+            }
+        } else {
+            for (Object[] row : dailyRepository.series(startDay, end.toLocalDate(), dailyCategory,
+                    dailyLocation)) {
+                rows.put(((LocalDate) row[0]).atStartOfDay(), row);
+            }
+        }
+
+        TicketTimeSeriesDTO dto = new TicketTimeSeriesDTO();
+        dto.setGranularity(granularity);
+        dto.setFrom(start);
+        dto.setTo(end);
+        dto.setOpeningBacklog(backlog);
+        dto.setFoldedUntil(watermarkRepository.findById(TicketActivityRollup.WATERMARK)
+                .map(AnalyticsWatermark::getPositionAt).orElse(null));
+        for (LocalDateTime at = start; at.isBefore(end); at = at.plus(1, unit)) {
+            Object[] row = rows.get(at);
+            long created = row != null ? ((Number) row[1]).longValue() : 0;
+            long resolved = row != null ? ((Number) row[2]).longValue() : 0;
+            long reopened = row != null ? ((Number) row[3]).longValue() : 0;
+            long removed = row != null ? ((Number) row[4]).longValue() : 0;
+            backlog += created - resolved + reopened - removed;
+            dto.getPoints().add(new TimeSeriesPointDTO(at, created, resolved, reopened, removed, backlog));
+        }
         return dto;
     }
 }
@@ -0,0 +1,111 @@
+package com.ticketsystem.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.*;
+import java.util.function.BinaryOperator;
+import java.util.function.Consumer;
+
+/**
+ * What the rollups and schema initializers share: which database this is,
+ * deltas collected per transaction and written just before it commits, and
+ * writes that add to a counter row or create it.
+ *
+ * PostgreSQL gets INSERT ... ON CONFLICT. Elsewhere (the H2 test database)
+ * a row is updated, else inserted, and a concurrent first insert of the same
+ * key turns into an update.
+ */
+@Component
+public class DatabaseWrites {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private volatile String product;
+
+    public String product() {
+        if (product == null)
+            product = jdbcTemplate.execute(
+                    (ConnectionCallback<String>) connection -> connection.getMetaData().getDatabaseProductName());
+        return product;
+    }
+
+    public boolean isPostgres() {
+        return "PostgreSQL".equalsIgnoreCase(product());
+    }
+
+    /**
+     * Merges {@code value} into the deltas {@code owner} has collected in the
+     * current transaction; just before it commits they are handed to
+     * {@code write} in key order, so they commit or roll back with the change
+     * itself and two transactions never lock the same rows in opposite orders.
+     * Without a transaction the value is written right away.
+     */
+    public <K extends Comparable<K>, V> void defer(Object owner, K key, V value, BinaryOperator<V> merge,
+            Consumer<SortedMap<K, V>> write) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            SortedMap<K, V> single = new TreeMap<>();
+            single.put(key, value);
+            write.accept(single);
+            return;
+        }
+        @SuppressWarnings("unchecked")
+        SortedMap<K, V> pending = (SortedMap<K, V>) TransactionSynchronizationManager.getResource(owner);
+        if (pending == null) {
+            SortedMap<K, V> deltas = new TreeMap<>();
+            TransactionSynchronizationManager.bindResource(owner, deltas);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void beforeCommit(boolean readOnly) {
+                    write.accept(deltas);
+                }
+
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(owner);
+                }
+            });
+            pending = deltas;
+        }
+        pending.merge(key, value, merge);
+    }
+
+    /**
+     * Adds each row to its counter row, or inserts it. {@code insertSql} and
+     * {@code updateSql} take the same parameters in the same order;
+     * {@code onConflict} is the PostgreSQL ON CONFLICT clause that adds
+     * EXCLUDED to the stored row.
+     */
+    public void upsert(String insertSql, String onConflict, String updateSql, List<Object[]> rows) {
+        if (rows.isEmpty())
+            return;
+        if (isPostgres()) {
+            jdbcTemplate.batchUpdate(insertSql + " " + onConflict, rows);
+            return;
+        }
+        for (Object[] row : rows) {
+            if (jdbcTemplate.update(updateSql, row) == 0)
+                insertOrElse(insertSql, row, () -> jdbcTemplate.update(updateSql, row));
+        }
+    }
+
+    /** Inserts the row, or runs {@code onDuplicate} if its key is already taken. */
+    public void insertOrElse(String insertSql, Object[] row, Runnable onDuplicate) {
+        if (isPostgres()) {
+            if (jdbcTemplate.update(insertSql + " ON CONFLICT DO NOTHING", row) == 0)
+                onDuplicate.run();
+            return;
+        }
+        try {
+            jdbcTemplate.update(insertSql, row);
+        } catch (DuplicateKeyException e) {
+            onDuplicate.run();
+        }
+    }
+}
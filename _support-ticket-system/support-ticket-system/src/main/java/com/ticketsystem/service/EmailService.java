@@ -1,27 +1,17 @@
 package com.ticketsystem.service;
 
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.mail.SimpleMailMessage;
-import org.springframework.mail.javamail.JavaMailSender;
 import org.springframework.stereotype.Service;
 
 @Service
 public class EmailService {
 
+    // Pooled, rate-limited SMTP connections rather than one connection per message
     @Autowired
-    private JavaMailSender mailSender;
+    private SmtpDeliveryEngine deliveryEngine;
 
     public void sendEmail(String to, String subject, String text) {
-        if (mailSender == null) {
-            System.out.println("Mock email to " + to + " | " + subject + " | " + text);
-            return;
-        }
-
-        SimpleMailMessage message = new SimpleMailMessage();
-        message.setTo(to);
-        message.setSubject(subject);
-        message.setText(text);
-        mailSender.send(message);
+        deliveryEngine.send(to, subject, text);
     }
 
     public void sendPasswordResetEmail(String to, String token) {
@@ -0,0 +1,526 @@
+package com.ticketsystem.service;
+
+import com.ticketsystem.model.LocationType;
+import com.ticketsystem.repository.LocationRepository;
+import com.ticketsystem.repository.TicketCategoryRepository;
+import com.ticketsystem.repository.TicketRepository;
+import com.ticketsystem.repository.UserRepository;
+import jakarta.transaction.Transactional;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.*;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
+
+/**
+ * In-memory inverted index behind global search.
+ *
+ * Each entity type has its own term dictionary (a sorted map, so a prefix is a
+ * range scan) pointing at posting lists of entity ids held in primitive arrays.
+ * Postings also record whether the term came from the primary field (title,
+ * name) or the secondary one (description, email), which drives ranking.
+ * Only the tokens are indexed; per entity the index keeps a {@link Summary}
+ * to render results with (id, title and a short detail, never a description)
+ * and references to its posting lists. Queries score candidates in sorted
+ * primitive arrays rather than boxed maps.
+ *
+ * The index is loaded once the application is ready and then kept current by
+ * {@link SearchIndexEvent}s, applied only after their transaction commits.
+ * Events raised while the initial load runs are queued and replayed on top of it.
+ */
+@Component
+public class GlobalSearchIndex {
+
+    private static final Logger log = LoggerFactory.getLogger(GlobalSearchIndex.class);
+
+    public enum Type {
+        TICKET(true), USER(true), CATEGORY(false), LOCATION(false);
+
+        // A numeric query also matches this type by exact id
+        final boolean matchesId;
+
+        Type(boolean matchesId) {
+            this.matchesId = matchesId;
+        }
+    }
+
+    static final byte PRIMARY = 1;
+    static final byte SECONDARY = 2;
+
+    // Exact id hits outrank any text match
+    static final int ID_MATCH_SCORE = 1_000;
+
+    /**
+     * What the index keeps of an entity and returns in hits. {@code detail} is an
+     * email or location type; {@code ref} is a ticket's category id or a
+     * location's parent id.
+     */
+    public record Summary(long id, String title, String detail, Long ref) {
+    }
+
+    /**
+     * Text of one entity as handed to the index: the summary plus the fields
+     * to tokenize, which are not kept.
+     */
+    public record Document(Summary summary, String primary, String secondary) {
+
+        public static Document ticket(long id, String title, String description, Long categoryId) {
+            return new Document(new Summary(id, title, null, categoryId), title, description);
+        }
+
+        public static Document user(long id, String name, String email) {
+            return new Document(new Summary(id, name, email, null), name, email);
+        }
+
+        public static Document category(long id, String name, String description) {
+            return new Document(new Summary(id, name, null, null), name, description);
+        }
+
+        public static Document location(long id, String name, LocationType type, Long parentId) {
+            return new Document(new Summary(id, name, type != null ? type.name() : null, parentId), name, null);
+        }
+
+        public long id() {
+            return summary.id();
+        }
+    }
+
+    public record Hit(Summary summary, int score) {
+    }
+
+    // Best hits plus how many documents matched in total
+    public record Matches(List<Hit> hits, int total) {
+    }
+
+    @Autowired
+    private TicketRepository ticketRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private TicketCategoryRepository categoryRepository;
+
+    @Autowired
+    private LocationRepository locationRepository;
+
+    private volatile EnumMap<Type, TypeIndex> indexes = emptyIndexes();
+
+    private final Object loadMonitor = new Object();
+
+    // Events seen before the initial load finished; null afterwards
+    private List<SearchIndexEvent> pending = new ArrayList<>();
+
+    // -----------------------
+    // LOADING & MAINTENANCE
+    // -----------------------
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional
+    public void load() {
+        long started = System.nanoTime();
+        EnumMap<Type, TypeIndex> loaded = emptyIndexes();
+
+        try (Stream<Object[]> rows = ticketRepository.streamSearchDocuments()) {
+            TypeIndex tickets = loaded.get(Type.TICKET);
+            rows.forEach(r -> tickets.put(Document.ticket((Long) r[0], (String) r[1], (String) r[2], (Long) r[3])));
+        }
+        userRepository.findAll().forEach(u -> loaded.get(Type.USER)
+                .put(Document.user(u.getId(), u.getName(), u.getEmail())));
+        categoryRepository.findAll().forEach(c -> loaded.get(Type.CATEGORY)
+                .put(Document.category(c.getId(), c.getName(), c.getDescription())));
+        locationRepository.findTypeaheadRows().forEach(r -> loaded.get(Type.LOCATION)
+                .put(Document.location((Long) r[0], (String) r[1], (LocationType) r[2], (Long) r[3])));
+
+        synchronized (loadMonitor) {
+            indexes = loaded;
+            if (pending != null) {
+                pending.forEach(this::apply);
+                pending = null;
+            }
+        }
+        log.info("Global search index loaded: {} tickets, {} users, {} categories, {} locations in {} ms",
+                loaded.get(Type.TICKET).size(), loaded.get(Type.USER).size(),
+                loaded.get(Type.CATEGORY).size(), loaded.get(Type.LOCATION).size(),
+                (System.nanoTime() - started) / 1_000_000);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onIndexEvent(SearchIndexEvent event) {
+        synchronized (loadMonitor) {
+            if (pending != null) {
+                pending.add(event);
+                return;
+            }
+        }
+        apply(event);
+    }
+
+    void apply(SearchIndexEvent event) {
+        TypeIndex index = indexes.get(event.type());
+        if (event.document() == null) {
+            index.remove(event.id());
+        } else {
+            index.put(event.document());
+        }
+    }
+
+    // -----------------------
+    // QUERIES
+    // -----------------------
+
+    /**
+     * Best {@code limit} matches of {@code query} within one type, highest score
+     * first, newest (highest id) first among equal scores. Every word of the
+     * query must prefix-match some word of the entity.
+     */
+    public Matches search(Type type, String query, int limit) {
+        return indexes.get(type).search(type, tokenize(query), query != null ? query.trim() : "", limit);
+    }
+
+    public Summary get(Type type, long id) {
+        return indexes.get(type).get(id);
+    }
+
+    private static EnumMap<Type, TypeIndex> emptyIndexes() {
+        EnumMap<Type, TypeIndex> map = new EnumMap<>(Type.class);
+        for (Type type : Type.values()) {
+            map.put(type, new TypeIndex());
+        }
+        return map;
+    }
+
+    // Lower-cased runs of letters and digits; "john.doe@mail.rw" -> [john, doe, mail, rw]
+    static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        if (text == null)
+            return tokens;
+        StringBuilder current = new StringBuilder();
+        for (int i = 0; i < text.length(); i++) {
+            char ch = text.charAt(i);
+            if (Character.isLetterOrDigit(ch)) {
+                current.append(Character.toLowerCase(ch));
+            } else if (current.length() > 0) {
+                tokens.add(current.toString());
+                current.setLength(0);
+            }
+        }
+        if (current.length() > 0)
+            tokens.add(current.toString());
+        return tokens;
+    }
+
+    // -----------------------
+    // PER-TYPE INDEX
+    // -----------------------
+
+    static final class TypeIndex {
+
+        private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+        private final TreeMap<String, Postings> terms = new TreeMap<>();
+        private final HashMap<Long, Indexed> documents = new HashMap<>();
+
+        // The posting lists an entity is in, so it can be unindexed without re-tokenizing
+        private record Indexed(Summary summary, Postings[] postings) {
+        }
+
+        void put(Document document) {
+            Map<String, Byte> fields = new HashMap<>();
+            for (String token : tokenize(document.primary()))
+                fields.merge(token, PRIMARY, (a, b) -> (byte) (a | b));
+            for (String token : tokenize(document.secondary()))
+                fields.merge(token, SECONDARY, (a, b) -> (byte) (a | b));
+
+            lock.writeLock().lock();
+            try {
+                unindex(document.id());
+                Postings[] postings = new Postings[fields.size()];
+                int i = 0;
+                for (Map.Entry<String, Byte> e : fields.entrySet()) {
+                    Postings p = terms.computeIfAbsent(e.getKey(), Postings::new);
+                    p.add(document.id(), e.getValue());
+                    postings[i++] = p;
+                }
+                documents.put(document.id(), new Indexed(document.summary(), postings));
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+
+        void remove(long id) {
+            lock.writeLock().lock();
+            try {
+                unindex(id);
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+
+        private void unindex(long id) {
+            Indexed previous = documents.remove(id);
+            if (previous == null)
+                return;
+            for (Postings postings : previous.postings()) {
+                if (postings.remove(id) && postings.size == 0) {
+                    terms.remove(postings.term);
+                }
+            }
+        }
+
+        Summary get(long id) {
+            lock.readLock().lock();
+            try {
+                Indexed indexed = documents.get(id);
+                return indexed != null ? indexed.summary() : null;
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+
+        int size() {
+            return documents.size();
+        }
+
+        Matches search(Type type, List<String> queryTerms, String rawQuery, int limit) {
+            if (queryTerms.isEmpty())
+                return new Matches(List.of(), 0);
+
+            lock.readLock().lock();
+            try {
+                // Candidates as ids ascending with their scores: the sum over query terms
+                // of the best match each term found. A document drops out as soon as one
+                // term finds nothing in it.
+                Candidates candidates = null;
+                for (String q : new LinkedHashSet<>(queryTerms)) {
+                    candidates = match(q, candidates);
+                    if (candidates.size == 0)
+                        break;
+                }
+
+                if (type.matchesId && isNumeric(rawQuery)) {
+                    long id = Long.parseLong(rawQuery);
+                    if (documents.containsKey(id)) {
+                        candidates.addScore(id, ID_MATCH_SCORE);
+                    }
+                }
+
+                return new Matches(topK(candidates, limit), candidates.size);
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+
+        /**
+         * Best score per document of the terms starting with {@code q}, added to
+         * {@code previous} and restricted to its documents (all documents when
+         * null). Each (id, score) pair is packed into one long, id in the high
+         * bits, so sorting the pairs groups them by id with the best score last.
+         */
+        private Candidates match(String q, Candidates previous) {
+            long[] pairs = new long[16];
+            int n = 0;
+            for (Map.Entry<String, Postings> e : terms.subMap(q, true, q + Character.MAX_VALUE, false).entrySet()) {
+                boolean exact = e.getKey().length() == q.length();
+                Postings p = e.getValue();
+                for (int i = 0; i < p.size; i++) {
+                    long id = p.ids[i];
+                    if (previous != null && previous.indexOf(id) < 0)
+                        continue;
+                    if (n == pairs.length)
+                        pairs = Arrays.copyOf(pairs, n * 2);
+                    pairs[n++] = id << SCORE_BITS | score(p.fields[i], exact);
+                }
+            }
+            Arrays.sort(pairs, 0, n);
+
+            Candidates matched = new Candidates(n);
+            for (int i = 0; i < n; i++) {
+                if (i + 1 < n && pairs[i + 1] >>> SCORE_BITS == pairs[i] >>> SCORE_BITS)
+                    continue;
+                long id = pairs[i] >>> SCORE_BITS;
+                int score = (int) (pairs[i] & SCORE_MASK);
+                matched.append(id, previous != null ? score + previous.scores[previous.indexOf(id)] : score);
+            }
+            return matched;
+        }
+
+        // Bounded min-heap of candidate positions: O(n log k) instead of sorting every candidate
+        private List<Hit> topK(Candidates candidates, int limit) {
+            if (limit <= 0 || candidates.size == 0)
+                return List.of();
+            int[] heap = new int[Math.min(limit, candidates.size)];
+            int size = 0;
+            for (int i = 0; i < candidates.size; i++) {
+                if (size < heap.length) {
+                    heap[size] = i;
+                    siftUp(candidates, heap, size++);
+                } else if (candidates.worse(heap[0], i)) {
+                    heap[0] = i;
+                    siftDown(candidates, heap, size);
+                }
+            }
+
+            Hit[] hits = new Hit[size];
+            while (size > 0) {
+                int best = heap[0];
+                heap[0] = heap[--size];
+                siftDown(candidates, heap, size);
+                hits[size] = new Hit(documents.get(candidates.ids[best]).summary(), candidates.scores[best]);
+            }
+            return Arrays.asList(hits);
+        }
+
+        private static void siftUp(Candidates c, int[] heap, int i) {
+            while (i > 0) {
+                int parent = (i - 1) / 2;
+                if (!c.worse(heap[i], heap[parent]))
+                    return;
+                int t = heap[i];
+                heap[i] = heap[parent];
+                heap[parent] = t;
+                i = parent;
+            }
+        }
+
+        private static void siftDown(Candidates c, int[] heap, int size) {
+            int i = 0;
+            while (true) {
+                int smallest = i;
+                int left = 2 * i + 1;
+                int right = left + 1;
+                if (left < size && c.worse(heap[left], heap[smallest]))
+                    smallest = left;
+                if (right < size && c.worse(heap[right], heap[smallest]))
+                    smallest = right;
+                if (smallest == i)
+                    return;
+                int t = heap[i];
+                heap[i] = heap[smallest];
+                heap[smallest] = t;
+                i = smallest;
+            }
+        }
+
+        // Primary field outranks secondary; a whole-word match outranks a prefix
+        private static int score(byte fields, boolean exact) {
+            int base = (fields & PRIMARY) != 0 ? 3 : 1;
+            return exact ? base + 1 : base;
+        }
+
+        private static boolean isNumeric(String s) {
+            if (s.isEmpty() || s.length() > 18)
+                return false;
+            for (int i = 0; i < s.length(); i++) {
+                if (!Character.isDigit(s.charAt(i)))
+                    return false;
+            }
+            return true;
+        }
+    }
+
+    // Bits of a packed (id, score) pair that hold the score; text scores are at most 4
+    private static final int SCORE_BITS = 3;
+    private static final long SCORE_MASK = (1L << SCORE_BITS) - 1;
+
+    /**
+     * Matching documents of one query: ids ascending with a parallel array of scores.
+     */
+    static final class Candidates {
+
+        long[] ids;
+        int[] scores;
+        int size;
+
+        Candidates(int capacity) {
+            ids = new long[Math.max(capacity, 1)];
+            scores = new int[ids.length];
+        }
+
+        void append(long id, int score) {
+            ids[size] = id;
+            scores[size++] = score;
+        }
+
+        int indexOf(long id) {
+            return Arrays.binarySearch(ids, 0, size, id);
+        }
+
+        // Adds to the document's score, inserting it if it did not match
+        void addScore(long id, int score) {
+            int i = indexOf(id);
+            if (i >= 0) {
+                scores[i] += score;
+                return;
+            }
+            i = -i - 1;
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+                scores = Arrays.copyOf(scores, size * 2);
+            }
+            System.arraycopy(ids, i, ids, i + 1, size - i);
+            System.arraycopy(scores, i, scores, i + 1, size - i);
+            ids[i] = id;
+            scores[i] = score;
+            size++;
+        }
+
+        // Lower score, then older (lower) id
+        boolean worse(int a, int b) {
+            return scores[a] != scores[b] ? scores[a] < scores[b] : ids[a] < ids[b];
+        }
+    }
+
+    /**
+     * Ids sorted ascending in a primitive array, with a parallel array of field bits.
+     */
+    static final class Postings {
+
+        // Dictionary key, so an entity's postings can be dropped without a lookup; null when keyed otherwise
+        final String term;
+        long[] ids = new long[2];
+        byte[] fields = new byte[2];
+        int size;
+
+        Postings() {
+            this(null);
+        }
+
+        Postings(String term) {
+            this.term = term;
+        }
+
+        void add(long id, byte field) {
+            int i = Arrays.binarySearch(ids, 0, size, id);
+            if (i >= 0) {
+                fields[i] |= field;
+                return;
+            }
+            i = -i - 1;
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+                fields = Arrays.copyOf(fields, size * 2);
+            }
+            System.arraycopy(ids, i, ids, i + 1, size - i);
+            System.arraycopy(fields, i, fields, i + 1, size - i);
+            ids[i] = id;
+            fields[i] = field;
+            size++;
+        }
+
+        boolean remove(long id) {
+            int i = Arrays.binarySearch(ids, 0, size, id);
+            if (i < 0)
+                return false;
+            System.arraycopy(ids, i + 1, ids, i, size - i - 1);
+            System.arraycopy(fields, i + 1, fields, i, size - i - 1);
+            size--;
+            return true;
+        }
+    }
+}
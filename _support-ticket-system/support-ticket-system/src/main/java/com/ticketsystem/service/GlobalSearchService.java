@@ -3,97 +3,106 @@ package com.ticketsystem.service;
 import com.ticketsystem.dto.GlobalSearchRequestDTO;
 import com.ticketsystem.dto.GlobalSearchResponseDTO;
 import com.ticketsystem.dto.GlobalSearchResultDTO;
-import com.ticketsystem.model.Ticket;
-import com.ticketsystem.model.User;
-import com.ticketsystem.model.TicketCategory;
-import com.ticketsystem.repository.TicketRepository;
-import com.ticketsystem.repository.UserRepository;
-import com.ticketsystem.repository.TicketCategoryRepository;
-import jakarta.transaction.Transactional;
+import com.ticketsystem.service.GlobalSearchIndex.Hit;
+import com.ticketsystem.service.GlobalSearchIndex.Matches;
+import com.ticketsystem.service.GlobalSearchIndex.Summary;
+import com.ticketsystem.service.GlobalSearchIndex.Type;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
 import java.util.*;
-import java.util.stream.Collectors;
+import java.util.concurrent.TimeUnit;
 
+/**
+ * Served entirely from {@link GlobalSearchIndex}; no database access per query.
+ *
+ * The four entity types are searched one after another on the request thread
+ * (each is a short in-memory scan, so other threads would only add hand-off
+ * cost), each capped at {@link #LIMIT_PER_TYPE}. Types not reached within the
+ * deadline, or after the request thread is interrupted, are skipped and the
+ * response marked partial. Hits are merged by score into at most
+ * {@link #LIMIT_TOTAL} results; whatever matched but was cut is reported per
+ * type in moreResults.
+ */
 @Service
-@Transactional
 public class GlobalSearchService {
 
-        @Autowired
-        private TicketRepository ticketRepository;
+        private static final Logger log = LoggerFactory.getLogger(GlobalSearchService.class);
 
-        @Autowired
-        private UserRepository userRepository;
+        static final int LIMIT_PER_TYPE = 10;
+        static final int LIMIT_TOTAL = 25;
+        static final long DEADLINE_MS = 250;
 
-        @Autowired
-        private TicketCategoryRepository categoryRepository;
+        // Worst first: lower score, then later type, then older (lower) id
+        private static final Comparator<Candidate> RANK = Comparator
+                        .comparingInt((Candidate c) -> c.hit().score())
+                        .thenComparing(Candidate::type, Comparator.reverseOrder())
+                        .thenComparingLong(c -> c.hit().summary().id());
+
+        private record Candidate(Type type, Hit hit) {
+        }
 
         @Autowired
-        private com.ticketsystem.repository.LocationRepository locationRepository;
+        private GlobalSearchIndex searchIndex;
 
         public GlobalSearchResponseDTO performGlobalSearch(GlobalSearchRequestDTO request) {
                 String query = request.getQuery().toLowerCase().trim();
 
                 GlobalSearchResponseDTO response = new GlobalSearchResponseDTO();
-                if (response.getResults() == null) {
-                        response.setResults(new ArrayList<>());
-                }
-
-                // ----------------------------------
-                // SEARCH IN TICKETS
-                // ----------------------------------
-                List<GlobalSearchResultDTO> ticketResults = ticketRepository.searchTickets(query)
-                                .stream()
-                                .map(t -> new GlobalSearchResultDTO(
-                                                "TICKET",
-                                                t.getId(),
-                                                t.getTitle(),
-                                                "Ticket in category: "
-                                                                + (t.getCategory() != null ? t.getCategory().getName()
-                                                                                : "None")))
-                                .collect(Collectors.toList());
-                response.getResults().addAll(ticketResults);
+                response.setResults(new ArrayList<>());
+                response.setMoreResults(new LinkedHashMap<>());
 
                 // ----------------------------------
-                // SEARCH IN USERS
+                // SEARCH each type in turn, merging into a bounded heap
                 // ----------------------------------
-                List<GlobalSearchResultDTO> userResults = userRepository.searchUsers(query)
-                                .stream()
-                                .map(u -> new GlobalSearchResultDTO(
-                                                "USER",
-                                                u.getId(),
-                                                u.getName(),
-                                                "Email: " + u.getEmail()))
-                                .collect(Collectors.toList());
-                response.getResults().addAll(userResults);
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(DEADLINE_MS);
+                PriorityQueue<Candidate> heap = new PriorityQueue<>(LIMIT_TOTAL + 1, RANK);
+                Map<Type, Integer> totals = new EnumMap<>(Type.class);
+                for (Type type : Type.values()) {
+                        if (Thread.currentThread().isInterrupted() || System.nanoTime() > deadline) {
+                                log.warn("Global search for {} skipped: past the {} ms deadline or interrupted", type,
+                                                DEADLINE_MS);
+                                response.setPartial(true);
+                                continue;
+                        }
+                        Matches matches = searchIndex.search(type, query, LIMIT_PER_TYPE);
+                        totals.put(type, matches.total());
+                        for (Hit hit : matches.hits()) {
+                                heap.offer(new Candidate(type, hit));
+                                if (heap.size() > LIMIT_TOTAL)
+                                        heap.poll();
+                        }
+                }
 
-                // ----------------------------------
-                // SEARCH IN CATEGORIES
-                // ----------------------------------
-                List<GlobalSearchResultDTO> categoryResults = categoryRepository.search(query)
-                                .stream()
-                                .map(c -> new GlobalSearchResultDTO(
-                                                "CATEGORY",
-                                                c.getId(),
-                                                c.getName(),
-                                                "Ticket Category"))
-                                .collect(Collectors.toList());
-                response.getResults().addAll(categoryResults);
+                List<Candidate> ranked = new ArrayList<>(heap);
+                ranked.sort(RANK.reversed());
 
-                // ----------------------------------
-                // SEARCH IN LOCATIONS
-                // ----------------------------------
-                List<GlobalSearchResultDTO> locationResults = locationRepository.searchLocations(query)
-                                .stream()
-                                .map(l -> new GlobalSearchResultDTO(
-                                                "LOCATION",
-                                                l.getId(),
-                                                l.getName(),
-                                                "Location Type: " + l.getType()))
-                                .collect(Collectors.toList());
-                response.getResults().addAll(locationResults);
+                Map<Type, Integer> shown = new EnumMap<>(Type.class);
+                for (Candidate c : ranked) {
+                        response.getResults().add(toResult(c.type(), c.hit()));
+                        shown.merge(c.type(), 1, Integer::sum);
+                }
+                totals.forEach((type, total) -> response.getMoreResults()
+                                .put(type.name(), total - shown.getOrDefault(type, 0)));
 
                 return response;
         }
+
+        private GlobalSearchResultDTO toResult(Type type, Hit hit) {
+                Summary d = hit.summary();
+                String description = switch (type) {
+                        case TICKET -> {
+                                Summary category = d.ref() != null ? searchIndex.get(Type.CATEGORY, d.ref()) : null;
+                                yield "Ticket in category: " + (category != null ? category.title() : "None");
+                        }
+                        case USER -> "Email: " + d.detail();
+                        case CATEGORY -> "Ticket Category";
+                        case LOCATION -> "Location Type: " + d.detail();
+                };
+                GlobalSearchResultDTO result = new GlobalSearchResultDTO(type.name(), d.id(), d.title(), description);
+                result.setScore(hit.score());
+                return result;
+        }
 }
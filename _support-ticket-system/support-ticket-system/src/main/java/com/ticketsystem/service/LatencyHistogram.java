@@ -0,0 +1,148 @@
+package com.ticketsystem.service;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+
+/**
+ * Counts of durations in whole seconds, in log-linear buckets: exact below
+ * 16 s, then 16 buckets per power of two, so a percentile read back is
+ * within 1/16 of the true value. A fixed 448 counters cover up to 2^31 s
+ * however many samples go in, and two histograms merge by adding their
+ * counters, so per-day histograms add up to any longer range.
+ */
+public class LatencyHistogram {
+
+    private static final int SUB_BITS = 4;
+
+    private static final int SUB_BUCKETS = 1 << SUB_BITS;
+
+    static final int BUCKETS = SUB_BUCKETS + (31 - SUB_BITS) * SUB_BUCKETS;
+
+    private final long[] counts = new long[BUCKETS];
+
+    private long count;
+
+    private long sum;
+
+    public void record(long seconds) {
+        long value = Math.max(0, Math.min(seconds, Integer.MAX_VALUE));
+        counts[index(value)]++;
+        count++;
+        sum += value;
+    }
+
+    public void merge(LatencyHistogram other) {
+        for (int i = 0; i < BUCKETS; i++) {
+            counts[i] += other.counts[i];
+        }
+        count += other.count;
+        sum += other.sum;
+    }
+
+    public long count() {
+        return count;
+    }
+
+    public double mean() {
+        return count == 0 ? 0 : (double) sum / count;
+    }
+
+    /**
+     * The value at or below which {@code fraction} of the samples lie (the
+     * middle of its bucket), or null for an empty histogram.
+     */
+    public Long percentile(double fraction) {
+        if (count == 0)
+            return null;
+        long rank = Math.max(1, (long) Math.ceil(fraction * count));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts[i];
+            if (seen >= rank)
+                return (lowerBound(i) + upperBound(i)) / 2;
+        }
+        return upperBound(BUCKETS - 1);
+    }
+
+    // -----------------------
+    // BUCKETS
+    // -----------------------
+
+    static int index(long value) {
+        if (value < SUB_BUCKETS)
+            return (int) value;
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        int sub = (int) (value >>> (exponent - SUB_BITS)) - SUB_BUCKETS;
+        return SUB_BUCKETS + (exponent - SUB_BITS) * SUB_BUCKETS + sub;
+    }
+
+    static long lowerBound(int index) {
+        if (index < SUB_BUCKETS)
+            return index;
+        int exponent = (index - SUB_BUCKETS) / SUB_BUCKETS + SUB_BITS;
+        int sub = (index - SUB_BUCKETS) % SUB_BUCKETS;
+        return (long) (SUB_BUCKETS + sub) << (exponent - SUB_BITS);
+    }
+
+    static long upperBound(int index) {
+        return index == BUCKETS - 1 ? Integer.MAX_VALUE : lowerBound(index + 1) - 1;
+    }
+
+    // -----------------------
+    // ENCODING
+    // -----------------------
+
+    /**
+     * Sum of the samples, then (gap to the bucket index, count) for each
+     * non-empty bucket, all as varints; a day's histogram is a few dozen
+     * bytes.
+     */
+    public byte[] encode() {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        writeVarint(out, sum);
+        int previous = -1;
+        for (int i = 0; i < BUCKETS; i++) {
+            if (counts[i] == 0)
+                continue;
+            writeVarint(out, i - previous);
+            writeVarint(out, counts[i]);
+            previous = i;
+        }
+        return out.toByteArray();
+    }
+
+    public static LatencyHistogram decode(byte[] bytes) {
+        LatencyHistogram histogram = new LatencyHistogram();
+        ByteBuffer in = ByteBuffer.wrap(bytes);
+        histogram.sum = readVarint(in);
+        int index = -1;
+        while (in.hasRemaining()) {
+            index += (int) readVarint(in);
+            if (index >= BUCKETS)
+                throw new IllegalArgumentException("Histogram bucket out of range: " + index);
+            long bucketCount = readVarint(in);
+            histogram.counts[index] += bucketCount;
+            histogram.count += bucketCount;
+        }
+        return histogram;
+    }
+
+    private static void writeVarint(ByteArrayOutputStream out, long value) {
+        while ((value & ~0x7FL) != 0) {
+            out.write((int) (value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.write((int) value);
+    }
+
+    private static long readVarint(ByteBuffer in) {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            byte b = in.get();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0)
+                return value;
+        }
+        throw new IllegalArgumentException("Malformed histogram varint");
+    }
+}
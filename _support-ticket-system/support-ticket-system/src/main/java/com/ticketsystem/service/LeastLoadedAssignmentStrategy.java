@@ -0,0 +1,44 @@
+package com.ticketsystem.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * The agent with the lowest priority-weighted open workload. Ties go to the
+ * agent with fewer open tickets, then to the lower id.
+ */
+@Component
+public class LeastLoadedAssignmentStrategy implements AssignmentStrategy {
+
+    public static final String NAME = "least-loaded";
+
+    @Autowired
+    private AgentWorkloadLedger workloadLedger;
+
+    @Override
+    public String name() {
+        return NAME;
+    }
+
+    @Override
+    public AssignmentSnapshot.Agent choose(Request request, List<AssignmentSnapshot.Agent> candidates,
+            AssignmentSnapshot snapshot) {
+        AssignmentSnapshot.Agent best = null;
+        int bestLoad = Integer.MAX_VALUE;
+        int bestCount = Integer.MAX_VALUE;
+        for (AssignmentSnapshot.Agent agent : candidates) {
+            int load = workloadLedger.weightedLoad(agent.id());
+            if (load > bestLoad)
+                continue;
+            int count = workloadLedger.activeTickets(agent.id());
+            if (load < bestLoad || count < bestCount) {
+                best = agent;
+                bestLoad = load;
+                bestCount = count;
+            }
+        }
+        return best;
+    }
+}
@@ -2,6 +2,7 @@ package com.ticketsystem.service;
 
 import com.ticketsystem.dto.LocationDTO;
 import com.ticketsystem.dto.LocationHierarchyDTO;
+import com.ticketsystem.dto.LocationSuggestionDTO;
 import com.ticketsystem.model.Location;
 import com.ticketsystem.model.LocationType;
 import com.ticketsystem.repository.LocationRepository;
@@ -19,6 +20,12 @@ public class LocationService {
     @Autowired
     private LocationRepository locationRepository;
 
+    @Autowired
+    private LocationTypeaheadIndex typeaheadIndex;
+
+    @Autowired
+    private org.springframework.context.ApplicationEventPublisher eventPublisher;
+
     // -------------------------------
     // Get All
     // -------------------------------
@@ -58,6 +65,7 @@ public class LocationService {
         }
 
         Location saved = locationRepository.save(loc);
+        eventPublisher.publishEvent(SearchIndexEvent.of(saved));
         return mapToDTO(saved);
     }
 
@@ -80,6 +88,7 @@ public class LocationService {
         }
 
         Location saved = locationRepository.save(loc);
+        eventPublisher.publishEvent(SearchIndexEvent.of(saved));
         return mapToDTO(saved);
     }
 
@@ -87,6 +96,15 @@ public class LocationService {
     // Delete
     // -------------------------------
     public void deleteLocation(Long id) {
+        // Children go with it (cascade), so drop the whole subtree from the search index
+        locationRepository.findById(id).ifPresent(loc -> {
+            Deque<Location> stack = new ArrayDeque<>(List.of(loc));
+            while (!stack.isEmpty()) {
+                Location current = stack.pop();
+                eventPublisher.publishEvent(SearchIndexEvent.removed(GlobalSearchIndex.Type.LOCATION, current.getId()));
+                stack.addAll(current.getChildren());
+            }
+        });
         locationRepository.deleteById(id);
     }
 
@@ -154,6 +172,13 @@ public class LocationService {
                 .collect(Collectors.toList());
     }
 
+    // -------------------------------
+    // Typeahead (in-memory trigram index)
+    // -------------------------------
+    public List<LocationSuggestionDTO> typeahead(String query, LocationType type, int limit) {
+        return typeaheadIndex.suggest(query, type, limit);
+    }
+
     // -------------------------------
     // Search All Locations
     // -------------------------------
@@ -0,0 +1,298 @@
+package com.ticketsystem.service;
+
+import com.ticketsystem.dto.LocationSuggestionDTO;
+import com.ticketsystem.model.LocationType;
+import com.ticketsystem.repository.LocationRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.*;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Trigram index over the location tree for the location picker's typeahead.
+ *
+ * Names are split into trigrams the way pg_trgm does it (each word padded with
+ * two leading blanks and one trailing blank); every trigram keeps a posting list
+ * of dense slot numbers. A query is matched by counting shared trigrams in a
+ * plain int array, so typos still find the intended name. The last query word
+ * is left open-ended, so a partial word matches every name that starts with it.
+ *
+ * Only id, name, type and parent id are held per location; ancestor paths are
+ * rendered from them for the returned matches, so renaming a district shows up
+ * in the paths of all its villages at once.
+ */
+@Component
+public class LocationTypeaheadIndex {
+
+    private static final Logger log = LoggerFactory.getLogger(LocationTypeaheadIndex.class);
+
+    static final int DEFAULT_LIMIT = 10;
+    static final int MAX_LIMIT = 50;
+
+    // Share of the query's trigrams a name must contain to be a candidate
+    static final double MIN_COVERAGE = 0.5;
+
+    static final String PATH_SEPARATOR = " ➝ ";
+
+    private record Node(int slot, long id, String name, String normalized, LocationType type, Long parentId,
+            long[] trigrams) {
+    }
+
+    private record Candidate(Node node, int prefix, double coverage, double similarity) {
+    }
+
+    // Worst first: no prefix match, lower coverage, lower similarity, longer name, higher id
+    private static final Comparator<Candidate> RANK = Comparator
+            .comparingInt(Candidate::prefix)
+            .thenComparingDouble(Candidate::coverage)
+            .thenComparingDouble(Candidate::similarity)
+            .thenComparing(c -> c.node().name().length(), Comparator.reverseOrder())
+            .thenComparing(c -> c.node().id(), Comparator.reverseOrder());
+
+    @Autowired
+    private LocationRepository locationRepository;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final HashMap<Long, Node> nodes = new HashMap<>();
+    private final HashMap<Long, GlobalSearchIndex.Postings> postings = new HashMap<>();
+    // Node per slot (null once freed) and the freed slots awaiting reuse
+    private final ArrayList<Node> slots = new ArrayList<>();
+    private final ArrayDeque<Integer> freeSlots = new ArrayDeque<>();
+
+    private final Object loadMonitor = new Object();
+
+    // Events seen before the initial load finished; null afterwards
+    private List<SearchIndexEvent> pending = new ArrayList<>();
+
+    // -----------------------
+    // LOADING & MAINTENANCE
+    // -----------------------
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        long started = System.nanoTime();
+        List<Object[]> rows = locationRepository.findTypeaheadRows();
+
+        synchronized (loadMonitor) {
+            lock.writeLock().lock();
+            try {
+                nodes.clear();
+                postings.clear();
+                slots.clear();
+                freeSlots.clear();
+                for (Object[] r : rows) {
+                    put((Long) r[0], (String) r[1], (LocationType) r[2], (Long) r[3]);
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+            if (pending != null) {
+                pending.forEach(this::apply);
+                pending = null;
+            }
+        }
+        log.info("Location typeahead index loaded: {} locations in {} ms", rows.size(),
+                (System.nanoTime() - started) / 1_000_000);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onIndexEvent(SearchIndexEvent event) {
+        if (event.type() != GlobalSearchIndex.Type.LOCATION)
+            return;
+        synchronized (loadMonitor) {
+            if (pending != null) {
+                pending.add(event);
+                return;
+            }
+        }
+        apply(event);
+    }
+
+    void apply(SearchIndexEvent event) {
+        lock.writeLock().lock();
+        try {
+            GlobalSearchIndex.Summary d = event.document() != null ? event.document().summary() : null;
+            if (d == null) {
+                remove(event.id());
+            } else {
+                put(d.id(), d.title(), d.detail() != null ? LocationType.valueOf(d.detail()) : null, d.ref());
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Caller holds the write lock
+    private void put(long id, String name, LocationType type, Long parentId) {
+        remove(id);
+        String normalized = normalize(name);
+        long[] trigrams = trigrams(normalized, false);
+        int slot = freeSlots.isEmpty() ? slots.size() : freeSlots.pop();
+        for (long t : trigrams) {
+            postings.computeIfAbsent(t, k -> new GlobalSearchIndex.Postings()).add(slot, (byte) 0);
+        }
+        Node node = new Node(slot, id, name, normalized, type, parentId, trigrams);
+        if (slot == slots.size()) {
+            slots.add(node);
+        } else {
+            slots.set(slot, node);
+        }
+        nodes.put(id, node);
+    }
+
+    private void remove(long id) {
+        Node previous = nodes.remove(id);
+        if (previous == null)
+            return;
+        for (long t : previous.trigrams()) {
+            GlobalSearchIndex.Postings p = postings.get(t);
+            if (p != null && p.remove(previous.slot()) && p.size == 0) {
+                postings.remove(t);
+            }
+        }
+        slots.set(previous.slot(), null);
+        freeSlots.push(previous.slot());
+    }
+
+    // -----------------------
+    // QUERIES
+    // -----------------------
+
+    /**
+     * Top {@code limit} locations for a partially typed name, optionally of one
+     * type only. Names starting with the query come first, then the closest
+     * trigram matches.
+     */
+    public List<LocationSuggestionDTO> suggest(String query, LocationType type, int limit) {
+        String q = normalize(query);
+        if (q.isEmpty())
+            return List.of();
+        limit = Math.min(Math.max(limit, 1), MAX_LIMIT);
+        long[] queryTrigrams = trigrams(q, true);
+
+        lock.readLock().lock();
+        try {
+            // Every posting of the query's trigrams, sorted so each slot's postings are one run
+            // whose length is the trigrams it shares; sized to the candidates, not the index
+            int total = 0;
+            GlobalSearchIndex.Postings[] lists = new GlobalSearchIndex.Postings[queryTrigrams.length];
+            for (int t = 0; t < queryTrigrams.length; t++) {
+                lists[t] = postings.get(queryTrigrams[t]);
+                if (lists[t] != null)
+                    total += lists[t].size;
+            }
+            int[] hits = new int[total];
+            int count = 0;
+            for (GlobalSearchIndex.Postings p : lists) {
+                if (p == null)
+                    continue;
+                for (int i = 0; i < p.size; i++) {
+                    hits[count++] = (int) p.ids[i];
+                }
+            }
+            Arrays.sort(hits);
+
+            int minShared = (int) Math.ceil(queryTrigrams.length * MIN_COVERAGE);
+            PriorityQueue<Candidate> heap = new PriorityQueue<>(limit + 1, RANK);
+            for (int start = 0, end; start < count; start = end) {
+                end = start + 1;
+                while (end < count && hits[end] == hits[start])
+                    end++;
+                int common = end - start;
+                if (common < minShared)
+                    continue;
+                Node node = slots.get(hits[start]);
+                if (type != null && node.type() != type)
+                    continue;
+                double coverage = (double) common / queryTrigrams.length;
+                double similarity = (double) common / (queryTrigrams.length + node.trigrams().length - common);
+                Candidate candidate = new Candidate(node, prefixRank(node.normalized(), q), coverage, similarity);
+                if (heap.size() < limit) {
+                    heap.offer(candidate);
+                } else if (RANK.compare(candidate, heap.peek()) > 0) {
+                    heap.poll();
+                    heap.offer(candidate);
+                }
+            }
+
+            List<Candidate> ranked = new ArrayList<>(heap);
+            ranked.sort(RANK.reversed());
+            List<LocationSuggestionDTO> result = new ArrayList<>(ranked.size());
+            for (Candidate c : ranked) {
+                Node n = c.node();
+                result.add(new LocationSuggestionDTO(n.id(), n.name(), n.type(), n.parentId(), path(n),
+                        Math.round(c.similarity() * 1000) / 1000.0));
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // 2: the name starts with the query, 1: a later word does, 0: neither
+    private static int prefixRank(String name, String q) {
+        if (name.startsWith(q))
+            return 2;
+        for (int i = name.indexOf(' '); i >= 0; i = name.indexOf(' ', i + 1)) {
+            if (name.startsWith(q, i + 1))
+                return 1;
+        }
+        return 0;
+    }
+
+    // Caller holds the read lock
+    private String path(Node node) {
+        Deque<String> names = new ArrayDeque<>();
+        Node current = node;
+        // Depth guard against a corrupt (cyclic) parent chain
+        for (int depth = 0; current != null && depth < 16; depth++) {
+            names.addFirst(current.name());
+            current = current.parentId() != null ? nodes.get(current.parentId()) : null;
+        }
+        return String.join(PATH_SEPARATOR, names);
+    }
+
+    int size() {
+        lock.readLock().lock();
+        try {
+            return nodes.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    static String normalize(String text) {
+        return String.join(" ", GlobalSearchIndex.tokenize(text));
+    }
+
+    /**
+     * Distinct trigrams of a normalized string, three chars packed into a long.
+     * With {@code openEnded} the last word gets no trailing blank, so it only has
+     * to be a prefix of a word in the name.
+     */
+    static long[] trigrams(String normalized, boolean openEnded) {
+        Set<Long> set = new LinkedHashSet<>();
+        String[] words = normalized.split(" ");
+        for (int w = 0; w < words.length; w++) {
+            if (words[w].isEmpty())
+                continue;
+            boolean last = w == words.length - 1;
+            String padded = "  " + words[w] + (openEnded && last ? "" : " ");
+            for (int i = 0; i + 3 <= padded.length(); i++) {
+                set.add(((long) padded.charAt(i) << 32) | ((long) padded.charAt(i + 1) << 16) | padded.charAt(i + 2));
+            }
+        }
+        long[] result = new long[set.size()];
+        int i = 0;
+        for (long t : set) {
+            result[i++] = t;
+        }
+        return result;
+    }
+}
@@ -0,0 +1,36 @@
+package com.ticketsystem.service;
+
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Writes messages to standard output instead of sending them; the default
+ * until a real gateway is configured.
+ */
+@Component
+public class LogSmsProvider implements SmsProvider {
+
+    public static final String NAME = "log";
+
+    @Override
+    public String name() {
+        return NAME;
+    }
+
+    @Override
+    public int maxBatchSize() {
+        return 100;
+    }
+
+    @Override
+    public List<Outcome> send(List<Sms> batch) {
+        List<Outcome> outcomes = new ArrayList<>(batch.size());
+        for (Sms sms : batch) {
+            System.out.println("Mock SMS to " + sms.to() + ": " + sms.text());
+            outcomes.add(Outcome.SENT);
+        }
+        return outcomes;
+    }
+}
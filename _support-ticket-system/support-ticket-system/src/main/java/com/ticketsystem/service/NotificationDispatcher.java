@@ -0,0 +1,246 @@
+package com.ticketsystem.service;
+
+import com.ticketsystem.model.OutboxChannel;
+import com.ticketsystem.model.OutboxMessage;
+import com.ticketsystem.model.OutboxStatus;
+import com.ticketsystem.repository.OutboxMessageRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Delivers queued emails and SMS from the notification outbox on a small pool
+ * of worker threads, away from request threads and their database transactions.
+ *
+ * Each round claims a batch of due messages with SELECT ... FOR UPDATE SKIP
+ * LOCKED, marks them SENDING with a lease and commits, so several application
+ * instances can dispatch side by side without sending a message twice. The
+ * sends then run without holding a connection; each result is recorded in its
+ * own short transaction. Failures are retried with exponential backoff until
+ * max-attempts, after which the message is marked FAILED. A claim whose
+ * instance died mid-send expires after claim-timeout and is picked up again,
+ * so delivery is at least once.
+ *
+ * Emails are sent on the workers; SMS are handed to SmsService, which batches
+ * them per gateway call, and their outcome is recorded once it is known. The
+ * scheduled tick only claims and hands off, so it never holds the scheduler
+ * thread for the duration of the sends.
+ */
+@Component
+public class NotificationDispatcher {
+
+    private static final Logger log = LoggerFactory.getLogger(NotificationDispatcher.class);
+
+    private static final List<OutboxStatus> CLAIMABLE = List.of(OutboxStatus.PENDING, OutboxStatus.SENDING);
+
+    @Autowired
+    private OutboxMessageRepository outboxRepository;
+
+    @Autowired
+    private EmailService emailService;
+
+    @Autowired
+    private SmsService smsService;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${app.scheduling.notifications.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.notifications.outbox.workers:4}")
+    private int workerCount;
+
+    @Value("${app.notifications.outbox.batch-size:50}")
+    private int batchSize;
+
+    @Value("${app.notifications.outbox.max-attempts:8}")
+    private int maxAttempts;
+
+    @Value("${app.notifications.outbox.backoff-ms:30000}")
+    private long backoffMs;
+
+    @Value("${app.notifications.outbox.max-backoff-ms:3600000}")
+    private long maxBackoffMs;
+
+    @Value("${app.notifications.outbox.claim-timeout-ms:300000}")
+    private long claimTimeoutMs;
+
+    @Value("${app.notifications.outbox.retention-days:7}")
+    private int retentionDays;
+
+    private TransactionTemplate tx;
+
+    private ExecutorService workers;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    @PostConstruct
+    void start() {
+        tx = new TransactionTemplate(transactionManager);
+        AtomicInteger n = new AtomicInteger();
+        workers = Executors.newFixedThreadPool(workerCount, r -> {
+            Thread t = new Thread(r, "notification-dispatch-" + n.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    @PreDestroy
+    void shutdown() {
+        workers.shutdownNow();
+    }
+
+    @Scheduled(fixedDelayString = "${app.notifications.outbox.poll-ms:1000}")
+    public void poll() {
+        if (!enabled)
+            return;
+        dispatchDue();
+    }
+
+    /**
+     * Claims up to one batch of due messages and hands them to the workers
+     * without waiting for the sends. At most batch-size messages are in flight
+     * per instance, so nothing sits in the worker queue long enough for its
+     * claim to expire. Returns how many messages were claimed.
+     */
+    public int dispatchDue() {
+        int capacity = batchSize - inFlight.get();
+        if (capacity <= 0)
+            return 0;
+        List<OutboxMessage> claimed = tx.execute(status -> claim(capacity));
+        if (claimed == null || claimed.isEmpty())
+            return 0;
+
+        inFlight.addAndGet(claimed.size());
+        for (OutboxMessage message : claimed) {
+            try {
+                if (message.getChannel() == OutboxChannel.SMS) {
+                    submitSms(message);
+                } else {
+                    workers.execute(() -> {
+                        try {
+                            deliver(message);
+                        } finally {
+                            inFlight.decrementAndGet();
+                        }
+                    });
+                }
+            } catch (RejectedExecutionException e) {
+                // Shutting down; the claim expires and another round retries it
+                inFlight.decrementAndGet();
+            }
+        }
+        return claimed.size();
+    }
+
+    // Messages claimed whose outcome is not recorded yet
+    int inFlight() {
+        return inFlight.get();
+    }
+
+    @Scheduled(cron = "${app.notifications.outbox.purge-cron:0 30 3 * * *}")
+    public void purgeSent() {
+        if (!enabled)
+            return;
+        Integer removed = tx.execute(
+                status -> outboxRepository.deleteSentBefore(LocalDateTime.now().minusDays(retentionDays)));
+        if (removed != null && removed > 0) {
+            log.info("Purged {} delivered outbox messages", removed);
+        }
+    }
+
+    /** Base delay doubled per failed attempt, capped at maxBackoff. */
+    static Duration backoff(int attempts, long baseMs, long maxMs) {
+        int shift = Math.min(Math.max(attempts - 1, 0), 30);
+        return Duration.ofMillis(Math.min(baseMs << shift, maxMs));
+    }
+
+    private List<OutboxMessage> claim(int limit) {
+        LocalDateTime now = LocalDateTime.now();
+        List<OutboxMessage> due = outboxRepository.findDueForUpdate(CLAIMABLE, now, PageRequest.of(0, limit));
+        for (OutboxMessage message : due) {
+            message.setStatus(OutboxStatus.SENDING);
+            message.setNextAttemptAt(now.plus(Duration.ofMillis(claimTimeoutMs)));
+        }
+        return due;
+    }
+
+    private void deliver(OutboxMessage message) {
+        Exception failure = null;
+        try {
+            emailService.sendEmail(message.getRecipient(), message.getSubject(), message.getBody());
+        } catch (Exception e) {
+            failure = e;
+        }
+        Exception error = failure;
+        try {
+            tx.executeWithoutResult(status -> record(message.getId(), error));
+        } catch (RuntimeException e) {
+            log.error("Recording email outcome failed", e);
+        }
+    }
+
+    // SMS go into SmsService's own queue, which batches them per provider call; no worker waits on the gateway
+    private void submitSms(OutboxMessage message) {
+        CompletableFuture<Void> sent;
+        try {
+            sent = smsService.submit(message.getRecipient(), message.getBody());
+        } catch (Exception e) {
+            sent = CompletableFuture.failedFuture(e);
+        }
+        sent.handleAsync((ok, failure) -> {
+            Exception error = failure == null ? null
+                    : failure instanceof Exception e ? e : new RuntimeException(failure);
+            tx.executeWithoutResult(status -> record(message.getId(), error));
+            return null;
+        }, workers).whenComplete((ok, failure) -> {
+            inFlight.decrementAndGet();
+            if (failure != null && !(failure.getCause() instanceof RejectedExecutionException)) {
+                log.error("Recording SMS outcome failed", failure);
+            }
+        });
+    }
+
+    private void record(Long id, Exception error) {
+        OutboxMessage message = outboxRepository.findById(id).orElse(null);
+        if (message == null)
+            return;
+        LocalDateTime now = LocalDateTime.now();
+        message.setAttempts(message.getAttempts() + 1);
+        if (error == null) {
+            message.setStatus(OutboxStatus.SENT);
+            message.setSentAt(now);
+            message.setLastError(null);
+            return;
+        }
+
+        String reason = String.valueOf(error.getMessage());
+        message.setLastError(reason.length() > 1000 ? reason.substring(0, 1000) : reason);
+        if (message.getAttempts() >= maxAttempts) {
+            message.setStatus(OutboxStatus.FAILED);
+            log.warn("Giving up on {} to {} after {} attempts: {}", message.getChannel(), message.getRecipient(),
+                    message.getAttempts(), reason);
+            return;
+        }
+        // Up to 20% jitter so messages that failed together don't all retry together
+        Duration delay = backoff(message.getAttempts(), backoffMs, maxBackoffMs);
+        long jitter = ThreadLocalRandom.current().nextLong(delay.toMillis() / 5 + 1);
+        message.setStatus(OutboxStatus.PENDING);
+        message.setNextAttemptAt(now.plus(delay).plusNanos(jitter * 1_000_000));
+    }
+}
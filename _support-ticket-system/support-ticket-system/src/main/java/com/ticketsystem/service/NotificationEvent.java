@@ -0,0 +1,27 @@
+package com.ticketsystem.service;
+
+import com.ticketsystem.dto.NotificationDTO;
+import com.ticketsystem.model.Notification;
+
+/**
+ * Published when a user's notifications change: a new one was created
+ * (notification set, unread count up by one), an unread one absorbed another
+ * event (notification set with its new text, count unchanged) or some were
+ * marked read (notification null, unread count down by that many). {@link NotificationPushRegistry}
+ * pushes it to the user's open streams after the transaction commits.
+ */
+public record NotificationEvent(long recipientId, NotificationDTO notification, int unreadDelta) {
+
+    public static NotificationEvent created(Notification n) {
+        return new NotificationEvent(n.getRecipient().getId(),
+                new NotificationDTO(n.getId(), n.getTitle(), n.getMessage(), n.isRead(), n.getCreatedAt()), 1);
+    }
+
+    public static NotificationEvent merged(long recipientId, NotificationDTO notification) {
+        return new NotificationEvent(recipientId, notification, 0);
+    }
+
+    public static NotificationEvent read(long recipientId, int count) {
+        return new NotificationEvent(recipientId, null, -count);
+    }
+}
@@ -0,0 +1,80 @@
+package com.ticketsystem.service;
+
+import com.ticketsystem.model.OutboxChannel;
+import com.ticketsystem.model.OutboxMessage;
+import com.ticketsystem.repository.OutboxMessageRepository;
+import jakarta.transaction.Transactional;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.function.IntFunction;
+
+/**
+ * Queues emails and SMS in the notification_outbox table as part of the
+ * caller's transaction, so they are only sent if the change they describe
+ * commits, and the caller never waits on a mail server. NotificationDispatcher
+ * delivers them.
+ */
+@Service
+@Transactional
+public class NotificationOutbox {
+
+    @Autowired
+    private OutboxMessageRepository outboxRepository;
+
+    @Value("${app.notifications.coalesce.window-ms:600000}")
+    private long coalesceWindowMs;
+
+    public void email(String to, String subject, String body) {
+        enqueue(OutboxChannel.EMAIL, to, subject, body);
+    }
+
+    /**
+     * Queues an email that others with the same key merge into. The first one
+     * goes out right away; any that follow within the coalescing window are
+     * held and sent together as one message when the window closes.
+     * {@code subject} and {@code body} are given the number of events the
+     * message covers.
+     */
+    public void email(String to, String coalesceKey, IntFunction<String> subject, IntFunction<String> body) {
+        if (to == null || to.isBlank())
+            return;
+        if (coalesceWindowMs <= 0) {
+            enqueue(OutboxChannel.EMAIL, to, subject.apply(1), body.apply(1));
+            return;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        List<OutboxMessage> held = outboxRepository.findHeldForUpdate(OutboxChannel.EMAIL, to, coalesceKey, now);
+        if (!held.isEmpty()) {
+            OutboxMessage message = held.get(0);
+            int count = message.getCoalesced() + 1;
+            message.setCoalesced(count);
+            message.setSubject(subject.apply(count));
+            message.setBody(body.apply(count));
+            return;
+        }
+
+        OutboxMessage message = new OutboxMessage(OutboxChannel.EMAIL, to, subject.apply(1), body.apply(1));
+        message.setCoalesceKey(coalesceKey);
+        Duration window = Duration.ofMillis(coalesceWindowMs);
+        if (outboxRepository.existsByChannelAndRecipientAndCoalesceKeyAndCreatedAtAfter(OutboxChannel.EMAIL, to,
+                coalesceKey, now.minus(window))) {
+            message.setNextAttemptAt(now.plus(window));
+        }
+        outboxRepository.save(message);
+    }
+
+    public void sms(String phoneNumber, String message) {
+        enqueue(OutboxChannel.SMS, phoneNumber, null, message);
+    }
+
+    private void enqueue(OutboxChannel channel, String recipient, String subject, String body) {
+        if (recipient == null || recipient.isBlank())
+            return;
+        outboxRepository.save(new OutboxMessage(channel, recipient, subject, body));
+    }
+}
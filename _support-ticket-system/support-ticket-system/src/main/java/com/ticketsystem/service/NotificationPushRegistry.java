@@ -0,0 +1,204 @@
+package com.ticketsystem.service;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Open server-sent event streams per user, fed from {@link NotificationEvent}s
+ * so clients hear about new notifications and unread-count changes instead of
+ * polling for them.
+ *
+ * A stream is an async servlet response and holds no thread while idle. Events
+ * go into a small per-stream queue drained by a virtual thread, so they arrive
+ * in order, a slow client never stalls the transaction that produced them or
+ * anyone else's stream, and a client that stops reading is dropped once its
+ * queue fills up. Each user maps to an immutable array of streams (usually one
+ * per browser tab), replaced on subscribe and unsubscribe. A heartbeat comment
+ * keeps proxies from closing idle streams and flushes out dead connections,
+ * which are dropped on their first failed write.
+ */
+@Component
+public class NotificationPushRegistry {
+
+    private static final Logger log = LoggerFactory.getLogger(NotificationPushRegistry.class);
+
+    // Events waiting for one client before it counts as stalled
+    static final int MAX_PENDING = 64;
+
+    @Value("${app.notifications.stream.timeout-ms:1800000}")
+    private long timeoutMs;
+
+    @Value("${app.notifications.stream.max-per-user:5}")
+    private int maxPerUser;
+
+    // User id -> open streams, oldest first
+    private final ConcurrentHashMap<Long, Stream[]> streams = new ConcurrentHashMap<>();
+
+    private final AtomicInteger subscribers = new AtomicInteger();
+
+    private final ExecutorService senders = Executors.newVirtualThreadPerTaskExecutor();
+
+    private final class Stream {
+
+        final Long userId;
+        final SseEmitter emitter;
+        final ConcurrentLinkedQueue<SseEmitter.SseEventBuilder> queue = new ConcurrentLinkedQueue<>();
+        final AtomicInteger pending = new AtomicInteger();
+
+        Stream(Long userId, SseEmitter emitter) {
+            this.userId = userId;
+            this.emitter = emitter;
+        }
+
+        void offer(SseEmitter.SseEventBuilder event) {
+            // Queued before it is counted, so a drain that sees pending > 0 always finds an event to poll
+            queue.add(event);
+            int queued = pending.incrementAndGet();
+            if (queued > MAX_PENDING) {
+                close(this, "client not reading");
+                queue.clear();
+                return;
+            }
+            // Only the offer that finds the queue idle starts a drain
+            if (queued == 1)
+                senders.execute(this::drain);
+        }
+
+        private void drain() {
+            do {
+                SseEmitter.SseEventBuilder event = queue.poll();
+                try {
+                    emitter.send(event);
+                } catch (Exception e) {
+                    close(this, e.getMessage());
+                    queue.clear();
+                    return;
+                }
+            } while (pending.decrementAndGet() > 0);
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        senders.shutdownNow();
+        for (Stream[] open : streams.values()) {
+            for (Stream stream : open) {
+                stream.emitter.complete();
+            }
+        }
+        streams.clear();
+    }
+
+    /**
+     * Opens a stream for the user, starting with their current unread count.
+     * The client reconnects when it times out.
+     */
+    public SseEmitter subscribe(Long userId, long unreadCount) {
+        SseEmitter emitter = new SseEmitter(timeoutMs);
+        Stream stream = register(userId, emitter);
+        emitter.onCompletion(() -> unregister(stream));
+        emitter.onTimeout(() -> unregister(stream));
+        emitter.onError(e -> unregister(stream));
+        stream.offer(SseEmitter.event().name("unread-count").data(unreadCount));
+        return emitter;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onNotification(NotificationEvent event) {
+        Stream[] targets = streams.get(event.recipientId());
+        if (targets == null)
+            return;
+        for (Stream stream : targets) {
+            if (event.notification() != null)
+                stream.offer(SseEmitter.event().name("notification")
+                        .data(event.notification(), MediaType.APPLICATION_JSON));
+            stream.offer(SseEmitter.event().name("unread-delta").data(event.unreadDelta()));
+        }
+    }
+
+    @Scheduled(fixedRateString = "${app.notifications.stream.heartbeat-ms:25000}")
+    public void heartbeat() {
+        for (Stream[] open : streams.values()) {
+            for (Stream stream : open) {
+                stream.offer(SseEmitter.event().comment("keepalive"));
+            }
+        }
+    }
+
+    public int subscriberCount() {
+        return subscribers.get();
+    }
+
+    public int streamCount(Long userId) {
+        Stream[] open = streams.get(userId);
+        return open != null ? open.length : 0;
+    }
+
+    // -----------------------
+    // REGISTRY
+    // -----------------------
+
+    Stream register(Long userId, SseEmitter emitter) {
+        Stream stream = new Stream(userId, emitter);
+        Stream[] evicted = new Stream[1];
+        streams.compute(userId, (id, current) -> {
+            if (current == null)
+                return new Stream[] { stream };
+            // Too many tabs: the oldest stream makes room
+            int from = Math.max(current.length - maxPerUser + 1, 0);
+            if (from > 0)
+                evicted[0] = current[0];
+            Stream[] next = Arrays.copyOfRange(current, from, current.length + 1);
+            next[next.length - 1] = stream;
+            return next;
+        });
+        subscribers.incrementAndGet();
+        if (evicted[0] != null) {
+            subscribers.decrementAndGet();
+            evicted[0].emitter.complete();
+        }
+        return stream;
+    }
+
+    void unregister(Stream stream) {
+        boolean[] removed = new boolean[1];
+        streams.computeIfPresent(stream.userId, (id, current) -> {
+            int i = Arrays.asList(current).indexOf(stream);
+            if (i < 0)
+                return current;
+            removed[0] = true;
+            if (current.length == 1)
+                return null;
+            Stream[] next = new Stream[current.length - 1];
+            System.arraycopy(current, 0, next, 0, i);
+            System.arraycopy(current, i + 1, next, i, current.length - i - 1);
+            return next;
+        });
+        if (removed[0])
+            subscribers.decrementAndGet();
+    }
+
+    private void close(Stream stream, String reason) {
+        log.debug("Dropping notification stream of user {}: {}", stream.userId, reason);
+        unregister(stream);
+        try {
+            stream.emitter.complete();
+        } catch (Exception ignored) {
+            // already closed
+        }
+    }
+}
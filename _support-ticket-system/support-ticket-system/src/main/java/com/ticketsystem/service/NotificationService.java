@@ -1,21 +1,32 @@
 package com.ticketsystem.service;
 
+import com.ticketsystem.dto.NotificationDTO;
+import com.ticketsystem.model.AdminDigestEntry;
 import com.ticketsystem.model.Comment;
 import com.ticketsystem.model.Notification;
 import com.ticketsystem.model.Ticket;
+import com.ticketsystem.model.TicketStatus;
 import com.ticketsystem.model.User;
+import com.ticketsystem.repository.AdminDigestEntryRepository;
 import com.ticketsystem.repository.NotificationRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.function.IntFunction;
+
 @Service
 public class NotificationService {
 
-    @Autowired
-    private EmailService emailService;
+    // Longest title or message the notifications table takes
+    private static final int MAX_TEXT = 255;
 
+    // Emails and SMS are queued with the caller's transaction and sent by NotificationDispatcher
     @Autowired
-    private SmsService smsService;
+    private NotificationOutbox outbox;
 
     @Autowired
     private NotificationRepository notificationRepository;
@@ -23,22 +34,161 @@ public class NotificationService {
     @Autowired
     private com.ticketsystem.repository.UserRepository userRepository;
 
+    // Pushed to the recipients' open notification streams once the transaction commits
+    @Autowired
+    private org.springframework.context.ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private UnreadNotificationCounter unreadCounter;
+
+    @Autowired
+    private AdminRecipients adminRecipients;
+
+    @Autowired
+    private AdminDigestEntryRepository digestRepository;
+
+    // Events about the same ticket for the same user within this long merge into one notification
+    @Value("${app.notifications.coalesce.window-ms:600000}")
+    private long coalesceWindowMs;
+
+    // System events wait for AdminDigest instead of going to every admin at once
+    @Value("${app.notifications.admin-digest.enabled:false}")
+    private boolean adminDigest;
+
+    /** One notification per admin, written as a single JDBC batch (or queued for the digest). */
     public void notifyAdmins(String title, String message) {
-        java.util.List<User> admins = userRepository.findByRole(com.ticketsystem.model.UserRole.ADMIN);
-        for (User admin : admins) {
-            saveNotification(admin, title, message);
+        if (adminDigest) {
+            digestRepository.save(new AdminDigestEntry(fit(title), fit(message)));
+            return;
+        }
+        fanOutToAdmins(title, message);
+    }
+
+    /**
+     * As {@link #notifyAdmins(String, String)}, merging into each admin's
+     * unread notification about the same ticket from the coalescing window.
+     */
+    public void notifyAdmins(String title, String message, Long ticketId) {
+        if (adminDigest || ticketId == null) {
+            notifyAdmins(title, message);
+            return;
+        }
+        List<Long> adminIds = adminRecipients.ids();
+        if (adminIds.isEmpty())
+            return;
+        saveCoalesced(adminIds, "ticket:" + ticketId, title,
+                n -> n == 1 ? message : message + " (" + n + " updates on ticket #" + ticketId + ")");
+    }
+
+    /** Sends a digest AdminDigest has put together: one notification and one email per admin. */
+    public void notifyAdminsDigest(String title, String message, String body) {
+        fanOutToAdmins(title, message);
+        for (User admin : userRepository.findAllById(adminRecipients.ids())) {
+            outbox.email(admin.getEmail(), title, body);
+        }
+    }
+
+    private void fanOutToAdmins(String title, String message) {
+        List<Long> adminIds = adminRecipients.ids();
+        if (adminIds.isEmpty())
+            return;
+        List<Notification> batch = new ArrayList<>(adminIds.size());
+        for (Long adminId : adminIds) {
+            batch.add(new Notification(userRepository.getReferenceById(adminId), fit(title), fit(message)));
+        }
+        for (Notification n : notificationRepository.saveAll(batch)) {
+            unreadCounter.add(n.getRecipient().getId(), 1);
+            eventPublisher.publishEvent(NotificationEvent.created(n));
         }
     }
 
     private void saveNotification(User recipient, String title, String message) {
         try {
-            Notification n = new Notification(recipient, title, message);
-            notificationRepository.save(n);
+            Notification n = notificationRepository.save(new Notification(recipient, title, message));
+            unreadCounter.add(recipient.getId(), 1);
+            eventPublisher.publishEvent(NotificationEvent.created(n));
         } catch (Exception e) {
             System.err.println("Failed to save notification: " + e.getMessage());
         }
     }
 
+    /**
+     * Folds the event into each recipient's unread notification with the same
+     * group key opened within the coalescing window, and starts one for
+     * recipients who have none, so a busy ticket gets a new row per window. {@code message} is given the number of events the row then
+     * stands for ("5 new comments on ticket #123"). The merge is a single
+     * UPDATE, so it takes the row locks and waits for a concurrent markRead.
+     */
+    private void saveCoalesced(List<Long> recipientIds, String groupKey, String title, IntFunction<String> message) {
+        LocalDateTime now = LocalDateTime.now();
+        Set<Long> merged = new HashSet<>();
+        if (coalesceWindowMs > 0) {
+            LocalDateTime since = now.minus(Duration.ofMillis(coalesceWindowMs));
+            if (notificationRepository.extendOpenGroups(groupKey, recipientIds, fit(title), now, since) > 0) {
+                // Recipients are usually all at the same count: one UPDATE per distinct count
+                Map<Integer, List<Long>> idsByCount = new HashMap<>();
+                for (Object[] row : notificationRepository.findOpenGroups(groupKey, recipientIds, since)) {
+                    Long id = (Long) row[0];
+                    Long recipientId = (Long) row[1];
+                    int count = row[2] != null ? (Integer) row[2] : 1;
+                    idsByCount.computeIfAbsent(count, c -> new ArrayList<>()).add(id);
+                    merged.add(recipientId);
+                    eventPublisher.publishEvent(NotificationEvent.merged(recipientId,
+                            new NotificationDTO(id, fit(title), fit(message.apply(count)), false, now)));
+                }
+                idsByCount.forEach((count, ids) -> notificationRepository.updateMessage(ids,
+                        fit(message.apply(count))));
+            }
+        }
+
+        List<Notification> fresh = new ArrayList<>(recipientIds.size() - merged.size());
+        for (Long recipientId : recipientIds) {
+            if (merged.contains(recipientId))
+                continue;
+            Notification n = new Notification(userRepository.getReferenceById(recipientId), fit(title),
+                    fit(message.apply(1)));
+            n.setGroupKey(groupKey);
+            fresh.add(n);
+        }
+        for (Notification n : notificationRepository.saveAll(fresh)) {
+            unreadCounter.add(n.getRecipient().getId(), 1);
+            eventPublisher.publishEvent(NotificationEvent.created(n));
+        }
+    }
+
+    private static String fit(String text) {
+        return text.length() <= MAX_TEXT ? text : text.substring(0, MAX_TEXT - 3) + "...";
+    }
+
+    // -----------------------
+    // READ STATE
+    // -----------------------
+
+    public long unreadCount(Long userId) {
+        return unreadCounter.unread(userId);
+    }
+
+    /** Marks one of the user's notifications read; false if it already was. */
+    @jakarta.transaction.Transactional
+    public boolean markRead(Long userId, Long notificationId) {
+        if (notificationRepository.markRead(notificationId, userId) == 0)
+            return false;
+        unreadCounter.add(userId, -1);
+        eventPublisher.publishEvent(NotificationEvent.read(userId, 1));
+        return true;
+    }
+
+    /** Marks all of the user's notifications read with one UPDATE; returns how many changed. */
+    @jakarta.transaction.Transactional
+    public int markAllRead(Long userId) {
+        int changed = notificationRepository.markAllRead(userId);
+        if (changed > 0) {
+            unreadCounter.add(userId, -changed);
+            eventPublisher.publishEvent(NotificationEvent.read(userId, changed));
+        }
+        return changed;
+    }
+
     public void notifyNewTicketAssigned(User agent, Ticket ticket) {
         if (agent == null || ticket == null)
             return;
@@ -55,55 +205,122 @@ public class NotificationService {
         saveNotification(agent, title,
                 "You have been assigned to ticket #" + ticket.getId() + ": " + ticket.getTitle());
 
-        emailService.sendEmail(agent.getEmail(), title, body);
+        outbox.email(agent.getEmail(), title, body);
 
         if (agent.getPhoneNumber() != null) {
-            smsService.sendSms(agent.getPhoneNumber(),
+            outbox.sms(agent.getPhoneNumber(),
                     "New ticket assigned: " + ticket.getTitle());
         }
     }
 
+    /** Status changes of one ticket within the coalescing window share a notification and an email. */
     public void notifyTicketStatusChanged(User user, Ticket ticket) {
         if (user == null || ticket == null)
             return;
 
-        String title = "Ticket Status Updated: " + ticket.getTitle();
-        String body = "Hello " + user.getName() + ",\n\n" +
-                "The status of your ticket \"" + ticket.getTitle() +
-                "\" has been updated to: " + ticket.getStatus().name() + ".\n\n" +
-                "Please log in for more details.\n\n" +
-                "Support Ticket System";
+        Long ticketId = ticket.getId();
+        String ticketTitle = ticket.getTitle();
+        TicketStatus status = ticket.getStatus();
+        String title = "Ticket Status Updated: " + ticketTitle;
+        String key = "status:" + ticketId;
 
         // Persist
-        saveNotification(user, title, "Ticket #" + ticket.getId() + " status updated to " + ticket.getStatus());
+        saveCoalesced(List.of(user.getId()), key, title,
+                n -> "Ticket #" + ticketId + " status updated to " + status + (n > 1 ? " (" + n + " updates)" : ""));
 
-        emailService.sendEmail(user.getEmail(), title, body);
+        outbox.email(user.getEmail(), key, n -> title,
+                n -> "Hello " + user.getName() + ",\n\n" +
+                        (n == 1
+                                ? "The status of your ticket \"" + ticketTitle + "\" has been updated to: "
+                                : "The status of your ticket \"" + ticketTitle + "\" has been updated " + n
+                                        + " times and is now: ")
+                        + status.name() + ".\n\n" +
+                        "Please log in for more details.\n\n" +
+                        "Support Ticket System");
     }
 
-    public void notifyTicketComment(User recipient, Ticket ticket, Comment comment) {
-        if (recipient == null || ticket == null || comment == null)
+    // -----------------------
+    // BATCHED (bulk operations)
+    // -----------------------
+
+    // Ticket numbers listed in one coalesced message before summarising the rest
+    private static final int LISTED_TICKETS = 20;
+
+    /** One notification, email and SMS for all tickets assigned to the agent in one go. */
+    public void notifyTicketsAssigned(User agent, List<Long> ticketIds) {
+        if (agent == null || ticketIds.isEmpty())
             return;
 
-        String title = "New Comment on Ticket: " + ticket.getTitle();
-        String body = "Hello " + recipient.getName() + ",\n\n" +
-                "There is a new comment on your ticket \"" + ticket.getTitle() + "\":\n\n" +
-                comment.getContent() + "\n\n" +
-                "Please log in to reply.\n\n" +
+        String title = ticketIds.size() + " Tickets Assigned to You";
+        String refs = ticketRefs(ticketIds);
+        String body = "Dear " + agent.getName() + ",\n\n" +
+                ticketIds.size() + " tickets have been assigned to you: " + refs + ".\n\n" +
+                "Please log in to the system to respond.\n\n" +
                 "Support Ticket System";
 
-        // Persist
-        saveNotification(recipient, title, "New comment on ticket #" + ticket.getId());
+        saveNotification(agent, title, "You have been assigned to tickets " + refs);
 
-        emailService.sendEmail(recipient.getEmail(), title, body);
+        outbox.email(agent.getEmail(), title, body);
+
+        if (agent.getPhoneNumber() != null) {
+            outbox.sms(agent.getPhoneNumber(), ticketIds.size() + " new tickets assigned to you");
+        }
     }
 
-    public void notifyPasswordReset(String email, String token) {
-        String subject = "Password Reset Request";
-        String body = "You requested a password reset.\n\n" +
-                "Use this token to reset your password: " + token + "\n\n" +
-                "If you did not request this, please ignore this email.\n\n" +
+    /** One notification and email per customer for all of their tickets moved to a status together. */
+    public void notifyTicketsStatusChanged(User user, List<Long> ticketIds,
+            TicketStatus status) {
+        if (user == null || ticketIds.isEmpty())
+            return;
+
+        String title = "Ticket Status Updated: " + ticketIds.size() + " tickets";
+        String refs = ticketRefs(ticketIds);
+        String body = "Hello " + user.getName() + ",\n\n" +
+                "The status of your tickets " + refs + " has been updated to: " + status.name() + ".\n\n" +
+                "Please log in for more details.\n\n" +
                 "Support Ticket System";
 
-        emailService.sendEmail(email, subject, body);
+        saveNotification(user, title, "Tickets " + refs + " status updated to " + status);
+
+        outbox.email(user.getEmail(), title, body);
+    }
+
+    // "#12, #15, #19 and 40 more"
+    private static String ticketRefs(List<Long> ticketIds) {
+        StringBuilder refs = new StringBuilder();
+        for (int i = 0; i < Math.min(ticketIds.size(), LISTED_TICKETS); i++) {
+            if (i > 0)
+                refs.append(", ");
+            refs.append('#').append(ticketIds.get(i));
+        }
+        if (ticketIds.size() > LISTED_TICKETS)
+            refs.append(" and ").append(ticketIds.size() - LISTED_TICKETS).append(" more");
+        return refs.toString();
+    }
+
+    /** Comments on one ticket within the coalescing window share a notification and an email. */
+    public void notifyTicketComment(User recipient, Ticket ticket, Comment comment) {
+        if (recipient == null || ticket == null || comment == null)
+            return;
+
+        Long ticketId = ticket.getId();
+        String ticketTitle = ticket.getTitle();
+        String content = comment.getContent();
+        String key = "comment:" + ticketId;
+
+        // Persist
+        saveCoalesced(List.of(recipient.getId()), key, "New Comment on Ticket: " + ticketTitle,
+                n -> n == 1 ? "New comment on ticket #" + ticketId : n + " new comments on ticket #" + ticketId);
+
+        outbox.email(recipient.getEmail(), key,
+                n -> n == 1 ? "New Comment on Ticket: " + ticketTitle : n + " New Comments on Ticket: " + ticketTitle,
+                n -> "Hello " + recipient.getName() + ",\n\n" +
+                        (n == 1
+                                ? "There is a new comment on your ticket \"" + ticketTitle + "\":\n\n"
+                                : "There are " + n + " new comments on your ticket \"" + ticketTitle
+                                        + "\". The latest:\n\n")
+                        + content + "\n\n" +
+                        "Please log in to reply.\n\n" +
+                        "Support Ticket System");
     }
 }
@@ -0,0 +1,66 @@
+package com.ticketsystem.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * The agent based closest to the ticket's location in the location tree: the
+ * one whose base shares the deepest ancestor with it (same village, then same
+ * cell, sector, and so on). Equally close agents, including everyone when the
+ * ticket or no agent has a location, are split by weighted workload as in
+ * {@link LeastLoadedAssignmentStrategy}.
+ */
+@Component
+public class ProximityAssignmentStrategy implements AssignmentStrategy {
+
+    public static final String NAME = "proximity";
+
+    @Autowired
+    private AgentWorkloadLedger workloadLedger;
+
+    @Override
+    public String name() {
+        return NAME;
+    }
+
+    @Override
+    public AssignmentSnapshot.Agent choose(Request request, List<AssignmentSnapshot.Agent> candidates,
+            AssignmentSnapshot snapshot) {
+        long[] ticketAncestry = snapshot.ancestry(request.locationId());
+
+        AssignmentSnapshot.Agent best = null;
+        int bestDistance = Integer.MAX_VALUE;
+        int bestLoad = Integer.MAX_VALUE;
+        for (AssignmentSnapshot.Agent agent : candidates) {
+            int distance = distance(ticketAncestry, snapshot.ancestry(agent.locationId()));
+            if (distance > bestDistance)
+                continue;
+            int load = workloadLedger.weightedLoad(agent.id());
+            if (distance < bestDistance || load < bestLoad) {
+                best = agent;
+                bestDistance = distance;
+                bestLoad = load;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Steps up from the ticket's location to the nearest ancestor the agent's
+     * base also lies under; past the root when they share none.
+     */
+    static int distance(long[] ticketAncestry, long[] agentAncestry) {
+        int best = ticketAncestry.length;
+        for (long location : agentAncestry) {
+            for (int i = 0; i < best; i++) {
+                if (ticketAncestry[i] == location) {
+                    best = i;
+                    break;
+                }
+            }
+        }
+        return best;
+    }
+}
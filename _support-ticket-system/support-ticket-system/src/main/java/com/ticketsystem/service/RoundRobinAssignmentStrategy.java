@@ -0,0 +1,32 @@
+package com.ticketsystem.service;
+
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Takes turns over the category's agents in id order, ignoring workload. Each
+ * category keeps its own cursor; when agents join or leave the rotation simply
+ * continues from the same position.
+ */
+@Component
+public class RoundRobinAssignmentStrategy implements AssignmentStrategy {
+
+    public static final String NAME = "round-robin";
+
+    private final ConcurrentHashMap<Long, AtomicInteger> cursors = new ConcurrentHashMap<>();
+
+    @Override
+    public String name() {
+        return NAME;
+    }
+
+    @Override
+    public AssignmentSnapshot.Agent choose(Request request, List<AssignmentSnapshot.Agent> candidates,
+            AssignmentSnapshot snapshot) {
+        int turn = cursors.computeIfAbsent(request.categoryId(), id -> new AtomicInteger()).getAndIncrement();
+        return candidates.get(Math.floorMod(turn, candidates.size()));
+    }
+}
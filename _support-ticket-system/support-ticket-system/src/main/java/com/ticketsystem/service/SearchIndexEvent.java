@@ -0,0 +1,40 @@
+package com.ticketsystem.service;
+
+import com.ticketsystem.model.Location;
+import com.ticketsystem.model.Ticket;
+import com.ticketsystem.model.TicketCategory;
+import com.ticketsystem.model.User;
+
+/**
+ * Published by the services whenever an entity that global search covers is
+ * created, changed or deleted. {@link GlobalSearchIndex} applies it after the
+ * surrounding transaction commits. A null document means the entity was removed.
+ */
+public record SearchIndexEvent(GlobalSearchIndex.Type type, long id, GlobalSearchIndex.Document document) {
+
+    public static SearchIndexEvent of(Ticket t) {
+        return new SearchIndexEvent(GlobalSearchIndex.Type.TICKET, t.getId(),
+                GlobalSearchIndex.Document.ticket(t.getId(), t.getTitle(), t.getDescription(),
+                        t.getCategory() != null ? t.getCategory().getId() : null));
+    }
+
+    public static SearchIndexEvent of(User u) {
+        return new SearchIndexEvent(GlobalSearchIndex.Type.USER, u.getId(),
+                GlobalSearchIndex.Document.user(u.getId(), u.getName(), u.getEmail()));
+    }
+
+    public static SearchIndexEvent of(TicketCategory c) {
+        return new SearchIndexEvent(GlobalSearchIndex.Type.CATEGORY, c.getId(),
+                GlobalSearchIndex.Document.category(c.getId(), c.getName(), c.getDescription()));
+    }
+
+    public static SearchIndexEvent of(Location l) {
+        return new SearchIndexEvent(GlobalSearchIndex.Type.LOCATION, l.getId(),
+                GlobalSearchIndex.Document.location(l.getId(), l.getName(), l.getType(),
+                        l.getParent() != null ? l.getParent().getId() : null));
+    }
+
+    public static SearchIndexEvent removed(GlobalSearchIndex.Type type, long id) {
+        return new SearchIndexEvent(type, id, null);
+    }
+}
@@ -0,0 +1,305 @@
+package com.ticketsystem.service;
+
+import com.ticketsystem.dto.SlaPercentilesDTO;
+import com.ticketsystem.model.*;
+import com.ticketsystem.repository.SlaHistogramRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionException;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * SLA percentiles: time to first agent comment and time to resolution, per
+ * category, agent and province, kept as one LatencyHistogram per dimension
+ * and day in sla_histograms (see SlaHistogram).
+ *
+ * Each duration is recorded as it happens, from CommentService (an agent's
+ * first comment on a ticket) and the status changes that take a ticket to
+ * RESOLVED or CLOSED. Like the other rollups, a transaction's samples are
+ * merged into the stored histograms just before it commits, one row lock at a
+ * time in key order (see DatabaseWrites.defer).
+ * Percentile queries merge the daily histograms of the range, never touching
+ * tickets or comments.
+ *
+ * The backfill rebuilds everything from the tickets and comments; it runs on
+ * the first start and when an admin asks for it. On PostgreSQL it first locks
+ * sla_histograms against writes, so a recording transaction either commits
+ * before the rebuild reads the tickets (and is counted by it) or waits and
+ * merges into the rebuilt rows afterwards; none is lost or counted twice.
+ */
+@Service
+public class SlaMetricsService {
+
+    private static final Logger log = LoggerFactory.getLogger(SlaMetricsService.class);
+
+    /** One stored histogram; 0 stands for all tickets. */
+    record Key(SlaMetric metric, SlaDimension dimension, long dimensionId, LocalDate day) implements Comparable<Key> {
+
+        private static final Comparator<Key> ORDER = Comparator.comparing(Key::metric)
+                .thenComparing(Key::dimension)
+                .thenComparing(Key::day)
+                .thenComparingLong(Key::dimensionId);
+
+        @Override
+        public int compareTo(Key other) {
+            return ORDER.compare(this, other);
+        }
+    }
+
+    // The first agent comment on each ticket
+    private static final String FIRST_RESPONSES_SQL = """
+            SELECT t.created_at, c.created_at, c.author_id, t.category_id, t.location_id
+            FROM comments c
+            JOIN tickets t ON t.id = c.ticket_id
+            WHERE c.id = (SELECT min(c2.id) FROM comments c2 JOIN users u ON u.id = c2.author_id
+                          WHERE c2.ticket_id = c.ticket_id AND u.role = 'AGENT')
+            """;
+
+    // Resolved and closed tickets, resolved at their last update by their current agent
+    private static final String RESOLUTIONS_SQL = """
+            SELECT t.created_at, t.updated_at, ta.agent_id, t.category_id, t.location_id
+            FROM tickets t
+            LEFT JOIN ticket_assignments ta ON ta.id = (SELECT max(ta2.id) FROM ticket_assignments ta2
+                                                        WHERE ta2.ticket_id = t.id AND ta2.status = 'ASSIGNED')
+            WHERE t.status IN ('RESOLVED', 'CLOSED')
+            """;
+
+    private static final String KEY_WHERE = "WHERE metric = ? AND dimension = ? AND bucket_date = ? AND dimension_id = ?";
+
+    private static final String INSERT_SQL = """
+            INSERT INTO sla_histograms (sample_count, counts, metric, dimension, bucket_date, dimension_id)
+            VALUES (?, ?, ?, ?, ?, ?)
+            """;
+
+    @Autowired
+    private SlaHistogramRepository histogramRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private DatabaseWrites databaseWrites;
+
+    // Location id -> id of the province it lies in (0 when none)
+    private final Map<Long, Long> provinces = new ConcurrentHashMap<>();
+
+    public static boolean resolves(TicketStatus from, TicketStatus to) {
+        return isResolved(to) && !isResolved(from);
+    }
+
+    private static boolean isResolved(TicketStatus status) {
+        return status == TicketStatus.RESOLVED || status == TicketStatus.CLOSED;
+    }
+
+    // -----------------------
+    // RECORDING
+    // -----------------------
+
+    /**
+     * Records the time from {@code since} to {@code at} under the ticket's
+     * category, agent and province, and overall, as part of the current
+     * transaction (or right away when there is none).
+     */
+    public void record(SlaMetric metric, LocalDateTime since, LocalDateTime at, Long categoryId, Long locationId,
+            Long agentId) {
+        Map<Key, LatencyHistogram> samples = new TreeMap<>();
+        add(samples, metric, since, at, categoryId, provinceOf(locationId), agentId);
+        samples.forEach((key, histogram) -> databaseWrites.defer(this, key, histogram, (pending, more) -> {
+            pending.merge(more);
+            return pending;
+        }, this::write));
+    }
+
+    private static void add(Map<Key, LatencyHistogram> histograms, SlaMetric metric, LocalDateTime since,
+            LocalDateTime at, Long categoryId, long provinceId, Long agentId) {
+        if (since == null || at == null)
+            return;
+        long seconds = Duration.between(since, at).getSeconds();
+        LocalDate day = at.toLocalDate();
+        histograms.computeIfAbsent(new Key(metric, SlaDimension.OVERALL, 0, day), k -> new LatencyHistogram())
+                .record(seconds);
+        if (categoryId != null && categoryId != 0)
+            histograms.computeIfAbsent(new Key(metric, SlaDimension.CATEGORY, categoryId, day),
+                    k -> new LatencyHistogram()).record(seconds);
+        if (agentId != null && agentId != 0)
+            histograms.computeIfAbsent(new Key(metric, SlaDimension.AGENT, agentId, day),
+                    k -> new LatencyHistogram()).record(seconds);
+        if (provinceId != 0)
+            histograms.computeIfAbsent(new Key(metric, SlaDimension.PROVINCE, provinceId, day),
+                    k -> new LatencyHistogram()).record(seconds);
+    }
+
+    // -----------------------
+    // QUERIES
+    // -----------------------
+
+    /**
+     * p50/p90/p99 of the metric per id of the dimension (or for one id) over
+     * the days [from, to), merged from the daily histograms.
+     */
+    public List<SlaPercentilesDTO> percentiles(SlaMetric metric, SlaDimension dimension, LocalDate from,
+            LocalDate to, Long dimensionId) {
+        if (metric == null || dimension == null || from == null || to == null || !from.isBefore(to))
+            throw new IllegalArgumentException("metric, dimension and from before to are required");
+        Map<Long, LatencyHistogram> merged = new TreeMap<>();
+        for (SlaHistogram row : histogramRepository.findInRange(metric, dimension, from, to, dimensionId)) {
+            merged.computeIfAbsent(row.getDimensionId(), id -> new LatencyHistogram())
+                    .merge(LatencyHistogram.decode(row.getCounts()));
+        }
+        List<SlaPercentilesDTO> result = new ArrayList<>(merged.size());
+        merged.forEach((id, histogram) -> result.add(new SlaPercentilesDTO(id, histogram.count(), histogram.mean(),
+                histogram.percentile(0.50), histogram.percentile(0.90), histogram.percentile(0.99))));
+        return result;
+    }
+
+    // -----------------------
+    // BACKFILL
+    // -----------------------
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillIfEmpty() {
+        if (histogramRepository.count() == 0)
+            backfill();
+    }
+
+    /**
+     * Replaces every histogram with one rebuilt from the tickets and comments,
+     * and returns the number of durations recorded, or -1 if it did not
+     * complete. Only the current state is known here: a ticket counts once,
+     * resolved at its last update by its current agent, so reopened tickets
+     * lose their earlier resolutions.
+     */
+    public long backfill() {
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        try {
+            Long samples = tx.execute(status -> {
+                // Waits for transactions that already merged samples, then holds off new merges
+                // (their SELECT ... FOR UPDATE) until the rebuilt rows commit; reads stay open
+                if (databaseWrites.isPostgres())
+                    jdbcTemplate.execute("LOCK TABLE sla_histograms IN EXCLUSIVE MODE");
+                provinces.clear();
+                Map<Long, Long> provinceByLocation = loadProvinces();
+                Map<Key, LatencyHistogram> histograms = new TreeMap<>();
+                long[] recorded = { 0 };
+                jdbcTemplate.query(FIRST_RESPONSES_SQL, rs -> {
+                    add(histograms, SlaMetric.FIRST_RESPONSE, ts(rs.getTimestamp(1)), ts(rs.getTimestamp(2)),
+                            rs.getLong(4), provinceByLocation.getOrDefault(rs.getLong(5), 0L), rs.getLong(3));
+                    recorded[0]++;
+                });
+                jdbcTemplate.query(RESOLUTIONS_SQL, rs -> {
+                    add(histograms, SlaMetric.RESOLUTION, ts(rs.getTimestamp(1)), ts(rs.getTimestamp(2)),
+                            rs.getLong(4), provinceByLocation.getOrDefault(rs.getLong(5), 0L), rs.getLong(3));
+                    recorded[0]++;
+                });
+                jdbcTemplate.update("DELETE FROM sla_histograms");
+                write(histograms);
+                return recorded[0];
+            });
+            log.info("SLA histograms rebuilt from {} durations", samples);
+            return samples != null ? samples : 0;
+        } catch (DataAccessException | TransactionException e) {
+            log.warn("SLA histogram backfill did not complete: {}", e.getMessage());
+            return -1;
+        }
+    }
+
+    // -----------------------
+    // HELPERS
+    // -----------------------
+
+    private static LocalDateTime ts(Timestamp timestamp) {
+        return timestamp != null ? timestamp.toLocalDateTime() : null;
+    }
+
+    private long provinceOf(Long locationId) {
+        if (locationId == null || locationId == 0)
+            return 0;
+        Long cached = provinces.get(locationId);
+        if (cached != null)
+            return cached;
+        // Up the hierarchy from wherever the ticket was filed
+        long province = 0;
+        Long id = locationId;
+        for (int depth = 0; id != null && depth < LocationType.values().length; depth++) {
+            List<Map<String, Object>> rows = jdbcTemplate.queryForList(
+                    "SELECT type, parent_id FROM locations WHERE id = ?", id);
+            if (rows.isEmpty())
+                break;
+            if (LocationType.PROVINCE.name().equals(rows.get(0).get("type"))) {
+                province = id;
+                break;
+            }
+            Object parent = rows.get(0).get("parent_id");
+            id = parent != null ? ((Number) parent).longValue() : null;
+        }
+        provinces.put(locationId, province);
+        return province;
+    }
+
+    // Every location's province, from one read of the locations table
+    private Map<Long, Long> loadProvinces() {
+        Map<Long, Long> parents = new HashMap<>();
+        Set<Long> provinceIds = new HashSet<>();
+        jdbcTemplate.query("SELECT id, type, parent_id FROM locations", rs -> {
+            long id = rs.getLong(1);
+            if (LocationType.PROVINCE.name().equals(rs.getString(2)))
+                provinceIds.add(id);
+            parents.put(id, rs.getObject(3) != null ? rs.getLong(3) : null);
+        });
+        Map<Long, Long> result = new HashMap<>();
+        for (Long locationId : parents.keySet()) {
+            Long id = locationId;
+            for (int depth = 0; id != null && depth < LocationType.values().length; depth++) {
+                if (provinceIds.contains(id)) {
+                    result.put(locationId, id);
+                    break;
+                }
+                id = parents.get(id);
+            }
+        }
+        return result;
+    }
+
+    // Histograms in key order, which is the lock order for their rows
+    private void write(Map<Key, LatencyHistogram> histograms) {
+        histograms.forEach((key, histogram) -> {
+            if (histogram.count() == 0 || mergeInto(key, histogram))
+                return;
+            Object[] row = { histogram.count(), histogram.encode(), key.metric().name(), key.dimension().name(),
+                    key.day(), key.dimensionId() };
+            // A concurrent first insert turns into a merge
+            databaseWrites.insertOrElse(INSERT_SQL, row, () -> mergeInto(key, histogram));
+        });
+    }
+
+    // Adds the samples to the stored histogram under its row lock; false if there is none yet
+    private boolean mergeInto(Key key, LatencyHistogram histogram) {
+        Object[] args = { key.metric().name(), key.dimension().name(), key.day(), key.dimensionId() };
+        List<byte[]> stored = jdbcTemplate.query("SELECT counts FROM sla_histograms " + KEY_WHERE + " FOR UPDATE",
+                (rs, i) -> rs.getBytes(1), args);
+        if (stored.isEmpty())
+            return false;
+        LatencyHistogram merged = LatencyHistogram.decode(stored.get(0));
+        merged.merge(histogram);
+        jdbcTemplate.update("UPDATE sla_histograms SET sample_count = ?, counts = ? " + KEY_WHERE,
+                merged.count(), merged.encode(), args[0], args[1], args[2], args[3]);
+        return true;
+    }
+}
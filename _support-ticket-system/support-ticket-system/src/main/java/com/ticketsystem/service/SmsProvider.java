@@ -0,0 +1,37 @@
+package com.ticketsystem.service;
+
+import java.util.List;
+
+/**
+ * An SMS gateway. Implementations are Spring beans, looked up by
+ * {@link #name()}; app.sms.provider selects the one {@link SmsService} sends
+ * through.
+ *
+ * SmsService calls {@link #send} from its single sender thread with batches of
+ * at most {@link #maxBatchSize()} messages, so an implementation needs no
+ * locking of its own but should not sleep or retry internally.
+ */
+public interface SmsProvider {
+
+    record Sms(String to, String text) {
+    }
+
+    /** What became of one message of a batch. */
+    enum Outcome {
+        SENT,
+        // Worth trying again (throttled, gateway hiccup)
+        RETRY,
+        // Never going to work (invalid number, opted out)
+        REJECTED
+    }
+
+    String name();
+
+    int maxBatchSize();
+
+    /**
+     * Sends the batch and returns one outcome per message, in order. Throwing
+     * counts as RETRY for the whole batch.
+     */
+    List<Outcome> send(List<Sms> batch) throws Exception;
+}
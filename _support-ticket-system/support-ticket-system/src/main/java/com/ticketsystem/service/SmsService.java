@@ -1,12 +1,300 @@
 package com.ticketsystem.service;
 
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Sends SMS through the configured {@link SmsProvider} from a bounded
+ * in-memory queue. {@link #submit} only queues the message; one sender thread
+ * takes whatever has built up (waiting up to linger-ms for more) and hands it
+ * to the provider as one batch.
+ *
+ * When the queue is full the overflow policy decides: BLOCK waits up to
+ * block-timeout-ms for room and then fails, RETRY_LATER fails at once, DROP
+ * discards the message. A failed message stays in the notification outbox and
+ * NotificationDispatcher tries it again later, so only DROP loses anything.
+ *
+ * The same text to the same number is sent once per dedup window: a repeat
+ * while the first is still queued shares its result, and one after it went out
+ * is skipped. Batches the provider could not take are retried a few times
+ * with jittered backoff before the message is failed back to the outbox.
+ */
 @Service
 public class SmsService {
 
-    public void sendSms(String phoneNumber, String message) {
-        // Here you would integrate with a real SMS provider like Twilio
-        System.out.println("Mock SMS to " + phoneNumber + ": " + message);
+    private static final Logger log = LoggerFactory.getLogger(SmsService.class);
+
+    public enum Overflow {
+        BLOCK, RETRY_LATER, DROP
+    }
+
+    /** Counters for the admin stats endpoint. */
+    public record Stats(String provider, int queued, long submitted, long sent, long batches, long deduplicated,
+            long overflowed, long dropped, long failed) {
+    }
+
+    private static final class Pending {
+
+        final SmsProvider.Sms sms;
+        final String key;
+        final CompletableFuture<Void> done;
+        int attempts;
+
+        Pending(SmsProvider.Sms sms, String key, CompletableFuture<Void> done) {
+            this.sms = sms;
+            this.key = key;
+            this.done = done;
+        }
+    }
+
+    @Autowired
+    private List<SmsProvider> providerBeans;
+
+    @Value("${app.sms.provider:" + LogSmsProvider.NAME + "}")
+    private String providerName;
+
+    @Value("${app.sms.queue-capacity:1000}")
+    private int capacity;
+
+    @Value("${app.sms.overflow:BLOCK}")
+    private Overflow overflow;
+
+    @Value("${app.sms.block-timeout-ms:2000}")
+    private long blockTimeoutMs;
+
+    @Value("${app.sms.batch-size:50}")
+    private int batchSize;
+
+    @Value("${app.sms.linger-ms:20}")
+    private long lingerMs;
+
+    @Value("${app.sms.dedup-window-ms:300000}")
+    private long dedupWindowMs;
+
+    @Value("${app.sms.retry.max-attempts:3}")
+    private int maxAttempts;
+
+    @Value("${app.sms.retry.backoff-ms:500}")
+    private long backoffMs;
+
+    private SmsProvider provider;
+
+    private BlockingQueue<Pending> queue;
+
+    // Queued or being sent, by number and text
+    private final ConcurrentHashMap<String, CompletableFuture<Void>> inFlight = new ConcurrentHashMap<>();
+
+    // Sent within the dedup window: number and text -> System.nanoTime() when sent
+    private final ConcurrentHashMap<String, Long> recentlySent = new ConcurrentHashMap<>();
+
+    private Thread sender;
+
+    private ScheduledExecutorService retries;
+
+    private volatile boolean running;
+
+    private final LongAdder submitted = new LongAdder();
+    private final LongAdder sent = new LongAdder();
+    private final LongAdder batches = new LongAdder();
+    private final LongAdder deduplicated = new LongAdder();
+    private final LongAdder overflowed = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+
+    @PostConstruct
+    void start() {
+        for (SmsProvider candidate : providerBeans) {
+            if (candidate.name().equals(providerName))
+                provider = candidate;
+        }
+        if (provider == null)
+            throw new IllegalStateException("Unknown SMS provider: " + providerName);
+
+        queue = new ArrayBlockingQueue<>(capacity);
+        running = true;
+        retries = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "sms-retry");
+            t.setDaemon(true);
+            return t;
+        });
+        sender = new Thread(this::drain, "sms-sender");
+        sender.setDaemon(true);
+        sender.start();
+    }
+
+    @PreDestroy
+    void shutdown() {
+        running = false;
+        sender.interrupt();
+        retries.shutdownNow();
+        Pending pending;
+        while ((pending = queue.poll()) != null) {
+            fail(pending, "SMS service stopped");
+        }
+    }
+
+    /**
+     * Queues the message and returns straight away (or once there is room,
+     * under BLOCK). The future completes when the provider has taken the
+     * message, or it was a duplicate or dropped, and fails if it could not be
+     * sent.
+     */
+    public CompletableFuture<Void> submit(String phoneNumber, String message) {
+        submitted.increment();
+        String key = phoneNumber + '\n' + message;
+        Long sentAt = recentlySent.get(key);
+        if (sentAt != null && System.nanoTime() - sentAt < TimeUnit.MILLISECONDS.toNanos(dedupWindowMs)) {
+            deduplicated.increment();
+            return CompletableFuture.completedFuture(null);
+        }
+        CompletableFuture<Void> done = new CompletableFuture<>();
+        CompletableFuture<Void> queued = inFlight.putIfAbsent(key, done);
+        if (queued != null) {
+            deduplicated.increment();
+            return queued;
+        }
+
+        Pending pending = new Pending(new SmsProvider.Sms(phoneNumber, message), key, done);
+        boolean accepted;
+        try {
+            accepted = overflow == Overflow.BLOCK
+                    ? queue.offer(pending, blockTimeoutMs, TimeUnit.MILLISECONDS)
+                    : queue.offer(pending);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            accepted = false;
+        }
+        if (!accepted) {
+            inFlight.remove(key, done);
+            if (overflow == Overflow.DROP) {
+                dropped.increment();
+                log.warn("SMS queue full, dropping message to {}", phoneNumber);
+                done.complete(null);
+            } else {
+                overflowed.increment();
+                done.completeExceptionally(new RuntimeException("SMS queue full (" + capacity + " waiting)"));
+            }
+        }
+        return done;
+    }
+
+    public Stats stats() {
+        return new Stats(provider.name(), queue.size(), submitted.sum(), sent.sum(), batches.sum(),
+                deduplicated.sum(), overflowed.sum(), dropped.sum(), failed.sum());
+    }
+
+    // -----------------------
+    // SENDER
+    // -----------------------
+
+    private void drain() {
+        int limit = Math.max(1, Math.min(batchSize, provider.maxBatchSize()));
+        List<Pending> batch = new ArrayList<>(limit);
+        long lastPurge = System.nanoTime();
+        while (running) {
+            try {
+                Pending first = queue.poll(1, TimeUnit.SECONDS);
+                if (first != null) {
+                    batch.add(first);
+                    queue.drainTo(batch, limit - batch.size());
+                    // Give a burst that is still arriving the chance to fill the batch
+                    long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(lingerMs);
+                    while (batch.size() < limit) {
+                        Pending next = queue.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+                        if (next == null)
+                            break;
+                        batch.add(next);
+                        queue.drainTo(batch, limit - batch.size());
+                    }
+                    deliver(batch);
+                    batch.clear();
+                }
+                if (System.nanoTime() - lastPurge > TimeUnit.SECONDS.toNanos(1)) {
+                    purgeRecentlySent();
+                    lastPurge = System.nanoTime();
+                }
+            } catch (InterruptedException e) {
+                return;
+            } catch (RuntimeException e) {
+                log.error("SMS sender failed", e);
+                batch.forEach(p -> fail(p, String.valueOf(e.getMessage())));
+                batch.clear();
+            }
+        }
+    }
+
+    private void deliver(List<Pending> batch) {
+        List<SmsProvider.Sms> messages = new ArrayList<>(batch.size());
+        for (Pending pending : batch) {
+            messages.add(pending.sms);
+        }
+        batches.increment();
+        List<SmsProvider.Outcome> outcomes;
+        String error = null;
+        try {
+            outcomes = provider.send(messages);
+            if (outcomes.size() != batch.size())
+                throw new IllegalStateException(
+                        "Provider returned " + outcomes.size() + " outcomes for " + batch.size() + " messages");
+        } catch (Exception e) {
+            log.warn("SMS provider {} failed a batch of {}: {}", provider.name(), batch.size(), e.getMessage());
+            outcomes = Collections.nCopies(batch.size(), SmsProvider.Outcome.RETRY);
+            error = String.valueOf(e.getMessage());
+        }
+
+        long now = System.nanoTime();
+        for (int i = 0; i < batch.size(); i++) {
+            Pending pending = batch.get(i);
+            switch (outcomes.get(i)) {
+                case SENT -> {
+                    recentlySent.put(pending.key, now);
+                    inFlight.remove(pending.key, pending.done);
+                    sent.increment();
+                    pending.done.complete(null);
+                }
+                case REJECTED -> fail(pending, "Rejected by " + provider.name());
+                case RETRY -> retry(pending, error != null ? error : "Provider asked to retry");
+            }
+        }
+    }
+
+    private void retry(Pending pending, String error) {
+        if (++pending.attempts >= maxAttempts) {
+            fail(pending, error);
+            return;
+        }
+        // Between half and all of the doubled backoff, so a batch that failed together spreads out
+        long delay = NotificationDispatcher.backoff(pending.attempts, backoffMs, backoffMs << 6).toMillis();
+        delay = delay / 2 + ThreadLocalRandom.current().nextLong(delay / 2 + 1);
+        try {
+            retries.schedule(() -> {
+                if (!queue.offer(pending))
+                    fail(pending, "SMS queue full (" + capacity + " waiting)");
+            }, delay, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            fail(pending, "SMS service stopped");
+        }
+    }
+
+    private void fail(Pending pending, String error) {
+        inFlight.remove(pending.key, pending.done);
+        failed.increment();
+        pending.done.completeExceptionally(new RuntimeException(error));
+    }
+
+    private void purgeRecentlySent() {
+        long cutoff = System.nanoTime() - TimeUnit.MILLISECONDS.toNanos(dedupWindowMs);
+        recentlySent.values().removeIf(sentAt -> sentAt - cutoff < 0);
     }
 }
@@ -0,0 +1,285 @@
+package com.ticketsystem.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.mail.Message;
+import jakarta.mail.MessagingException;
+import jakarta.mail.Session;
+import jakarta.mail.Transport;
+import jakarta.mail.internet.InternetAddress;
+import jakarta.mail.internet.MimeMessage;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.SimpleMailMessage;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Sends mail over a small pool of connected, authenticated SMTP transports
+ * instead of opening a connection (and doing the STARTTLS and AUTH round
+ * trips) for every message, which is what JavaMailSender.send does.
+ *
+ * At most max-connections transports are open at once; a sender waits for one
+ * to come free. A transport carries up to max-messages-per-connection messages
+ * before it is closed and replaced, and is dropped when it has been idle for
+ * longer than max-idle (servers close quiet connections on their side) or a
+ * send on it fails. Sends are spaced to stay under rate-per-second across all
+ * connections, since providers throttle or block accounts that go over their
+ * limit.
+ *
+ * Falls back to JavaMailSender.send when the sender isn't a JavaMailSenderImpl
+ * (i.e. it was replaced for tests).
+ */
+@Component
+public class SmtpDeliveryEngine {
+
+    private static final Logger log = LoggerFactory.getLogger(SmtpDeliveryEngine.class);
+
+    private static final long PROBE_AFTER_NANOS = TimeUnit.SECONDS.toNanos(5);
+
+    // Send latencies kept for the percentiles in stats()
+    private static final int LATENCY_SAMPLES = 1024;
+
+    /** Point-in-time figures for the admin stats endpoint. */
+    public record Stats(int waiting, int busyConnections, int idleConnections, long connectionsOpened,
+            long sent, long failed, double meanLatencyMs, double p50LatencyMs, double p99LatencyMs) {
+    }
+
+    private static final class PooledTransport {
+
+        final Transport transport;
+        int sent;
+        long lastUsedNanos = System.nanoTime();
+
+        PooledTransport(Transport transport) {
+            this.transport = transport;
+        }
+    }
+
+    @Autowired
+    private JavaMailSender mailSender;
+
+    @Value("${app.mail.pool.max-connections:4}")
+    private int maxConnections;
+
+    @Value("${app.mail.pool.max-messages-per-connection:100}")
+    private int maxMessagesPerConnection;
+
+    @Value("${app.mail.pool.max-idle-ms:30000}")
+    private long maxIdleMs;
+
+    @Value("${app.mail.pool.borrow-timeout-ms:30000}")
+    private long borrowTimeoutMs;
+
+    // 0 means no limit
+    @Value("${app.mail.rate-per-second:5}")
+    private double ratePerSecond;
+
+    @Value("${app.mail.from:${spring.mail.username:}}")
+    private String from;
+
+    // Most recently used first, so a quiet period lets the rest go idle and be closed
+    private final LinkedBlockingDeque<PooledTransport> idle = new LinkedBlockingDeque<>();
+
+    private Semaphore connections;
+
+    // Rate limiting: the earliest time the next send may start
+    private long nextSendNanos;
+
+    private final AtomicInteger waiting = new AtomicInteger();
+
+    private final AtomicInteger busy = new AtomicInteger();
+
+    private final LongAdder opened = new LongAdder();
+
+    private final LongAdder sent = new LongAdder();
+
+    private final LongAdder failed = new LongAdder();
+
+    private final long[] latencies = new long[LATENCY_SAMPLES];
+
+    private long latencyCount;
+
+    @PostConstruct
+    void start() {
+        connections = new Semaphore(maxConnections, true);
+        nextSendNanos = System.nanoTime();
+    }
+
+    @PreDestroy
+    void shutdown() {
+        PooledTransport pooled;
+        while ((pooled = idle.poll()) != null) {
+            close(pooled);
+        }
+    }
+
+    public void send(String to, String subject, String text) {
+        if (!(mailSender instanceof JavaMailSenderImpl sender)) {
+            SimpleMailMessage message = new SimpleMailMessage();
+            message.setTo(to);
+            message.setSubject(subject);
+            message.setText(text);
+            mailSender.send(message);
+            return;
+        }
+
+        waiting.incrementAndGet();
+        PooledTransport pooled;
+        try {
+            awaitRate();
+            pooled = borrow(sender);
+        } finally {
+            waiting.decrementAndGet();
+        }
+
+        long started = System.nanoTime();
+        boolean ok = false;
+        try {
+            MimeMessage message = new MimeMessage(sender.getSession());
+            if (from != null && !from.isBlank())
+                message.setFrom(new InternetAddress(from));
+            message.setRecipients(Message.RecipientType.TO, InternetAddress.parse(to));
+            message.setSubject(subject, StandardCharsets.UTF_8.name());
+            message.setText(text, StandardCharsets.UTF_8.name());
+            message.saveChanges();
+            pooled.transport.sendMessage(message, message.getAllRecipients());
+            ok = true;
+        } catch (MessagingException e) {
+            throw new MailSendException("Failed to send mail to " + to + ": " + e.getMessage(), e);
+        } finally {
+            recordLatency(System.nanoTime() - started);
+            (ok ? sent : failed).increment();
+            release(pooled, ok);
+        }
+    }
+
+    public Stats stats() {
+        long[] sample;
+        synchronized (latencies) {
+            sample = Arrays.copyOf(latencies, (int) Math.min(latencyCount, LATENCY_SAMPLES));
+        }
+        Arrays.sort(sample);
+        double mean = sample.length == 0 ? 0 : Arrays.stream(sample).average().orElse(0) / 1e6;
+        return new Stats(waiting.get(), busy.get(), idle.size(), opened.sum(), sent.sum(), failed.sum(),
+                mean, percentile(sample, 0.50), percentile(sample, 0.99));
+    }
+
+    // -----------------------
+    // POOL
+    // -----------------------
+
+    private PooledTransport borrow(JavaMailSenderImpl sender) {
+        try {
+            if (!connections.tryAcquire(borrowTimeoutMs, TimeUnit.MILLISECONDS))
+                throw new MailSendException("No SMTP connection free within " + borrowTimeoutMs + " ms");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new MailSendException("Interrupted waiting for an SMTP connection");
+        }
+        busy.incrementAndGet();
+        try {
+            PooledTransport pooled;
+            while ((pooled = idle.pollFirst()) != null) {
+                long idleFor = System.nanoTime() - pooled.lastUsedNanos;
+                // isConnected() is a NOOP round trip, only worth it once the connection has sat for a while
+                if (idleFor < TimeUnit.MILLISECONDS.toNanos(maxIdleMs)
+                        && (idleFor < PROBE_AFTER_NANOS || pooled.transport.isConnected()))
+                    return pooled;
+                close(pooled);
+            }
+            return connect(sender);
+        } catch (RuntimeException e) {
+            busy.decrementAndGet();
+            connections.release();
+            throw e;
+        }
+    }
+
+    private PooledTransport connect(JavaMailSenderImpl sender) {
+        Session session = sender.getSession();
+        try {
+            Transport transport = session.getTransport(sender.getProtocol() != null ? sender.getProtocol() : "smtp");
+            transport.connect(sender.getHost(), sender.getPort(), sender.getUsername(), sender.getPassword());
+            opened.increment();
+            return new PooledTransport(transport);
+        } catch (MessagingException e) {
+            throw new MailSendException("Could not connect to SMTP server " + sender.getHost() + ": "
+                    + e.getMessage(), e);
+        }
+    }
+
+    // Transports that failed a send are closed rather than trusted with the next message
+    private void release(PooledTransport pooled, boolean healthy) {
+        try {
+            pooled.sent++;
+            pooled.lastUsedNanos = System.nanoTime();
+            if (healthy && pooled.sent < maxMessagesPerConnection) {
+                idle.offerFirst(pooled);
+            } else {
+                close(pooled);
+            }
+        } finally {
+            busy.decrementAndGet();
+            connections.release();
+        }
+    }
+
+    private static void close(PooledTransport pooled) {
+        try {
+            pooled.transport.close();
+        } catch (MessagingException e) {
+            log.debug("Closing SMTP connection failed: {}", e.getMessage());
+        }
+    }
+
+    // -----------------------
+    // RATE LIMIT & METRICS
+    // -----------------------
+
+    // Spaces sends 1/rate apart; a sender reserves the next slot and sleeps until it comes round
+    private void awaitRate() {
+        if (ratePerSecond <= 0)
+            return;
+        long interval = (long) (1e9 / ratePerSecond);
+        long slot;
+        synchronized (this) {
+            long now = System.nanoTime();
+            slot = Math.max(nextSendNanos, now);
+            nextSendNanos = slot + interval;
+        }
+        long delay;
+        while ((delay = slot - System.nanoTime()) > 0) {
+            LockSupport.parkNanos(delay);
+            if (Thread.interrupted()) {
+                Thread.currentThread().interrupt();
+                throw new MailSendException("Interrupted waiting for the send rate limit");
+            }
+        }
+    }
+
+    private void recordLatency(long nanos) {
+        synchronized (latencies) {
+            latencies[(int) (latencyCount++ % LATENCY_SAMPLES)] = nanos;
+        }
+    }
+
+    private static double percentile(long[] sorted, double p) {
+        if (sorted.length == 0)
+            return 0;
+        return sorted[Math.min((int) (sorted.length * p), sorted.length - 1)] / 1e6;
+    }
+}
@@ -0,0 +1,328 @@
+package com.ticketsystem.service;
+
+import com.ticketsystem.model.TicketActivityDaily;
+import com.ticketsystem.model.TicketStatus;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionException;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.*;
+
+/**
+ * Folds ticket activity into the hourly buckets of ticket_activity_hourly
+ * (see TicketActivityHourly), and rebuilds the daily buckets of the days it
+ * touched from them (see TicketActivityDaily).
+ *
+ * Each run reads only the tickets updated since the watermark, in batches
+ * ordered by (updated_at, id). A ticket counts as created in the hour it was
+ * created; when it leaves the backlog (RESOLVED or CLOSED) or comes back, that
+ * counts in the hour of the update that moved it. Whether it moved is told by
+ * the ticket_activity_state row kept per ticket, so the job can start each run
+ * a little before the watermark, picking up updates whose transaction
+ * committed late, without counting anything twice. The first run folds every
+ * ticket there is. Deleted tickets are marked on their state row by
+ * ticketsRemoved when they are deleted, and counted in the hour they were.
+ *
+ * Each batch commits with the watermark it reached; the watermark row is
+ * locked for the batch, so instances take turns.
+ */
+@Component
+public class TicketActivityRollup {
+
+    private static final Logger log = LoggerFactory.getLogger(TicketActivityRollup.class);
+
+    static final String WATERMARK = "ticket_activity";
+
+    private static final LocalDateTime BEGINNING = LocalDateTime.of(1970, 1, 1, 0, 0);
+
+    private static final int CREATED = 0, RESOLVED = 1, REOPENED = 2, REMOVED = 3;
+
+    /** One hourly bucket; 0 stands for no category or location. */
+    record Bucket(LocalDateTime hour, long categoryId, long locationId) implements Comparable<Bucket> {
+
+        private static final Comparator<Bucket> ORDER = Comparator.comparing(Bucket::hour)
+                .thenComparingLong(Bucket::categoryId)
+                .thenComparingLong(Bucket::locationId);
+
+        static Bucket of(LocalDateTime at, long categoryId, long locationId) {
+            return new Bucket(at.truncatedTo(ChronoUnit.HOURS), categoryId, locationId);
+        }
+
+        @Override
+        public int compareTo(Bucket other) {
+            return ORDER.compare(this, other);
+        }
+    }
+
+    private record Batch(int read, int folded, LocalDateTime lastAt, long lastId) {
+    }
+
+    private static final String CHANGED_SQL = """
+            SELECT t.id, t.status, t.category_id, t.location_id, t.created_at, t.updated_at,
+                   s.ticket_id, s.in_backlog
+            FROM tickets t
+            LEFT JOIN ticket_activity_state s ON s.ticket_id = t.id
+            WHERE t.updated_at > ? OR (t.updated_at = ? AND t.id > ?)
+            ORDER BY t.updated_at, t.id
+            LIMIT ?
+            """;
+
+    // Tickets marked by ticketsRemoved
+    private static final String REMOVED_SQL = """
+            SELECT ticket_id, category_id, location_id, in_backlog, removed_at
+            FROM ticket_activity_state
+            WHERE removed_at IS NOT NULL
+            """;
+
+    private static final String UPDATE_SQL = """
+            UPDATE ticket_activity_hourly
+            SET created_count = created_count + ?, resolved_count = resolved_count + ?,
+                reopened_count = reopened_count + ?, removed_count = removed_count + ?
+            WHERE bucket_start = ? AND category_id = ? AND location_id = ?
+            """;
+
+    private static final String INSERT_SQL = """
+            INSERT INTO ticket_activity_hourly
+                (created_count, resolved_count, reopened_count, removed_count, bucket_start, category_id, location_id)
+            VALUES (?, ?, ?, ?, ?, ?, ?)
+            """;
+
+    // A day of hourly rows summed per category and location, per category, per
+    // location and overall, each on top of the backlog of its last earlier row
+    private static final String DAILY_SQL = """
+            INSERT INTO ticket_activity_daily (bucket_date, category_id, location_id, created_count, resolved_count,
+                reopened_count, removed_count, backlog_count)
+            SELECT ?, x.category_id, x.location_id, x.created, x.resolved, x.reopened, x.removed,
+                   x.created - x.resolved + x.reopened - x.removed + coalesce((
+                       SELECT p.backlog_count FROM ticket_activity_daily p
+                       WHERE p.category_id = x.category_id AND p.location_id = x.location_id AND p.bucket_date < ?
+                       ORDER BY p.bucket_date DESC
+                       LIMIT 1), 0)
+            FROM (%s UNION ALL %s UNION ALL %s UNION ALL %s) x
+            """.formatted(dayTotals("category_id", "location_id", "GROUP BY category_id, location_id"),
+            dayTotals("category_id", TicketActivityDaily.ALL, "GROUP BY category_id"),
+            dayTotals(TicketActivityDaily.ALL, "location_id", "GROUP BY location_id"),
+            dayTotals(TicketActivityDaily.ALL, TicketActivityDaily.ALL, "HAVING count(*) > 0"));
+
+    private static final String NETS_SQL = """
+            SELECT category_id, location_id, created_count - resolved_count + reopened_count - removed_count
+            FROM ticket_activity_daily
+            WHERE bucket_date = ?
+            """;
+
+    private static final String SHIFT_SQL = """
+            UPDATE ticket_activity_daily SET backlog_count = backlog_count + ?
+            WHERE category_id = ? AND location_id = ? AND bucket_date > ?
+            """;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private DatabaseWrites databaseWrites;
+
+    @Value("${app.analytics.batch-size:1000}")
+    private int batchSize;
+
+    @Value("${app.analytics.overlap-ms:300000}")
+    private long overlapMs;
+
+    /**
+     * Folds everything updated since the last run. Returns the number of
+     * tickets that were new to the rollup or had entered or left the backlog,
+     * or -1 if the run did not complete (what committed before stays).
+     */
+    @Scheduled(fixedDelayString = "${app.analytics.fold-interval-ms:60000}",
+            initialDelayString = "${app.analytics.fold-interval-ms:60000}")
+    public int fold() {
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        try {
+            createWatermark();
+            int folded = 0;
+            Batch batch = null;
+            do {
+                Batch previous = batch;
+                batch = tx.execute(status -> foldBatch(previous));
+                folded += batch.folded();
+            } while (batch.read() == batchSize);
+            log.debug("Ticket activity folded: {} tickets moved", folded);
+            return folded;
+        } catch (DataAccessException | TransactionException e) {
+            log.warn("Ticket activity fold did not complete: {}", e.getMessage());
+            return -1;
+        }
+    }
+
+    // -----------------------
+    // FOLDING
+    // -----------------------
+
+    private Batch foldBatch(Batch previous) {
+        LocalDateTime watermark = jdbcTemplate.queryForObject(
+                "SELECT position_at FROM analytics_watermarks WHERE name = ? FOR UPDATE", LocalDateTime.class,
+                WATERMARK);
+        // The first batch of a run starts an overlap before the watermark
+        LocalDateTime afterAt = previous != null ? previous.lastAt() : watermark.minus(Duration.ofMillis(overlapMs));
+        long afterId = previous != null ? previous.lastId() : 0;
+
+        Map<Bucket, long[]> deltas = new TreeMap<>();
+        List<Object[]> newStates = new ArrayList<>();
+        List<Object[]> movedStates = new ArrayList<>();
+        LocalDateTime[] last = { afterAt };
+        long[] lastId = { afterId };
+        int[] read = { 0 };
+        jdbcTemplate.query(CHANGED_SQL, rs -> {
+            long id = rs.getLong(1);
+            boolean inBacklog = inBacklog(TicketStatus.valueOf(rs.getString(2)));
+            long categoryId = rs.getLong(3);
+            long locationId = rs.getLong(4);
+            LocalDateTime createdAt = rs.getObject(5, LocalDateTime.class);
+            LocalDateTime updatedAt = rs.getObject(6, LocalDateTime.class);
+            boolean known = rs.getObject(7) != null;
+            boolean wasInBacklog = rs.getBoolean(8);
+
+            if (!known) {
+                count(deltas, Bucket.of(createdAt, categoryId, locationId), CREATED);
+                if (!inBacklog)
+                    count(deltas, Bucket.of(updatedAt, categoryId, locationId), RESOLVED);
+                newStates.add(new Object[] { id, categoryId, locationId, inBacklog });
+            } else if (inBacklog != wasInBacklog) {
+                count(deltas, Bucket.of(updatedAt, categoryId, locationId), inBacklog ? REOPENED : RESOLVED);
+                movedStates.add(new Object[] { inBacklog, id });
+            }
+            last[0] = updatedAt;
+            lastId[0] = id;
+            read[0]++;
+        }, afterAt, afterAt, afterId, batchSize);
+
+        List<Object[]> removed = new ArrayList<>();
+        int[] removedFromBacklog = { 0 };
+        jdbcTemplate.query(REMOVED_SQL, rs -> {
+            if (rs.getBoolean(4)) {
+                count(deltas, Bucket.of(rs.getObject(5, LocalDateTime.class), rs.getLong(2), rs.getLong(3)), REMOVED);
+                removedFromBacklog[0]++;
+            }
+            removed.add(new Object[] { rs.getLong(1) });
+        });
+
+        write(deltas);
+        jdbcTemplate.batchUpdate("INSERT INTO ticket_activity_state (ticket_id, category_id, location_id, in_backlog) "
+                + "VALUES (?, ?, ?, ?)", newStates);
+        jdbcTemplate.batchUpdate("UPDATE ticket_activity_state SET in_backlog = ? WHERE ticket_id = ?", movedStates);
+        jdbcTemplate.batchUpdate("DELETE FROM ticket_activity_state WHERE ticket_id = ?", removed);
+        rebuildDays(deltas.keySet());
+        if (last[0].isAfter(watermark))
+            jdbcTemplate.update("UPDATE analytics_watermarks SET position_at = ? WHERE name = ?", last[0], WATERMARK);
+
+        return new Batch(read[0], newStates.size() + movedStates.size() + removedFromBacklog[0], last[0], lastId[0]);
+    }
+
+    /**
+     * Marks the tickets removed as part of the current transaction; call
+     * before they are deleted. The next fold counts the ones in the backlog
+     * out of it and drops their state.
+     */
+    public void ticketsRemoved(Collection<Long> ticketIds) {
+        if (ticketIds.isEmpty())
+            return;
+        // Waits out a batch in progress, which may be adding these tickets' state,
+        // and keeps later batches from reading the tickets until they are gone
+        jdbcTemplate.queryForList("SELECT name FROM analytics_watermarks WHERE name = ? FOR UPDATE", String.class,
+                WATERMARK);
+        LocalDateTime now = LocalDateTime.now();
+        jdbcTemplate.batchUpdate("UPDATE ticket_activity_state SET removed_at = ? WHERE ticket_id = ?",
+                ticketIds.stream().map(id -> new Object[] { now, id }).toList());
+    }
+
+    static boolean inBacklog(TicketStatus status) {
+        return status == TicketStatus.OPEN || status == TicketStatus.IN_PROGRESS;
+    }
+
+    private static void count(Map<Bucket, long[]> deltas, Bucket bucket, int column) {
+        deltas.computeIfAbsent(bucket, b -> new long[4])[column]++;
+    }
+
+    // Deltas in bucket order, which is the lock order for the hourly rows
+    private void write(Map<Bucket, long[]> deltas) {
+        List<Object[]> rows = new ArrayList<>(deltas.size());
+        deltas.forEach((bucket, counts) -> rows.add(new Object[] { counts[CREATED], counts[RESOLVED],
+                counts[REOPENED], counts[REMOVED], bucket.hour(), bucket.categoryId(), bucket.locationId() }));
+        databaseWrites.upsert(INSERT_SQL, """
+                ON CONFLICT (bucket_start, category_id, location_id) DO UPDATE SET
+                    created_count = ticket_activity_hourly.created_count + EXCLUDED.created_count,
+                    resolved_count = ticket_activity_hourly.resolved_count + EXCLUDED.resolved_count,
+                    reopened_count = ticket_activity_hourly.reopened_count + EXCLUDED.reopened_count,
+                    removed_count = ticket_activity_hourly.removed_count + EXCLUDED.removed_count
+                """, UPDATE_SQL, rows);
+    }
+
+    /**
+     * Each touched day is summed again from its 24 hourly buckets, oldest
+     * first. Where that changes how much a row moved the backlog, the backlog
+     * of the later rows with the same category and location moves with it;
+     * the fold rarely reaches back more than the overlap, so there are few.
+     */
+    private void rebuildDays(Set<Bucket> touched) {
+        Set<LocalDate> days = new TreeSet<>();
+        touched.forEach(bucket -> days.add(bucket.hour().toLocalDate()));
+        for (LocalDate day : days) {
+            Map<List<Long>, Long> shifts = nets(day);
+            shifts.replaceAll((key, net) -> -net);
+            jdbcTemplate.update("DELETE FROM ticket_activity_daily WHERE bucket_date = ?", day);
+            Object from = day.atStartOfDay(), to = day.plusDays(1).atStartOfDay();
+            jdbcTemplate.update(DAILY_SQL, day, day, from, to, from, to, from, to, from, to);
+            nets(day).forEach((key, net) -> shifts.merge(key, net, Long::sum));
+
+            List<Object[]> rows = new ArrayList<>();
+            shifts.forEach((key, shift) -> {
+                if (shift != 0)
+                    rows.add(new Object[] { shift, key.get(0), key.get(1), day });
+            });
+            jdbcTemplate.batchUpdate(SHIFT_SQL, rows);
+        }
+    }
+
+    // How much each of the day's rows moved the backlog, by (category, location)
+    private Map<List<Long>, Long> nets(LocalDate day) {
+        Map<List<Long>, Long> nets = new HashMap<>();
+        jdbcTemplate.query(NETS_SQL, rs -> {
+            nets.put(List.of(rs.getLong(1), rs.getLong(2)), rs.getLong(3));
+        }, day);
+        return nets;
+    }
+
+    private static String dayTotals(Object categoryId, Object locationId, String grouping) {
+        return """
+                SELECT %s AS category_id, %s AS location_id, sum(created_count) AS created,
+                       sum(resolved_count) AS resolved, sum(reopened_count) AS reopened, sum(removed_count) AS removed
+                FROM ticket_activity_hourly
+                WHERE bucket_start >= ? AND bucket_start < ?
+                %s""".formatted(categoryId, locationId, grouping);
+    }
+
+    private void createWatermark() {
+        Integer rows = jdbcTemplate.queryForObject("SELECT count(*) FROM analytics_watermarks WHERE name = ?",
+                Integer.class, WATERMARK);
+        if (rows != null && rows > 0)
+            return;
+        // Another instance may get there first
+        databaseWrites.insertOrElse("INSERT INTO analytics_watermarks (name, position_at) VALUES (?, ?)",
+                new Object[] { WATERMARK, BEGINNING }, () -> {
+                });
+    }
+}
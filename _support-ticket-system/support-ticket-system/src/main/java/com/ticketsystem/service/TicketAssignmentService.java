@@ -0,0 +1,106 @@
+package com.ticketsystem.service;
+
+import com.ticketsystem.model.*;
+import com.ticketsystem.repository.TicketAssignmentRepository;
+import com.ticketsystem.repository.TicketRepository;
+import com.ticketsystem.repository.UserRepository;
+import jakarta.transaction.Transactional;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Writes ticket assignments and keeps the workload ledger in step with them.
+ *
+ * Changing an existing ticket's assignee first locks the ticket row, so
+ * concurrent reassignments of one ticket run one after another and the ticket
+ * never ends up with two ASSIGNED rows. On PostgreSQL a partial unique index
+ * backs this up (see AssignmentSchemaInitializer).
+ */
+@Service
+@Transactional
+public class TicketAssignmentService {
+
+    private static final List<AssignmentStatus> CURRENT = List.of(AssignmentStatus.ASSIGNED, AssignmentStatus.ACTIVE);
+
+    @Autowired
+    private TicketRepository ticketRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private TicketAssignmentRepository assignmentRepository;
+
+    @Autowired
+    private AssignmentEngine assignmentEngine;
+
+    @Autowired
+    private AgentWorkloadLedger workloadLedger;
+
+    @Autowired
+    private TicketStatsRollup statsRollup;
+
+    /**
+     * Assigns a freshly created ticket through its category's strategy.
+     * Returns the agent, or null when the category has nobody to take it.
+     */
+    public User autoAssign(Ticket ticket) {
+        Long agentId = assignmentEngine.assign(ticket);
+        if (agentId == null)
+            return null;
+        // Reserved in the ledger already; rolled back with the transaction if this fails
+        User agent = userRepository.findById(agentId)
+                .orElseThrow(() -> new RuntimeException("Agent not found"));
+        assignmentRepository.save(assignment(ticket, agent));
+        return agent;
+    }
+
+    /**
+     * Makes the agent the ticket's only current assignee. Returns false, and
+     * changes nothing, when they already are, so a retried or duplicated
+     * request is harmless.
+     */
+    public boolean reassign(Long ticketId, Long agentId) {
+        Ticket ticket = ticketRepository.findByIdForUpdate(ticketId)
+                .orElseThrow(() -> new RuntimeException("Ticket not found"));
+
+        User agent = userRepository.findById(agentId)
+                .orElseThrow(() -> new RuntimeException("Agent not found"));
+
+        List<Long> previous = assignmentRepository.findAgentIdsByTicketAndStatuses(ticketId, CURRENT);
+        if (previous.size() == 1 && previous.get(0).equals(agentId))
+            return false;
+
+        List<Long> assigned = assignmentRepository.findAgentIdsByTicketAndStatuses(ticketId,
+                List.of(AssignmentStatus.ASSIGNED));
+        // Only OPEN tickets count towards an agent's workload
+        boolean open = ticket.getStatus() == TicketStatus.OPEN;
+        if (open) {
+            for (Long previousAgentId : assigned) {
+                workloadLedger.adjust(previousAgentId, ticket.getPriority(), -1);
+            }
+        }
+        assignmentRepository.deactivateAssignments(ticketId, CURRENT);
+        assignmentRepository.save(assignment(ticket, agent));
+        if (open) {
+            workloadLedger.adjust(agentId, ticket.getPriority(), +1);
+        }
+        TicketStatsRollup.Key key = TicketStatsRollup.Key.of(ticket, agentId);
+        statsRollup.move(key.withAgent(assigned.isEmpty() ? null : assigned.get(0)), key);
+        return true;
+    }
+
+    private static TicketAssignment assignment(Ticket ticket, User agent) {
+        TicketAssignment assignment = new TicketAssignment();
+        assignment.setTicket(ticket);
+        assignment.setAgent(agent);
+        assignment.setCategory(ticket.getCategory());
+        assignment.setStatus(AssignmentStatus.ASSIGNED);
+        assignment.setAssignedAt(LocalDateTime.now());
+        assignment.setNotificationSent(false);
+        return assignment;
+    }
+}
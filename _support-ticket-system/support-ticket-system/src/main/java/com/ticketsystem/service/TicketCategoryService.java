@@ -17,6 +17,12 @@ public class TicketCategoryService {
     @Autowired
     private TicketCategoryRepository categoryRepository;
 
+    @Autowired
+    private org.springframework.context.ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private AssignmentEngine assignmentEngine;
+
     // GET ALL
     public List<TicketCategoryDTO> getAllCategories() {
         return categoryRepository.findAll()
@@ -36,8 +42,10 @@ public class TicketCategoryService {
         TicketCategory category = new TicketCategory();
         category.setName(dto.getName());
         category.setDescription(dto.getDescription());
+        category.setAssignmentStrategy(assignmentStrategy(dto));
 
         categoryRepository.save(category);
+        eventPublisher.publishEvent(SearchIndexEvent.of(category));
         return mapToDTO(category);
     }
 
@@ -48,14 +56,17 @@ public class TicketCategoryService {
 
         cat.setName(dto.getName());
         cat.setDescription(dto.getDescription());
+        cat.setAssignmentStrategy(assignmentStrategy(dto));
 
         categoryRepository.save(cat);
+        eventPublisher.publishEvent(SearchIndexEvent.of(cat));
         return mapToDTO(cat);
     }
 
     // DELETE
     public void deleteCategory(Long id) {
         categoryRepository.deleteById(id);
+        eventPublisher.publishEvent(SearchIndexEvent.removed(GlobalSearchIndex.Type.CATEGORY, id));
     }
 
     // SEARCH
@@ -74,12 +85,29 @@ public class TicketCategoryService {
                 .collect(Collectors.toList());
     }
 
+    // Names accepted in TicketCategoryDTO.assignmentStrategy
+    public Set<String> getAssignmentStrategies() {
+        return assignmentEngine.strategyNames();
+    }
+
+    private String assignmentStrategy(TicketCategoryDTO dto) {
+        String name = dto.getAssignmentStrategy();
+        if (name == null || name.isBlank())
+            return null;
+        if (!assignmentEngine.isKnown(name.trim())) {
+            throw new RuntimeException("Unknown assignment strategy: " + name
+                    + " (expected one of " + assignmentEngine.strategyNames() + ")");
+        }
+        return name.trim();
+    }
+
     // MAPPING
     private TicketCategoryDTO mapToDTO(TicketCategory category) {
         TicketCategoryDTO dto = new TicketCategoryDTO();
         dto.setId(category.getId());
         dto.setName(category.getName());
         dto.setDescription(category.getDescription());
+        dto.setAssignmentStrategy(category.getAssignmentStrategy());
         return dto;
     }
 }
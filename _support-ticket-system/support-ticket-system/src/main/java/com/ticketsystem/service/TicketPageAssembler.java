@@ -0,0 +1,163 @@
+package com.ticketsystem.service;
+
+import com.ticketsystem.dto.CommentDTO;
+import com.ticketsystem.dto.LocationDTO;
+import com.ticketsystem.dto.TicketCategoryDTO;
+import com.ticketsystem.dto.TicketResponseDTO;
+import com.ticketsystem.dto.UserResponseDTO;
+import com.ticketsystem.model.*;
+import com.ticketsystem.repository.CommentRepository;
+import com.ticketsystem.repository.TicketAssignmentRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+
+/**
+ * Builds {@link TicketResponseDTO}s for a whole page of tickets at once.
+ *
+ * Active assignments (with their agents) and, optionally, comments (with their
+ * authors) are loaded with one IN-list query each and stitched in memory.
+ * Customers, categories and locations are resolved by Hibernate batch fetching
+ * (hibernate.default_batch_fetch_size), so the number of statements per page
+ * does not grow with the page size.
+ */
+@Component
+public class TicketPageAssembler {
+
+    @Autowired
+    private TicketAssignmentRepository assignmentRepository;
+
+    @Autowired
+    private CommentRepository commentRepository;
+
+    public Page<TicketResponseDTO> assemble(Page<Ticket> page, boolean includeComments) {
+        return new PageImpl<>(assemble(page.getContent(), includeComments), page.getPageable(),
+                page.getTotalElements());
+    }
+
+    public TicketResponseDTO assemble(Ticket ticket, boolean includeComments) {
+        return assemble(List.of(ticket), includeComments).get(0);
+    }
+
+    public List<TicketResponseDTO> assemble(List<Ticket> tickets, boolean includeComments) {
+        if (tickets.isEmpty())
+            return new ArrayList<>();
+
+        List<Long> ticketIds = tickets.stream().map(Ticket::getId).toList();
+
+        // First row wins: the query returns the newest assignment per ticket first
+        Map<Long, User> agentsByTicket = new HashMap<>();
+        for (TicketAssignment a : assignmentRepository.findActiveAssignments(ticketIds, AssignmentStatus.ASSIGNED)) {
+            agentsByTicket.putIfAbsent(a.getTicket().getId(), a.getAgent());
+        }
+
+        Map<Long, List<CommentDTO>> commentsByTicket = new HashMap<>();
+        if (includeComments) {
+            for (Comment c : commentRepository.findByTicketIdsOrderByCreatedAtAsc(ticketIds)) {
+                commentsByTicket.computeIfAbsent(c.getTicket().getId(), id -> new ArrayList<>())
+                        .add(mapComment(c));
+            }
+        }
+
+        List<TicketResponseDTO> result = new ArrayList<>(tickets.size());
+        for (Ticket ticket : tickets) {
+            TicketResponseDTO dto = mapTicket(ticket);
+            User agent = agentsByTicket.get(ticket.getId());
+            if (agent != null) {
+                dto.setAssignedAgent(mapUser(agent));
+            }
+            if (includeComments) {
+                dto.setComments(commentsByTicket.getOrDefault(ticket.getId(), new ArrayList<>()));
+            }
+            result.add(dto);
+        }
+        return result;
+    }
+
+    // -----------------------
+    // Mapping helpers
+    // -----------------------
+
+    private TicketResponseDTO mapTicket(Ticket ticket) {
+        TicketResponseDTO dto = new TicketResponseDTO();
+
+        dto.setId(ticket.getId());
+        dto.setTitle(ticket.getTitle());
+        dto.setDescription(ticket.getDescription());
+        dto.setStatus(ticket.getStatus());
+        dto.setPriority(ticket.getPriority());
+        dto.setCreatedAt(ticket.getCreatedAt());
+        dto.setUpdatedAt(ticket.getUpdatedAt());
+
+        if (ticket.getCustomer() != null) {
+            dto.setCustomer(mapUser(ticket.getCustomer()));
+        }
+
+        if (ticket.getCategory() != null) {
+            dto.setCategory(mapCategory(ticket.getCategory()));
+        }
+
+        if (ticket.getLocation() != null) {
+            dto.setLocation(mapLocation(ticket.getLocation()));
+        }
+
+        return dto;
+    }
+
+    private UserResponseDTO mapUser(User user) {
+        if (user == null)
+            return null;
+        UserResponseDTO dto = new UserResponseDTO();
+        dto.setId(user.getId());
+        dto.setName(user.getName());
+        dto.setEmail(user.getEmail());
+        dto.setRole(user.getRole());
+        dto.setPhoneNumber(user.getPhoneNumber());
+        dto.setEnabled(user.isEnabled());
+        return dto;
+    }
+
+    private TicketCategoryDTO mapCategory(TicketCategory category) {
+        if (category == null)
+            return null;
+        TicketCategoryDTO dto = new TicketCategoryDTO();
+        dto.setId(category.getId());
+        dto.setName(category.getName());
+        dto.setDescription(category.getDescription());
+        return dto;
+    }
+
+    private LocationDTO mapLocation(Location location) {
+        if (location == null)
+            return null;
+        LocationDTO dto = new LocationDTO();
+        dto.setId(location.getId());
+        dto.setName(location.getName());
+        dto.setType(location.getType());
+        if (location.getParent() != null) {
+            dto.setParentId(location.getParent().getId());
+            dto.setParentName(location.getParent().getName());
+        }
+        return dto;
+    }
+
+    private CommentDTO mapComment(Comment comment) {
+        if (comment == null)
+            return null;
+        CommentDTO dto = new CommentDTO();
+        dto.setId(comment.getId());
+        dto.setContent(comment.getContent());
+        dto.setCreatedAt(comment.getCreatedAt());
+        if (comment.getTicket() != null) {
+            dto.setTicketId(comment.getTicket().getId());
+        }
+        if (comment.getAuthor() != null) {
+            dto.setAuthorName(comment.getAuthor().getName());
+            dto.setAuthor(mapUser(comment.getAuthor()));
+        }
+        return dto;
+    }
+}
@@ -1,18 +1,19 @@
 package com.ticketsystem.service;
 
-import com.ticketsystem.dto.LocationDTO;
-import com.ticketsystem.dto.TicketCategoryDTO;
+import com.ticketsystem.dto.CursorPageDTO;
+import com.ticketsystem.dto.PageCursor;
 import com.ticketsystem.dto.TicketDTO;
 import com.ticketsystem.dto.TicketResponseDTO;
-import com.ticketsystem.dto.UserResponseDTO;
+import com.ticketsystem.dto.TicketSummaryDTO;
 import com.ticketsystem.model.*;
 import com.ticketsystem.repository.*;
 import jakarta.transaction.Transactional;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDateTime;
-import java.util.Comparator;
 import java.util.List;
 import java.util.Optional;
 import java.util.stream.Collectors;
@@ -21,6 +22,8 @@ import java.util.stream.Collectors;
 @Transactional
 public class TicketService {
 
+    private static final Logger log = LoggerFactory.getLogger(TicketService.class);
+
     @Autowired
     private TicketRepository ticketRepository;
 
@@ -40,7 +43,22 @@ public class TicketService {
     private NotificationService notificationService;
 
     @Autowired
-    private CommentRepository commentRepository;
+    private TicketPageAssembler ticketPageAssembler;
+
+    @Autowired
+    private AgentWorkloadLedger workloadLedger;
+
+    @Autowired
+    private TicketAssignmentService ticketAssignmentService;
+
+    @Autowired
+    private TicketStatsRollup statsRollup;
+
+    @Autowired
+    private SlaMetricsService slaMetrics;
+
+    @Autowired
+    private org.springframework.context.ApplicationEventPublisher eventPublisher;
 
     // CREATE TICKET
     public TicketResponseDTO createTicket(TicketDTO dto, Long customerId) {
@@ -65,176 +83,204 @@ public class TicketService {
         ticket.setLocation(location);
 
         Ticket saved = ticketRepository.save(ticket);
+        eventPublisher.publishEvent(SearchIndexEvent.of(saved));
 
-        User assignedAgent = autoAssignAgent(category.getId());
+        User assignedAgent = ticketAssignmentService.autoAssign(saved);
+        statsRollup.add(TicketStatsRollup.Key.of(saved, assignedAgent != null ? assignedAgent.getId() : null), +1);
         if (assignedAgent != null) {
-            TicketAssignment assignment = new TicketAssignment();
-            assignment.setTicket(saved);
-            assignment.setAgent(assignedAgent);
-            assignment.setAssignedAt(LocalDateTime.now());
-            assignment.setStatus(AssignmentStatus.ASSIGNED);
-            assignmentRepository.save(assignment);
-
             notificationService.notifyNewTicketAssigned(assignedAgent, saved);
             notificationService.notifyAdmins("System: Ticket Assigned",
-                    "Ticket #" + saved.getId() + " assigned to " + assignedAgent.getName());
+                    "Ticket #" + saved.getId() + " assigned to " + assignedAgent.getName(), saved.getId());
         } else {
             notificationService.notifyAdmins("System: New Ticket Created",
-                    "Ticket #" + saved.getId() + " created (Unassigned) by " + customer.getName());
+                    "Ticket #" + saved.getId() + " created (Unassigned) by " + customer.getName(), saved.getId());
         }
 
         return mapToResponse(saved);
     }
 
-    private User autoAssignAgent(Long categoryId) {
-        List<User> agents = userRepository.findAgentsByCategory(categoryId);
-        if (agents.isEmpty())
-            return null;
-
-        return agents.stream()
-                .min(Comparator.comparing(this::countActiveTickets))
-                .orElse(null);
-    }
-
-    private long countActiveTickets(User agent) {
-        return ticketRepository.countAgentTicketsByStatus(agent.getId(), TicketStatus.OPEN,
-                AssignmentStatus.ASSIGNED);
-    }
-
     public Optional<TicketResponseDTO> getTicketById(Long id) {
         return ticketRepository.findById(id)
                 .map(this::mapToResponse);
     }
 
     public List<TicketResponseDTO> getAllTickets() {
-        return ticketRepository.findAll()
-                .stream()
-                .map(this::mapToResponse)
-                .collect(Collectors.toList());
+        return ticketPageAssembler.assemble(ticketRepository.findAll(), true);
     }
 
-    public org.springframework.data.domain.Page<TicketResponseDTO> getAllTicketsPaginated(
+    public org.springframework.data.domain.Page<TicketSummaryDTO> getAllTicketsPaginated(
             TicketStatus status,
             com.ticketsystem.model.Priority priority,
             String query,
             Long locationId,
             Boolean unassignedOnly,
             org.springframework.data.domain.Pageable pageable) {
-        return ticketRepository.findAllTickets(status, priority, query, locationId, unassignedOnly, pageable)
-                .map(this::mapToResponse);
+        return ticketRepository.findAllTicketSummaries(status, priority, query, locationId, unassignedOnly, pageable);
+    }
+
+    public CursorPageDTO<TicketSummaryDTO> getAllTicketsCursor(
+            TicketStatus status,
+            com.ticketsystem.model.Priority priority,
+            String query,
+            Long locationId,
+            Boolean unassignedOnly,
+            String cursorToken,
+            int size,
+            boolean includeTotal) {
+        PageCursor cursor = PageCursor.decode(cursorToken);
+        List<TicketSummaryDTO> rows = ticketRepository.findAllTicketSummariesKeyset(status, priority, query,
+                locationId, unassignedOnly,
+                cursor != null ? cursor.getCreatedAt() : null,
+                cursor != null ? cursor.getId() : null,
+                cursor == null || cursor.isForward(),
+                PageCursor.window(cursor, size, "createdAt", "id"));
+        Long total = includeTotal
+                ? ticketRepository.countAllTickets(status, priority, query, locationId, unassignedOnly)
+                : null;
+        return CursorPageDTO.of(rows, size, cursor, TicketSummaryDTO::getCreatedAt, TicketSummaryDTO::getId, total);
     }
 
     public TicketResponseDTO updateTicketStatus(Long ticketId, TicketStatus status, Long userId) {
-        Ticket ticket = ticketRepository.findById(ticketId)
+        // Locked so the workload adjustment below can't interleave with a reassignment
+        Ticket ticket = ticketRepository.findByIdForUpdate(ticketId)
                 .orElseThrow(() -> new RuntimeException("Ticket not found"));
 
         if (!userRepository.existsById(userId)) {
             throw new RuntimeException("User not found");
         }
 
+        TicketStatus previous = ticket.getStatus();
         ticket.setStatus(status);
         ticket.setUpdatedAt(LocalDateTime.now());
 
         Ticket saved = ticketRepository.save(ticket);
 
+        if (previous != status) {
+            List<Long> assignees = assignmentRepository.findAgentIdsByTicketAndStatuses(ticketId,
+                    List.of(AssignmentStatus.ASSIGNED));
+            TicketStatsRollup.Key key = TicketStatsRollup.Key.of(ticket, assignees.isEmpty() ? null : assignees.get(0));
+            statsRollup.move(key.withStatus(previous), key);
+            if (SlaMetricsService.resolves(previous, status)) {
+                slaMetrics.record(SlaMetric.RESOLUTION, ticket.getCreatedAt(), ticket.getUpdatedAt(),
+                        key.categoryId(), key.locationId(), key.agentId());
+            }
+
+            // Only OPEN tickets count towards an agent's workload
+            if (previous == TicketStatus.OPEN || status == TicketStatus.OPEN) {
+                int delta = status == TicketStatus.OPEN ? +1 : -1;
+                for (Long agentId : assignees) {
+                    workloadLedger.adjust(agentId, ticket.getPriority(), delta);
+                }
+            }
+        }
+
         notificationService.notifyTicketStatusChanged(ticket.getCustomer(), ticket);
         notificationService.notifyAdmins("System: Ticket Status Update",
-                "Ticket #" + ticket.getId() + " status updated to " + status + " by User ID " + userId);
+                "Ticket #" + ticket.getId() + " status updated to " + status + " by User ID " + userId,
+                ticket.getId());
 
         return mapToResponse(saved);
     }
 
-    private void logDebug(String msg) {
-        try {
-            java.nio.file.Files.writeString(
-                    java.nio.file.Path.of("debug_log.txt"),
-                    java.time.LocalDateTime.now() + " " + msg + "\n",
-                    java.nio.file.StandardOpenOption.CREATE,
-                    java.nio.file.StandardOpenOption.APPEND);
-        } catch (Exception e) {
-        }
-    }
-
     public TicketResponseDTO assignTicketToAgent(Long ticketId, Long agentId) {
-        logDebug("DEBUG: assignTicketToAgent - Ticket: " + ticketId + ", Agent: " + agentId);
+        boolean changed = ticketAssignmentService.reassign(ticketId, agentId);
+
+        // Both already loaded (and the ticket locked) by reassign
         Ticket ticket = ticketRepository.findById(ticketId)
                 .orElseThrow(() -> new RuntimeException("Ticket not found"));
-
         User agent = userRepository.findById(agentId)
                 .orElseThrow(() -> new RuntimeException("Agent not found"));
-        logDebug("DEBUG: Agent found: " + agent.getEmail() + " (ID: " + agent.getId() + ")");
-
-        assignmentRepository.deactivateAssignments(ticketId,
-                List.of(AssignmentStatus.ASSIGNED, AssignmentStatus.ACTIVE));
-
-        TicketAssignment assignment = new TicketAssignment();
-        assignment.setTicket(ticket);
-        assignment.setAgent(agent);
-        assignment.setCategory(ticket.getCategory());
-        assignment.setStatus(AssignmentStatus.ASSIGNED);
-        assignment.setAssignedAt(LocalDateTime.now());
-        assignment.setNotificationSent(false);
-        assignmentRepository.save(assignment);
-        logDebug("DEBUG: Assignment saved with status ASSIGNED");
+        if (!changed) {
+            log.debug("Ticket {} already assigned to agent {}, nothing to do", ticketId, agentId);
+            return mapToResponse(ticket);
+        }
 
         notificationService.notifyNewTicketAssigned(agent, ticket);
         notificationService.notifyAdmins("System: Ticket Reassigned",
-                "Ticket #" + ticket.getId() + " manually assigned to " + agent.getName());
+                "Ticket #" + ticket.getId() + " manually assigned to " + agent.getName(), ticket.getId());
 
         return mapToResponse(ticket);
     }
 
     public List<TicketResponseDTO> getTicketsByCustomer(Long customerId) {
-        return ticketRepository.findByCustomerId(customerId)
-                .stream()
-                .map(this::mapToResponse)
-                .collect(Collectors.toList());
+        return ticketPageAssembler.assemble(ticketRepository.findByCustomerId(customerId), true);
     }
 
-    public org.springframework.data.domain.Page<TicketResponseDTO> getTicketsByCustomerPaginated(
+    public org.springframework.data.domain.Page<TicketSummaryDTO> getTicketsByCustomerPaginated(
             Long customerId,
             TicketStatus status,
             com.ticketsystem.model.Priority priority,
             String query,
             org.springframework.data.domain.Pageable pageable) {
-        return ticketRepository.findTicketsByCustomer(customerId, status, priority, query, pageable)
-                .map(this::mapToResponse);
+        return ticketRepository.findTicketSummariesByCustomer(customerId, status, priority, query, pageable);
+    }
+
+    public CursorPageDTO<TicketSummaryDTO> getTicketsByCustomerCursor(
+            Long customerId,
+            TicketStatus status,
+            com.ticketsystem.model.Priority priority,
+            String query,
+            String cursorToken,
+            int size,
+            boolean includeTotal) {
+        PageCursor cursor = PageCursor.decode(cursorToken);
+        List<TicketSummaryDTO> rows = ticketRepository.findTicketSummariesByCustomerKeyset(customerId, status,
+                priority, query,
+                cursor != null ? cursor.getCreatedAt() : null,
+                cursor != null ? cursor.getId() : null,
+                cursor == null || cursor.isForward(),
+                PageCursor.window(cursor, size, "createdAt", "id"));
+        Long total = includeTotal
+                ? ticketRepository.countTicketsByCustomer(customerId, status, priority, query)
+                : null;
+        return CursorPageDTO.of(rows, size, cursor, TicketSummaryDTO::getCreatedAt, TicketSummaryDTO::getId, total);
     }
 
     public List<TicketResponseDTO> getTicketsByAgent(Long agentId) {
-        return assignmentRepository.findByAgentIdAndStatus(agentId, AssignmentStatus.ASSIGNED)
+        List<Ticket> tickets = assignmentRepository.findByAgentIdAndStatus(agentId, AssignmentStatus.ASSIGNED)
                 .stream()
-                .map(a -> mapToResponse(a.getTicket()))
+                .map(TicketAssignment::getTicket)
                 .collect(Collectors.toList());
+        return ticketPageAssembler.assemble(tickets, true);
     }
 
-    public org.springframework.data.domain.Page<TicketResponseDTO> getAssignedTicketsPaginated(
+    public org.springframework.data.domain.Page<TicketSummaryDTO> getAssignedTicketsPaginated(
             Long agentId, TicketStatus status, String search, org.springframework.data.domain.Pageable pageable) {
-        org.springframework.data.domain.Page<Ticket> page = ticketRepository.findAssignedTickets(agentId, status,
-                search, AssignmentStatus.ASSIGNED,
+        return ticketRepository.findAssignedTicketSummaries(agentId, status, search, AssignmentStatus.ASSIGNED,
                 pageable);
-        return page.map(this::mapToResponse);
     }
 
+    public CursorPageDTO<TicketSummaryDTO> getAssignedTicketsCursor(
+            Long agentId, TicketStatus status, String search, String cursorToken, int size, boolean includeTotal) {
+        PageCursor cursor = PageCursor.decode(cursorToken);
+        List<TicketSummaryDTO> rows = ticketRepository.findAssignedTicketSummariesKeyset(agentId, status, search,
+                AssignmentStatus.ASSIGNED,
+                cursor != null ? cursor.getCreatedAt() : null,
+                cursor != null ? cursor.getId() : null,
+                cursor == null || cursor.isForward(),
+                PageCursor.window(cursor, size, "createdAt", "id"));
+        Long total = includeTotal
+                ? ticketRepository.countAssignedTickets(agentId, status, search, AssignmentStatus.ASSIGNED)
+                : null;
+        return CursorPageDTO.of(rows, size, cursor, TicketSummaryDTO::getCreatedAt, TicketSummaryDTO::getId, total);
+    }
+
+    // Ranked search returns the best matches only
+    private static final int SEARCH_LIMIT = 50;
+
     public List<TicketResponseDTO> searchTickets(String query) {
-        return ticketRepository.searchTickets(query)
-                .stream()
-                .map(this::mapToResponse)
-                .collect(Collectors.toList());
+        if (query == null || query.isBlank())
+            return List.of();
+        return ticketPageAssembler.assemble(ticketRepository.searchTickets(query.trim(),
+                org.springframework.data.domain.PageRequest.of(0, SEARCH_LIMIT)), true);
     }
 
     public List<TicketResponseDTO> getTicketsByStatus(TicketStatus status) {
-        return ticketRepository.findByStatus(status)
-                .stream()
-                .map(this::mapToResponse)
-                .collect(Collectors.toList());
+        return ticketPageAssembler.assemble(ticketRepository.findByStatus(status), true);
     }
 
     public List<TicketResponseDTO> getTicketsByCategory(Long categoryId) {
-        return ticketRepository.findByCategoryId(categoryId)
-                .stream()
-                .map(this::mapToResponse)
-                .collect(Collectors.toList());
+        return ticketPageAssembler.assemble(ticketRepository.findByCategoryId(categoryId), true);
     }
 
     public Long getTicketCountByStatus(TicketStatus status) {
@@ -242,92 +288,6 @@ public class TicketService {
     }
 
     private TicketResponseDTO mapToResponse(Ticket ticket) {
-        TicketResponseDTO dto = new TicketResponseDTO();
-
-        dto.setId(ticket.getId());
-        dto.setTitle(ticket.getTitle());
-        dto.setDescription(ticket.getDescription());
-        dto.setStatus(ticket.getStatus());
-        dto.setPriority(ticket.getPriority());
-        dto.setCreatedAt(ticket.getCreatedAt());
-        dto.setUpdatedAt(ticket.getUpdatedAt());
-
-        if (ticket.getCustomer() != null) {
-            dto.setCustomer(mapUser(ticket.getCustomer()));
-        }
-
-        if (ticket.getCategory() != null) {
-            dto.setCategory(mapCategory(ticket.getCategory()));
-        }
-
-        if (ticket.getLocation() != null) {
-            dto.setLocation(mapLocation(ticket.getLocation()));
-        }
-
-        assignmentRepository.findActiveAssignment(ticket.getId(), AssignmentStatus.ASSIGNED)
-                .stream().findFirst()
-                .ifPresent(a -> dto.setAssignedAgent(mapUser(a.getAgent())));
-
-        dto.setComments(
-                commentRepository.findByTicketIdOrderByCreatedAtAsc(ticket.getId())
-                        .stream()
-                        .map(this::mapComment)
-                        .collect(Collectors.toList()));
-
-        return dto;
-    }
-
-    private UserResponseDTO mapUser(User user) {
-        if (user == null)
-            return null;
-        UserResponseDTO dto = new UserResponseDTO();
-        dto.setId(user.getId());
-        dto.setName(user.getName());
-        dto.setEmail(user.getEmail());
-        dto.setRole(user.getRole());
-        dto.setPhoneNumber(user.getPhoneNumber());
-        dto.setEnabled(user.isEnabled());
-        return dto;
-    }
-
-    private TicketCategoryDTO mapCategory(TicketCategory category) {
-        if (category == null)
-            return null;
-        TicketCategoryDTO dto = new TicketCategoryDTO();
-        dto.setId(category.getId());
-        dto.setName(category.getName());
-        dto.setDescription(category.getDescription());
-        return dto;
-    }
-
-    private LocationDTO mapLocation(Location location) {
-        if (location == null)
-            return null;
-        LocationDTO dto = new LocationDTO();
-        dto.setId(location.getId());
-        dto.setName(location.getName());
-        dto.setType(location.getType());
-        if (location.getParent() != null) {
-            dto.setParentId(location.getParent().getId());
-            dto.setParentName(location.getParent().getName());
-        }
-        return dto;
-    }
-
-    private com.ticketsystem.dto.CommentDTO mapComment(Comment comment) {
-        if (comment == null)
-            return null;
-        com.ticketsystem.dto.CommentDTO dto = new com.ticketsystem.dto.CommentDTO();
-        dto.setId(comment.getId());
-        dto.setContent(comment.getContent());
-        dto.setCreatedAt(comment.getCreatedAt());
-        if (comment.getTicket() != null) {
-            dto.setTicketId(comment.getTicket().getId());
-        }
-        if (comment.getAuthor() != null) {
-            dto.setAuthorName(comment.getAuthor().getName());
-            dto.setAuthor(mapUser(comment.getAuthor()));
-        }
-        return dto;
+        return ticketPageAssembler.assemble(ticket, true);
     }
 }
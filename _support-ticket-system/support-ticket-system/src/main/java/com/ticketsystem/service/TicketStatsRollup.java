@@ -0,0 +1,235 @@
+package com.ticketsystem.service;
+
+import com.ticketsystem.model.Priority;
+import com.ticketsystem.model.Ticket;
+import com.ticketsystem.model.TicketStatus;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionException;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.*;
+
+/**
+ * Keeps the ticket_stats rollup (see TicketStat): tickets counted per status,
+ * priority, category, location and current agent, where the current agent is
+ * the one on the ticket's latest ASSIGNED assignment.
+ *
+ * Ticket creation, status changes and reassignment add +1/-1 deltas for the
+ * keys they move a ticket between. The deltas of a transaction are collected
+ * and written just before it commits, as one batch in key order (see
+ * DatabaseWrites.defer).
+ *
+ * A nightly verifier (and a run when the application is ready, which also
+ * fills the table on first start) recomputes the counts from the tickets,
+ * reports any drift and corrects it.
+ */
+@Component
+public class TicketStatsRollup {
+
+    private static final Logger log = LoggerFactory.getLogger(TicketStatsRollup.class);
+
+    /** One rollup row; 0 stands for no category, location or agent. */
+    public record Key(TicketStatus status, Priority priority, long categoryId, long locationId, long agentId)
+            implements Comparable<Key> {
+
+        private static final Comparator<Key> ORDER = Comparator.comparing(Key::status)
+                .thenComparing(Key::priority)
+                .thenComparingLong(Key::categoryId)
+                .thenComparingLong(Key::locationId)
+                .thenComparingLong(Key::agentId);
+
+        public static Key of(Ticket ticket, Long agentId) {
+            return of(ticket.getStatus(), ticket.getPriority(),
+                    ticket.getCategory() != null ? ticket.getCategory().getId() : null,
+                    ticket.getLocation() != null ? ticket.getLocation().getId() : null, agentId);
+        }
+
+        // Tickets without a priority are created as MEDIUM
+        public static Key of(TicketStatus status, Priority priority, Long categoryId, Long locationId, Long agentId) {
+            return new Key(status, priority != null ? priority : Priority.MEDIUM,
+                    categoryId != null ? categoryId : 0, locationId != null ? locationId : 0,
+                    agentId != null ? agentId : 0);
+        }
+
+        public Key withStatus(TicketStatus status) {
+            return new Key(status, priority, categoryId, locationId, agentId);
+        }
+
+        public Key withAgent(Long agentId) {
+            return new Key(status, priority, categoryId, locationId, agentId != null ? agentId : 0);
+        }
+
+        @Override
+        public int compareTo(Key other) {
+            return ORDER.compare(this, other);
+        }
+    }
+
+    // The ticket's current agent is the one on its latest ASSIGNED assignment
+    private static final String SOURCE_SQL = """
+            SELECT t.status, t.priority, t.category_id, t.location_id, ta.agent_id, count(*)
+            FROM tickets t
+            LEFT JOIN ticket_assignments ta ON ta.id = (SELECT max(ta2.id) FROM ticket_assignments ta2
+                                                        WHERE ta2.ticket_id = t.id AND ta2.status = 'ASSIGNED')
+            %s
+            GROUP BY t.status, t.priority, t.category_id, t.location_id, ta.agent_id
+            """;
+
+    private static final String UPDATE_SQL = """
+            UPDATE ticket_stats SET ticket_count = ticket_count + ?
+            WHERE status = ? AND priority = ? AND category_id = ? AND location_id = ? AND agent_id = ?
+            """;
+
+    private static final String INSERT_SQL = """
+            INSERT INTO ticket_stats (ticket_count, status, priority, category_id, location_id, agent_id)
+            VALUES (?, ?, ?, ?, ?, ?)
+            """;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private DatabaseWrites databaseWrites;
+
+    /**
+     * Adds {@code delta} tickets to the key as part of the current transaction
+     * (or right away when there is none).
+     */
+    public void add(Key key, long delta) {
+        if (delta == 0)
+            return;
+        databaseWrites.defer(this, key, delta, Long::sum, this::write);
+    }
+
+    /** Moves one ticket from one key to another, e.g. on a status change. */
+    public void move(Key from, Key to) {
+        if (from.equals(to))
+            return;
+        add(from, -1);
+        add(to, +1);
+    }
+
+    /**
+     * Takes the customer's tickets out of the rollup; call before they (and
+     * their assignments) are deleted.
+     */
+    public void customerRemoved(Long customerId) {
+        source("WHERE t.customer_id = ?", customerId).forEach((key, count) -> add(key, -count));
+    }
+
+    /**
+     * Moves the tickets the agent currently holds to "no agent"; call before
+     * the agent's assignments are deleted.
+     */
+    public void agentRemoved(Long agentId) {
+        source("WHERE ta.agent_id = ?", agentId).forEach((key, count) -> {
+            add(key, -count);
+            add(key.withAgent(null), count);
+        });
+    }
+
+    // -----------------------
+    // VERIFICATION
+    // -----------------------
+
+    /**
+     * Recomputes the rollup from the tickets and corrects the rows that
+     * differ. Returns the number of keys that had drifted.
+     *
+     * Both sides are read in one REPEATABLE READ transaction, so they come from
+     * the same snapshot; on PostgreSQL a concurrent change to a corrected row
+     * makes the repair fail, and it is left to the next run.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(cron = "${app.dashboard.stats.verify-cron:0 30 3 * * *}")
+    public int verify() {
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        tx.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+        try {
+            Integer drifted = tx.execute(status -> {
+                Map<Key, Long> expected = source("", null);
+                Map<Key, Long> stored = new HashMap<>();
+                jdbcTemplate.query(
+                        "SELECT status, priority, category_id, location_id, agent_id, ticket_count FROM ticket_stats",
+                        rs -> {
+                            stored.merge(key(rs), rs.getLong(6), Long::sum);
+                        });
+
+                Map<Key, Long> corrections = new TreeMap<>();
+                expected.forEach((key, count) -> {
+                    long diff = count - stored.getOrDefault(key, 0L);
+                    if (diff != 0)
+                        corrections.put(key, diff);
+                });
+                stored.forEach((key, count) -> {
+                    if (count != 0 && !expected.containsKey(key))
+                        corrections.put(key, -count);
+                });
+                if (!corrections.isEmpty()) {
+                    corrections.forEach((key, diff) -> log.warn("Ticket stats drift at {}: off by {}", key, -diff));
+                    write(corrections);
+                }
+                jdbcTemplate.update("DELETE FROM ticket_stats WHERE ticket_count = 0");
+                return corrections.size();
+            });
+            if (drifted != null && drifted > 0) {
+                log.warn("Ticket stats verified: {} keys had drifted and were corrected", drifted);
+            } else {
+                log.info("Ticket stats verified: no drift");
+            }
+            return drifted != null ? drifted : 0;
+        } catch (DataAccessException | TransactionException e) {
+            log.warn("Ticket stats verification did not complete: {}", e.getMessage());
+            return -1;
+        }
+    }
+
+    // -----------------------
+    // HELPERS
+    // -----------------------
+
+    // Counts from the tickets themselves, optionally restricted by a WHERE clause with one parameter
+    private Map<Key, Long> source(String where, Object param) {
+        Map<Key, Long> counts = new HashMap<>();
+        Object[] args = param != null ? new Object[] { param } : new Object[0];
+        jdbcTemplate.query(SOURCE_SQL.formatted(where), rs -> {
+            counts.merge(key(rs), rs.getLong(6), Long::sum);
+        }, args);
+        return counts;
+    }
+
+    private static Key key(ResultSet rs) throws SQLException {
+        String priority = rs.getString(2);
+        return Key.of(TicketStatus.valueOf(rs.getString(1)), priority != null ? Priority.valueOf(priority) : null,
+                rs.getLong(3), rs.getLong(4), rs.getLong(5));
+    }
+
+    // Deltas in key order, which is the lock order for the rollup rows
+    private void write(Map<Key, Long> deltas) {
+        List<Object[]> rows = new ArrayList<>(deltas.size());
+        deltas.forEach((key, delta) -> {
+            if (delta != 0)
+                rows.add(new Object[] { delta, key.status().name(), key.priority().name(), key.categoryId(),
+                        key.locationId(), key.agentId() });
+        });
+        databaseWrites.upsert(INSERT_SQL, """
+                ON CONFLICT (status, priority, category_id, location_id, agent_id)
+                DO UPDATE SET ticket_count = ticket_stats.ticket_count + EXCLUDED.ticket_count
+                """, UPDATE_SQL, rows);
+    }
+}
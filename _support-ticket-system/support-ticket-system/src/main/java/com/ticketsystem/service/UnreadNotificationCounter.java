@@ -0,0 +1,110 @@
+package com.ticketsystem.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.*;
+
+/**
+ * Unread notification count per user, kept in the notification_unread_counts
+ * table and read with a primary-key lookup, so every application instance
+ * sees the same count without a COUNT over the notifications.
+ *
+ * Changes made in a transaction are collected and written to the table just
+ * before it commits, as one batch in user id order (see
+ * DatabaseWrites.defer): the counter rows are locked only briefly and always
+ * in the same order, so transactions that notify the same users (every
+ * admin, say) never deadlock.
+ *
+ * When the application is ready and periodically after that, the counters are
+ * compared with the notifications themselves and only rows that drifted
+ * (notifications deleted with their user, say) are corrected, by adding the
+ * difference. A counter and its notifications change in the same transaction,
+ * so the comparison, read from one snapshot, never mistakes a commit in flight
+ * for drift.
+ */
+@Component
+public class UnreadNotificationCounter {
+
+    private static final Logger log = LoggerFactory.getLogger(UnreadNotificationCounter.class);
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private DatabaseWrites databaseWrites;
+
+    private static final String UPDATE_SQL =
+            "UPDATE notification_unread_counts SET unread = unread + ? WHERE user_id = ?";
+
+    private static final String INSERT_SQL =
+            "INSERT INTO notification_unread_counts (unread, user_id) VALUES (?, ?)";
+
+    // Unread notifications minus the counter, for users where they differ
+    private static final String DRIFT_SQL = """
+            SELECT user_id, sum(drift) FROM (
+                SELECT user_id, count(*) AS drift FROM notifications WHERE is_read = FALSE GROUP BY user_id
+                UNION ALL
+                SELECT user_id, -unread FROM notification_unread_counts
+            ) counts
+            GROUP BY user_id
+            HAVING sum(drift) <> 0
+            """;
+
+    public int unread(Long userId) {
+        List<Integer> rows = jdbcTemplate.queryForList(
+                "SELECT unread FROM notification_unread_counts WHERE user_id = ?", Integer.class, userId);
+        return rows.isEmpty() ? 0 : Math.max(rows.get(0), 0);
+    }
+
+    /**
+     * Adds {@code delta} to the user's count as part of the current
+     * transaction (or right away when there is none).
+     */
+    public void add(Long userId, int delta) {
+        if (userId == null || delta == 0)
+            return;
+        databaseWrites.defer(this, userId, delta, Integer::sum, this::write);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${app.notifications.unread-reconcile-ms:3600000}",
+            initialDelayString = "${app.notifications.unread-reconcile-ms:3600000}")
+    public void reconcile() {
+        Integer drifted = new TransactionTemplate(transactionManager).execute(status -> {
+            Map<Long, Integer> corrections = new TreeMap<>();
+            jdbcTemplate.query(DRIFT_SQL, rs -> {
+                corrections.put(rs.getLong(1), rs.getInt(2));
+            });
+            write(corrections);
+            return corrections.size();
+        });
+        if (drifted != null && drifted > 0) {
+            log.info("Unread notification counts reconciled: {} users corrected", drifted);
+        }
+    }
+
+    // Deltas in user id order, which is the lock order for the counter rows
+    private void write(Map<Long, Integer> deltas) {
+        List<Object[]> rows = new ArrayList<>(deltas.size());
+        deltas.forEach((userId, delta) -> {
+            if (delta != 0)
+                rows.add(new Object[] { delta, userId });
+        });
+        databaseWrites.upsert(INSERT_SQL, """
+                ON CONFLICT (user_id)
+                DO UPDATE SET unread = notification_unread_counts.unread + EXCLUDED.unread
+                """, UPDATE_SQL, rows);
+    }
+}
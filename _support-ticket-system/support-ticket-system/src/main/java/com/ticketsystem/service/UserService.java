@@ -1,5 +1,7 @@
 package com.ticketsystem.service;
 
+import com.ticketsystem.dto.CursorPageDTO;
+import com.ticketsystem.dto.PageCursor;
 import com.ticketsystem.dto.UserDTO;
 import com.ticketsystem.dto.UserResponseDTO;
 import com.ticketsystem.model.TicketCategory;
@@ -46,6 +48,24 @@ public class UserService {
     @Autowired
     private PasswordEncoder passwordEncoder;
 
+    @Autowired
+    private AgentWorkloadLedger workloadLedger;
+
+    @Autowired
+    private TicketStatsRollup statsRollup;
+
+    @Autowired
+    private TicketActivityRollup activityRollup;
+
+    @Autowired
+    private AssignmentEngine assignmentEngine;
+
+    @Autowired
+    private com.ticketsystem.repository.LocationRepository locationRepository;
+
+    @Autowired
+    private org.springframework.context.ApplicationEventPublisher eventPublisher;
+
     public List<UserResponseDTO> getAllUsers() {
         return userRepository.findAll()
                 .stream()
@@ -72,6 +92,8 @@ public class UserService {
         user.setPhoneNumber(dto.getPhoneNumber());
         user.setRole(dto.getRole() != null ? dto.getRole() : UserRole.CUSTOMER);
         user.setEnabled(true);
+        if (dto.getLocationId() != null)
+            user.setLocation(findLocation(dto.getLocationId()));
 
         if (dto.getPassword() != null && !dto.getPassword().isBlank()) {
             user.setPassword(passwordEncoder.encode(dto.getPassword()));
@@ -81,6 +103,7 @@ public class UserService {
         }
 
         User saved = userRepository.save(user);
+        eventPublisher.publishEvent(SearchIndexEvent.of(saved));
         return mapToResponse(saved);
     }
 
@@ -96,11 +119,16 @@ public class UserService {
             user.setRole(dto.getRole());
         }
 
+        if (dto.getLocationId() != null) {
+            user.setLocation(findLocation(dto.getLocationId()));
+        }
+
         if (dto.getPassword() != null && !dto.getPassword().isBlank()) {
             user.setPassword(passwordEncoder.encode(dto.getPassword()));
         }
 
         User saved = userRepository.save(user);
+        eventPublisher.publishEvent(SearchIndexEvent.of(saved));
         return mapToResponse(saved);
     }
 
@@ -113,11 +141,13 @@ public class UserService {
             ticketRepository.unassignTickets(id);
 
             // 2. Remove assignments (TicketAssignment entity where user is agent)
+            statsRollup.agentRemoved(id);
             assignmentRepository.deleteByAgentId(id);
 
             // --- IF USER IS CUSTOMER (or creator of tickets) ---
             // 3. Delete DEPENDENCIES of created tickets first!
             // (Assignments pointing to tickets owned by this user)
+            statsRollup.customerRemoved(id);
             assignmentRepository.deleteByTicketCustomerId(id);
             // (Comments on tickets owned by this user)
             commentRepository.deleteByTicketCustomerId(id);
@@ -140,10 +170,18 @@ public class UserService {
             }
 
             // 7. Delete tickets created BY this user (if customer)
+            List<Long> ticketIds = ticketRepository.findIdsByCustomerId(id);
+            for (Long ticketId : ticketIds) {
+                eventPublisher.publishEvent(SearchIndexEvent.removed(GlobalSearchIndex.Type.TICKET, ticketId));
+            }
+            activityRollup.ticketsRemoved(ticketIds);
             ticketRepository.deleteByCustomerId(id);
 
             // 8. Finally delete the user
             userRepository.deleteById(id);
+            eventPublisher.publishEvent(SearchIndexEvent.removed(GlobalSearchIndex.Type.USER, id));
+            // Their assignments and any tickets they raised are gone; recount every agent
+            workloadLedger.reconcileAfterCommit();
             notificationService.notifyAdmins("System: User Deleted",
                     "User ID " + id + " has been deleted from the system.");
 
@@ -160,6 +198,7 @@ public class UserService {
 
         user.setEnabled(!user.isEnabled());
         User saved = userRepository.save(user);
+        assignmentEngine.refreshAfterCommit();
         return mapToResponse(saved);
     }
 
@@ -182,6 +221,24 @@ public class UserService {
                 .map(this::mapToResponse);
     }
 
+    // Keyset listing, newest users first (keyed on id)
+    public CursorPageDTO<UserResponseDTO> getUsersCursor(UserRole role, String cursorToken, int size,
+            boolean includeTotal) {
+        PageCursor cursor = PageCursor.decode(cursorToken);
+        List<UserResponseDTO> rows = userRepository.findByRoleKeyset(role,
+                cursor != null ? cursor.getId() : null,
+                cursor == null || cursor.isForward(),
+                PageCursor.window(cursor, size, "id"))
+                .stream()
+                .map(this::mapToResponse)
+                .collect(Collectors.toList());
+        Long total = null;
+        if (includeTotal) {
+            total = role != null ? userRepository.countByRole(role) : userRepository.count();
+        }
+        return CursorPageDTO.of(rows, size, cursor, u -> null, UserResponseDTO::getId, total);
+    }
+
     public UserResponseDTO updateProfile(Long userId, UserDTO dto) {
         User user = userRepository.findById(userId)
                 .orElseThrow(() -> new RuntimeException("User not found"));
@@ -193,6 +250,7 @@ public class UserService {
         // Email/Role not updatable via simple profile update
 
         User saved = userRepository.save(user);
+        eventPublisher.publishEvent(SearchIndexEvent.of(saved));
         return mapToResponse(saved);
     }
 
@@ -224,6 +282,12 @@ public class UserService {
 
         agent.setCategories(categories);
         userRepository.save(agent);
+        assignmentEngine.refreshAfterCommit();
+    }
+
+    private com.ticketsystem.model.Location findLocation(Long locationId) {
+        return locationRepository.findById(locationId)
+                .orElseThrow(() -> new RuntimeException("Location not found"));
     }
 
     // -----------------------
@@ -239,6 +303,7 @@ public class UserService {
         dto.setRole(user.getRole());
         dto.setEnabled(user.isEnabled());
         dto.setAvatarUrl(user.getAvatarUrl());
+        dto.setLocationId(user.getLocation() != null ? user.getLocation().getId() : null);
         return dto;
     }
 }
@@ -0,0 +1,52 @@
+package com.ticketsystem;
+
+import com.ticketsystem.model.*;
+
+/**
+ * Entities the tests build over and over. Nothing is saved here: tests
+ * persist them with whichever TestEntityManager or repository they use.
+ */
+public final class TestFixtures {
+
+	private TestFixtures() {
+	}
+
+	public static User user(String email, UserRole role) {
+		User user = new User();
+		user.setName(email);
+		user.setEmail(email);
+		user.setRole(role);
+		return user;
+	}
+
+	public static Ticket ticket(String title, User customer, TicketStatus status, Priority priority) {
+		Ticket ticket = new Ticket();
+		ticket.setTitle(title);
+		ticket.setCustomer(customer);
+		ticket.setStatus(status);
+		ticket.setPriority(priority);
+		return ticket;
+	}
+
+	public static TicketAssignment assignment(Ticket ticket, User agent, AssignmentStatus status) {
+		TicketAssignment assignment = new TicketAssignment();
+		assignment.setTicket(ticket);
+		assignment.setAgent(agent);
+		assignment.setStatus(status);
+		return assignment;
+	}
+
+	public static Location location(String name, LocationType type, Location parent) {
+		Location location = new Location();
+		location.setName(name);
+		location.setType(type);
+		location.setParent(parent);
+		return location;
+	}
+
+	public static TicketCategory category(String name) {
+		TicketCategory category = new TicketCategory();
+		category.setName(name);
+		return category;
+	}
+}
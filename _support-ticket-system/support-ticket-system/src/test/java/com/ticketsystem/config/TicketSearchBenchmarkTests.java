@@ -0,0 +1,118 @@
+package com.ticketsystem.config;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * LIKE '%q%' vs. tsvector/GIN search on a seeded table. Needs a scratch PostgreSQL database:
+ *
+ * mvn test -Dtest=TicketSearchBenchmarkTests -Dbench.pg.url=jdbc:postgresql://localhost:5433/bench
+ * -Dbench.pg.user=postgres -Dbench.pg.password=... [-Dbench.rows=1000000]
+ *
+ * Works in its own schema, which is dropped afterwards.
+ */
+@EnabledIfSystemProperty(named = "bench.pg.url", matches = ".+")
+class TicketSearchBenchmarkTests {
+
+	private static final String SCHEMA = "bench_ticket_search";
+	private static final String TABLE = SCHEMA + ".tickets";
+	private static final String[] QUERIES = { "printer", "vpn conn", "kigali", "zzz-not-there" };
+	private static final int RUNS = 5;
+
+	private static Connection connection;
+
+	@BeforeAll
+	static void seed() throws Exception {
+		connection = DriverManager.getConnection(System.getProperty("bench.pg.url"),
+				System.getProperty("bench.pg.user", "postgres"), System.getProperty("bench.pg.password", ""));
+		int rows = Integer.getInteger("bench.rows", 1_000_000);
+
+		try (Statement st = connection.createStatement()) {
+			st.execute("DROP SCHEMA IF EXISTS " + SCHEMA + " CASCADE");
+			st.execute("CREATE SCHEMA " + SCHEMA);
+			st.execute("CREATE TABLE " + TABLE + " (id bigserial PRIMARY KEY, title varchar(255), description text)");
+			st.execute("""
+					INSERT INTO %s (title, description)
+					SELECT (ARRAY['Printer jammed','VPN connection drops','Password reset','Laptop screen broken',
+					              'Email not syncing'])[1 + g %% 5] || ' #' || g,
+					       repeat('Customer reports the issue again after restart. ', 1 + g %% 8)
+					       || (ARRAY['Office in Kigali','Branch in Musanze','Site in Huye','Remote'])[1 + g %% 4]
+					FROM generate_series(1, %d) g
+					""".formatted(TABLE, rows));
+			for (String statement : TicketSearchSchemaInitializer.statements(TABLE)) {
+				st.execute(statement.replace("idx_" + TABLE + "_", "idx_bench_"));
+			}
+			st.execute("ANALYZE " + TABLE);
+		}
+	}
+
+	@AfterAll
+	static void drop() throws Exception {
+		if (connection == null)
+			return;
+		try (Statement st = connection.createStatement()) {
+			st.execute("DROP SCHEMA IF EXISTS " + SCHEMA + " CASCADE");
+		}
+		connection.close();
+	}
+
+	@Test
+	void fullTextSearchBeatsLikeScan() throws Exception {
+		String like = """
+				SELECT id FROM %s
+				WHERE lower(title) LIKE '%%' || lower(?) || '%%' OR lower(description) LIKE '%%' || lower(?) || '%%'
+				   OR cast(id AS varchar) LIKE '%%' || ? || '%%'
+				ORDER BY id DESC LIMIT 50
+				""".formatted(TABLE);
+		String fts = """
+				SELECT id FROM %s
+				WHERE id = (CASE WHEN ? ~ '^[0-9]{1,18}$' THEN cast(? AS bigint) END)
+				   OR search_vector @@ ticket_tsquery(?)
+				ORDER BY ts_rank(search_vector, ticket_tsquery(?)) DESC, id DESC LIMIT 50
+				""".formatted(TABLE);
+
+		long likeTotal = 0;
+		long ftsTotal = 0;
+		for (String q : QUERIES) {
+			long likeMs = time(like, q, 3);
+			long ftsMs = time(fts, q, 4);
+			System.out.printf("%-16s LIKE %6d ms   FTS %6d ms%n", q, likeMs, ftsMs);
+			likeTotal += likeMs;
+			ftsTotal += ftsMs;
+		}
+		System.out.printf("%-16s LIKE %6d ms   FTS %6d ms%n", "total", likeTotal, ftsTotal);
+
+		assertThat(ftsTotal).isLessThan(likeTotal);
+	}
+
+	// Median of RUNS executions, in milliseconds
+	private static long time(String sql, String q, int params) throws Exception {
+		long[] samples = new long[RUNS];
+		try (PreparedStatement ps = connection.prepareStatement(sql)) {
+			for (int i = 1; i <= params; i++) {
+				ps.setString(i, q);
+			}
+			for (int run = 0; run < RUNS; run++) {
+				long start = System.nanoTime();
+				try (ResultSet rs = ps.executeQuery()) {
+					while (rs.next()) {
+						rs.getLong(1);
+					}
+				}
+				samples[run] = (System.nanoTime() - start) / 1_000_000;
+			}
+		}
+		java.util.Arrays.sort(samples);
+		return samples[RUNS / 2];
+	}
+}
@@ -0,0 +1,143 @@
+package com.ticketsystem.repository;
+
+import com.ticketsystem.TestFixtures;
+import com.ticketsystem.dto.CursorPageDTO;
+import com.ticketsystem.dto.PageCursor;
+import com.ticketsystem.dto.TicketSummaryDTO;
+import com.ticketsystem.model.*;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.context.ActiveProfiles;
+
+import static com.ticketsystem.TestFixtures.assignment;
+import static com.ticketsystem.TestFixtures.user;
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest
+@ActiveProfiles("test")
+class TicketRepositoryTests {
+
+	@Autowired
+	private TestEntityManager entityManager;
+
+	@Autowired
+	private TicketRepository ticketRepository;
+
+	private User customer;
+	private User oldAgent;
+	private User agent;
+	private Ticket assigned;
+	private Ticket unassigned;
+
+	@BeforeEach
+	void seed() {
+		customer = entityManager.persist(user("customer@example.com", UserRole.CUSTOMER));
+		oldAgent = entityManager.persist(user("old-agent@example.com", UserRole.AGENT));
+		agent = entityManager.persist(user("agent@example.com", UserRole.AGENT));
+
+		assigned = ticket("Printer jammed");
+		unassigned = ticket("VPN down");
+
+		entityManager.persist(assignment(assigned, oldAgent, AssignmentStatus.REASSIGNED));
+		entityManager.persist(assignment(assigned, agent, AssignmentStatus.ASSIGNED));
+
+		entityManager.flush();
+		entityManager.clear();
+	}
+
+	@Test
+	void summariesCarryTheActiveAgentOnly() {
+		Page<TicketSummaryDTO> page = ticketRepository.findAllTicketSummaries(
+				null, null, null, null, null, PageRequest.of(0, 10));
+
+		assertThat(page.getTotalElements()).isEqualTo(2);
+		TicketSummaryDTO summary = page.getContent().stream()
+				.filter(s -> s.getId().equals(assigned.getId()))
+				.findFirst().orElseThrow();
+		assertThat(summary.getAssignedAgent().getId()).isEqualTo(agent.getId());
+		assertThat(summary.getCustomer().getName()).isEqualTo(customer.getName());
+	}
+
+	@Test
+	void unassignedFilterUsesActiveAssignment() {
+		Page<TicketSummaryDTO> page = ticketRepository.findAllTicketSummaries(
+				null, null, null, null, true, PageRequest.of(0, 10));
+
+		assertThat(page.getContent()).extracting(TicketSummaryDTO::getId).containsExactly(unassigned.getId());
+		assertThat(page.getTotalElements()).isEqualTo(1);
+	}
+
+	@Test
+	void assignedSummariesAreScopedToTheAgent() {
+		Page<TicketSummaryDTO> page = ticketRepository.findAssignedTicketSummaries(
+				agent.getId(), null, "printer", AssignmentStatus.ASSIGNED, PageRequest.of(0, 10));
+
+		assertThat(page.getContent()).extracting(TicketSummaryDTO::getId).containsExactly(assigned.getId());
+		assertThat(ticketRepository.findAssignedTicketSummaries(
+				oldAgent.getId(), null, null, AssignmentStatus.ASSIGNED, PageRequest.of(0, 10))).isEmpty();
+	}
+
+	@Test
+	void keysetWindowsWalkForwardAndBack() {
+		for (int i = 0; i < 5; i++) {
+			ticket("Extra " + i);
+		}
+		entityManager.flush();
+
+		CursorPageDTO<TicketSummaryDTO> first = window(null, 3);
+		assertThat(first.getContent()).hasSize(3);
+		assertThat(first.isHasNext()).isTrue();
+		assertThat(first.isHasPrevious()).isFalse();
+
+		CursorPageDTO<TicketSummaryDTO> second = window(PageCursor.decode(first.getNextCursor()), 3);
+		CursorPageDTO<TicketSummaryDTO> third = window(PageCursor.decode(second.getNextCursor()), 3);
+		assertThat(third.getContent()).hasSize(1);
+		assertThat(third.isHasNext()).isFalse();
+
+		CursorPageDTO<TicketSummaryDTO> back = window(PageCursor.decode(second.getPrevCursor()), 3);
+		assertThat(back.getContent()).extracting(TicketSummaryDTO::getId)
+				.containsExactlyElementsOf(first.getContent().stream().map(TicketSummaryDTO::getId).toList());
+		assertThat(back.isHasPrevious()).isFalse();
+	}
+
+	@Test
+	void keysetWindowSizeIsCapped() {
+		assertThat(PageCursor.window(null, 1_000_000, "createdAt", "id").getPageSize())
+				.isEqualTo(PageCursor.MAX_SIZE + 1);
+		assertThat(window(null, 1_000_000).getSize()).isEqualTo(PageCursor.MAX_SIZE);
+		assertThat(window(null, 0).getSize()).isEqualTo(1);
+	}
+
+	@Test
+	void searchPutsExactIdMatchFirst() {
+		Ticket mentionsId = ticket("Follow-up on " + assigned.getId());
+		entityManager.flush();
+
+		String id = String.valueOf(assigned.getId());
+		assertThat(ticketRepository.searchTickets(id, PageRequest.of(0, 10)))
+				.extracting(Ticket::getId)
+				.startsWith(assigned.getId())
+				.contains(mentionsId.getId());
+		assertThat(ticketRepository.searchTickets("vpn", PageRequest.of(0, 10)))
+				.extracting(Ticket::getId)
+				.containsExactly(unassigned.getId());
+	}
+
+	private CursorPageDTO<TicketSummaryDTO> window(PageCursor cursor, int size) {
+		return CursorPageDTO.of(ticketRepository.findAllTicketSummariesKeyset(null, null, null, null, null,
+				cursor != null ? cursor.getCreatedAt() : null,
+				cursor != null ? cursor.getId() : null,
+				cursor == null || cursor.isForward(),
+				PageCursor.window(cursor, size, "createdAt", "id")),
+				size, cursor, TicketSummaryDTO::getCreatedAt, TicketSummaryDTO::getId, null);
+	}
+
+	private Ticket ticket(String title) {
+		return entityManager.persist(TestFixtures.ticket(title, customer, TicketStatus.OPEN, Priority.MEDIUM));
+	}
+}
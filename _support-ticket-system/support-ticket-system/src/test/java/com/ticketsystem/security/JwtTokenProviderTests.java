@@ -0,0 +1,43 @@
+package com.ticketsystem.security;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class JwtTokenProviderTests {
+
+	private JwtTokenProvider tokenProvider;
+
+	@BeforeEach
+	void setUp() {
+		tokenProvider = new JwtTokenProvider();
+		ReflectionTestUtils.setField(tokenProvider, "jwtSecret",
+				"testSecretKeyForStreamTicketsThatIsLongEnoughForHmacSha512SigningInUnitTests0123456789");
+		ReflectionTestUtils.setField(tokenProvider, "jwtExpirationMs", 60_000L);
+		ReflectionTestUtils.setField(tokenProvider, "streamTicketExpirationMs", 30_000L);
+	}
+
+	@Test
+	void streamTicketIsAcceptedOnce() {
+		String ticket = tokenProvider.generateStreamTicket("agent@example.com");
+
+		assertThat(tokenProvider.isStreamTicket(ticket)).isTrue();
+		assertThat(tokenProvider.redeemStreamTicket(ticket)).isEqualTo("agent@example.com");
+		assertThat(tokenProvider.redeemStreamTicket(ticket)).isNull();
+		assertThat(tokenProvider.redeemStreamTicket(tokenProvider.generateStreamTicket("agent@example.com")))
+				.isEqualTo("agent@example.com");
+	}
+
+	@Test
+	void expiredOrForgedTicketsAreRejected() {
+		ReflectionTestUtils.setField(tokenProvider, "streamTicketExpirationMs", -1_000L);
+		String expired = tokenProvider.generateStreamTicket("agent@example.com");
+		assertThat(tokenProvider.redeemStreamTicket(expired)).isNull();
+
+		assertThat(tokenProvider.redeemStreamTicket("not-a-token")).isNull();
+		String tampered = tokenProvider.generateStreamTicket("agent@example.com") + "x";
+		assertThat(tokenProvider.redeemStreamTicket(tampered)).isNull();
+	}
+}
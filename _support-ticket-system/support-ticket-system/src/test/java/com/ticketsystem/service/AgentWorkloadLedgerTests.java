@@ -0,0 +1,120 @@
+package com.ticketsystem.service;
+
+import com.ticketsystem.model.*;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import static com.ticketsystem.TestFixtures.assignment;
+import static com.ticketsystem.TestFixtures.ticket;
+import static com.ticketsystem.TestFixtures.user;
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest
+@ActiveProfiles("test")
+@Import(AgentWorkloadLedger.class)
+class AgentWorkloadLedgerTests {
+
+	@Autowired
+	private TestEntityManager entityManager;
+
+	@Autowired
+	private AgentWorkloadLedger ledger;
+
+	private User busy;
+
+	private User idle;
+
+	@BeforeEach
+	void seed() {
+		busy = entityManager.persist(user("busy@example.com", UserRole.AGENT));
+		idle = entityManager.persist(user("idle@example.com", UserRole.AGENT));
+		User customer = entityManager.persist(user("customer@example.com", UserRole.CUSTOMER));
+
+		assign(ticket("Ticket", customer, TicketStatus.OPEN, Priority.URGENT), busy, AssignmentStatus.ASSIGNED);
+		assign(ticket("Ticket", customer, TicketStatus.OPEN, null), busy, AssignmentStatus.ASSIGNED);
+		// Neither counts: ticket no longer open, assignment no longer current
+		assign(ticket("Ticket", customer, TicketStatus.RESOLVED, Priority.LOW), idle, AssignmentStatus.ASSIGNED);
+		assign(ticket("Ticket", customer, TicketStatus.OPEN, Priority.LOW), idle, AssignmentStatus.REASSIGNED);
+		entityManager.flush();
+	}
+
+	@Test
+	void seedsCountsFromOneGroupedQuery() {
+		ledger.reconcile();
+
+		assertThat(ledger.activeTickets(busy.getId())).isEqualTo(2);
+		assertThat(ledger.activeTickets(idle.getId())).isZero();
+		// URGENT (5) plus a ticket without priority, counted as MEDIUM (2)
+		assertThat(ledger.weightedLoad(busy.getId())).isEqualTo(7);
+		assertThat(ledger.weightedLoad(idle.getId())).isZero();
+	}
+
+	@Test
+	void adjustmentsWaitForCommitAndReconcileRepairsDrift() {
+		ledger.reconcile();
+
+		// The test transaction is never committed, so this must not apply
+		ledger.adjust(busy.getId(), Priority.HIGH, +1);
+		assertThat(ledger.activeTickets(busy.getId())).isEqualTo(2);
+
+		counters(busy).set(Priority.LOW.ordinal(), 7);
+		counters(idle).set(Priority.HIGH.ordinal(), 3);
+
+		ledger.reconcile();
+		assertThat(ledger.activeTickets(busy.getId())).isEqualTo(2);
+		assertThat(ledger.weightedLoad(busy.getId())).isEqualTo(7);
+		assertThat(ledger.activeTickets(idle.getId())).isZero();
+	}
+
+	@Test
+	void reservationsOfOpenTransactionsSurviveReconcile() {
+		ledger.reconcile();
+
+		// Reserved inside the (uncommitted) test transaction: not in the database yet
+		ledger.reserve(idle.getId(), Priority.HIGH);
+		assertThat(ledger.activeTickets(idle.getId())).isEqualTo(1);
+
+		ledger.reconcile();
+		assertThat(ledger.activeTickets(idle.getId())).isEqualTo(1);
+		assertThat(ledger.weightedLoad(idle.getId())).isEqualTo(3);
+		assertThat(ledger.activeTickets(busy.getId())).isEqualTo(2);
+	}
+
+	@Test
+	void adjustmentsWaitForAReconcileInProgress() throws Exception {
+		ledger.reconcile();
+		ReentrantReadWriteLock changes = (ReentrantReadWriteLock) ReflectionTestUtils.getField(ledger, "changes");
+
+		// Outside any transaction an adjustment applies at once, unless reconcile holds the counts
+		changes.writeLock().lock();
+		Thread adjuster;
+		try {
+			adjuster = Thread.ofPlatform().start(() -> ledger.adjust(idle.getId(), Priority.LOW, +1));
+			adjuster.join(200);
+			assertThat(adjuster.isAlive()).isTrue();
+			assertThat(ledger.activeTickets(idle.getId())).isZero();
+		} finally {
+			changes.writeLock().unlock();
+		}
+		adjuster.join(5_000);
+		assertThat(ledger.activeTickets(idle.getId())).isEqualTo(1);
+	}
+
+	private AtomicIntegerArray counters(User agent) {
+		return ReflectionTestUtils.invokeMethod(ledger, "counters", agent.getId());
+	}
+
+	private void assign(Ticket ticket, User agent, AssignmentStatus status) {
+		entityManager.persist(ticket);
+		entityManager.persist(assignment(ticket, agent, status));
+	}
+}
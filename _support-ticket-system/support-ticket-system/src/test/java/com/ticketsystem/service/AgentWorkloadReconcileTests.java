@@ -0,0 +1,147 @@
+package com.ticketsystem.service;
+
+import com.ticketsystem.model.*;
+import com.ticketsystem.repository.TicketAssignmentRepository;
+import com.ticketsystem.repository.TicketRepository;
+import com.ticketsystem.repository.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import static com.ticketsystem.TestFixtures.assignment;
+import static com.ticketsystem.TestFixtures.ticket;
+import static com.ticketsystem.TestFixtures.user;
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Commits assignments in their own transactions and runs a reconcile while a
+ * commit is reaching the database but has not yet applied its change to the
+ * ledger.
+ */
+@DataJpaTest
+@ActiveProfiles("test")
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import(AgentWorkloadLedger.class)
+class AgentWorkloadReconcileTests {
+
+	@Autowired
+	private AgentWorkloadLedger ledger;
+
+	@Autowired
+	private UserRepository userRepository;
+
+	@Autowired
+	private TicketRepository ticketRepository;
+
+	@Autowired
+	private TicketAssignmentRepository assignmentRepository;
+
+	@Autowired
+	private PlatformTransactionManager transactionManager;
+
+	private TransactionTemplate tx;
+
+	private User agent;
+
+	private User customer;
+
+	@BeforeEach
+	void seed() {
+		tx = new TransactionTemplate(transactionManager);
+		tx.executeWithoutResult(status -> {
+			agent = userRepository.save(user("agent@example.com", UserRole.AGENT));
+			customer = userRepository.save(user("customer@example.com", UserRole.CUSTOMER));
+		});
+		ledger.reconcile();
+	}
+
+	@AfterEach
+	void cleanUp() {
+		tx.executeWithoutResult(status -> {
+			assignmentRepository.deleteAll();
+			ticketRepository.deleteAll();
+			userRepository.deleteAll();
+		});
+	}
+
+	@Test
+	void anAdjustmentCommittedDuringAReconcileCountsOnce() throws Exception {
+		commitWhileReconciling(assigned -> ledger.adjust(agent.getId(), Priority.LOW, +1));
+
+		assertThat(ledger.activeTickets(agent.getId())).isEqualTo(1);
+		ledger.reconcile();
+		assertThat(ledger.activeTickets(agent.getId())).isEqualTo(1);
+	}
+
+	@Test
+	void aReservationCommittedDuringAReconcileCountsOnce() throws Exception {
+		commitWhileReconciling(assigned -> ledger.reserve(agent.getId(), Priority.LOW));
+
+		assertThat(ledger.activeTickets(agent.getId())).isEqualTo(1);
+		ledger.reconcile();
+		assertThat(ledger.activeTickets(agent.getId())).isEqualTo(1);
+	}
+
+	@Test
+	void aRolledBackReservationIsTakenBack() {
+		tx.executeWithoutResult(status -> {
+			ledger.reserve(agent.getId(), Priority.HIGH);
+			assertThat(ledger.activeTickets(agent.getId())).isEqualTo(1);
+			status.setRollbackOnly();
+		});
+
+		assertThat(ledger.activeTickets(agent.getId())).isZero();
+		ledger.reconcile();
+		assertThat(ledger.activeTickets(agent.getId())).isZero();
+	}
+
+	/**
+	 * Assigns an open ticket to the agent and records it in the ledger, then
+	 * holds the transaction once it is in the database and starts a reconcile
+	 * before letting it finish.
+	 */
+	private void commitWhileReconciling(Consumer<TicketAssignment> record) throws Exception {
+		CountDownLatch committed = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		Thread committer = Thread.ofPlatform().start(() -> tx.executeWithoutResult(status -> {
+			Ticket ticket = ticketRepository.save(ticket("Ticket", customer, TicketStatus.OPEN, Priority.LOW));
+			record.accept(assignmentRepository.save(assignment(ticket, agent, AssignmentStatus.ASSIGNED)));
+			TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+				@Override
+				public void afterCommit() {
+					committed.countDown();
+					try {
+						release.await(5, TimeUnit.SECONDS);
+					} catch (InterruptedException e) {
+						Thread.currentThread().interrupt();
+					}
+				}
+			});
+		}));
+		assertThat(committed.await(5, TimeUnit.SECONDS)).isTrue();
+
+		Thread reconciler = Thread.ofPlatform().start(ledger::reconcile);
+		// It must not read the counts while the commit is still applying its change
+		reconciler.join(200);
+		assertThat(reconciler.isAlive()).isTrue();
+
+		release.countDown();
+		committer.join(5_000);
+		reconciler.join(5_000);
+		assertThat(reconciler.isAlive()).isFalse();
+	}
+}
@@ -0,0 +1,133 @@
+package com.ticketsystem.service;
+
+import com.ticketsystem.model.LocationType;
+import com.ticketsystem.model.Priority;
+import com.ticketsystem.service.AssignmentSnapshot.Agent;
+import com.ticketsystem.service.AssignmentStrategy.Request;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AssignmentEngineTests {
+
+	private static final long LEAST_LOADED = 1;
+	private static final long ROUND_ROBIN = 2;
+	private static final long OTHER_ROUND_ROBIN = 3;
+	private static final long PROXIMITY = 4;
+	private static final long RETIRED_STRATEGY = 5;
+
+	private final AgentWorkloadLedger ledger = new AgentWorkloadLedger();
+
+	private final AssignmentEngine engine = new AssignmentEngine();
+
+	private Map<Long, Long> parents;
+
+	@BeforeEach
+	@SuppressWarnings("unchecked")
+	void setUp() {
+		// Province 1 > districts 2, 3; district 2 > sectors 4, 5
+		parents = (Map<Long, Long>) ReflectionTestUtils.getField(engine, "parentByLocation");
+		parents.putAll(Map.of(2L, 1L, 3L, 1L, 4L, 2L, 5L, 2L));
+
+		LeastLoadedAssignmentStrategy leastLoaded = new LeastLoadedAssignmentStrategy();
+		ProximityAssignmentStrategy proximity = new ProximityAssignmentStrategy();
+		ReflectionTestUtils.setField(leastLoaded, "workloadLedger", ledger);
+		ReflectionTestUtils.setField(proximity, "workloadLedger", ledger);
+		ReflectionTestUtils.setField(engine, "strategyBeans",
+				List.of(leastLoaded, new RoundRobinAssignmentStrategy(), proximity));
+		ReflectionTestUtils.setField(engine, "defaultStrategy", LeastLoadedAssignmentStrategy.NAME);
+		engine.registerStrategies();
+
+		List<Agent> rotation = List.of(new Agent(12, null), new Agent(10, null), new Agent(11, null));
+		ReflectionTestUtils.setField(engine, "snapshot", new AssignmentSnapshot(
+				Map.of(LEAST_LOADED, List.of(new Agent(10, null), new Agent(11, null)),
+						ROUND_ROBIN, rotation,
+						OTHER_ROUND_ROBIN, rotation,
+						PROXIMITY, List.of(new Agent(20, 4L), new Agent(21, 5L), new Agent(22, 3L), new Agent(23, null)),
+						RETIRED_STRATEGY, List.of(new Agent(10, null), new Agent(11, null))),
+				Map.of(ROUND_ROBIN, RoundRobinAssignmentStrategy.NAME,
+						OTHER_ROUND_ROBIN, RoundRobinAssignmentStrategy.NAME,
+						PROXIMITY, ProximityAssignmentStrategy.NAME,
+						RETIRED_STRATEGY, "skills-based"),
+				parents));
+	}
+
+	@Test
+	void leastLoadedWeighsOpenTicketsByPriority() {
+		ledger.adjust(10L, Priority.URGENT, +1);
+		ledger.adjust(11L, Priority.LOW, +1);
+		ledger.adjust(11L, Priority.LOW, +1);
+
+		// One URGENT ticket outweighs two LOW ones
+		assertThat(engine.choose(request(LEAST_LOADED, null))).isEqualTo(11L);
+
+		ledger.adjust(11L, Priority.HIGH, +1);
+		assertThat(engine.choose(request(LEAST_LOADED, null))).isEqualTo(10L);
+	}
+
+	@Test
+	void roundRobinTakesTurnsInIdOrderPerCategory() {
+		assertThat(engine.choose(request(ROUND_ROBIN, null))).isEqualTo(10L);
+		assertThat(engine.choose(request(ROUND_ROBIN, null))).isEqualTo(11L);
+		assertThat(engine.choose(request(OTHER_ROUND_ROBIN, null))).isEqualTo(10L);
+		assertThat(engine.choose(request(ROUND_ROBIN, null))).isEqualTo(12L);
+		assertThat(engine.choose(request(ROUND_ROBIN, null))).isEqualTo(10L);
+	}
+
+	@Test
+	void proximityPrefersTheAgentSharingTheDeepestAncestor() {
+		assertThat(engine.choose(request(PROXIMITY, 4L))).isEqualTo(20L);
+		assertThat(engine.choose(request(PROXIMITY, 5L))).isEqualTo(21L);
+		assertThat(engine.choose(request(PROXIMITY, 3L))).isEqualTo(22L);
+
+		// Both sector agents are inside district 2; the less loaded one gets it
+		ledger.adjust(20L, Priority.MEDIUM, +1);
+		assertThat(engine.choose(request(PROXIMITY, 2L))).isEqualTo(21L);
+
+		// Without a location every agent is equally close
+		ledger.adjust(21L, Priority.MEDIUM, +1);
+		ledger.adjust(22L, Priority.MEDIUM, +1);
+		assertThat(engine.choose(request(PROXIMITY, null))).isEqualTo(23L);
+	}
+
+	@Test
+	void proximityFollowsLocationEvents() {
+		// A new sector under district 3 is closest to the district 3 agent
+		engine.onIndexEvent(new SearchIndexEvent(GlobalSearchIndex.Type.LOCATION, 6,
+				GlobalSearchIndex.Document.location(6, "Remera", LocationType.SECTOR, 3L)));
+		assertThat(engine.choose(request(PROXIMITY, 6L))).isEqualTo(22L);
+
+		engine.onIndexEvent(SearchIndexEvent.removed(GlobalSearchIndex.Type.LOCATION, 6));
+		assertThat(parents).doesNotContainKey(6L);
+	}
+
+	@Test
+	void unknownStrategiesFallBackToTheDefaultAndEmptyCategoriesStayUnassigned() {
+		ledger.adjust(10L, Priority.LOW, +1);
+		assertThat(engine.choose(request(RETIRED_STRATEGY, null))).isEqualTo(11L);
+
+		assertThat(engine.choose(request(99L, null))).isNull();
+		assertThat(engine.choose(request(null, null))).isNull();
+		assertThat(engine.isKnown("proximity")).isTrue();
+		assertThat(engine.isKnown("skills-based")).isFalse();
+	}
+
+	@Test
+	void ancestryStopsAtTheRoot() {
+		AssignmentSnapshot snapshot = new AssignmentSnapshot(Map.of(), Map.of(), parents);
+
+		assertThat(snapshot.ancestry(4L)).containsExactly(4L, 2L, 1L);
+		assertThat(snapshot.ancestry(null)).isEmpty();
+		assertThat(ProximityAssignmentStrategy.distance(snapshot.ancestry(4L), snapshot.ancestry(3L))).isEqualTo(2);
+		assertThat(ProximityAssignmentStrategy.distance(snapshot.ancestry(4L), new long[0])).isEqualTo(3);
+	}
+
+	private static Request request(Long categoryId, Long locationId) {
+		return new Request(null, categoryId, locationId, Priority.MEDIUM);
+	}
+}
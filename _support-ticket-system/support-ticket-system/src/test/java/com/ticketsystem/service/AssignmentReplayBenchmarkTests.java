@@ -0,0 +1,208 @@
+package com.ticketsystem.service;
+
+import com.ticketsystem.model.Priority;
+import com.ticketsystem.service.AssignmentSnapshot.Agent;
+import com.ticketsystem.service.AssignmentStrategy.Request;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Replays a stream of ticket creations through every assignment strategy and
+ * reports the latency of choosing an agent and how evenly the weighted load
+ * ends up spread over each category's agents:
+ *
+ * mvn test -Dtest=AssignmentReplayBenchmarkTests -Dbench.replay=200000
+ *
+ * The stream is generated from a fixed seed, or read from
+ * -Dbench.replay.file=tickets.csv with one "categoryId,locationId,priority,lifetime"
+ * line per ticket (categories 1-8, locations 1-451, lifetime = how many later
+ * creations the ticket stays open for).
+ */
+@EnabledIfSystemProperty(named = "bench.replay", matches = "\\d+")
+class AssignmentReplayBenchmarkTests {
+
+	private static final int CATEGORIES = 8;
+	private static final int AGENTS = 60;
+	// 5 provinces, 30 districts, 416 sectors
+	private static final int[] LEVELS = { 5, 30, 416 };
+	private static final int SAMPLE_EVERY = 500;
+
+	private record Creation(long categoryId, Long locationId, Priority priority, int lifetime) {
+	}
+
+	@Test
+	void replay() throws IOException {
+		Random random = new Random(7);
+		Map<Long, Long> parents = new HashMap<>();
+		long firstSector = buildTree(parents);
+		Map<Long, List<Agent>> agents = buildAgents(random, firstSector);
+		List<Creation> stream = System.getProperty("bench.replay.file") != null
+				? read(Path.of(System.getProperty("bench.replay.file")))
+				: generate(random, Integer.getInteger("bench.replay"), firstSector);
+
+		System.out.printf("Replaying %d ticket creations over %d agents in %d categories%n", stream.size(), AGENTS,
+				CATEGORIES);
+		System.out.printf("%-14s %9s %9s %9s %13s %9s %14s%n", "strategy", "p50 us", "p99 us", "max us",
+				"max/mean load", "load cv", "avg distance");
+		for (String strategy : List.of(LeastLoadedAssignmentStrategy.NAME, RoundRobinAssignmentStrategy.NAME,
+				ProximityAssignmentStrategy.NAME)) {
+			run(strategy, stream, agents, parents);
+		}
+	}
+
+	private void run(String strategy, List<Creation> stream, Map<Long, List<Agent>> agents, Map<Long, Long> parents) {
+		AgentWorkloadLedger ledger = new AgentWorkloadLedger();
+		AssignmentEngine engine = engine(ledger, strategy);
+		AssignmentSnapshot snapshot = new AssignmentSnapshot(agents, Map.of(), parents);
+		ReflectionTestUtils.setField(engine, "snapshot", snapshot);
+		Map<Long, Long> locationOf = new HashMap<>();
+		agents.values().forEach(list -> list.forEach(a -> locationOf.put(a.id(), a.locationId())));
+
+		// Tickets closing at each step, as (agent, priority)
+		Map<Integer, List<Object[]>> closing = new HashMap<>();
+		long[] nanos = new long[stream.size()];
+		double imbalance = 0;
+		double cv = 0;
+		int samples = 0;
+		long distance = 0;
+
+		for (int step = 0; step < stream.size(); step++) {
+			List<Object[]> due = closing.remove(step);
+			if (due != null) {
+				for (Object[] d : due) {
+					ledger.adjust((Long) d[0], (Priority) d[1], -1);
+				}
+			}
+
+			Creation c = stream.get(step);
+			Request request = new Request((long) step, c.categoryId(), c.locationId(), c.priority());
+			long started = System.nanoTime();
+			Long agentId = engine.choose(request);
+			nanos[step] = System.nanoTime() - started;
+			if (agentId == null)
+				continue;
+
+			ledger.adjust(agentId, c.priority(), +1);
+			closing.computeIfAbsent(step + c.lifetime(), k -> new ArrayList<>())
+					.add(new Object[] { agentId, c.priority() });
+			distance += ProximityAssignmentStrategy.distance(snapshot.ancestry(c.locationId()),
+					snapshot.ancestry(locationOf.get(agentId)));
+
+			if (step % SAMPLE_EVERY == SAMPLE_EVERY - 1) {
+				for (List<Agent> category : agents.values()) {
+					double[] balance = balance(ledger, category);
+					imbalance += balance[0];
+					cv += balance[1];
+					samples++;
+				}
+			}
+		}
+
+		Arrays.sort(nanos);
+		System.out.printf("%-14s %9.2f %9.2f %9.2f %13.2f %9.3f %14.2f%n", strategy,
+				nanos[nanos.length / 2] / 1000.0, nanos[(int) (nanos.length * 0.99)] / 1000.0,
+				nanos[nanos.length - 1] / 1000.0, samples > 0 ? imbalance / samples : 0, samples > 0 ? cv / samples : 0,
+				(double) distance / stream.size());
+		assertThat(nanos[nanos.length / 2]).isLessThan(1_000_000L);
+	}
+
+	// Max over mean and coefficient of variation of the category's weighted loads
+	private static double[] balance(AgentWorkloadLedger ledger, List<Agent> agents) {
+		double sum = 0;
+		double max = 0;
+		double[] loads = new double[agents.size()];
+		for (int i = 0; i < loads.length; i++) {
+			loads[i] = ledger.weightedLoad(agents.get(i).id());
+			sum += loads[i];
+			max = Math.max(max, loads[i]);
+		}
+		double mean = sum / loads.length;
+		if (mean == 0)
+			return new double[] { 1, 0 };
+		double variance = 0;
+		for (double load : loads) {
+			variance += (load - mean) * (load - mean);
+		}
+		return new double[] { max / mean, Math.sqrt(variance / loads.length) / mean };
+	}
+
+	private static AssignmentEngine engine(AgentWorkloadLedger ledger, String defaultStrategy) {
+		LeastLoadedAssignmentStrategy leastLoaded = new LeastLoadedAssignmentStrategy();
+		ProximityAssignmentStrategy proximity = new ProximityAssignmentStrategy();
+		ReflectionTestUtils.setField(leastLoaded, "workloadLedger", ledger);
+		ReflectionTestUtils.setField(proximity, "workloadLedger", ledger);
+		AssignmentEngine engine = new AssignmentEngine();
+		ReflectionTestUtils.setField(engine, "strategyBeans",
+				List.of(leastLoaded, new RoundRobinAssignmentStrategy(), proximity));
+		ReflectionTestUtils.setField(engine, "defaultStrategy", defaultStrategy);
+		engine.registerStrategies();
+		return engine;
+	}
+
+	// Returns the id of the first sector
+	private static long buildTree(Map<Long, Long> parents) {
+		long id = 1;
+		long parentStart = 0;
+		for (int level = 0; level < LEVELS.length; level++) {
+			long levelStart = id;
+			for (int i = 0; i < LEVELS[level]; i++, id++) {
+				if (level > 0)
+					parents.put(id, parentStart + i % LEVELS[level - 1]);
+			}
+			parentStart = levelStart;
+		}
+		return parentStart;
+	}
+
+	// Every agent handles one to three categories and is based in a random sector
+	private static Map<Long, List<Agent>> buildAgents(Random random, long firstSector) {
+		Map<Long, List<Agent>> byCategory = new HashMap<>();
+		for (long agentId = 1; agentId <= AGENTS; agentId++) {
+			Agent agent = new Agent(agentId, firstSector + random.nextInt(LEVELS[2]));
+			int categories = 1 + random.nextInt(3);
+			for (int i = 0; i < categories; i++) {
+				long categoryId = 1 + (agentId + i * 3) % CATEGORIES;
+				List<Agent> list = byCategory.computeIfAbsent(categoryId, k -> new ArrayList<>());
+				if (!list.contains(agent))
+					list.add(agent);
+			}
+		}
+		return byCategory;
+	}
+
+	// Skewed towards the first categories and sectors; most tickets are MEDIUM
+	private static List<Creation> generate(Random random, int count, long firstSector) {
+		Priority[] priorities = { Priority.LOW, Priority.MEDIUM, Priority.MEDIUM, Priority.MEDIUM, Priority.HIGH,
+				Priority.URGENT };
+		List<Creation> stream = new ArrayList<>(count);
+		for (int i = 0; i < count; i++) {
+			long categoryId = 1 + Math.min((int) (-Math.log(1 - random.nextDouble()) * 3), CATEGORIES - 1);
+			Long locationId = random.nextInt(10) == 0 ? null
+					: firstSector + (long) (Math.pow(random.nextDouble(), 2) * LEVELS[2]);
+			int lifetime = 1 + (int) (-Math.log(1 - random.nextDouble()) * 300);
+			stream.add(new Creation(categoryId, locationId, priorities[random.nextInt(priorities.length)], lifetime));
+		}
+		return stream;
+	}
+
+	private static List<Creation> read(Path file) throws IOException {
+		List<Creation> stream = new ArrayList<>();
+		for (String line : Files.readAllLines(file)) {
+			if (line.isBlank() || line.startsWith("#"))
+				continue;
+			String[] f = line.split(",");
+			stream.add(new Creation(Long.parseLong(f[0].trim()),
+					f[1].isBlank() ? null : Long.parseLong(f[1].trim()),
+					Priority.valueOf(f[2].trim()), Integer.parseInt(f[3].trim())));
+		}
+		return stream;
+	}
+}
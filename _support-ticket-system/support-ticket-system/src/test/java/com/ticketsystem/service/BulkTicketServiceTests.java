@@ -0,0 +1,169 @@
+package com.ticketsystem.service;
+
+import com.ticketsystem.TestFixtures;
+import com.ticketsystem.dto.BulkTicketResultDTO;
+import com.ticketsystem.dto.BulkTicketResultDTO.Outcome;
+import com.ticketsystem.model.*;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.*;
+import java.util.stream.Collectors;
+
+import static com.ticketsystem.TestFixtures.assignment;
+import static com.ticketsystem.TestFixtures.user;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@DataJpaTest
+@ActiveProfiles("test")
+@Import({ BulkTicketService.class, NotificationService.class, NotificationOutbox.class, AdminRecipients.class,
+		UnreadNotificationCounter.class, AgentWorkloadLedger.class, TicketStatsRollup.class,
+		SlaMetricsService.class, DatabaseWrites.class })
+class BulkTicketServiceTests {
+
+	@Autowired
+	private TestEntityManager entityManager;
+
+	@Autowired
+	private BulkTicketService bulkTicketService;
+
+	@Autowired
+	private AdminRecipients adminRecipients;
+
+	private User alice;
+
+	private User bob;
+
+	private User agent;
+
+	private User otherAgent;
+
+	private User admin;
+
+	@BeforeEach
+	void seed() {
+		alice = entityManager.persist(user("alice@example.com", UserRole.CUSTOMER));
+		bob = entityManager.persist(user("bob@example.com", UserRole.CUSTOMER));
+		agent = entityManager.persist(user("agent@example.com", UserRole.AGENT));
+		otherAgent = entityManager.persist(user("other@example.com", UserRole.AGENT));
+		admin = entityManager.persist(user("admin@example.com", UserRole.ADMIN));
+		// Users are persisted directly here, without the events that refresh the admin set
+		adminRecipients.invalidate();
+	}
+
+	@Test
+	void assignReportsOutcomesAndLeavesOneCurrentAssignmentPerTicket() {
+		Ticket unassigned = ticket(alice);
+		Ticket mine = ticket(alice);
+		Ticket theirs = ticket(bob);
+		assign(mine, agent);
+		assign(theirs, otherAgent);
+		entityManager.flush();
+
+		BulkTicketResultDTO result = bulkTicketService.assign(
+				List.of(unassigned.getId(), mine.getId(), theirs.getId(), theirs.getId(), -1L),
+				agent.getId(), 99L);
+		entityManager.flush();
+		entityManager.clear();
+
+		assertThat(outcomes(result)).containsExactly(
+				Map.entry(unassigned.getId(), Outcome.UPDATED),
+				Map.entry(mine.getId(), Outcome.UNCHANGED),
+				Map.entry(theirs.getId(), Outcome.UPDATED),
+				Map.entry(-1L, Outcome.NOT_FOUND));
+		assertThat(result.getUpdated()).isEqualTo(2);
+		assertThat(result.getUnchanged()).isEqualTo(1);
+		assertThat(result.getNotFound()).isEqualTo(1);
+
+		List<TicketAssignment> assignments = entityManager.getEntityManager()
+				.createQuery("select ta from TicketAssignment ta", TicketAssignment.class)
+				.getResultList();
+		assertThat(assignments).hasSize(3);
+		assertThat(assignments).allSatisfy(a -> assertThat(a.getAgent().getId()).isEqualTo(agent.getId()));
+		assertThat(assignments.stream().map(a -> a.getTicket().getId()))
+				.containsExactlyInAnyOrder(unassigned.getId(), mine.getId(), theirs.getId());
+
+		// One coalesced message for the agent, one summary per admin
+		assertThat(queuedEmails()).containsExactly("agent@example.com: 2 Tickets Assigned to You");
+		assertThat(notificationsFor(agent)).isEqualTo(1);
+		assertThat(notificationsFor(admin)).isEqualTo(1);
+	}
+
+	@Test
+	void updateStatusNotifiesEachCustomerOnce() {
+		List<Long> ids = new ArrayList<>();
+		for (int i = 0; i < 5; i++) {
+			ids.add(ticket(i < 3 ? alice : bob).getId());
+		}
+		Ticket closed = ticket(bob);
+		closed.setStatus(TicketStatus.CLOSED);
+		ids.add(closed.getId());
+		entityManager.flush();
+
+		BulkTicketResultDTO result = bulkTicketService.updateStatus(ids, TicketStatus.CLOSED, 99L);
+		entityManager.flush();
+		entityManager.clear();
+
+		assertThat(result.getUpdated()).isEqualTo(5);
+		assertThat(result.getUnchanged()).isEqualTo(1);
+		for (Long id : ids) {
+			assertThat(entityManager.find(Ticket.class, id).getStatus()).isEqualTo(TicketStatus.CLOSED);
+		}
+		assertThat(notificationsFor(alice)).isEqualTo(1);
+		assertThat(notificationsFor(bob)).isEqualTo(1);
+		assertThat(queuedEmails()).containsExactlyInAnyOrder(
+				"alice@example.com: Ticket Status Updated: 3 tickets",
+				"bob@example.com: Ticket Status Updated: 2 tickets");
+	}
+
+	@Test
+	void rejectsNonAgentsAndOversizedRequests() {
+		Ticket ticket = ticket(alice);
+		entityManager.flush();
+
+		assertThatThrownBy(() -> bulkTicketService.assign(List.of(ticket.getId()), alice.getId(), 99L))
+				.hasMessage("User is not an agent");
+
+		List<Long> tooMany = new ArrayList<>();
+		for (long i = 1; i <= BulkTicketService.MAX_TICKETS + 1; i++) {
+			tooMany.add(i);
+		}
+		assertThatThrownBy(() -> bulkTicketService.updateStatus(tooMany, TicketStatus.CLOSED, 99L))
+				.hasMessageContaining("At most");
+	}
+
+	private static Map<Long, Outcome> outcomes(BulkTicketResultDTO result) {
+		return result.getResults().stream().collect(Collectors.toMap(BulkTicketResultDTO.Entry::getTicketId,
+				BulkTicketResultDTO.Entry::getOutcome, (a, b) -> a, LinkedHashMap::new));
+	}
+
+	private long notificationsFor(User user) {
+		return entityManager.getEntityManager()
+				.createQuery("select count(n) from Notification n where n.recipient.id = :id", Long.class)
+				.setParameter("id", user.getId())
+				.getSingleResult();
+	}
+
+	private List<String> queuedEmails() {
+		return entityManager.getEntityManager()
+				.createQuery("select m from OutboxMessage m where m.channel = com.ticketsystem.model.OutboxChannel.EMAIL",
+						OutboxMessage.class)
+				.getResultStream()
+				.map(m -> m.getRecipient() + ": " + m.getSubject())
+				.toList();
+	}
+
+	private Ticket ticket(User customer) {
+		return entityManager.persist(TestFixtures.ticket("Printer on fire", customer, TicketStatus.OPEN, Priority.HIGH));
+	}
+
+	private void assign(Ticket ticket, User agent) {
+		entityManager.persist(assignment(ticket, agent, AssignmentStatus.ASSIGNED));
+	}
+}
@@ -0,0 +1,193 @@
+package com.ticketsystem.service;
+
+import com.ticketsystem.TestFixtures;
+import com.ticketsystem.dto.CustomerDashboardDTO;
+import com.ticketsystem.dto.DashboardResponseDTO;
+import com.ticketsystem.dto.TicketDTO;
+import com.ticketsystem.model.*;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+
+import static com.ticketsystem.TestFixtures.assignment;
+import static com.ticketsystem.TestFixtures.category;
+import static com.ticketsystem.TestFixtures.location;
+import static com.ticketsystem.TestFixtures.user;
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@ActiveProfiles("test")
+@Import({ DashboardService.class, TicketStatsRollup.class, DatabaseWrites.class })
+class DashboardServiceTests {
+
+	@Autowired
+	private TestEntityManager entityManager;
+
+	@Autowired
+	private EntityManagerFactory entityManagerFactory;
+
+	@Autowired
+	private DashboardService dashboardService;
+
+	@Autowired
+	private TicketStatsRollup statsRollup;
+
+	private User customer;
+
+	private TicketCategory category;
+
+	private Location location;
+
+	@BeforeEach
+	void seed() {
+		customer = entityManager.persist(user("customer@example.com", UserRole.CUSTOMER));
+		category = entityManager.persist(category("Hardware"));
+		location = entityManager.persist(location("Kigali", LocationType.PROVINCE, null));
+	}
+
+	@Test
+	void adminDashboardIsOneStatement() {
+		User busy = entityManager.persist(user("busy@example.com", UserRole.AGENT));
+		User idle = entityManager.persist(user("idle@example.com", UserRole.AGENT));
+		entityManager.persist(user("admin@example.com", UserRole.ADMIN));
+		TicketStatus[] statuses = { TicketStatus.OPEN, TicketStatus.OPEN, TicketStatus.OPEN,
+				TicketStatus.IN_PROGRESS, TicketStatus.IN_PROGRESS, TicketStatus.RESOLVED, TicketStatus.CLOSED };
+		for (int i = 0; i < statuses.length; i++) {
+			Ticket ticket = ticket(statuses[i]);
+			assign(ticket, busy, AssignmentStatus.ASSIGNED);
+			if (i == 0)
+				assign(ticket, idle, AssignmentStatus.REASSIGNED);
+		}
+		entityManager.flush();
+		entityManager.clear();
+		// Persisted directly, not through TicketService: build the rollup from them
+		statsRollup.verify();
+
+		Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+		statistics.clear();
+		DashboardResponseDTO dto = dashboardService.getAdminDashboard();
+
+		assertThat(statistics.getPrepareStatementCount()).isLessThanOrEqualTo(2);
+		assertThat(dto.getTotalTickets()).isEqualTo(7);
+		assertThat(dto.getOpenTickets()).isEqualTo(3);
+		assertThat(dto.getInProgressTickets()).isEqualTo(2);
+		assertThat(dto.getResolvedTickets()).isEqualTo(1);
+		assertThat(dto.getClosedTickets()).isEqualTo(1);
+		assertThat(dto.getAgentsOnline()).isEqualTo(1);
+		assertThat(dto.getTotalUsers()).isEqualTo(4);
+		assertThat(dto.getTotalCategories()).isEqualTo(1);
+		assertThat(dto.getTotalLocations()).isEqualTo(1);
+	}
+
+	@Test
+	void adminDashboardWithNoTickets() {
+		entityManager.flush();
+		statsRollup.verify();
+
+		DashboardResponseDTO dto = dashboardService.getAdminDashboard();
+
+		assertThat(dto.getTotalTickets()).isZero();
+		assertThat(dto.getOpenTickets()).isZero();
+		assertThat(dto.getClosedTickets()).isZero();
+		assertThat(dto.getAgentsOnline()).isZero();
+		assertThat(dto.getTotalUsers()).isEqualTo(1);
+		assertThat(dto.getTotalLocations()).isEqualTo(1);
+	}
+
+	@Test
+	void agentDashboardAndQueueAreOneStatement() {
+		User agent = entityManager.persist(user("agent@example.com", UserRole.AGENT));
+		User previous = entityManager.persist(user("previous@example.com", UserRole.AGENT));
+		Priority[] priorities = { Priority.URGENT, Priority.HIGH, Priority.HIGH, Priority.LOW };
+		for (int i = 0; i < priorities.length; i++) {
+			Ticket open = ticket(TicketStatus.OPEN);
+			open.setPriority(priorities[i]);
+			open.setCreatedAt(LocalDateTime.now().minusHours(i + 1));
+			assign(open, agent, AssignmentStatus.ASSIGNED);
+		}
+		assign(ticket(TicketStatus.IN_PROGRESS), agent, AssignmentStatus.ASSIGNED);
+		assign(ticket(TicketStatus.RESOLVED), agent, AssignmentStatus.ASSIGNED);
+		// History: tickets the agent no longer holds are not theirs to count
+		for (int i = 0; i < 3; i++) {
+			Ticket handedOver = ticket(TicketStatus.OPEN);
+			assign(handedOver, agent, AssignmentStatus.REASSIGNED);
+			assign(handedOver, previous, AssignmentStatus.ASSIGNED);
+		}
+		entityManager.flush();
+		entityManager.clear();
+		statsRollup.verify();
+
+		Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+		statistics.clear();
+		DashboardResponseDTO dto = dashboardService.getAgentDashboard(agent.getId());
+
+		assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+		assertThat(dto.getAssignedTickets()).isEqualTo(6);
+		assertThat(dto.getOpenTickets()).isEqualTo(4);
+		assertThat(dto.getInProgressTickets()).isEqualTo(1);
+		assertThat(dto.getResolvedTickets()).isEqualTo(1);
+		assertThat(dto.getClosedTickets()).isZero();
+		assertThat(dto.getTicketsByPriority()).containsExactly(Map.entry("LOW", 1L), Map.entry("MEDIUM", 0L),
+				Map.entry("HIGH", 2L), Map.entry("URGENT", 1L));
+		assertThat(dto.getOldestOpenTicketAgeMinutes()).isBetween(239L, 241L);
+
+		User nobody = entityManager.persist(user("idle@example.com", UserRole.AGENT));
+		DashboardResponseDTO idle = dashboardService.getAgentDashboard(nobody.getId());
+		assertThat(idle.getAssignedTickets()).isZero();
+		assertThat(idle.getTicketsByPriority().values()).containsOnly(0L);
+		assertThat(idle.getOldestOpenTicketAgeMinutes()).isNull();
+	}
+
+	@Test
+	void customerDashboardDoesNotLoadTheCustomersTickets() {
+		TicketStatus[] statuses = TicketStatus.values();
+		for (int i = 0; i < 200; i++) {
+			Ticket ticket = ticket(statuses[i % statuses.length]);
+			ticket.setTitle("Ticket " + i);
+			ticket.setCreatedAt(LocalDateTime.now().minusMinutes(200 - i));
+		}
+		User other = entityManager.persist(user("other@example.com", UserRole.CUSTOMER));
+		Ticket theirs = ticket(TicketStatus.OPEN);
+		theirs.setCustomer(other);
+		entityManager.flush();
+		entityManager.clear();
+
+		Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+		statistics.clear();
+		CustomerDashboardDTO dto = dashboardService.getCustomerDashboard(customer.getId());
+
+		assertThat(statistics.getEntityStatistics(Ticket.class.getName()).getLoadCount()).isLessThanOrEqualTo(5);
+		assertThat(statistics.getPrepareStatementCount()).isLessThanOrEqualTo(2);
+		assertThat(dto.getStats().getTotalTickets()).isEqualTo(200);
+		assertThat(dto.getStats().getOpenTickets()).isEqualTo(50);
+		assertThat(dto.getStats().getInProgressTickets()).isEqualTo(50);
+		assertThat(dto.getStats().getResolvedTickets()).isEqualTo(50);
+		assertThat(dto.getRecentTickets()).extracting(TicketDTO::getTitle)
+				.containsExactly("Ticket 199", "Ticket 198", "Ticket 197", "Ticket 196", "Ticket 195");
+		assertThat(dto.getRecentTickets()).allSatisfy(t -> {
+			assertThat(t.getCategoryId()).isEqualTo(category.getId());
+			assertThat(t.getLocationId()).isEqualTo(location.getId());
+		});
+	}
+
+	private Ticket ticket(TicketStatus status) {
+		Ticket ticket = TestFixtures.ticket("Ticket", customer, status, Priority.MEDIUM);
+		ticket.setCategory(category);
+		ticket.setLocation(location);
+		return entityManager.persist(ticket);
+	}
+
+	private void assign(Ticket ticket, User agent, AssignmentStatus status) {
+		entityManager.persist(assignment(ticket, agent, status));
+	}
+}
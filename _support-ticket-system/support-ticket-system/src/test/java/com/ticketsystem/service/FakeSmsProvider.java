@@ -0,0 +1,55 @@
+package com.ticketsystem.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Records every batch it is given. {@code gate} holds the sender thread until
+ * it is counted down, {@code failNext} throws for that many calls, and numbers
+ * starting with "+000" are rejected.
+ */
+class FakeSmsProvider implements SmsProvider {
+
+	final List<List<Sms>> batches = new CopyOnWriteArrayList<>();
+
+	final AtomicInteger failNext = new AtomicInteger();
+
+	volatile CountDownLatch gate = new CountDownLatch(0);
+
+	final int maxBatchSize;
+
+	FakeSmsProvider(int maxBatchSize) {
+		this.maxBatchSize = maxBatchSize;
+	}
+
+	@Override
+	public String name() {
+		return "fake";
+	}
+
+	@Override
+	public int maxBatchSize() {
+		return maxBatchSize;
+	}
+
+	@Override
+	public List<Outcome> send(List<Sms> batch) throws Exception {
+		gate.await(10, TimeUnit.SECONDS);
+		batches.add(List.copyOf(batch));
+		if (failNext.getAndUpdate(n -> Math.max(0, n - 1)) > 0)
+			throw new RuntimeException("gateway unavailable");
+		List<Outcome> outcomes = new ArrayList<>(batch.size());
+		for (Sms sms : batch) {
+			outcomes.add(sms.to().startsWith("+000") ? Outcome.REJECTED : Outcome.SENT);
+		}
+		return outcomes;
+	}
+
+	int delivered() {
+		return batches.stream().mapToInt(List::size).sum();
+	}
+}
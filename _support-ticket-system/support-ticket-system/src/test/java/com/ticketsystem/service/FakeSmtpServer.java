@@ -0,0 +1,104 @@
+package com.ticketsystem.service;
+
+import java.io.*;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Just enough of an SMTP server on a local port to take mail from JavaMail:
+ * counts connections and keeps each message's recipient and subject.
+ * {@code handshakeDelayMs} stands in for the TLS and AUTH round trips of a
+ * real provider; recipients starting with "bounce" are rejected.
+ */
+class FakeSmtpServer implements Closeable {
+
+	record Received(String recipient, String subject) {
+	}
+
+	final AtomicInteger connections = new AtomicInteger();
+
+	final List<Received> messages = new CopyOnWriteArrayList<>();
+
+	volatile long handshakeDelayMs;
+
+	private final ServerSocket server;
+
+	private final ExecutorService sessions = Executors.newVirtualThreadPerTaskExecutor();
+
+	FakeSmtpServer() throws IOException {
+		server = new ServerSocket(0);
+		sessions.execute(this::accept);
+	}
+
+	int port() {
+		return server.getLocalPort();
+	}
+
+	@Override
+	public void close() throws IOException {
+		server.close();
+		sessions.shutdownNow();
+	}
+
+	private void accept() {
+		while (!server.isClosed()) {
+			try {
+				Socket socket = server.accept();
+				connections.incrementAndGet();
+				sessions.execute(() -> session(socket));
+			} catch (IOException e) {
+				return;
+			}
+		}
+	}
+
+	private void session(Socket socket) {
+		try (socket;
+				BufferedReader in = new BufferedReader(
+						new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+				Writer out = new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8)) {
+			if (handshakeDelayMs > 0)
+				Thread.sleep(handshakeDelayMs);
+			reply(out, "220 fake ESMTP");
+			String recipient = null;
+			String line;
+			while ((line = in.readLine()) != null) {
+				String command = line.toUpperCase();
+				if (command.startsWith("EHLO")) {
+					reply(out, "250-fake\r\n250 8BITMIME");
+				} else if (command.startsWith("RCPT TO")) {
+					recipient = line.substring(line.indexOf('<') + 1, line.indexOf('>'));
+					reply(out, recipient.startsWith("bounce") ? "550 No such user" : "250 OK");
+				} else if (command.startsWith("DATA")) {
+					reply(out, "354 End data with <CR><LF>.<CR><LF>");
+					String subject = null;
+					while (!(line = in.readLine()).equals(".")) {
+						if (subject == null && line.startsWith("Subject: "))
+							subject = line.substring("Subject: ".length());
+					}
+					messages.add(new Received(recipient, subject));
+					reply(out, "250 OK queued");
+				} else if (command.startsWith("QUIT")) {
+					reply(out, "221 Bye");
+					return;
+				} else {
+					// HELO, MAIL FROM, RSET, NOOP
+					reply(out, "250 OK");
+				}
+			}
+		} catch (IOException | InterruptedException e) {
+			// client went away
+		}
+	}
+
+	private static void reply(Writer out, String response) throws IOException {
+		out.write(response + "\r\n");
+		out.flush();
+	}
+}
@@ -0,0 +1,115 @@
+package com.ticketsystem.service;
+
+import com.ticketsystem.TestFixtures;
+import com.ticketsystem.model.*;
+import com.ticketsystem.service.GlobalSearchIndex.Hit;
+import com.ticketsystem.service.GlobalSearchIndex.Summary;
+import com.ticketsystem.service.GlobalSearchIndex.Type;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.List;
+
+import static com.ticketsystem.TestFixtures.category;
+import static com.ticketsystem.TestFixtures.location;
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest
+@ActiveProfiles("test")
+@Import(GlobalSearchIndex.class)
+class GlobalSearchIndexTests {
+
+	@Autowired
+	private TestEntityManager entityManager;
+
+	@Autowired
+	private GlobalSearchIndex index;
+
+	private TicketCategory network;
+
+	private Ticket printer;
+
+	private Ticket vpn;
+
+	@BeforeEach
+	void seed() {
+		network = entityManager.persist(category("Network"));
+
+		User customer = new User();
+		customer.setName("Jane Mukamana");
+		customer.setEmail("jane.m@example.rw");
+		customer.setRole(UserRole.CUSTOMER);
+		entityManager.persist(customer);
+
+		printer = ticket("Printer jammed", "Paper stuck in the network printer", customer);
+		vpn = ticket("VPN drops", "Printing over VPN fails", customer);
+
+		entityManager.persist(location("Kigali City", LocationType.PROVINCE, null));
+
+		entityManager.flush();
+		index.load();
+	}
+
+	@Test
+	void loadsEveryTypeAndMatchesPrefixes() {
+		assertThat(ids(Type.TICKET, "print")).containsExactly(printer.getId(), vpn.getId());
+		assertThat(ids(Type.USER, "muka")).hasSize(1);
+		assertThat(ids(Type.USER, "jane.m@example")).hasSize(1);
+		assertThat(ids(Type.CATEGORY, "net")).containsExactly(network.getId());
+		assertThat(ids(Type.LOCATION, "kig cit")).hasSize(1);
+		assertThat(ids(Type.LOCATION, "kigali town")).isEmpty();
+	}
+
+	@Test
+	void ranksTitleAboveDescriptionAndExactIdFirst() {
+		// "printer" is a title word of the first ticket, only a description prefix of the second
+		List<Hit> hits = index.search(Type.TICKET, "printer", 10).hits();
+		assertThat(hits).extracting(h -> h.summary().id()).containsExactly(printer.getId());
+
+		assertThat(ids(Type.TICKET, "vpn")).containsExactly(vpn.getId());
+		assertThat(ids(Type.TICKET, String.valueOf(vpn.getId())).get(0)).isEqualTo(vpn.getId());
+	}
+
+	@Test
+	void keepsSummariesButOnlyTokensOfDescriptions() {
+		assertThat(index.get(Type.TICKET, printer.getId()))
+				.isEqualTo(new Summary(printer.getId(), "Printer jammed", null, network.getId()));
+		// Searchable by description words all the same
+		assertThat(ids(Type.TICKET, "stuck paper")).containsExactly(printer.getId());
+	}
+
+	@Test
+	void limitsToTopK() {
+		assertThat(ids(Type.TICKET, "print")).hasSize(2);
+		assertThat(index.search(Type.TICKET, "print", 1).hits()).hasSize(1);
+		assertThat(index.search(Type.TICKET, "print", 1).total()).isEqualTo(2);
+	}
+
+	@Test
+	void appliesUpdatesAndRemovals() {
+		network.setName("Connectivity");
+		index.onIndexEvent(SearchIndexEvent.of(network));
+		assertThat(ids(Type.CATEGORY, "network")).isEmpty();
+		assertThat(ids(Type.CATEGORY, "conn")).containsExactly(network.getId());
+
+		index.onIndexEvent(SearchIndexEvent.removed(Type.TICKET, printer.getId()));
+		assertThat(ids(Type.TICKET, "print")).containsExactly(vpn.getId());
+		assertThat(index.get(Type.TICKET, printer.getId())).isNull();
+	}
+
+	private List<Long> ids(Type type, String query) {
+		return index.search(type, query, 20).hits().stream().map(h -> h.summary().id()).toList();
+	}
+
+	private Ticket ticket(String title, String description, User customer) {
+		Ticket ticket = TestFixtures.ticket(title, customer, TicketStatus.OPEN, Priority.MEDIUM);
+		ticket.setDescription(description);
+		ticket.setCategory(network);
+		return entityManager.persist(ticket);
+	}
+}
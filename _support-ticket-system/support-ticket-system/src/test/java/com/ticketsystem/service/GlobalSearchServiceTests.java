@@ -0,0 +1,76 @@
+package com.ticketsystem.service;
+
+import com.ticketsystem.dto.GlobalSearchRequestDTO;
+import com.ticketsystem.dto.GlobalSearchResponseDTO;
+import com.ticketsystem.dto.GlobalSearchResultDTO;
+import com.ticketsystem.model.LocationType;
+import com.ticketsystem.service.GlobalSearchIndex.Document;
+import com.ticketsystem.service.GlobalSearchIndex.Type;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class GlobalSearchServiceTests {
+
+	private final GlobalSearchIndex index = new GlobalSearchIndex();
+
+	private final GlobalSearchService service = new GlobalSearchService();
+
+	@BeforeEach
+	void seed() {
+		ReflectionTestUtils.setField(service, "searchIndex", index);
+
+		index.apply(new SearchIndexEvent(Type.CATEGORY, 1, Document.category(1, "Kigali Support", null)));
+		for (long id = 1; id <= 40; id++) {
+			index.apply(new SearchIndexEvent(Type.TICKET, id,
+					Document.ticket(id, "Ticket " + id, "Reported from kigali", 1L)));
+		}
+		index.apply(new SearchIndexEvent(Type.LOCATION, 7, Document.location(7, "Kigali", LocationType.PROVINCE, null)));
+	}
+
+	@Test
+	void mergesTypesByScoreAndCapsTheResponse() {
+		GlobalSearchResponseDTO response = search("kigali");
+
+		assertThat(response.isPartial()).isFalse();
+		assertThat(response.getResults()).hasSize(GlobalSearchService.LIMIT_PER_TYPE + 2);
+
+		// Whole-word name matches first (earlier type wins a tie), then description matches
+		GlobalSearchResultDTO first = response.getResults().get(0);
+		assertThat(first.getType()).isEqualTo("CATEGORY");
+		assertThat(response.getResults().get(1).getType()).isEqualTo("LOCATION");
+		assertThat(response.getResults().get(2).getDescription()).isEqualTo("Ticket in category: Kigali Support");
+		assertThat(response.getResults().get(2).getId()).isEqualTo(40L);
+	}
+
+	@Test
+	void reportsWhatWasLeftOutPerType() {
+		GlobalSearchResponseDTO response = search("kigali");
+
+		assertThat(response.getMoreResults())
+				.containsEntry("TICKET", 40 - GlobalSearchService.LIMIT_PER_TYPE)
+				.containsEntry("CATEGORY", 0)
+				.containsEntry("LOCATION", 0)
+				.containsEntry("USER", 0);
+	}
+
+	@Test
+	void interruptedSearchIsPartial() {
+		Thread.currentThread().interrupt();
+		try {
+			GlobalSearchResponseDTO response = search("kigali");
+			assertThat(response.isPartial()).isTrue();
+			assertThat(response.getResults()).isEmpty();
+		} finally {
+			Thread.interrupted();
+		}
+	}
+
+	private GlobalSearchResponseDTO search(String query) {
+		GlobalSearchRequestDTO request = new GlobalSearchRequestDTO();
+		request.setQuery(query);
+		return service.performGlobalSearch(request);
+	}
+}
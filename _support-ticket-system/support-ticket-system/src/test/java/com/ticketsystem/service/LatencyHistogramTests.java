@@ -0,0 +1,86 @@
+package com.ticketsystem.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class LatencyHistogramTests {
+
+	@Test
+	void percentilesStayWithinTheBucketPrecision() {
+		Random random = new Random(42);
+		long[] values = new long[10_000];
+		LatencyHistogram histogram = new LatencyHistogram();
+		for (int i = 0; i < values.length; i++) {
+			// Minutes to days, skewed like response times
+			values[i] = (long) Math.exp(4 + random.nextDouble() * 8);
+			histogram.record(values[i]);
+		}
+		Arrays.sort(values);
+
+		for (double fraction : new double[] { 0.50, 0.90, 0.99 }) {
+			long exact = values[(int) Math.ceil(fraction * values.length) - 1];
+			assertThat((double) histogram.percentile(fraction)).isCloseTo(exact, within(exact / 16.0));
+		}
+		assertThat(histogram.count()).isEqualTo(values.length);
+		assertThat(histogram.mean()).isEqualTo(Arrays.stream(values).average().orElseThrow());
+	}
+
+	@Test
+	void smallValuesAreExactAndEmptyHasNoPercentiles() {
+		LatencyHistogram histogram = new LatencyHistogram();
+		assertThat(histogram.percentile(0.5)).isNull();
+
+		for (long s = 1; s <= 10; s++) {
+			histogram.record(s);
+		}
+		assertThat(histogram.percentile(0.5)).isEqualTo(5);
+		assertThat(histogram.percentile(0.9)).isEqualTo(9);
+		assertThat(histogram.percentile(1.0)).isEqualTo(10);
+	}
+
+	@Test
+	void everyValueFallsInsideItsBucket() {
+		for (long value : new long[] { 0, 15, 16, 17, 31, 32, 1000, 86_400, 1L << 30, Integer.MAX_VALUE }) {
+			int index = LatencyHistogram.index(value);
+			assertThat(index).isBetween(0, LatencyHistogram.BUCKETS - 1);
+			assertThat(value).isBetween(LatencyHistogram.lowerBound(index), LatencyHistogram.upperBound(index));
+		}
+	}
+
+	@Test
+	void mergedHistogramsMatchOneFedEverything() {
+		LatencyHistogram monday = new LatencyHistogram();
+		LatencyHistogram tuesday = new LatencyHistogram();
+		LatencyHistogram both = new LatencyHistogram();
+		for (long s = 0; s < 5000; s += 7) {
+			(s % 2 == 0 ? monday : tuesday).record(s);
+			both.record(s);
+		}
+		monday.merge(tuesday);
+
+		assertThat(monday.count()).isEqualTo(both.count());
+		assertThat(monday.encode()).isEqualTo(both.encode());
+	}
+
+	@Test
+	void encodingRoundTrips() {
+		LatencyHistogram histogram = new LatencyHistogram();
+		histogram.record(3);
+		histogram.record(600);
+		histogram.record(600);
+		histogram.record(3 * 86_400);
+
+		LatencyHistogram decoded = LatencyHistogram.decode(histogram.encode());
+
+		assertThat(decoded.count()).isEqualTo(4);
+		assertThat(decoded.mean()).isEqualTo(histogram.mean());
+		assertThat(decoded.percentile(0.5)).isEqualTo(histogram.percentile(0.5));
+		assertThat(decoded.percentile(0.99)).isEqualTo(histogram.percentile(0.99));
+		assertThat(histogram.encode()).hasSizeLessThan(20);
+	}
+}
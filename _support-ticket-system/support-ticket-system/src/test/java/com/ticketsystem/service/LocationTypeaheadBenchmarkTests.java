@@ -0,0 +1,101 @@
+package com.ticketsystem.service;
+
+import com.ticketsystem.dto.LocationSuggestionDTO;
+import com.ticketsystem.model.LocationType;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Typeahead latency over a synthetic administrative tree, against a linear
+ * LOWER(name) LIKE '%q%'-style scan of the same names:
+ *
+ * mvn test -Dtest=LocationTypeaheadBenchmarkTests -Dbench.locations=50000
+ */
+@EnabledIfSystemProperty(named = "bench.locations", matches = "\\d+")
+class LocationTypeaheadBenchmarkTests {
+
+	private static final String[] SYLLABLES = { "ka", "ki", "ru", "nya", "ga", "mu", "bu", "re", "me", "sa", "bo",
+			"ha", "ti", "go", "ma", "ra", "ye", "zi" };
+	private static final String[] QUERIES = { "k", "ki", "kig", "nyaru", "remera", "gsabo", "mura vil", "zzzz" };
+	private static final int RUNS = 200;
+
+	@Test
+	void typeaheadLatency() {
+		int total = Integer.getInteger("bench.locations");
+		LocationTypeaheadIndex index = new LocationTypeaheadIndex();
+		List<String> names = new ArrayList<>(total);
+		Random random = new Random(42);
+
+		// 5 provinces, 30 districts, 416 sectors, ~2k cells, the rest villages
+		int[] perLevel = { 5, 30, 416, Math.max(total / 25, 1), 0 };
+		perLevel[4] = Math.max(total - perLevel[0] - perLevel[1] - perLevel[2] - perLevel[3], 0);
+		long id = 1;
+		long levelStart = 1;
+		for (int level = 0; level < perLevel.length; level++) {
+			long parentStart = levelStart - (level == 0 ? 0 : perLevel[level - 1]);
+			for (int i = 0; i < perLevel[level]; i++, id++) {
+				String name = name(random) + (level == 4 ? " Village" : "");
+				Long parent = level == 0 ? null : parentStart + i % perLevel[level - 1];
+				index.apply(new SearchIndexEvent(GlobalSearchIndex.Type.LOCATION, id,
+						GlobalSearchIndex.Document.location(id, name, LocationType.values()[level], parent)));
+				names.add(name.toLowerCase(Locale.ROOT));
+			}
+			levelStart += perLevel[level];
+		}
+		assertThat(index.size()).isEqualTo(total);
+
+		// Warm up the JIT before measuring
+		for (int i = 0; i < RUNS; i++) {
+			for (String q : QUERIES) {
+				index.suggest(q, null, LocationTypeaheadIndex.DEFAULT_LIMIT);
+			}
+		}
+
+		System.out.printf("%d locations%n", total);
+		for (String q : QUERIES) {
+			long[] indexed = new long[RUNS];
+			long[] scan = new long[RUNS];
+			List<LocationSuggestionDTO> hits = List.of();
+			for (int run = 0; run < RUNS; run++) {
+				long start = System.nanoTime();
+				hits = index.suggest(q, null, LocationTypeaheadIndex.DEFAULT_LIMIT);
+				indexed[run] = System.nanoTime() - start;
+
+				// What the LIKE query does: test every name, keep all matches
+				start = System.nanoTime();
+				List<String> found = new ArrayList<>();
+				for (String n : names) {
+					if (n.contains(q))
+						found.add(n);
+				}
+				scan[run] = System.nanoTime() - start;
+			}
+			System.out.printf("%-10s trigram p50 %7.3f ms  p99 %7.3f ms   scan p50 %7.3f ms   (%d hits)%n", q,
+					percentile(indexed, 50), percentile(indexed, 99), percentile(scan, 50), hits.size());
+		}
+	}
+
+	private static String name(Random random) {
+		StringBuilder sb = new StringBuilder();
+		int parts = 2 + random.nextInt(3);
+		for (int i = 0; i < parts; i++) {
+			sb.append(SYLLABLES[random.nextInt(SYLLABLES.length)]);
+		}
+		sb.setCharAt(0, Character.toUpperCase(sb.charAt(0)));
+		return sb.toString();
+	}
+
+	private static double percentile(long[] samples, int p) {
+		long[] sorted = samples.clone();
+		Arrays.sort(sorted);
+		return sorted[Math.min(sorted.length - 1, sorted.length * p / 100)] / 1_000_000.0;
+	}
+}
@@ -0,0 +1,76 @@
+package com.ticketsystem.service;
+
+import com.ticketsystem.dto.LocationSuggestionDTO;
+import com.ticketsystem.model.Location;
+import com.ticketsystem.model.LocationType;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.List;
+
+import static com.ticketsystem.TestFixtures.location;
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest
+@ActiveProfiles("test")
+@Import(LocationTypeaheadIndex.class)
+class LocationTypeaheadIndexTests {
+
+	@Autowired
+	private TestEntityManager entityManager;
+
+	@Autowired
+	private LocationTypeaheadIndex index;
+
+	private Location gasabo;
+
+	private Location remera;
+
+	@BeforeEach
+	void seed() {
+		Location kigali = entityManager.persist(location("Kigali City", LocationType.PROVINCE, null));
+		gasabo = entityManager.persist(location("Gasabo", LocationType.DISTRICT, kigali));
+		Location sector = entityManager.persist(location("Remera", LocationType.SECTOR, gasabo));
+		Location cell = entityManager.persist(location("Rukiri I", LocationType.CELL, sector));
+		remera = entityManager.persist(location("Remera Village", LocationType.VILLAGE, cell));
+		entityManager.persist(location("Nyaruremera", LocationType.VILLAGE, cell));
+
+		entityManager.flush();
+		index.load();
+	}
+
+	@Test
+	void prefixMatchesComeFirstWithTheirPath() {
+		List<LocationSuggestionDTO> hits = index.suggest("reme", null, 10);
+
+		assertThat(hits).extracting(LocationSuggestionDTO::getName)
+				.startsWith("Remera", "Remera Village");
+		assertThat(hits.get(1).getPath()).isEqualTo("Kigali City ➝ Gasabo ➝ Remera ➝ Rukiri I ➝ Remera Village");
+	}
+
+	@Test
+	void toleratesTyposAndFiltersByType() {
+		assertThat(index.suggest("gasbo", null, 10)).extracting(LocationSuggestionDTO::getName)
+				.containsExactly("Gasabo");
+		// Substring matches still qualify, ranked after names that start with the query
+		assertThat(index.suggest("remera", LocationType.VILLAGE, 10)).extracting(LocationSuggestionDTO::getName)
+				.containsExactly("Remera Village", "Nyaruremera");
+		assertThat(index.suggest("remera", null, 1)).hasSize(1);
+	}
+
+	@Test
+	void renamedAncestorShowsInPaths() {
+		gasabo.setName("Gasabo District");
+		index.onIndexEvent(SearchIndexEvent.of(gasabo));
+		assertThat(index.suggest("remera vil", null, 1).get(0).getPath()).contains("Gasabo District");
+
+		index.onIndexEvent(SearchIndexEvent.removed(GlobalSearchIndex.Type.LOCATION, remera.getId()));
+		assertThat(index.suggest("remera vil", LocationType.VILLAGE, 10))
+				.extracting(LocationSuggestionDTO::getName).doesNotContain("Remera Village");
+	}
+}
@@ -0,0 +1,298 @@
+package com.ticketsystem.service;
+
+import com.ticketsystem.TestFixtures;
+import com.ticketsystem.model.*;
+import com.ticketsystem.repository.AdminDigestEntryRepository;
+import com.ticketsystem.repository.NotificationRepository;
+import com.ticketsystem.repository.OutboxMessageRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.Pageable;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.util.AopTestUtils;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import static com.ticketsystem.TestFixtures.user;
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest
+@ActiveProfiles("test")
+@Import({ NotificationService.class, NotificationOutbox.class, AdminRecipients.class,
+		UnreadNotificationCounter.class, AdminDigest.class, DatabaseWrites.class })
+class NotificationCoalescingTests {
+
+	private static final int ADMINS = 3;
+
+	@Autowired
+	private TestEntityManager entityManager;
+
+	@Autowired
+	private NotificationService notificationService;
+
+	@Autowired
+	private NotificationOutbox outbox;
+
+	@Autowired
+	private AdminRecipients adminRecipients;
+
+	@Autowired
+	private AdminDigest adminDigest;
+
+	@Autowired
+	private NotificationRepository notificationRepository;
+
+	@Autowired
+	private OutboxMessageRepository outboxRepository;
+
+	@Autowired
+	private AdminDigestEntryRepository digestRepository;
+
+	private User customer;
+
+	private User agent;
+
+	@BeforeEach
+	void seed() {
+		customer = entityManager.persist(user("customer@example.com", UserRole.CUSTOMER));
+		agent = entityManager.persist(user("agent@example.com", UserRole.AGENT));
+		for (int i = 0; i < ADMINS; i++) {
+			entityManager.persist(user("admin" + i + "@example.com", UserRole.ADMIN));
+		}
+		entityManager.flush();
+		adminRecipients.invalidate();
+	}
+
+	@Test
+	void commentBurstBecomesOneNotificationAndTwoEmails() {
+		Ticket ticket = ticket(123L);
+		for (int i = 1; i <= 5; i++) {
+			notificationService.notifyTicketComment(customer, ticket, comment("Comment " + i));
+		}
+		entityManager.flush();
+		// The merges are bulk UPDATEs, which leave the entity loaded by the first insert stale
+		entityManager.clear();
+
+		List<Notification> rows = notificationsOf(customer);
+		assertThat(rows).singleElement().satisfies(n -> {
+			assertThat(n.getMessage()).isEqualTo("5 new comments on ticket #123");
+			assertThat(n.getGroupCount()).isEqualTo(5);
+		});
+
+		// The first email goes out right away, the other four wait for the window as one
+		List<OutboxMessage> emails = emails();
+		assertThat(emails).hasSize(2);
+		assertThat(emails.get(0).getSubject()).isEqualTo("New Comment on Ticket: Printer jams");
+		assertThat(emails.get(0).getNextAttemptAt()).isBeforeOrEqualTo(LocalDateTime.now());
+		assertThat(emails.get(1).getCoalesced()).isEqualTo(4);
+		assertThat(emails.get(1).getSubject()).isEqualTo("4 New Comments on Ticket: Printer jams");
+		assertThat(emails.get(1).getBody()).contains("The latest:\n\nComment 5");
+		assertThat(emails.get(1).getNextAttemptAt()).isAfter(LocalDateTime.now());
+	}
+
+	@Test
+	void groupsAreKeptApartByTicketRecipientAndKind() {
+		notificationService.notifyTicketComment(customer, ticket(1L), comment("a"));
+		notificationService.notifyTicketComment(customer, ticket(2L), comment("b"));
+		notificationService.notifyTicketComment(agent, ticket(1L), comment("c"));
+		notificationService.notifyTicketStatusChanged(customer, ticket(1L));
+		entityManager.flush();
+
+		assertThat(notificationsOf(customer)).hasSize(3);
+		assertThat(notificationsOf(agent)).hasSize(1);
+		assertThat(emails()).hasSize(4);
+	}
+
+	@Test
+	void readNotificationIsNotReopened() {
+		Ticket ticket = ticket(9L);
+		notificationService.notifyTicketComment(customer, ticket, comment("first"));
+		entityManager.flush();
+		Notification first = notificationsOf(customer).get(0);
+		notificationService.markRead(customer.getId(), first.getId());
+
+		notificationService.notifyTicketComment(customer, ticket, comment("second"));
+		entityManager.flush();
+		entityManager.clear();
+
+		assertThat(notificationsOf(customer)).extracting(Notification::getMessage)
+				.containsExactlyInAnyOrder("New comment on ticket #9", "New comment on ticket #9");
+	}
+
+	@Test
+	void mergesKeepCreatedAtAndTheGroupClosesAWindowAfterItOpened() {
+		Ticket ticket = ticket(11L);
+		notificationService.notifyTicketComment(customer, ticket, comment("first"));
+		entityManager.flush();
+		Notification opened = notificationsOf(customer).get(0);
+		LocalDateTime openedAt = LocalDateTime.now().minusMinutes(9).truncatedTo(ChronoUnit.SECONDS);
+		opened.setCreatedAt(openedAt);
+		entityManager.flush();
+
+		notificationService.notifyTicketComment(customer, ticket, comment("second"));
+		entityManager.flush();
+		entityManager.clear();
+
+		assertThat(notificationsOf(customer)).singleElement().satisfies(n -> {
+			assertThat(n.getGroupCount()).isEqualTo(2);
+			assertThat(n.getCreatedAt()).isEqualTo(openedAt);
+			assertThat(n.getLastEventAt()).isAfter(openedAt.plusMinutes(8));
+		});
+
+		// Ten minutes after it opened the group is closed, however busy it has been
+		Notification merged = notificationsOf(customer).get(0);
+		merged.setCreatedAt(LocalDateTime.now().minusMinutes(11));
+		entityManager.flush();
+		notificationService.notifyTicketComment(customer, ticket, comment("third"));
+		entityManager.flush();
+		entityManager.clear();
+
+		assertThat(notificationsOf(customer)).extracting(Notification::getGroupCount).containsExactly(1, 2);
+	}
+
+	@Test
+	void adminEventsAboutOneTicketShareANotification() {
+		notificationService.notifyAdmins("System: New Ticket Created", "Ticket #7 created (Unassigned) by Ann", 7L);
+		notificationService.notifyAdmins("System: Ticket Status Update", "Ticket #7 status updated to IN_PROGRESS", 7L);
+		notificationService.notifyAdmins("System: Ticket Reassigned", "Ticket #7 manually assigned to Bob", 7L);
+		notificationService.notifyAdmins("System: New Ticket Created", "Ticket #8 created (Unassigned) by Ann", 8L);
+		entityManager.flush();
+		entityManager.clear();
+
+		List<Notification> rows = allNotifications();
+		assertThat(rows).hasSize(2 * ADMINS);
+		assertThat(rows).filteredOn(n -> "ticket:7".equals(n.getGroupKey())).hasSize(ADMINS).allSatisfy(n -> {
+			assertThat(n.getTitle()).isEqualTo("System: Ticket Reassigned");
+			assertThat(n.getMessage()).isEqualTo("Ticket #7 manually assigned to Bob (3 updates on ticket #7)");
+		});
+	}
+
+	@Test
+	void digestModeSendsOneNotificationAndEmailPerAdmin() {
+		Object service = AopTestUtils.getUltimateTargetObject(notificationService);
+		ReflectionTestUtils.setField(service, "adminDigest", true);
+		try {
+			for (int i = 1; i <= 40; i++) {
+				notificationService.notifyAdmins("System: Ticket Status Update", "Ticket #" + i + " updated", (long) i);
+			}
+			notificationService.notifyAdmins("System: User Deleted", "User ID 5 has been deleted from the system.");
+			entityManager.flush();
+			assertThat(allNotifications()).isEmpty();
+			assertThat(digestRepository.count()).isEqualTo(41);
+
+			assertThat(adminDigest.send()).isEqualTo(41);
+			entityManager.flush();
+			entityManager.clear();
+
+			assertThat(allNotifications()).hasSize(ADMINS).allSatisfy(n -> {
+				assertThat(n.getTitle()).isEqualTo("System Digest: 41 events");
+				assertThat(n.getMessage()).isEqualTo("40 x Ticket Status Update, 1 x User Deleted");
+			});
+			assertThat(emails()).hasSize(ADMINS)
+					.allSatisfy(m -> assertThat(m.getBody()).contains("Ticket #40 updated"));
+			assertThat(digestRepository.count()).isZero();
+			assertThat(adminDigest.send()).isZero();
+		} finally {
+			ReflectionTestUtils.setField(service, "adminDigest", false);
+		}
+	}
+
+	/**
+	 * Replays the same burst of ticket activity with coalescing off, on, and on
+	 * with the admin digest, and reports the notification rows and emails each
+	 * one produces.
+	 */
+	@Test
+	void replayedWorkload() {
+		int[] off = replay(0, false);
+		int[] on = replay(600_000, false);
+		int[] digest = replay(600_000, true);
+
+		System.out.printf("%-22s %14s %8s%n", "", "notifications", "emails");
+		System.out.printf("%-22s %14d %8d%n", "no coalescing", off[0], off[1]);
+		System.out.printf("%-22s %14d %8d%n", "coalescing", on[0], on[1]);
+		System.out.printf("%-22s %14d %8d%n", "coalescing + digest", digest[0], digest[1]);
+
+		// Per ticket: one notification per participant and kind plus one per admin, and
+		// an email right away plus one when the window closes per participant and kind
+		assertThat(on[0]).isLessThan(off[0] / 3);
+		assertThat(on[1]).isLessThan(off[1] / 2);
+		assertThat(digest[0]).isLessThan(on[0]);
+	}
+
+	// 20 tickets, each created, commented on 12 times by turns and moved through two statuses
+	private int[] replay(long windowMs, boolean digest) {
+		Object service = AopTestUtils.getUltimateTargetObject(notificationService);
+		ReflectionTestUtils.setField(service, "coalesceWindowMs", windowMs);
+		ReflectionTestUtils.setField(service, "adminDigest", digest);
+		Object target = AopTestUtils.getUltimateTargetObject(outbox);
+		ReflectionTestUtils.setField(target, "coalesceWindowMs", windowMs);
+		try {
+			List<Ticket> tickets = new ArrayList<>();
+			for (long id = 1; id <= 20; id++) {
+				tickets.add(ticket(id));
+				notificationService.notifyAdmins("System: New Ticket Created", "Ticket #" + id + " created", id);
+			}
+			for (int round = 0; round < 12; round++) {
+				for (Ticket ticket : tickets) {
+					User recipient = round % 2 == 0 ? customer : agent;
+					notificationService.notifyTicketComment(recipient, ticket, comment("Reply " + round));
+					if (round == 3 || round == 9) {
+						ticket.setStatus(round == 3 ? TicketStatus.IN_PROGRESS : TicketStatus.RESOLVED);
+						notificationService.notifyTicketStatusChanged(customer, ticket);
+						notificationService.notifyAdmins("System: Ticket Status Update",
+								"Ticket #" + ticket.getId() + " status updated to " + ticket.getStatus(), ticket.getId());
+					}
+				}
+			}
+			adminDigest.send();
+			entityManager.flush();
+			int[] produced = { (int) notificationRepository.count(), (int) outboxRepository.count() };
+
+			notificationRepository.deleteAllInBatch();
+			outboxRepository.deleteAllInBatch();
+			entityManager.clear();
+			return produced;
+		} finally {
+			ReflectionTestUtils.setField(service, "coalesceWindowMs", 600_000L);
+			ReflectionTestUtils.setField(service, "adminDigest", false);
+			ReflectionTestUtils.setField(target, "coalesceWindowMs", 600_000L);
+		}
+	}
+
+	private List<Notification> notificationsOf(User user) {
+		return notificationRepository.findByRecipientIdOrderByCreatedAtDesc(user.getId(), Pageable.unpaged())
+				.getContent();
+	}
+
+	private List<Notification> allNotifications() {
+		return notificationRepository.findAll();
+	}
+
+	private List<OutboxMessage> emails() {
+		List<OutboxMessage> emails = new ArrayList<>(outboxRepository.findAll());
+		emails.sort(Comparator.comparing(OutboxMessage::getId));
+		return emails;
+	}
+
+	private static Ticket ticket(Long id) {
+		Ticket ticket = TestFixtures.ticket("Printer jams", null, TicketStatus.OPEN, Priority.MEDIUM);
+		ticket.setId(id);
+		return ticket;
+	}
+
+	private static Comment comment(String content) {
+		Comment comment = new Comment();
+		comment.setContent(content);
+		return comment;
+	}
+}
@@ -0,0 +1,208 @@
+package com.ticketsystem.service;
+
+import com.ticketsystem.model.OutboxMessage;
+import com.ticketsystem.model.OutboxStatus;
+import com.ticketsystem.repository.OutboxMessageRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.mail.MailSendException;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Queues messages in committed transactions and runs the dispatcher by hand
+ * (its schedule is off in the test profile), waiting for the handed-off sends
+ * to be recorded.
+ */
+@DataJpaTest
+@ActiveProfiles("test")
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@TestPropertySource(properties = "app.notifications.outbox.max-attempts=2")
+@Import({ NotificationOutbox.class, NotificationDispatcher.class })
+class NotificationDispatcherTests {
+
+	@Autowired
+	private NotificationOutbox outbox;
+
+	@Autowired
+	private NotificationDispatcher dispatcher;
+
+	@Autowired
+	private OutboxMessageRepository outboxRepository;
+
+	@Autowired
+	private PlatformTransactionManager transactionManager;
+
+	@MockitoBean
+	private EmailService emailService;
+
+	@MockitoBean
+	private SmsService smsService;
+
+	private TransactionTemplate tx;
+
+	@BeforeEach
+	void setUp() {
+		tx = new TransactionTemplate(transactionManager);
+		when(smsService.submit(anyString(), anyString())).thenReturn(CompletableFuture.completedFuture(null));
+	}
+
+	@AfterEach
+	void cleanUp() {
+		outboxRepository.deleteAll();
+	}
+
+	@Test
+	void onlyCommittedMessagesAreSent() throws Exception {
+		tx.executeWithoutResult(status -> {
+			outbox.email("kept@example.com", "Kept", "body");
+			outbox.sms("+250788000000", "text");
+		});
+		tx.executeWithoutResult(status -> {
+			outbox.email("dropped@example.com", "Dropped", "body");
+			status.setRollbackOnly();
+		});
+
+		assertThat(dispatch()).isEqualTo(2);
+
+		verify(emailService).sendEmail("kept@example.com", "Kept", "body");
+		verify(smsService).submit("+250788000000", "text");
+		verifyNoMoreInteractions(emailService);
+		assertThat(outboxRepository.findAll()).allSatisfy(m -> {
+			assertThat(m.getStatus()).isEqualTo(OutboxStatus.SENT);
+			assertThat(m.getAttempts()).isEqualTo(1);
+			assertThat(m.getSentAt()).isNotNull();
+		});
+		assertThat(dispatch()).isZero();
+	}
+
+	@Test
+	void failedSendsBackOffAndGiveUpAfterMaxAttempts() throws Exception {
+		doThrow(new MailSendException("connection timed out"))
+				.when(emailService).sendEmail(anyString(), anyString(), anyString());
+		tx.executeWithoutResult(status -> outbox.email("slow@example.com", "Subject", "body"));
+
+		dispatch();
+		OutboxMessage retried = outboxRepository.findAll().get(0);
+		assertThat(retried.getStatus()).isEqualTo(OutboxStatus.PENDING);
+		assertThat(retried.getAttempts()).isEqualTo(1);
+		assertThat(retried.getLastError()).isEqualTo("connection timed out");
+		assertThat(retried.getNextAttemptAt()).isAfter(LocalDateTime.now().plusSeconds(20));
+
+		// Not due yet
+		assertThat(dispatch()).isZero();
+
+		retried.setNextAttemptAt(LocalDateTime.now().minusSeconds(1));
+		outboxRepository.save(retried);
+		dispatch();
+
+		OutboxMessage failed = outboxRepository.findAll().get(0);
+		assertThat(failed.getStatus()).isEqualTo(OutboxStatus.FAILED);
+		assertThat(failed.getAttempts()).isEqualTo(2);
+		verify(emailService, times(2)).sendEmail(anyString(), anyString(), anyString());
+	}
+
+	@Test
+	void expiredClaimsAreRetried() throws Exception {
+		tx.executeWithoutResult(status -> outbox.email("lost@example.com", "Subject", "body"));
+		OutboxMessage message = outboxRepository.findAll().get(0);
+		message.setStatus(OutboxStatus.SENDING);
+		message.setNextAttemptAt(LocalDateTime.now().minusSeconds(1));
+		outboxRepository.save(message);
+
+		assertThat(dispatch()).isEqualTo(1);
+		assertThat(outboxRepository.findAll().get(0).getStatus()).isEqualTo(OutboxStatus.SENT);
+	}
+
+	@Test
+	void concurrentDispatchersSendEachMessageOnce() throws Exception {
+		int messages = 200;
+		tx.executeWithoutResult(status -> {
+			for (int i = 0; i < messages; i++) {
+				outbox.email("user" + i + "@example.com", "Subject", "body");
+			}
+		});
+
+		ExecutorService pool = Executors.newFixedThreadPool(4);
+		List<Future<?>> runs = new ArrayList<>();
+		for (int i = 0; i < 4; i++) {
+			runs.add(pool.submit(() -> {
+				while (outboxRepository.countByStatus(OutboxStatus.SENT) < messages) {
+					if (dispatcher.dispatchDue() == 0)
+						Thread.sleep(5);
+				}
+				return null;
+			}));
+		}
+		for (Future<?> run : runs) {
+			run.get(60, TimeUnit.SECONDS);
+		}
+		pool.shutdown();
+
+		verify(emailService, times(messages)).sendEmail(anyString(), eq("Subject"), eq("body"));
+		for (int i = 0; i < messages; i++) {
+			verify(emailService).sendEmail("user" + i + "@example.com", "Subject", "body");
+		}
+		assertThat(outboxRepository.countByStatus(OutboxStatus.SENT)).isEqualTo(messages);
+	}
+
+	@Test
+	void tickHandsOffWithoutWaitingForSends() throws Exception {
+		CountDownLatch release = new CountDownLatch(1);
+		doAnswer(invocation -> {
+			release.await(10, TimeUnit.SECONDS);
+			return null;
+		}).when(emailService).sendEmail(anyString(), anyString(), anyString());
+		tx.executeWithoutResult(status -> outbox.email("slow@example.com", "Subject", "body"));
+
+		assertThat(dispatcher.dispatchDue()).isEqualTo(1);
+		assertThat(dispatcher.inFlight()).isEqualTo(1);
+		assertThat(outboxRepository.findAll().get(0).getStatus()).isEqualTo(OutboxStatus.SENDING);
+
+		release.countDown();
+		awaitIdle();
+		assertThat(outboxRepository.findAll().get(0).getStatus()).isEqualTo(OutboxStatus.SENT);
+	}
+
+	@Test
+	void backoffDoublesUpToTheCap() {
+		assertThat(NotificationDispatcher.backoff(1, 30_000, 3_600_000)).isEqualTo(Duration.ofSeconds(30));
+		assertThat(NotificationDispatcher.backoff(2, 30_000, 3_600_000)).isEqualTo(Duration.ofSeconds(60));
+		assertThat(NotificationDispatcher.backoff(5, 30_000, 3_600_000)).isEqualTo(Duration.ofMinutes(8));
+		assertThat(NotificationDispatcher.backoff(40, 30_000, 3_600_000)).isEqualTo(Duration.ofHours(1));
+	}
+
+	// One tick, then wait for its sends to be recorded
+	private int dispatch() throws InterruptedException {
+		int claimed = dispatcher.dispatchDue();
+		awaitIdle();
+		return claimed;
+	}
+
+	private void awaitIdle() throws InterruptedException {
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+		while (dispatcher.inFlight() > 0) {
+			assertThat(System.nanoTime()).as("sends still in flight").isLessThan(deadline);
+			Thread.sleep(5);
+		}
+	}
+}
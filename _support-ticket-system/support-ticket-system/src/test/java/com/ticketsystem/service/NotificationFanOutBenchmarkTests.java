@@ -0,0 +1,102 @@
+package com.ticketsystem.service;
+
+import com.ticketsystem.dto.TicketDTO;
+import com.ticketsystem.model.*;
+import com.ticketsystem.repository.LocationRepository;
+import com.ticketsystem.repository.TicketCategoryRepository;
+import com.ticketsystem.repository.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Arrays;
+
+import static com.ticketsystem.TestFixtures.category;
+import static com.ticketsystem.TestFixtures.location;
+import static com.ticketsystem.TestFixtures.user;
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Creates tickets through TicketService, each in its own committed
+ * transaction, with 1, 10 and 100 admins receiving the "ticket created"
+ * fan-out, and reports creation throughput and latency:
+ *
+ * mvn test -Dtest=NotificationFanOutBenchmarkTests -Dbench.fanout=2000
+ *
+ * Runs against the in-memory H2 test database, so absolute numbers are lower
+ * bounds; the cost per extra admin is what to compare.
+ */
+@DataJpaTest
+@ActiveProfiles("test")
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import({ TicketService.class, TicketPageAssembler.class, TicketAssignmentService.class, AssignmentEngine.class,
+		AgentWorkloadLedger.class, LeastLoadedAssignmentStrategy.class, RoundRobinAssignmentStrategy.class,
+		ProximityAssignmentStrategy.class, NotificationService.class, NotificationOutbox.class,
+		AdminRecipients.class, UnreadNotificationCounter.class, TicketStatsRollup.class,
+		SlaMetricsService.class, DatabaseWrites.class })
+@EnabledIfSystemProperty(named = "bench.fanout", matches = "\\d+")
+class NotificationFanOutBenchmarkTests {
+
+	private static final int WARMUP = 200;
+
+	@Autowired
+	private TicketService ticketService;
+
+	@Autowired
+	private AdminRecipients adminRecipients;
+
+	@Autowired
+	private UserRepository userRepository;
+
+	@Autowired
+	private TicketCategoryRepository categoryRepository;
+
+	@Autowired
+	private LocationRepository locationRepository;
+
+	@Test
+	void ticketCreationThroughput() {
+		int tickets = Integer.getInteger("bench.fanout");
+
+		// No agents in the category, so every ticket takes the "created (unassigned)" admin fan-out
+		TicketCategory category = categoryRepository.save(category("Hardware"));
+		Location location = locationRepository.save(location("Kigali", LocationType.PROVINCE, null));
+		User customer = userRepository.save(user("customer@example.com", UserRole.CUSTOMER));
+
+		TicketDTO dto = new TicketDTO();
+		dto.setTitle("Laptop does not boot");
+		dto.setDescription("Black screen after the update");
+		dto.setCategoryId(category.getId());
+		dto.setLocationId(location.getId());
+
+		System.out.printf("%8s %10s %12s %9s %9s%n", "admins", "tickets", "tickets/s", "p50 us", "p99 us");
+		int admins = 0;
+		for (int target : new int[] { 1, 10, 100 }) {
+			for (; admins < target; admins++) {
+				userRepository.save(user("admin" + admins + "@example.com", UserRole.ADMIN));
+			}
+			adminRecipients.invalidate();
+			for (int i = 0; i < WARMUP; i++) {
+				ticketService.createTicket(dto, customer.getId());
+			}
+
+			long[] latencies = new long[tickets];
+			long started = System.nanoTime();
+			for (int i = 0; i < tickets; i++) {
+				long t0 = System.nanoTime();
+				ticketService.createTicket(dto, customer.getId());
+				latencies[i] = System.nanoTime() - t0;
+			}
+			double seconds = (System.nanoTime() - started) / 1e9;
+			Arrays.sort(latencies);
+			System.out.printf("%8d %10d %12.0f %9d %9d%n", target, tickets, tickets / seconds,
+					latencies[tickets / 2] / 1000, latencies[(int) (tickets * 0.99)] / 1000);
+		}
+		assertThat(adminRecipients.ids()).hasSize(100);
+	}
+}
@@ -0,0 +1,213 @@
+package com.ticketsystem.service;
+
+import com.ticketsystem.dto.NotificationDTO;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class NotificationPushRegistryTests {
+
+	private NotificationPushRegistry registry;
+
+	@BeforeEach
+	void setUp() {
+		registry = new NotificationPushRegistry();
+		ReflectionTestUtils.setField(registry, "timeoutMs", 60_000L);
+		ReflectionTestUtils.setField(registry, "maxPerUser", 3);
+	}
+
+	@AfterEach
+	void tearDown() {
+		registry.shutdown();
+	}
+
+	@Test
+	void pushesNotificationsAndDeltasToEveryStreamOfTheRecipientOnly() throws Exception {
+		RecordingEmitter laptop = new RecordingEmitter();
+		RecordingEmitter phone = new RecordingEmitter();
+		RecordingEmitter someoneElse = new RecordingEmitter();
+		registry.register(1L, laptop);
+		registry.register(1L, phone);
+		registry.register(2L, someoneElse);
+
+		registry.onNotification(created(1L, 10L, "Ticket Status Updated"));
+		registry.onNotification(NotificationEvent.read(1L, 1));
+
+		await(() -> laptop.events.size() == 3 && phone.events.size() == 3);
+		assertThat(laptop.events).containsExactly("notification:Ticket Status Updated", "unread-delta:1",
+				"unread-delta:-1");
+		assertThat(phone.events).isEqualTo(laptop.events);
+		assertThat(someoneElse.events).isEmpty();
+	}
+
+	@Test
+	void deadStreamsAreDroppedOnTheNextHeartbeat() throws Exception {
+		RecordingEmitter alive = new RecordingEmitter();
+		RecordingEmitter dead = new RecordingEmitter();
+		registry.register(1L, alive);
+		registry.register(1L, dead);
+		dead.broken = true;
+
+		registry.heartbeat();
+
+		await(() -> registry.streamCount(1L) == 1);
+		await(() -> alive.events.contains("keepalive"));
+		assertThat(registry.subscriberCount()).isEqualTo(1);
+
+		alive.broken = true;
+		registry.heartbeat();
+		await(() -> registry.subscriberCount() == 0);
+		assertThat(registry.streamCount(1L)).isZero();
+	}
+
+	@Test
+	void oldestStreamMakesRoomBeyondThePerUserLimit() throws Exception {
+		List<RecordingEmitter> tabs = new ArrayList<>();
+		for (int i = 0; i < 4; i++) {
+			RecordingEmitter tab = new RecordingEmitter();
+			tabs.add(tab);
+			registry.register(1L, tab);
+		}
+		assertThat(registry.streamCount(1L)).isEqualTo(3);
+		assertThat(registry.subscriberCount()).isEqualTo(3);
+
+		// The evicted first tab is closed; pushes reach the three newest
+		registry.onNotification(NotificationEvent.read(1L, 1));
+		await(() -> tabs.subList(1, 4).stream().allMatch(t -> t.events.size() == 1));
+		assertThat(tabs.get(0).events).isEmpty();
+	}
+
+	@Test
+	void stalledClientIsDropped() throws Exception {
+		RecordingEmitter stalled = new RecordingEmitter();
+		stalled.blocked = new CountDownLatch(1);
+		registry.register(1L, stalled);
+
+		for (int i = 0; i <= NotificationPushRegistry.MAX_PENDING; i++) {
+			registry.onNotification(NotificationEvent.read(1L, 1));
+		}
+		assertThat(registry.streamCount(1L)).isZero();
+		stalled.blocked.countDown();
+	}
+
+	@Test
+	void everyEventOfferedConcurrentlyIsSent() throws Exception {
+		RecordingEmitter emitter = new RecordingEmitter();
+		registry.register(1L, emitter);
+
+		// Bursts from several threads at once, each burst well under MAX_PENDING, so offers keep
+		// racing the drain as it empties the queue
+		int producers = 8;
+		int rounds = 2_000;
+		CyclicBarrier start = new CyclicBarrier(producers + 1);
+		List<Thread> threads = new ArrayList<>();
+		for (int p = 0; p < producers; p++) {
+			int producer = p;
+			threads.add(Thread.ofPlatform().start(() -> {
+				try {
+					for (int round = 0; round < rounds; round++) {
+						start.await();
+						registry.onNotification(NotificationEvent.read(1L, round * producers + producer + 1));
+					}
+				} catch (Exception e) {
+					throw new IllegalStateException(e);
+				}
+			}));
+		}
+		for (int round = 0; round < rounds; round++) {
+			start.await(10, TimeUnit.SECONDS);
+			int expected = (round + 1) * producers;
+			await(() -> emitter.events.size() >= expected);
+		}
+		for (Thread thread : threads) {
+			thread.join();
+		}
+
+		assertThat(emitter.events).hasSize(rounds * producers).doesNotHaveDuplicates();
+		assertThat(registry.streamCount(1L)).isEqualTo(1);
+	}
+
+	@Test
+	void tenThousandSubscribers() throws Exception {
+		int users = 10_000;
+		List<RecordingEmitter> emitters = new ArrayList<>(users);
+		for (long userId = 1; userId <= users; userId++) {
+			RecordingEmitter emitter = new RecordingEmitter();
+			emitters.add(emitter);
+			registry.register(userId, emitter);
+		}
+		assertThat(registry.subscriberCount()).isEqualTo(users);
+
+		long started = System.nanoTime();
+		for (long userId = 1; userId <= users; userId++) {
+			registry.onNotification(created(userId, userId, "Ticket Assigned"));
+		}
+		registry.heartbeat();
+		await(() -> emitters.stream().allMatch(e -> e.events.size() == 3));
+		long ms = (System.nanoTime() - started) / 1_000_000;
+
+		System.out.printf("Pushed a notification and a heartbeat to %d streams in %d ms%n", users, ms);
+		assertThat(emitters).allSatisfy(e -> assertThat(e.events).contains("notification:Ticket Assigned"));
+	}
+
+	private static NotificationEvent created(long recipientId, long id, String title) {
+		return new NotificationEvent(recipientId,
+				new NotificationDTO(id, title, "message", false, LocalDateTime.now()), 1);
+	}
+
+	private static void await(BooleanSupplier condition) throws InterruptedException {
+		long deadline = System.currentTimeMillis() + 10_000;
+		while (!condition.getAsBoolean()) {
+			assertThat(System.currentTimeMillis()).as("condition met within 10s").isLessThan(deadline);
+			Thread.sleep(5);
+		}
+	}
+
+	// Records "name:data" per event instead of writing to a response
+	private static class RecordingEmitter extends SseEmitter {
+
+		final List<String> events = new CopyOnWriteArrayList<>();
+
+		volatile boolean broken;
+
+		volatile CountDownLatch blocked;
+
+		@Override
+		public void send(SseEventBuilder builder) throws IOException {
+			if (broken)
+				throw new IOException("Broken pipe");
+			if (blocked != null) {
+				try {
+					blocked.await();
+				} catch (InterruptedException e) {
+					throw new IOException(e);
+				}
+			}
+			StringBuilder raw = new StringBuilder();
+			for (DataWithMediaType part : builder.build()) {
+				raw.append(part.getData() instanceof NotificationDTO dto ? dto.getTitle() : part.getData());
+			}
+			String text = raw.toString().trim();
+			if (text.startsWith(":")) {
+				events.add(text.substring(1));
+			} else {
+				String name = text.substring("event:".length(), text.indexOf('\n'));
+				events.add(name + ":" + text.substring(text.indexOf("data:") + "data:".length()));
+			}
+		}
+	}
+}
@@ -0,0 +1,103 @@
+package com.ticketsystem.service;
+
+import com.ticketsystem.model.Notification;
+import com.ticketsystem.model.User;
+import com.ticketsystem.model.UserRole;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.ticketsystem.TestFixtures.user;
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest
+@ActiveProfiles("test")
+@TestPropertySource(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@Import({ NotificationService.class, NotificationOutbox.class, AdminRecipients.class,
+		UnreadNotificationCounter.class, DatabaseWrites.class })
+class NotificationServiceTests {
+
+	private static final int ADMINS = 100;
+
+	@Autowired
+	private TestEntityManager entityManager;
+
+	@Autowired
+	private NotificationService notificationService;
+
+	@Autowired
+	private AdminRecipients adminRecipients;
+
+	@Autowired
+	private EntityManagerFactory entityManagerFactory;
+
+	private List<User> admins;
+
+	@BeforeEach
+	void seed() {
+		admins = new ArrayList<>();
+		for (int i = 0; i < ADMINS; i++) {
+			admins.add(entityManager.persist(user("admin" + i + "@example.com", UserRole.ADMIN)));
+		}
+		entityManager.persist(user("agent@example.com", UserRole.AGENT));
+		entityManager.flush();
+		adminRecipients.invalidate();
+	}
+
+	@Test
+	void adminFanOutIsOneBatchedInsert() {
+		adminRecipients.ids();
+		Statistics stats = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+		stats.clear();
+
+		notificationService.notifyAdmins("System: Ticket Assigned", "Ticket #1 assigned");
+		entityManager.flush();
+
+		// No user lookup, a few sequence calls and one insert statement instead of one per admin
+		assertThat(stats.getQueryExecutionCount()).isZero();
+		assertThat(stats.getEntityInsertCount()).isEqualTo(ADMINS);
+		assertThat(stats.getPrepareStatementCount()).isLessThan(10);
+		assertThat(notifications()).hasSize(ADMINS)
+				.allSatisfy(n -> assertThat(n.getRecipient().getRole()).isEqualTo(UserRole.ADMIN));
+	}
+
+	@Test
+	void adminSetFollowsUserChanges() {
+		assertThat(adminRecipients.ids()).hasSize(ADMINS);
+
+		User removed = admins.get(0);
+		entityManager.remove(removed);
+		// Published by UserService.deleteUser before it notifies the remaining admins
+		adminRecipients.onUserChanged(SearchIndexEvent.removed(GlobalSearchIndex.Type.USER, removed.getId()));
+		notificationService.notifyAdmins("System: User Deleted", "User " + removed.getId() + " deleted");
+		entityManager.flush();
+
+		assertThat(adminRecipients.ids()).hasSize(ADMINS - 1).doesNotContain(removed.getId());
+		assertThat(notifications()).hasSize(ADMINS - 1);
+	}
+
+	@Test
+	void unrelatedEventsKeepTheCache() {
+		List<Long> first = adminRecipients.ids();
+		adminRecipients.onUserCompleted(SearchIndexEvent.removed(GlobalSearchIndex.Type.TICKET, 1L));
+
+		assertThat(adminRecipients.ids()).isSameAs(first);
+	}
+
+	private List<Notification> notifications() {
+		return entityManager.getEntityManager()
+				.createQuery("select n from Notification n", Notification.class)
+				.getResultList();
+	}
+}
@@ -0,0 +1,240 @@
+package com.ticketsystem.service;
+
+import com.ticketsystem.dto.CommentDTO;
+import com.ticketsystem.dto.SlaPercentilesDTO;
+import com.ticketsystem.dto.TicketDTO;
+import com.ticketsystem.model.*;
+import com.ticketsystem.repository.*;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static com.ticketsystem.TestFixtures.category;
+import static com.ticketsystem.TestFixtures.location;
+import static com.ticketsystem.TestFixtures.user;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+/**
+ * Records durations through the services in committed transactions and reads
+ * the percentiles back, then checks the backfill rebuilds the same counts.
+ */
+@DataJpaTest
+@ActiveProfiles("test")
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import({ TicketService.class, TicketPageAssembler.class, TicketAssignmentService.class, AssignmentEngine.class,
+		AgentWorkloadLedger.class, LeastLoadedAssignmentStrategy.class, RoundRobinAssignmentStrategy.class,
+		ProximityAssignmentStrategy.class, NotificationService.class, NotificationOutbox.class,
+		AdminRecipients.class, UnreadNotificationCounter.class, BulkTicketService.class, TicketStatsRollup.class,
+		CommentService.class, SlaMetricsService.class, DatabaseWrites.class })
+class SlaMetricsServiceTests {
+
+	@Autowired
+	private TicketService ticketService;
+
+	@Autowired
+	private BulkTicketService bulkTicketService;
+
+	@Autowired
+	private CommentService commentService;
+
+	@Autowired
+	private SlaMetricsService slaMetrics;
+
+	@Autowired
+	private AssignmentEngine assignmentEngine;
+
+	@Autowired
+	private AdminRecipients adminRecipients;
+
+	@Autowired
+	private UserRepository userRepository;
+
+	@Autowired
+	private TicketRepository ticketRepository;
+
+	@Autowired
+	private CommentRepository commentRepository;
+
+	@Autowired
+	private TicketCategoryRepository categoryRepository;
+
+	@Autowired
+	private LocationRepository locationRepository;
+
+	@Autowired
+	private TicketAssignmentRepository assignmentRepository;
+
+	@Autowired
+	private TicketStatRepository statRepository;
+
+	@Autowired
+	private NotificationRepository notificationRepository;
+
+	@Autowired
+	private OutboxMessageRepository outboxRepository;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Autowired
+	private PlatformTransactionManager transactionManager;
+
+	private TransactionTemplate tx;
+
+	private User customer;
+
+	private User agent;
+
+	private TicketCategory category;
+
+	private Location province;
+
+	private Location district;
+
+	@BeforeEach
+	void seed() {
+		tx = new TransactionTemplate(transactionManager);
+		tx.executeWithoutResult(status -> {
+			category = categoryRepository.save(category("Network"));
+			province = locationRepository.save(location("Kigali", LocationType.PROVINCE, null));
+			district = locationRepository.save(location("Gasabo", LocationType.DISTRICT, province));
+
+			customer = userRepository.save(user("customer@example.com", UserRole.CUSTOMER));
+			agent = user("agent@example.com", UserRole.AGENT);
+			agent.getCategories().add(category);
+			agent = userRepository.save(agent);
+		});
+		adminRecipients.invalidate();
+		assignmentEngine.load();
+	}
+
+	@AfterEach
+	void cleanUp() {
+		tx.executeWithoutResult(status -> {
+			commentRepository.deleteAll();
+			notificationRepository.deleteAll();
+			outboxRepository.deleteAll();
+			assignmentRepository.deleteAll();
+			ticketRepository.deleteAll();
+			statRepository.deleteAll();
+			jdbcTemplate.update("DELETE FROM notification_unread_counts");
+			jdbcTemplate.update("DELETE FROM sla_histograms");
+			userRepository.deleteAll();
+			categoryRepository.deleteAll();
+			locationRepository.deleteAll();
+		});
+	}
+
+	@Test
+	void onlyTheFirstAgentCommentCounts() {
+		Long id = createTicket(120);
+
+		comment(id, customer);
+		assertThat(percentiles(SlaMetric.FIRST_RESPONSE, SlaDimension.OVERALL)).isEmpty();
+
+		comment(id, agent);
+		comment(id, agent);
+
+		assertThat(percentiles(SlaMetric.FIRST_RESPONSE, SlaDimension.AGENT)).singleElement().satisfies(row -> {
+			assertThat(row.getDimensionId()).isEqualTo(agent.getId());
+			assertThat(row.getCount()).isEqualTo(1);
+			assertThat((double) row.getP50Seconds()).isCloseTo(7200, within(7200 / 16.0));
+		});
+		assertThat(percentiles(SlaMetric.FIRST_RESPONSE, SlaDimension.PROVINCE))
+				.extracting(SlaPercentilesDTO::getDimensionId).containsExactly(province.getId());
+	}
+
+	@Test
+	void resolutionsAreRecordedPerCategoryAgentAndProvince() {
+		Long first = createTicket(60);
+		Long second = createTicket(120);
+		Long third = createTicket(180);
+		createTicket(240);
+
+		tx.executeWithoutResult(s -> ticketService.updateTicketStatus(first, TicketStatus.RESOLVED, agent.getId()));
+		tx.executeWithoutResult(s -> ticketService.updateTicketStatus(second, TicketStatus.RESOLVED, agent.getId()));
+		// Closing a resolved ticket does not resolve it again
+		tx.executeWithoutResult(s -> ticketService.updateTicketStatus(second, TicketStatus.CLOSED, agent.getId()));
+		tx.executeWithoutResult(s -> bulkTicketService.updateStatus(List.of(third), TicketStatus.CLOSED, 99L));
+
+		for (SlaDimension dimension : new SlaDimension[] { SlaDimension.OVERALL, SlaDimension.CATEGORY,
+				SlaDimension.AGENT, SlaDimension.PROVINCE }) {
+			assertThat(percentiles(SlaMetric.RESOLUTION, dimension)).singleElement().satisfies(row -> {
+				assertThat(row.getCount()).isEqualTo(3);
+				assertThat((double) row.getP50Seconds()).isCloseTo(7200, within(7200 / 16.0));
+				assertThat((double) row.getP99Seconds()).isCloseTo(10_800, within(10_800 / 16.0));
+			});
+		}
+		assertThat(slaMetrics.percentiles(SlaMetric.RESOLUTION, SlaDimension.AGENT, LocalDate.now(),
+				LocalDate.now().plusDays(1), agent.getId() + 1)).isEmpty();
+	}
+
+	@Test
+	void rolledBackResolutionRecordsNothing() {
+		Long id = createTicket(60);
+
+		tx.executeWithoutResult(s -> {
+			ticketService.updateTicketStatus(id, TicketStatus.RESOLVED, agent.getId());
+			s.setRollbackOnly();
+		});
+
+		assertThat(percentiles(SlaMetric.RESOLUTION, SlaDimension.OVERALL)).isEmpty();
+	}
+
+	@Test
+	void backfillRebuildsWhatWasRecorded() {
+		Long first = createTicket(30);
+		Long second = createTicket(90);
+		comment(first, agent);
+		tx.executeWithoutResult(s -> ticketService.updateTicketStatus(first, TicketStatus.RESOLVED, agent.getId()));
+		tx.executeWithoutResult(s -> ticketService.updateTicketStatus(second, TicketStatus.CLOSED, agent.getId()));
+		List<SlaPercentilesDTO> recorded = percentiles(SlaMetric.RESOLUTION, SlaDimension.PROVINCE);
+
+		jdbcTemplate.update("DELETE FROM sla_histograms");
+		assertThat(slaMetrics.backfill()).isEqualTo(3);
+
+		assertThat(percentiles(SlaMetric.FIRST_RESPONSE, SlaDimension.CATEGORY)).singleElement()
+				.extracting(SlaPercentilesDTO::getCount).isEqualTo(1L);
+		// Resolved at the tickets' updated_at, which can trail the recorded instant by a few milliseconds
+		assertThat(percentiles(SlaMetric.RESOLUTION, SlaDimension.PROVINCE))
+				.usingRecursiveFieldByFieldElementComparatorIgnoringFields("meanSeconds").isEqualTo(recorded);
+	}
+
+	private List<SlaPercentilesDTO> percentiles(SlaMetric metric, SlaDimension dimension) {
+		return slaMetrics.percentiles(metric, dimension, LocalDate.now(), LocalDate.now().plusDays(1), null);
+	}
+
+	// A ticket in the district, created the given minutes ago
+	private Long createTicket(int minutesAgo) {
+		TicketDTO dto = new TicketDTO();
+		dto.setTitle("Ticket");
+		dto.setDescription("Cannot connect");
+		dto.setCategoryId(category.getId());
+		dto.setLocationId(district.getId());
+		Long id = tx.execute(s -> ticketService.createTicket(dto, customer.getId())).getId();
+		jdbcTemplate.update("UPDATE tickets SET created_at = ? WHERE id = ?",
+				LocalDateTime.now().minusMinutes(minutesAgo), id);
+		return id;
+	}
+
+	private void comment(Long ticketId, User author) {
+		CommentDTO dto = new CommentDTO();
+		dto.setTicketId(ticketId);
+		dto.setContent("Looking into it");
+		tx.executeWithoutResult(s -> commentService.createComment(dto, author.getId()));
+	}
+}
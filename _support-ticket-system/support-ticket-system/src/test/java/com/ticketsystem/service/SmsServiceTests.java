@@ -0,0 +1,207 @@
+package com.ticketsystem.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Runs the pipeline against a fake provider that records the batches it gets.
+ */
+class SmsServiceTests {
+
+	private FakeSmsProvider provider;
+
+	private SmsService service;
+
+	@BeforeEach
+	void setUp() {
+		provider = new FakeSmsProvider(50);
+		service = service(1000, SmsService.Overflow.BLOCK);
+	}
+
+	@AfterEach
+	void tearDown() {
+		provider.gate.countDown();
+		service.shutdown();
+	}
+
+	@Test
+	void messagesQueuedWhileTheProviderIsBusyGoOutInBatches() throws Exception {
+		provider.gate = new CountDownLatch(1);
+		List<CompletableFuture<Void>> sends = new ArrayList<>();
+		sends.add(service.submit("+100", "first"));
+		// Let the sender pick the first one up and block in the provider
+		Thread.sleep(100);
+		for (int i = 0; i < 120; i++) {
+			sends.add(service.submit("+2" + i, "update " + i));
+		}
+		provider.gate.countDown();
+		CompletableFuture.allOf(sends.toArray(CompletableFuture[]::new)).get(10, TimeUnit.SECONDS);
+
+		assertThat(provider.batches).extracting(List::size).containsExactly(1, 50, 50, 20);
+		assertThat(service.stats().sent()).isEqualTo(121);
+		assertThat(service.stats().batches()).isEqualTo(4);
+	}
+
+	@Test
+	void batchesAreCappedAtTheProviderLimit() throws Exception {
+		service.shutdown();
+		provider = new FakeSmsProvider(10);
+		service = service(1000, SmsService.Overflow.BLOCK);
+		provider.gate = new CountDownLatch(1);
+		List<CompletableFuture<Void>> sends = new ArrayList<>();
+		for (int i = 0; i < 30; i++) {
+			sends.add(service.submit("+3" + i, "hello"));
+		}
+		provider.gate.countDown();
+		CompletableFuture.allOf(sends.toArray(CompletableFuture[]::new)).get(10, TimeUnit.SECONDS);
+
+		assertThat(provider.batches).allSatisfy(batch -> assertThat(batch).hasSizeLessThanOrEqualTo(10));
+		assertThat(provider.delivered()).isEqualTo(30);
+	}
+
+	@Test
+	void sameTextToSameNumberIsSentOnce() throws Exception {
+		provider.gate = new CountDownLatch(1);
+		CompletableFuture<Void> first = service.submit("+100", "Ticket #1 assigned");
+		CompletableFuture<Void> whileQueued = service.submit("+100", "Ticket #1 assigned");
+		CompletableFuture<Void> otherNumber = service.submit("+101", "Ticket #1 assigned");
+		assertThat(whileQueued).isSameAs(first);
+		provider.gate.countDown();
+		CompletableFuture.allOf(first, otherNumber).get(10, TimeUnit.SECONDS);
+
+		CompletableFuture<Void> afterSent = service.submit("+100", "Ticket #1 assigned");
+		assertThat(afterSent).isCompleted();
+
+		assertThat(provider.delivered()).isEqualTo(2);
+		assertThat(service.stats().deduplicated()).isEqualTo(2);
+	}
+
+	@Test
+	void repeatOutsideTheDedupWindowIsSentAgain() throws Exception {
+		ReflectionTestUtils.setField(service, "dedupWindowMs", 0L);
+		service.submit("+100", "hello").get(10, TimeUnit.SECONDS);
+		service.submit("+100", "hello").get(10, TimeUnit.SECONDS);
+
+		assertThat(provider.delivered()).isEqualTo(2);
+	}
+
+	@Test
+	void retryLaterFailsAtOnceWhenTheQueueIsFull() throws Exception {
+		service.shutdown();
+		service = service(2, SmsService.Overflow.RETRY_LATER);
+		provider.gate = new CountDownLatch(1);
+		List<CompletableFuture<Void>> sends = fillQueue();
+
+		CompletableFuture<Void> overflow = service.submit("+999", "one too many");
+		assertThat(overflow).isCompletedExceptionally();
+		assertThat(service.stats().overflowed()).isEqualTo(1);
+		provider.gate.countDown();
+		assertThat(sends).allSatisfy(send -> assertThat(send).succeedsWithin(10, TimeUnit.SECONDS));
+	}
+
+	@Test
+	void dropDiscardsTheMessageWhenTheQueueIsFull() throws Exception {
+		service.shutdown();
+		service = service(2, SmsService.Overflow.DROP);
+		provider.gate = new CountDownLatch(1);
+		List<CompletableFuture<Void>> sends = fillQueue();
+
+		assertThat(service.submit("+999", "one too many")).isCompleted();
+		provider.gate.countDown();
+		assertThat(sends).allSatisfy(send -> assertThat(send).succeedsWithin(10, TimeUnit.SECONDS));
+		assertThat(provider.batches.stream().flatMap(List::stream).map(SmsProvider.Sms::to))
+				.doesNotContain("+999");
+		assertThat(service.stats().dropped()).isEqualTo(1);
+	}
+
+	@Test
+	void blockWaitsForRoomInTheQueue() throws Exception {
+		service.shutdown();
+		service = service(2, SmsService.Overflow.BLOCK);
+		provider.gate = new CountDownLatch(1);
+		fillQueue();
+
+		// Nobody makes room: the caller gives up after block-timeout-ms
+		long started = System.nanoTime();
+		assertThat(service.submit("+998", "waits")).isCompletedExceptionally();
+		assertThat((System.nanoTime() - started) / 1_000_000).isGreaterThanOrEqualTo(200);
+
+		// Room is made while the caller waits: it gets in
+		CompletableFuture.delayedExecutor(100, TimeUnit.MILLISECONDS).execute(provider.gate::countDown);
+		service.submit("+999", "waits").get(10, TimeUnit.SECONDS);
+		assertThat(provider.delivered()).isEqualTo(4);
+	}
+
+	@Test
+	void failedBatchIsRetriedAndThenSent() throws Exception {
+		provider.failNext.set(2);
+		service.submit("+100", "hello").get(10, TimeUnit.SECONDS);
+
+		assertThat(provider.batches).hasSize(3);
+		assertThat(service.stats().sent()).isEqualTo(1);
+		assertThat(service.stats().failed()).isZero();
+	}
+
+	@Test
+	void messageFailsAfterMaxAttempts() {
+		provider.failNext.set(10);
+		CompletableFuture<Void> send = service.submit("+100", "hello");
+
+		assertThatThrownBy(() -> send.get(10, TimeUnit.SECONDS)).isInstanceOf(ExecutionException.class)
+				.hasRootCauseMessage("gateway unavailable");
+		assertThat(provider.batches).hasSize(3);
+		assertThat(service.stats().failed()).isEqualTo(1);
+	}
+
+	@Test
+	void rejectedMessageIsNotRetried() throws Exception {
+		CompletableFuture<Void> rejected = service.submit("+000", "hello");
+		service.submit("+100", "hello").get(10, TimeUnit.SECONDS);
+
+		assertThatThrownBy(() -> rejected.get(10, TimeUnit.SECONDS)).isInstanceOf(ExecutionException.class);
+		assertThat(provider.delivered()).isEqualTo(2);
+	}
+
+	// The sender takes the first message and blocks in the provider; two more fill the queue
+	private List<CompletableFuture<Void>> fillQueue() throws InterruptedException {
+		List<CompletableFuture<Void>> sends = new ArrayList<>();
+		sends.add(service.submit("+100", "first"));
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+		while (service.stats().queued() > 0 && System.nanoTime() < deadline) {
+			Thread.onSpinWait();
+		}
+		// Past the linger, so the batch has gone to the provider without them
+		Thread.sleep(50);
+		sends.add(service.submit("+101", "second"));
+		sends.add(service.submit("+102", "third"));
+		return sends;
+	}
+
+	private SmsService service(int capacity, SmsService.Overflow overflow) {
+		SmsService created = new SmsService();
+		ReflectionTestUtils.setField(created, "providerBeans", List.of(provider));
+		ReflectionTestUtils.setField(created, "providerName", "fake");
+		ReflectionTestUtils.setField(created, "capacity", capacity);
+		ReflectionTestUtils.setField(created, "overflow", overflow);
+		ReflectionTestUtils.setField(created, "blockTimeoutMs", 200L);
+		ReflectionTestUtils.setField(created, "batchSize", 50);
+		ReflectionTestUtils.setField(created, "lingerMs", 5L);
+		ReflectionTestUtils.setField(created, "dedupWindowMs", 300_000L);
+		ReflectionTestUtils.setField(created, "maxAttempts", 3);
+		ReflectionTestUtils.setField(created, "backoffMs", 20L);
+		created.start();
+		return created;
+	}
+}
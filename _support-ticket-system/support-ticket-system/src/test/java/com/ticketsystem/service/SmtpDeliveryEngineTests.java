@@ -0,0 +1,169 @@
+package com.ticketsystem.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.SimpleMailMessage;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Runs the engine against an in-process SMTP server on a local port.
+ */
+class SmtpDeliveryEngineTests {
+
+	private FakeSmtpServer smtp;
+
+	private JavaMailSenderImpl mailSender;
+
+	private SmtpDeliveryEngine engine;
+
+	@BeforeEach
+	void setUp() throws Exception {
+		smtp = new FakeSmtpServer();
+		mailSender = new JavaMailSenderImpl();
+		mailSender.setHost("localhost");
+		mailSender.setPort(smtp.port());
+		mailSender.getJavaMailProperties().setProperty("mail.smtp.timeout", "5000");
+		engine = engine(2, 100, 0);
+	}
+
+	@AfterEach
+	void tearDown() throws Exception {
+		engine.shutdown();
+		smtp.close();
+	}
+
+	@Test
+	void concurrentSendersShareThePooledConnections() throws Exception {
+		// Enough messages per connection that none is recycled part way through
+		engine = engine(2, 1000, 0);
+		ExecutorService senders = Executors.newFixedThreadPool(8);
+		List<Future<?>> runs = new ArrayList<>();
+		for (int t = 0; t < 8; t++) {
+			int thread = t;
+			runs.add(senders.submit(() -> {
+				for (int i = 0; i < 25; i++) {
+					engine.send("user" + thread + "-" + i + "@example.com", "Subject " + i, "body");
+				}
+			}));
+		}
+		for (Future<?> run : runs) {
+			run.get(30, TimeUnit.SECONDS);
+		}
+		senders.shutdown();
+
+		assertThat(smtp.messages).hasSize(200);
+		assertThat(smtp.connections.get()).isLessThanOrEqualTo(2);
+		SmtpDeliveryEngine.Stats stats = engine.stats();
+		assertThat(stats.sent()).isEqualTo(200);
+		assertThat(stats.connectionsOpened()).isLessThanOrEqualTo(2);
+		assertThat(stats.busyConnections()).isZero();
+		assertThat(stats.waiting()).isZero();
+		assertThat(stats.p99LatencyMs()).isPositive();
+	}
+
+	@Test
+	void connectionIsReplacedAfterMaxMessages() {
+		engine = engine(2, 10, 0);
+		for (int i = 0; i < 25; i++) {
+			engine.send("user@example.com", "Subject", "body");
+		}
+		assertThat(smtp.messages).hasSize(25);
+		assertThat(smtp.connections.get()).isEqualTo(3);
+	}
+
+	@Test
+	void idleConnectionsAreNotReused() throws Exception {
+		ReflectionTestUtils.setField(engine, "maxIdleMs", 50L);
+		engine.send("user@example.com", "First", "body");
+		Thread.sleep(120);
+		engine.send("user@example.com", "Second", "body");
+
+		assertThat(smtp.connections.get()).isEqualTo(2);
+		assertThat(smtp.messages).extracting(FakeSmtpServer.Received::subject).containsExactly("First", "Second");
+	}
+
+	@Test
+	void failedSendIsCountedAndItsConnectionDropped() {
+		assertThatThrownBy(() -> engine.send("bounce@example.com", "Subject", "body"))
+				.isInstanceOf(MailSendException.class);
+		engine.send("user@example.com", "Subject", "body");
+
+		assertThat(smtp.messages).extracting(FakeSmtpServer.Received::recipient).containsExactly("user@example.com");
+		assertThat(smtp.connections.get()).isEqualTo(2);
+		assertThat(engine.stats().failed()).isEqualTo(1);
+		assertThat(engine.stats().sent()).isEqualTo(1);
+	}
+
+	@Test
+	void sendsAreSpacedToTheRateLimit() {
+		engine = engine(2, 100, 20);
+		long started = System.nanoTime();
+		for (int i = 0; i < 21; i++) {
+			engine.send("user@example.com", "Subject", "body");
+		}
+		long ms = (System.nanoTime() - started) / 1_000_000;
+
+		// The first goes at once, the other 20 one every 50 ms
+		assertThat(ms).isGreaterThanOrEqualTo(950);
+		assertThat(smtp.messages).hasSize(21);
+	}
+
+	@Test
+	void pooledConnectionsAgainstOneConnectionPerMessage() {
+		int messages = 50;
+		smtp.handshakeDelayMs = 20;
+
+		long started = System.nanoTime();
+		for (int i = 0; i < messages; i++) {
+			SimpleMailMessage message = new SimpleMailMessage();
+			message.setFrom("noreply@example.com");
+			message.setTo("user@example.com");
+			message.setSubject("Subject");
+			message.setText("body");
+			mailSender.send(message);
+		}
+		long perMessageMs = (System.nanoTime() - started) / 1_000_000;
+		int perMessageConnections = smtp.connections.getAndSet(0);
+
+		started = System.nanoTime();
+		for (int i = 0; i < messages; i++) {
+			engine.send("user@example.com", "Subject", "body");
+		}
+		long pooledMs = (System.nanoTime() - started) / 1_000_000;
+
+		System.out.printf("%d messages, 20 ms handshake: connection per message %d ms (%d connections), "
+				+ "pooled %d ms (%d connections)%n", messages, perMessageMs, perMessageConnections, pooledMs,
+				smtp.connections.get());
+		assertThat(perMessageConnections).isEqualTo(messages);
+		assertThat(smtp.connections.get()).isEqualTo(1);
+		assertThat(pooledMs).isLessThan(perMessageMs);
+	}
+
+	private SmtpDeliveryEngine engine(int connections, int messagesPerConnection, double ratePerSecond) {
+		if (engine != null)
+			engine.shutdown();
+		SmtpDeliveryEngine created = new SmtpDeliveryEngine();
+		ReflectionTestUtils.setField(created, "mailSender", mailSender);
+		ReflectionTestUtils.setField(created, "maxConnections", connections);
+		ReflectionTestUtils.setField(created, "maxMessagesPerConnection", messagesPerConnection);
+		ReflectionTestUtils.setField(created, "maxIdleMs", 30_000L);
+		ReflectionTestUtils.setField(created, "borrowTimeoutMs", 5_000L);
+		ReflectionTestUtils.setField(created, "ratePerSecond", ratePerSecond);
+		ReflectionTestUtils.setField(created, "from", "noreply@example.com");
+		created.start();
+		return created;
+	}
+}
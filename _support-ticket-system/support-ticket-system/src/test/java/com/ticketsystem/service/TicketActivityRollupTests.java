@@ -0,0 +1,279 @@
+package com.ticketsystem.service;
+
+import com.ticketsystem.TestFixtures;
+import com.ticketsystem.dto.TicketTimeSeriesDTO;
+import com.ticketsystem.dto.TicketTimeSeriesDTO.Granularity;
+import com.ticketsystem.dto.TimeSeriesPointDTO;
+import com.ticketsystem.model.*;
+import com.ticketsystem.repository.*;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static com.ticketsystem.TestFixtures.category;
+import static com.ticketsystem.TestFixtures.location;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Folds tickets with known timestamps in committed transactions and reads the
+ * series back through DashboardService.
+ */
+@DataJpaTest
+@ActiveProfiles("test")
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import({ TicketActivityRollup.class, DashboardService.class, DatabaseWrites.class })
+class TicketActivityRollupTests {
+
+	private static final LocalDateTime DAY = LocalDateTime.of(2025, 3, 10, 0, 0);
+
+	@Autowired
+	private TicketActivityRollup rollup;
+
+	@Autowired
+	private DashboardService dashboardService;
+
+	@Autowired
+	private TicketRepository ticketRepository;
+
+	@Autowired
+	private TicketCategoryRepository categoryRepository;
+
+	@Autowired
+	private LocationRepository locationRepository;
+
+	@Autowired
+	private TicketActivityHourlyRepository hourlyRepository;
+
+	@Autowired
+	private TicketActivityDailyRepository dailyRepository;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Autowired
+	private PlatformTransactionManager transactionManager;
+
+	private TransactionTemplate tx;
+
+	private TicketCategory network;
+
+	private TicketCategory billing;
+
+	private Location location;
+
+	@BeforeEach
+	void seed() {
+		tx = new TransactionTemplate(transactionManager);
+		tx.executeWithoutResult(status -> {
+			network = categoryRepository.save(category("Network"));
+			billing = categoryRepository.save(category("Billing"));
+			location = locationRepository.save(location("Kigali", LocationType.PROVINCE, null));
+		});
+	}
+
+	@AfterEach
+	void cleanUp() {
+		tx.executeWithoutResult(status -> {
+			ticketRepository.deleteAll();
+			jdbcTemplate.update("DELETE FROM ticket_activity_hourly");
+			jdbcTemplate.update("DELETE FROM ticket_activity_daily");
+			jdbcTemplate.update("DELETE FROM ticket_activity_state");
+			jdbcTemplate.update("DELETE FROM analytics_watermarks");
+			categoryRepository.deleteAll();
+			locationRepository.deleteAll();
+		});
+	}
+
+	@Test
+	void creationsAndResolutionsLandInTheirHoursAndDays() {
+		ticket(network, DAY.plusHours(10).plusMinutes(15));
+		ticket(network, DAY.plusHours(10).plusMinutes(40));
+		Long late = ticket(billing, DAY.plusHours(11).plusMinutes(5));
+		setStatus(late, TicketStatus.RESOLVED, DAY.plusDays(1).plusHours(9).plusMinutes(30));
+
+		assertThat(rollup.fold()).isEqualTo(3);
+		assertThat(hourlyRepository.count()).isEqualTo(3);
+		// Two days of two categories in one location: per key, per category, per location and overall
+		assertThat(dailyRepository.count()).isEqualTo(6 + 4);
+
+		TicketTimeSeriesDTO hours = dashboardService.getTimeSeries(DAY.plusHours(10).plusMinutes(30),
+				DAY.plusHours(11).plusMinutes(30), null, null, null);
+		assertThat(hours.getGranularity()).isEqualTo(Granularity.HOUR);
+		assertThat(hours.getFrom()).isEqualTo(DAY.plusHours(10));
+		assertThat(hours.getTo()).isEqualTo(DAY.plusHours(12));
+		assertThat(hours.getOpeningBacklog()).isZero();
+		assertThat(hours.getPoints()).extracting(TimeSeriesPointDTO::getCreated).containsExactly(2L, 1L);
+		assertThat(hours.getPoints()).extracting(TimeSeriesPointDTO::getBacklog).containsExactly(2L, 3L);
+
+		TicketTimeSeriesDTO days = dashboardService.getTimeSeries(DAY.minusDays(1), DAY.plusDays(9), null, null,
+				null);
+		assertThat(days.getGranularity()).isEqualTo(Granularity.DAY);
+		assertThat(days.getPoints()).hasSize(10);
+		assertThat(days.getPoints()).extracting(TimeSeriesPointDTO::getCreated).startsWith(0L, 3L, 0L);
+		assertThat(days.getPoints()).extracting(TimeSeriesPointDTO::getResolved).startsWith(0L, 0L, 1L);
+		assertThat(days.getPoints()).extracting(TimeSeriesPointDTO::getBacklog).startsWith(0L, 3L, 2L, 2L);
+		assertThat(days.getFoldedUntil()).isEqualTo(DAY.plusDays(1).plusHours(9).plusMinutes(30));
+	}
+
+	@Test
+	void refoldingCountsNothingTwice() {
+		Long id = ticket(network, DAY.plusHours(8));
+		assertThat(rollup.fold()).isEqualTo(1);
+		// Inside the overlap, so read again, but it has not moved
+		assertThat(rollup.fold()).isZero();
+
+		setStatus(id, TicketStatus.IN_PROGRESS, DAY.plusHours(9));
+		assertThat(rollup.fold()).isZero();
+		setStatus(id, TicketStatus.CLOSED, DAY.plusHours(10));
+		assertThat(rollup.fold()).isEqualTo(1);
+		setStatus(id, TicketStatus.OPEN, DAY.plusHours(11));
+		assertThat(rollup.fold()).isEqualTo(1);
+		assertThat(rollup.fold()).isZero();
+
+		TicketTimeSeriesDTO day = dashboardService.getTimeSeries(DAY, DAY.plusDays(1), Granularity.DAY, null, null);
+		assertThat(day.getPoints()).singleElement().satisfies(point -> {
+			assertThat(point.getCreated()).isEqualTo(1);
+			assertThat(point.getResolved()).isEqualTo(1);
+			assertThat(point.getReopened()).isEqualTo(1);
+			assertThat(point.getBacklog()).isEqualTo(1);
+		});
+	}
+
+	@Test
+	void batchesWalkTicketsUpdatedAtTheSameInstant() {
+		ReflectionTestUtils.setField(rollup, "batchSize", 2);
+		for (int i = 0; i < 5; i++) {
+			ticket(network, DAY.plusHours(8));
+		}
+		// A bulk status change gives every ticket the same updated_at
+		jdbcTemplate.update("UPDATE tickets SET status = 'CLOSED', updated_at = ?", DAY.plusHours(9));
+
+		try {
+			assertThat(rollup.fold()).isEqualTo(5);
+		} finally {
+			ReflectionTestUtils.setField(rollup, "batchSize", 1000);
+		}
+		TicketTimeSeriesDTO hours = dashboardService.getTimeSeries(DAY.plusHours(8), DAY.plusHours(10), null, null,
+				null);
+		assertThat(hours.getPoints()).extracting(TimeSeriesPointDTO::getCreated).containsExactly(5L, 0L);
+		assertThat(hours.getPoints()).extracting(TimeSeriesPointDTO::getResolved).containsExactly(0L, 5L);
+		assertThat(hours.getPoints()).extracting(TimeSeriesPointDTO::getBacklog).containsExactly(5L, 0L);
+	}
+
+	@Test
+	void deletedOpenTicketsLeaveTheBacklog() {
+		Long id = ticket(network, DAY.plusHours(8));
+		Long resolved = ticket(network, DAY.plusHours(8));
+		ticket(network, DAY.plusHours(8));
+		setStatus(resolved, TicketStatus.RESOLVED, DAY.plusHours(9));
+		rollup.fold();
+
+		tx.executeWithoutResult(status -> {
+			rollup.ticketsRemoved(List.of(id, resolved));
+			ticketRepository.deleteAllById(List.of(id, resolved));
+		});
+		assertThat(rollup.fold()).isEqualTo(1);
+		assertThat(rollup.fold()).isZero();
+		// Both are forgotten, though only the open one left the backlog
+		assertThat(jdbcTemplate.queryForObject("SELECT count(*) FROM ticket_activity_state", Long.class))
+				.isEqualTo(1);
+
+		LocalDateTime now = LocalDateTime.now();
+		TicketTimeSeriesDTO today = dashboardService.getTimeSeries(now.minusHours(1), now, Granularity.HOUR, null,
+				null);
+		assertThat(today.getOpeningBacklog()).isEqualTo(2);
+		assertThat(today.getPoints()).last().satisfies(point -> {
+			assertThat(point.getRemoved()).isEqualTo(1);
+			assertThat(point.getBacklog()).isEqualTo(1);
+		});
+	}
+
+	@Test
+	void lateActivityOnAnEarlierDayMovesTheBacklogOfTheDaysAfter() {
+		ticket(network, DAY.plusDays(2));
+		ticket(billing, DAY.plusDays(4));
+		rollup.fold();
+		assertThat(backlogOn(DAY.plusDays(5), null)).isEqualTo(2);
+
+		// Committed late, long after the days it lands in were folded
+		Long late = ticket(network, DAY);
+		setStatus(late, TicketStatus.CLOSED, DAY.plusDays(3));
+		jdbcTemplate.update("UPDATE tickets SET updated_at = ? WHERE id = ?", DAY.plusDays(3), late);
+		jdbcTemplate.update("UPDATE analytics_watermarks SET position_at = ?", DAY.plusDays(2));
+		assertThat(rollup.fold()).isEqualTo(1);
+
+		assertThat(backlogOn(DAY.plusDays(1), null)).isEqualTo(1);
+		assertThat(backlogOn(DAY.plusDays(3), null)).isEqualTo(2);
+		assertThat(backlogOn(DAY.plusDays(4), null)).isEqualTo(1);
+		assertThat(backlogOn(DAY.plusDays(5), null)).isEqualTo(2);
+		assertThat(backlogOn(DAY.plusDays(5), network)).isEqualTo(1);
+		assertThat(backlogOn(DAY.plusDays(5), billing)).isEqualTo(1);
+		// What is kept is what summing every day would give
+		assertThat(jdbcTemplate.queryForObject("""
+				SELECT count(*) FROM ticket_activity_daily d
+				WHERE d.backlog_count <> (SELECT sum(p.created_count - p.resolved_count + p.reopened_count
+				                                     - p.removed_count)
+				                          FROM ticket_activity_daily p
+				                          WHERE p.category_id = d.category_id AND p.location_id = d.location_id
+				                            AND p.bucket_date <= d.bucket_date)
+				""", Long.class)).isZero();
+	}
+
+	@Test
+	void seriesCanBeNarrowedToACategoryOrLocation() {
+		ticket(network, DAY.plusHours(8));
+		ticket(network, DAY.plusHours(8));
+		ticket(billing, DAY.plusHours(8));
+		ticket(billing, DAY.plusDays(3));
+		rollup.fold();
+
+		// The opening backlog of a range starting mid-day adds the day's earlier hours
+		TicketTimeSeriesDTO billed = dashboardService.getTimeSeries(DAY.plusDays(3).plusHours(1),
+				DAY.plusDays(3).plusHours(2), null, billing.getId(), null);
+		assertThat(billed.getOpeningBacklog()).isEqualTo(2);
+		assertThat(dashboardService.getTimeSeries(DAY, DAY.plusDays(1), Granularity.DAY, network.getId(),
+				location.getId()).getPoints()).extracting(TimeSeriesPointDTO::getCreated).containsExactly(2L);
+		assertThat(dashboardService.getTimeSeries(DAY, DAY.plusDays(1), Granularity.DAY, null, location.getId() + 1)
+				.getPoints()).extracting(TimeSeriesPointDTO::getCreated).containsExactly(0L);
+	}
+
+	@Test
+	void emptyOrOversizedRangesAreRejected() {
+		assertThatThrownBy(() -> dashboardService.getTimeSeries(DAY, DAY, null, null, null))
+				.isInstanceOf(IllegalArgumentException.class);
+		assertThatThrownBy(() -> dashboardService.getTimeSeries(DAY, DAY.plusYears(5), Granularity.HOUR, null, null))
+				.isInstanceOf(IllegalArgumentException.class);
+	}
+
+	private long backlogOn(LocalDateTime day, TicketCategory category) {
+		return dashboardService.getTimeSeries(day, day.plusDays(1), Granularity.DAY,
+				category != null ? category.getId() : null, null).getOpeningBacklog();
+	}
+
+	private Long ticket(TicketCategory category, LocalDateTime createdAt) {
+		Ticket ticket = TestFixtures.ticket("Ticket", null, TicketStatus.OPEN, Priority.MEDIUM);
+		ticket.setCategory(category);
+		ticket.setLocation(location);
+		ticket.setCreatedAt(createdAt);
+		ticket.setUpdatedAt(createdAt);
+		return tx.execute(status -> ticketRepository.save(ticket)).getId();
+	}
+
+	private void setStatus(Long id, TicketStatus status, LocalDateTime at) {
+		jdbcTemplate.update("UPDATE tickets SET status = ?, updated_at = ? WHERE id = ?", status.name(), at, id);
+	}
+}
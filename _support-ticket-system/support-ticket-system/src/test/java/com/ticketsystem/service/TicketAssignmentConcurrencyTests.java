@@ -0,0 +1,240 @@
+package com.ticketsystem.service;
+
+import com.ticketsystem.model.*;
+import com.ticketsystem.repository.TicketAssignmentRepository;
+import com.ticketsystem.repository.TicketCategoryRepository;
+import com.ticketsystem.repository.TicketRepository;
+import com.ticketsystem.repository.TicketStatRepository;
+import com.ticketsystem.repository.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import static com.ticketsystem.TestFixtures.category;
+import static com.ticketsystem.TestFixtures.ticket;
+import static com.ticketsystem.TestFixtures.user;
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Runs assignments from many threads, each in its own committed transaction,
+ * and checks the database, workload ledger and ticket stats afterwards.
+ */
+@DataJpaTest
+@ActiveProfiles("test")
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import({ TicketAssignmentService.class, AssignmentEngine.class, AgentWorkloadLedger.class, TicketStatsRollup.class,
+		LeastLoadedAssignmentStrategy.class, RoundRobinAssignmentStrategy.class, ProximityAssignmentStrategy.class,
+		DatabaseWrites.class })
+class TicketAssignmentConcurrencyTests {
+
+	private static final int AGENTS = 8;
+	private static final int TICKETS = 40;
+	private static final int OPERATIONS = 10_000;
+	private static final int THREADS = 16;
+
+	@Autowired
+	private TicketAssignmentService assignmentService;
+
+	@Autowired
+	private AssignmentEngine assignmentEngine;
+
+	@Autowired
+	private AgentWorkloadLedger ledger;
+
+	@Autowired
+	private TicketStatsRollup statsRollup;
+
+	@Autowired
+	private TicketStatRepository statRepository;
+
+	@Autowired
+	private UserRepository userRepository;
+
+	@Autowired
+	private TicketRepository ticketRepository;
+
+	@Autowired
+	private TicketCategoryRepository categoryRepository;
+
+	@Autowired
+	private TicketAssignmentRepository assignmentRepository;
+
+	@Autowired
+	private PlatformTransactionManager transactionManager;
+
+	private TransactionTemplate tx;
+
+	private TicketCategory category;
+
+	private User customer;
+
+	private List<Long> agentIds;
+
+	@BeforeEach
+	void seed() {
+		tx = new TransactionTemplate(transactionManager);
+		tx.executeWithoutResult(status -> {
+			category = categoryRepository.save(category("Network"));
+
+			customer = userRepository.save(user("customer@example.com", UserRole.CUSTOMER));
+			agentIds = new ArrayList<>();
+			for (int i = 0; i < AGENTS; i++) {
+				User agent = user("agent" + i + "@example.com", UserRole.AGENT);
+				agent.getCategories().add(category);
+				agentIds.add(userRepository.save(agent).getId());
+			}
+		});
+		assignmentEngine.load();
+		ledger.reconcile();
+	}
+
+	@AfterEach
+	void cleanUp() {
+		tx.executeWithoutResult(status -> {
+			assignmentRepository.deleteAll();
+			ticketRepository.deleteAll();
+			statRepository.deleteAll();
+			userRepository.deleteAll();
+			categoryRepository.deleteAll();
+		});
+		ledger.reconcile();
+	}
+
+	@Test
+	void concurrentReassignmentsLeaveExactlyOneCurrentAssignmentPerTicket() throws Exception {
+		List<Long> ticketIds = createTickets(TICKETS);
+		statsRollup.verify();
+
+		int failures = runConcurrently(OPERATIONS, i -> {
+			ThreadLocalRandom random = ThreadLocalRandom.current();
+			Long ticketId = ticketIds.get(random.nextInt(ticketIds.size()));
+			Long agentId = agentIds.get(random.nextInt(agentIds.size()));
+			tx.executeWithoutResult(status -> assignmentService.reassign(ticketId, agentId));
+		});
+		assertThat(failures).isZero();
+
+		Map<Long, Long> currentPerTicket = tx.execute(status -> assignmentRepository.findAll().stream()
+				.filter(a -> a.getStatus() == AssignmentStatus.ASSIGNED || a.getStatus() == AssignmentStatus.ACTIVE)
+				.collect(Collectors.groupingBy(a -> a.getTicket().getId(), Collectors.counting())));
+		assertThat(currentPerTicket).hasSize(TICKETS);
+		assertThat(currentPerTicket.values()).containsOnly(1L);
+
+		// The ledger followed every committed change: a reload finds nothing to correct
+		Map<Long, Integer> before = workloads();
+		ledger.reconcile();
+		assertThat(workloads()).isEqualTo(before);
+		assertThat(before.values().stream().mapToInt(Integer::intValue).sum()).isEqualTo(TICKETS);
+		// So did the stats rollup
+		assertThat(statsRollup.verify()).isZero();
+	}
+
+	@Test
+	void repeatedReassignmentToTheSameAgentIsANoOp() {
+		Long ticketId = createTickets(1).get(0);
+		Long agentId = agentIds.get(0);
+
+		Boolean first = tx.execute(status -> assignmentService.reassign(ticketId, agentId));
+		Boolean repeated = tx.execute(status -> assignmentService.reassign(ticketId, agentId));
+
+		assertThat(first).isTrue();
+		assertThat(repeated).isFalse();
+
+		assertThat(assignmentRepository.count()).isEqualTo(1);
+		assertThat(ledger.activeTickets(agentId)).isEqualTo(1);
+	}
+
+	@Test
+	void concurrentAutoAssignmentSpreadsABurstEvenly() throws Exception {
+		int perAgent = 50;
+		List<Long> ticketIds = createTickets(AGENTS * perAgent);
+
+		int failures = runConcurrently(ticketIds.size(), i -> tx.executeWithoutResult(
+				status -> assignmentService.autoAssign(ticketRepository.findById(ticketIds.get(i)).orElseThrow())));
+		assertThat(failures).isZero();
+
+		// Each pick saw every earlier reservation, so nobody got more than their share
+		for (Long agentId : agentIds) {
+			assertThat(ledger.activeTickets(agentId)).isEqualTo(perAgent);
+		}
+		ledger.reconcile();
+		for (Long agentId : agentIds) {
+			assertThat(ledger.activeTickets(agentId)).isEqualTo(perAgent);
+		}
+	}
+
+	@Test
+	void rolledBackAutoAssignmentReleasesTheReservation() {
+		Long ticketId = createTickets(1).get(0);
+
+		tx.executeWithoutResult(status -> {
+			assertThat(assignmentService.autoAssign(ticketRepository.findById(ticketId).orElseThrow())).isNotNull();
+			status.setRollbackOnly();
+		});
+
+		assertThat(assignmentRepository.count()).isZero();
+		assertThat(workloads().values()).containsOnly(0);
+	}
+
+	private interface Operation {
+		void run(int i) throws Exception;
+	}
+
+	// Runs the operations on a thread pool and returns how many threw
+	private static int runConcurrently(int count, Operation operation) throws Exception {
+		ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+		AtomicInteger failures = new AtomicInteger();
+		CountDownLatch start = new CountDownLatch(1);
+		List<Future<?>> futures = new ArrayList<>(count);
+		for (int i = 0; i < count; i++) {
+			int n = i;
+			futures.add(pool.submit(() -> {
+				start.await();
+				try {
+					operation.run(n);
+				} catch (Exception e) {
+					failures.incrementAndGet();
+				}
+				return null;
+			}));
+		}
+		start.countDown();
+		for (Future<?> f : futures) {
+			f.get(60, TimeUnit.SECONDS);
+		}
+		pool.shutdown();
+		return failures.get();
+	}
+
+	private List<Long> createTickets(int count) {
+		return tx.execute(status -> {
+			List<Long> ids = new ArrayList<>(count);
+			for (int i = 0; i < count; i++) {
+				Ticket ticket = ticket("Ticket " + i, customer, TicketStatus.OPEN, Priority.MEDIUM);
+				ticket.setCategory(category);
+				ids.add(ticketRepository.save(ticket).getId());
+			}
+			return ids;
+		});
+	}
+
+	private Map<Long, Integer> workloads() {
+		Map<Long, Integer> counts = new TreeMap<>();
+		for (Long agentId : agentIds) {
+			counts.put(agentId, ledger.activeTickets(agentId));
+		}
+		return counts;
+	}
+}
@@ -0,0 +1,78 @@
+package com.ticketsystem.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ticketsystem.model.*;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+
+import static com.ticketsystem.TestFixtures.ticket;
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest
+@ActiveProfiles("test")
+@Import({ TicketExportService.class, JacksonAutoConfiguration.class })
+class TicketExportServiceTests {
+
+	@Autowired
+	private TestEntityManager entityManager;
+
+	@Autowired
+	private TicketExportService exportService;
+
+	@Autowired
+	private ObjectMapper objectMapper;
+
+	private User customer;
+
+	@BeforeEach
+	void seed() {
+		customer = new User();
+		customer.setName("Jane, \"JJ\" Doe");
+		customer.setEmail("jane@example.com");
+		customer.setRole(UserRole.CUSTOMER);
+		entityManager.persist(customer);
+
+		for (int i = 0; i < TicketExportService.FLUSH_EVERY + 3; i++) {
+			entityManager.persist(ticket("Ticket " + i, customer, TicketStatus.OPEN,
+					i % 2 == 0 ? Priority.HIGH : Priority.LOW));
+		}
+		entityManager.flush();
+		entityManager.clear();
+	}
+
+	@Test
+	void csvHasHeaderOneLinePerTicketAndQuotedFields() throws Exception {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		long rows = exportService.exportTickets(null, null, null, null, null, TicketExportService.Format.CSV, out);
+
+		String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+		assertThat(rows).isEqualTo(TicketExportService.FLUSH_EVERY + 3);
+		assertThat(lines).hasSize(TicketExportService.FLUSH_EVERY + 4);
+		assertThat(lines[0]).startsWith("id,title,status");
+		assertThat(lines[1]).contains("\"Jane, \"\"JJ\"\" Doe\"");
+	}
+
+	@Test
+	void ndjsonAppliesFilters() throws Exception {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		long rows = exportService.exportTickets(null, Priority.LOW, null, null, null,
+				TicketExportService.Format.NDJSON, out);
+
+		String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+		assertThat(lines).hasSize((int) rows);
+		for (String line : lines) {
+			JsonNode node = objectMapper.readTree(line);
+			assertThat(node.get("priority").asText()).isEqualTo("LOW");
+		}
+	}
+}
@@ -0,0 +1,106 @@
+package com.ticketsystem.service;
+
+import com.ticketsystem.dto.TicketResponseDTO;
+import com.ticketsystem.model.*;
+import com.ticketsystem.repository.TicketRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.context.ActiveProfiles;
+
+import static com.ticketsystem.TestFixtures.assignment;
+import static com.ticketsystem.TestFixtures.category;
+import static com.ticketsystem.TestFixtures.location;
+import static com.ticketsystem.TestFixtures.ticket;
+import static com.ticketsystem.TestFixtures.user;
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@ActiveProfiles("test")
+@Import(TicketPageAssembler.class)
+class TicketPageAssemblerTests {
+
+	private static final int TICKETS = 60;
+
+	@Autowired
+	private TestEntityManager entityManager;
+
+	@Autowired
+	private EntityManagerFactory entityManagerFactory;
+
+	@Autowired
+	private TicketRepository ticketRepository;
+
+	@Autowired
+	private TicketPageAssembler assembler;
+
+	@BeforeEach
+	void seed() {
+		Location province = entityManager.persist(location("Province", LocationType.PROVINCE, null));
+		User agent = entityManager.persist(user("agent@example.com", UserRole.AGENT));
+
+		for (int i = 0; i < TICKETS; i++) {
+			User customer = entityManager.persist(user("customer" + i + "@example.com", UserRole.CUSTOMER));
+			Location district = entityManager.persist(location("District " + i, LocationType.DISTRICT, province));
+
+			Ticket ticket = ticket("Ticket " + i, customer, TicketStatus.OPEN, Priority.MEDIUM);
+			ticket.setCategory(entityManager.persist(category("Category " + i)));
+			ticket.setLocation(district);
+			entityManager.persist(ticket);
+
+			entityManager.persist(assignment(ticket, agent, AssignmentStatus.ASSIGNED));
+
+			for (int c = 0; c < 3; c++) {
+				Comment comment = new Comment();
+				comment.setTicket(ticket);
+				comment.setAuthor(customer);
+				comment.setContent("Comment " + c);
+				entityManager.persist(comment);
+			}
+		}
+		entityManager.flush();
+		entityManager.clear();
+	}
+
+	@Test
+	void statementCountDoesNotGrowWithPageSize() {
+		long small = statementsForPage(5);
+		long large = statementsForPage(50);
+
+		assertThat(large).isEqualTo(small);
+	}
+
+	@Test
+	void stitchesAgentsAndCommentsOntoEachTicket() {
+		Page<TicketResponseDTO> page = assembler.assemble(
+				ticketRepository.findAllTickets(null, null, null, null, null, PageRequest.of(0, 10)), true);
+
+		assertThat(page.getTotalElements()).isEqualTo(TICKETS);
+		assertThat(page.getContent()).hasSize(10).allSatisfy(dto -> {
+			assertThat(dto.getAssignedAgent().getEmail()).isEqualTo("agent@example.com");
+			assertThat(dto.getComments()).hasSize(3);
+			assertThat(dto.getComments()).allMatch(c -> c.getTicketId().equals(dto.getId()));
+			assertThat(dto.getLocation().getParentName()).isEqualTo("Province");
+		});
+	}
+
+	private long statementsForPage(int size) {
+		entityManager.clear();
+		Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+		statistics.clear();
+
+		Page<TicketResponseDTO> page = assembler.assemble(
+				ticketRepository.findAllTickets(null, null, null, null, null, PageRequest.of(0, size)), true);
+		assertThat(page.getContent()).hasSize(size);
+
+		return statistics.getPrepareStatementCount();
+	}
+}
@@ -0,0 +1,247 @@
+package com.ticketsystem.service;
+
+import com.ticketsystem.dto.DashboardResponseDTO;
+import com.ticketsystem.dto.TicketDTO;
+import com.ticketsystem.model.*;
+import com.ticketsystem.repository.*;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.ticketsystem.TestFixtures.category;
+import static com.ticketsystem.TestFixtures.location;
+import static com.ticketsystem.TestFixtures.user;
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Drives tickets through the services in committed transactions and checks
+ * the rollup against a recount from the tickets after each step.
+ */
+@DataJpaTest
+@ActiveProfiles("test")
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import({ TicketService.class, TicketPageAssembler.class, TicketAssignmentService.class, AssignmentEngine.class,
+		AgentWorkloadLedger.class, LeastLoadedAssignmentStrategy.class, RoundRobinAssignmentStrategy.class,
+		ProximityAssignmentStrategy.class, NotificationService.class, NotificationOutbox.class,
+		AdminRecipients.class, UnreadNotificationCounter.class, BulkTicketService.class, TicketStatsRollup.class,
+		DashboardService.class, SlaMetricsService.class, DatabaseWrites.class })
+class TicketStatsRollupTests {
+
+	@Autowired
+	private TicketService ticketService;
+
+	@Autowired
+	private TicketAssignmentService assignmentService;
+
+	@Autowired
+	private BulkTicketService bulkTicketService;
+
+	@Autowired
+	private DashboardService dashboardService;
+
+	@Autowired
+	private TicketStatsRollup statsRollup;
+
+	@Autowired
+	private AssignmentEngine assignmentEngine;
+
+	@Autowired
+	private AdminRecipients adminRecipients;
+
+	@Autowired
+	private UserRepository userRepository;
+
+	@Autowired
+	private TicketRepository ticketRepository;
+
+	@Autowired
+	private TicketCategoryRepository categoryRepository;
+
+	@Autowired
+	private LocationRepository locationRepository;
+
+	@Autowired
+	private TicketAssignmentRepository assignmentRepository;
+
+	@Autowired
+	private TicketStatRepository statRepository;
+
+	@Autowired
+	private NotificationRepository notificationRepository;
+
+	@Autowired
+	private OutboxMessageRepository outboxRepository;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Autowired
+	private PlatformTransactionManager transactionManager;
+
+	private TransactionTemplate tx;
+
+	private User customer;
+
+	private User agent;
+
+	private User otherAgent;
+
+	private TicketCategory category;
+
+	private Location location;
+
+	@BeforeEach
+	void seed() {
+		tx = new TransactionTemplate(transactionManager);
+		tx.executeWithoutResult(status -> {
+			category = categoryRepository.save(category("Network"));
+			location = locationRepository.save(location("Kigali", LocationType.PROVINCE, null));
+
+			customer = userRepository.save(user("customer@example.com", UserRole.CUSTOMER));
+			agent = user("agent@example.com", UserRole.AGENT);
+			agent.getCategories().add(category);
+			agent = userRepository.save(agent);
+			otherAgent = userRepository.save(user("other@example.com", UserRole.AGENT));
+		});
+		adminRecipients.invalidate();
+		assignmentEngine.load();
+		statsRollup.verify();
+	}
+
+	@AfterEach
+	void cleanUp() {
+		tx.executeWithoutResult(status -> {
+			notificationRepository.deleteAll();
+			outboxRepository.deleteAll();
+			assignmentRepository.deleteAll();
+			ticketRepository.deleteAll();
+			statRepository.deleteAll();
+			jdbcTemplate.update("DELETE FROM notification_unread_counts");
+			jdbcTemplate.update("DELETE FROM sla_histograms");
+			userRepository.deleteAll();
+			categoryRepository.deleteAll();
+			locationRepository.deleteAll();
+		});
+	}
+
+	@Test
+	void createdTicketsAreCountedWithTheirAgent() {
+		List<Long> ids = createTickets(3);
+
+		assertThat(statsRollup.verify()).isZero();
+		assertThat(statRepository.findAll()).singleElement().satisfies(row -> {
+			assertThat(row.getStatus()).isEqualTo(TicketStatus.OPEN);
+			assertThat(row.getAgentId()).isEqualTo(agent.getId());
+			assertThat(row.getCategoryId()).isEqualTo(category.getId());
+			assertThat(row.getLocationId()).isEqualTo(location.getId());
+			assertThat(row.getTicketCount()).isEqualTo(ids.size());
+		});
+	}
+
+	@Test
+	void statusChangesAndReassignmentsMoveTheCounts() {
+		List<Long> ids = createTickets(4);
+
+		tx.executeWithoutResult(s -> ticketService.updateTicketStatus(ids.get(0), TicketStatus.IN_PROGRESS,
+				customer.getId()));
+		tx.executeWithoutResult(s -> ticketService.updateTicketStatus(ids.get(1), TicketStatus.RESOLVED,
+				customer.getId()));
+		tx.executeWithoutResult(s -> assignmentService.reassign(ids.get(2), otherAgent.getId()));
+		assertThat(statsRollup.verify()).isZero();
+
+		DashboardResponseDTO admin = dashboardService.getAdminDashboard();
+		assertThat(admin.getTotalTickets()).isEqualTo(4);
+		assertThat(admin.getOpenTickets()).isEqualTo(2);
+		assertThat(admin.getInProgressTickets()).isEqualTo(1);
+		assertThat(admin.getResolvedTickets()).isEqualTo(1);
+		assertThat(admin.getAgentsOnline()).isEqualTo(2);
+
+		DashboardResponseDTO mine = dashboardService.getAgentDashboard(agent.getId());
+		assertThat(mine.getAssignedTickets()).isEqualTo(3);
+		assertThat(mine.getOpenTickets()).isEqualTo(1);
+		assertThat(mine.getInProgressTickets()).isEqualTo(1);
+		assertThat(mine.getResolvedTickets()).isEqualTo(1);
+		assertThat(dashboardService.getAgentDashboard(otherAgent.getId()).getOpenTickets()).isEqualTo(1);
+	}
+
+	@Test
+	void bulkChangesMoveTheCounts() {
+		List<Long> ids = createTickets(5);
+
+		tx.executeWithoutResult(s -> bulkTicketService.assign(ids.subList(0, 3), otherAgent.getId(), 99L));
+		tx.executeWithoutResult(s -> bulkTicketService.updateStatus(ids, TicketStatus.CLOSED, 99L));
+
+		assertThat(statsRollup.verify()).isZero();
+		assertThat(dashboardService.getAdminDashboard().getClosedTickets()).isEqualTo(5);
+		assertThat(dashboardService.getAgentDashboard(otherAgent.getId()).getClosedTickets()).isEqualTo(3);
+	}
+
+	@Test
+	void rolledBackChangeLeavesTheRollupAlone() {
+		List<Long> ids = createTickets(1);
+
+		tx.executeWithoutResult(s -> {
+			ticketService.updateTicketStatus(ids.get(0), TicketStatus.CLOSED, customer.getId());
+			s.setRollbackOnly();
+		});
+
+		assertThat(statsRollup.verify()).isZero();
+		assertThat(dashboardService.getAdminDashboard().getOpenTickets()).isEqualTo(1);
+	}
+
+	@Test
+	void removedCustomerAndAgentAreTakenOut() {
+		createTickets(2);
+
+		tx.executeWithoutResult(s -> {
+			statsRollup.agentRemoved(agent.getId());
+			assignmentRepository.deleteByAgentId(agent.getId());
+		});
+		assertThat(statsRollup.verify()).isZero();
+		assertThat(dashboardService.getAdminDashboard().getAgentsOnline()).isZero();
+
+		tx.executeWithoutResult(s -> {
+			statsRollup.customerRemoved(customer.getId());
+			ticketRepository.deleteByCustomerId(customer.getId());
+		});
+		assertThat(statsRollup.verify()).isZero();
+		assertThat(dashboardService.getAdminDashboard().getTotalTickets()).isZero();
+	}
+
+	@Test
+	void verifierReportsAndRepairsDrift() {
+		createTickets(3);
+		// A change made behind the services' back
+		jdbcTemplate.update("UPDATE tickets SET status = 'CLOSED' WHERE id = (SELECT min(id) FROM tickets)");
+
+		assertThat(statsRollup.verify()).isEqualTo(2);
+		assertThat(statsRollup.verify()).isZero();
+		assertThat(dashboardService.getAdminDashboard().getClosedTickets()).isEqualTo(1);
+		assertThat(dashboardService.getAdminDashboard().getOpenTickets()).isEqualTo(2);
+	}
+
+	private List<Long> createTickets(int count) {
+		List<Long> ids = new ArrayList<>();
+		for (int i = 0; i < count; i++) {
+			TicketDTO dto = new TicketDTO();
+			dto.setTitle("Ticket " + i);
+			dto.setDescription("Cannot connect");
+			dto.setCategoryId(category.getId());
+			dto.setLocationId(location.getId());
+			ids.add(tx.execute(s -> ticketService.createTicket(dto, customer.getId())).getId());
+		}
+		return ids;
+	}
+}
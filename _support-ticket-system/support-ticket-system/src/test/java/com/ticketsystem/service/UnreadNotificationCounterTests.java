@@ -0,0 +1,205 @@
+package com.ticketsystem.service;
+
+import com.ticketsystem.model.User;
+import com.ticketsystem.model.UserRole;
+import com.ticketsystem.repository.NotificationRepository;
+import com.ticketsystem.repository.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.*;
+import java.util.concurrent.*;
+
+import static com.ticketsystem.TestFixtures.user;
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Creates and reads notifications in committed transactions and checks the
+ * counter table and the notifications agree.
+ */
+@DataJpaTest
+@ActiveProfiles("test")
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import({ NotificationService.class, NotificationOutbox.class, AdminRecipients.class,
+		UnreadNotificationCounter.class, DatabaseWrites.class })
+class UnreadNotificationCounterTests {
+
+	@Autowired
+	private NotificationService notificationService;
+
+	@Autowired
+	private UnreadNotificationCounter counter;
+
+	@Autowired
+	private AdminRecipients adminRecipients;
+
+	@Autowired
+	private UserRepository userRepository;
+
+	@Autowired
+	private NotificationRepository notificationRepository;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Autowired
+	private PlatformTransactionManager transactionManager;
+
+	private TransactionTemplate tx;
+
+	private List<User> admins;
+
+	private User customer;
+
+	@BeforeEach
+	void seed() {
+		tx = new TransactionTemplate(transactionManager);
+		tx.executeWithoutResult(status -> {
+			admins = new ArrayList<>();
+			for (int i = 0; i < 4; i++) {
+				admins.add(userRepository.save(user("admin" + i + "@example.com", UserRole.ADMIN)));
+			}
+			customer = userRepository.save(user("customer@example.com", UserRole.CUSTOMER));
+		});
+		adminRecipients.invalidate();
+		counter.reconcile();
+	}
+
+	@AfterEach
+	void cleanUp() {
+		tx.executeWithoutResult(status -> {
+			notificationRepository.deleteAll();
+			userRepository.deleteAll();
+		});
+		counter.reconcile();
+	}
+
+	@Test
+	void countsFollowCommittedNotificationsOnly() {
+		tx.executeWithoutResult(status -> {
+			notificationService.notifyAdmins("System: Ticket Assigned", "Ticket #1 assigned");
+			notificationService.notifyAdmins("System: Ticket Assigned", "Ticket #2 assigned");
+		});
+		tx.executeWithoutResult(status -> {
+			notificationService.notifyAdmins("System: Ticket Assigned", "Ticket #3 assigned");
+			status.setRollbackOnly();
+		});
+
+		for (User admin : admins) {
+			assertThat(counter.unread(admin.getId())).isEqualTo(2);
+			assertThat(storedCount(admin)).isEqualTo(2);
+		}
+		assertThat(counter.unread(customer.getId())).isZero();
+	}
+
+	@Test
+	void markReadAndMarkAllRead() {
+		User admin = admins.get(0);
+		tx.executeWithoutResult(status -> {
+			for (int i = 0; i < 5; i++) {
+				notificationService.notifyAdmins("System: Ticket Assigned", "Ticket #" + i + " assigned");
+			}
+		});
+		Long first = notificationRepository.findByRecipientIdOrderByCreatedAtDesc(admin.getId(),
+				org.springframework.data.domain.Pageable.unpaged()).getContent().get(0).getId();
+
+		assertThat(notificationService.markRead(admin.getId(), first)).isTrue();
+		assertThat(notificationService.markRead(admin.getId(), first)).isFalse();
+		// Someone else's notification is left alone
+		assertThat(notificationService.markRead(customer.getId(), first + 1)).isFalse();
+		assertThat(counter.unread(admin.getId())).isEqualTo(4);
+
+		assertThat(notificationService.markAllRead(admin.getId())).isEqualTo(4);
+		assertThat(counter.unread(admin.getId())).isZero();
+		assertThat(storedCount(admin)).isZero();
+		assertThat(notificationRepository.countByRecipientIdAndIsReadFalse(admin.getId())).isZero();
+		assertThat(counter.unread(admins.get(1).getId())).isEqualTo(5);
+	}
+
+	@Test
+	void reconcileRepairsDrift() {
+		tx.executeWithoutResult(status -> notificationService.notifyAdmins("System: User Deleted", "User 9 deleted"));
+		jdbcTemplate.update("UPDATE notification_unread_counts SET unread = 42");
+		counter.add(admins.get(0).getId(), 7);
+
+		counter.reconcile();
+
+		for (User admin : admins) {
+			assertThat(counter.unread(admin.getId())).isEqualTo(1);
+			assertThat(storedCount(admin)).isEqualTo(1);
+		}
+	}
+
+	@Test
+	void reconcileOnlyTouchesRowsThatDrifted() {
+		tx.executeWithoutResult(status -> notificationService.notifyAdmins("System: User Deleted", "User 9 deleted"));
+		jdbcTemplate.update("UPDATE notification_unread_counts SET unread = 5 WHERE user_id = ?",
+				admins.get(1).getId());
+		// A counter for a user whose notifications are all gone
+		jdbcTemplate.update("INSERT INTO notification_unread_counts (user_id, unread) VALUES (?, 3)",
+				customer.getId());
+
+		int rows = counterRows();
+
+		counter.reconcile();
+
+		assertThat(counter.unread(admins.get(1).getId())).isEqualTo(1);
+		assertThat(counter.unread(customer.getId())).isZero();
+		assertThat(storedCount(admins.get(0))).isEqualTo(1);
+		// Corrected in place rather than deleted and rebuilt
+		assertThat(counterRows()).isEqualTo(rows);
+	}
+
+	@Test
+	void concurrentFanOutsToTheSameUsersDoNotDeadlock() throws Exception {
+		int threads = 8;
+		int perThread = 50;
+		ExecutorService pool = Executors.newFixedThreadPool(threads);
+		List<Future<?>> runs = new ArrayList<>();
+		for (int t = 0; t < threads; t++) {
+			int thread = t;
+			runs.add(pool.submit(() -> {
+				for (int i = 0; i < perThread; i++) {
+					// Customer first on even threads, last on odd ones: opposite orders, same rows
+					tx.executeWithoutResult(status -> {
+						if (thread % 2 == 0)
+							counter.add(customer.getId(), 1);
+						notificationService.notifyAdmins("System: Ticket Status Update", "Update " + thread);
+						if (thread % 2 == 1)
+							counter.add(customer.getId(), 1);
+					});
+				}
+			}));
+		}
+		for (Future<?> run : runs) {
+			run.get(60, TimeUnit.SECONDS);
+		}
+		pool.shutdown();
+
+		for (User admin : admins) {
+			assertThat(counter.unread(admin.getId())).isEqualTo(threads * perThread);
+			assertThat(storedCount(admin)).isEqualTo(threads * perThread);
+		}
+		assertThat(counter.unread(customer.getId())).isEqualTo(threads * perThread);
+	}
+
+	private int counterRows() {
+		return jdbcTemplate.queryForObject("SELECT count(*) FROM notification_unread_counts", Integer.class);
+	}
+
+	private int storedCount(User user) {
+		List<Integer> rows = jdbcTemplate.queryForList(
+				"SELECT unread FROM notification_unread_counts WHERE user_id = ?", Integer.class, user.getId());
+		return rows.isEmpty() ? 0 : rows.get(0);
+	}
+}